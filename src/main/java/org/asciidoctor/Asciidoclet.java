@@ -1,5 +1,6 @@
 package org.asciidoctor;
 
+import com.google.common.base.Optional;
 import com.google.common.io.Files;
 import com.google.common.io.Resources;
 import com.sun.javadoc.DocErrorReporter;
@@ -11,6 +12,8 @@ import org.asciidoctor.asciidoclet.*;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * = Asciidoclet
@@ -193,8 +196,12 @@ public class Asciidoclet extends Doclet {
 
     // test use
     Asciidoclet(RootDoc rootDoc, DocletIterator iterator, Stylesheets stylesheets) {
+        this(rootDoc, new DocletOptions(rootDoc), iterator, stylesheets);
+    }
+
+    private Asciidoclet(RootDoc rootDoc, DocletOptions docletOptions, DocletIterator iterator, Stylesheets stylesheets) {
         this.rootDoc = rootDoc;
-        this.docletOptions = new DocletOptions(rootDoc);
+        this.docletOptions = docletOptions;
         this.iterator = iterator;
         this.stylesheets = stylesheets;
     }
@@ -274,23 +281,211 @@ public class Asciidoclet extends Doclet {
         return DocletOptions.validOptions(options, errorReporter, standardDoclet);
     }
 
-    boolean start(StandardAdapter standardDoclet) {
-        return run(standardDoclet)
-                && postProcess();
+    boolean start(final StandardAdapter standardDoclet) {
+        ClassDataSharing.check(rootDoc);
+        if (docletOptions.lint()) return lint();
+        if (!docletOptions.versions().isEmpty()) {
+            return new VersionedSite(docletOptions, rootDoc, stylesheets).generate(new JavadocLauncher(Asciidoclet.class),
+                    new VersionedSite.Documenter() {
+                        @Override
+                        public boolean document(RootDoc versionDoc, DocletOptions versionOptions) {
+                            return new Asciidoclet(versionDoc, versionOptions, iterator, new Stylesheets(versionOptions, versionDoc))
+                                    .document(standardDoclet);
+                        }
+                    });
+        }
+        Optional<StagedOutput> output;
+        try {
+            output = stagedOutput();
+        } catch (IOException e) {
+            rootDoc.printError(e.getLocalizedMessage());
+            return false;
+        }
+        boolean result = output.isPresent()
+                ? documentStaged(standardDoclet, output.get())
+                : document(standardDoclet);
+        if (result && docletOptions.watch() && !docletOptions.watching()) {
+            new DocletWatcher(docletOptions, rootDoc).watch(new JavadocLauncher(Asciidoclet.class));
+        }
+        return result;
+    }
+
+    private boolean document(StandardAdapter standardDoclet) {
+        RenderProfile profile = RenderProfile.create(docletOptions, rootDoc);
+        try {
+            return run(standardDoclet, profile)
+                    && postProcess(profile);
+        } finally {
+            profile.close(rootDoc);
+        }
+    }
+
+    private Optional<StagedOutput> stagedOutput() throws IOException {
+        if (!docletOptions.destDir().isPresent()) return Optional.absent();
+        if (docletOptions.archive().isPresent()) {
+            return Optional.<StagedOutput>of(new OutputArchive(docletOptions.archive().get(), docletOptions.destDir().get(), rootDoc));
+        }
+        if (docletOptions.syncOutput()) {
+            return Optional.<StagedOutput>of(new OutputSync(docletOptions.destDir().get(), rootDoc));
+        }
+        return Optional.absent();
     }
 
-    private boolean run(StandardAdapter standardDoclet) {
-        AsciidoctorRenderer renderer = new AsciidoctorRenderer(docletOptions, rootDoc);
+    /**
+     * Documents into a staging directory, then publishes the output from there.
+     * The `-d` option of the run points to the staging directory while it is documented.
+     */
+    private boolean documentStaged(StandardAdapter standardDoclet, StagedOutput output) {
+        if (!output.redirect(rootDoc)) return document(standardDoclet) && output.publish();
         try {
-            return iterator.render(rootDoc, renderer) &&
-                    standardDoclet.start(rootDoc);
+            DocletOptions stagedOptions = new DocletOptions(rootDoc);
+            return new Asciidoclet(rootDoc, stagedOptions, iterator, new Stylesheets(stagedOptions, rootDoc))
+                    .document(standardDoclet) && output.publish();
         } finally {
-            renderer.cleanup();
+            output.restore();
         }
     }
 
-    private boolean postProcess() {
-        if (docletOptions.stylesheetFile().isPresent()) return true;
-        return stylesheets.copy();
+    private boolean run(StandardAdapter standardDoclet, RenderProfile profile) {
+        HeapPeak heap = docletOptions.shutdownRuntime() ? HeapPeak.start() : null;
+        if (!render(profile)) return false;
+        long renderPeak = heap != null ? heap.next() : 0;
+        boolean result = docletOptions.noHtml() || generate(standardDoclet, profile);
+        if (heap != null) rootDoc.printNotice(HeapPeak.report(renderPeak, heap.next()));
+        return result;
+    }
+
+    private boolean generate(StandardAdapter standardDoclet, RenderProfile profile) {
+        long start = profile.start();
+        if (docletOptions.pageWriter()) {
+            PageWriter pageWriter = new PageWriter(docletOptions, rootDoc);
+            Optional<String> unsupported = pageWriter.prepare(rootDoc);
+            if (!unsupported.isPresent()) {
+                boolean result = pageWriter.write();
+                profile.phase("page-writer", start);
+                return result;
+            }
+            rootDoc.printNotice("Using the standard doclet, the page writer does not support " + unsupported.get());
+        }
+        boolean result = standardDoclet.start(rootDoc);
+        profile.phase("standard-doclet", start);
+        return result;
+    }
+
+    /**
+     * Renders all comments. The renderer is only reachable from here, so that with
+     * `-asciidoclet-shutdown-runtime` nothing refers to Asciidoctor once this returns.
+     */
+    private boolean render(RenderProfile profile) {
+        Optional<ImageAssets> assets = docletOptions.copyImages()
+                ? Optional.of(new ImageAssets(docletOptions, rootDoc)) : Optional.<ImageAssets>absent();
+        AsciidoctorRenderer.Builder builder = AsciidoctorRenderer.builder(docletOptions).profile(profile);
+        if (docletOptions.autolink()) builder.symbols(SymbolIndex.build(rootDoc));
+        if (assets.isPresent()) builder.assets(assets.get());
+        AsciidoctorRenderer renderer = builder.build(rootDoc);
+        List<RemoteCache> remotes = new ArrayList<RemoteCache>();
+        if (docletOptions.prerendered().isPresent()) {
+            try {
+                remotes.add(PreRenderStore.read(docletOptions.prerendered().get()));
+            } catch (IOException e) {
+                rootDoc.printWarning("Rendering all comments, as the pre-rendered comments could not be read: " + e.getMessage());
+            }
+        }
+        if (docletOptions.remoteCache().isPresent()) {
+            remotes.add(new HttpRemoteCache(docletOptions.remoteCache().get(), rootDoc));
+        }
+        for (RemoteCache remote : remotes) renderer.cacheRemotely(remote);
+        try {
+            return docletOptions.record().isPresent()
+                    ? record(renderer, assets, docletOptions.record().get(), profile)
+                    : render(renderer, assets, profile);
+        } finally {
+            for (RemoteCache remote : remotes) remote.close();
+            if (docletOptions.shutdownRuntime()) {
+                long start = profile.start();
+                renderer.shutdownRuntime();
+                profile.phase("runtime-shutdown", start);
+            } else {
+                renderer.cleanup();
+            }
+        }
+    }
+
+    private boolean render(AsciidoctorRenderer renderer, Optional<ImageAssets> assets, RenderProfile profile) {
+        boolean rendered = docletOptions.export().isPresent()
+                ? export(renderer, docletOptions.export().get())
+                : iterator.render(rootDoc, renderer);
+        if (!rendered) return false;
+        renderer.report(rootDoc);
+        return !assets.isPresent() || copyImages(assets.get(), profile);
+    }
+
+    private boolean record(AsciidoctorRenderer renderer, Optional<ImageAssets> assets, File file, RenderProfile profile) {
+        try {
+            RenderRecorder recorder = RenderRecorder.open(file, docletOptions);
+            renderer.recordTo(recorder);
+            boolean result;
+            try {
+                result = render(renderer, assets, profile);
+            } finally {
+                recorder.close();
+            }
+            rootDoc.printNotice("Recorded " + recorder.records() + " renders to " + file);
+            return result;
+        } catch (IOException e) {
+            rootDoc.printError("Error writing recording: " + e.getLocalizedMessage());
+            return false;
+        }
+    }
+
+    private boolean copyImages(ImageAssets assets, RenderProfile profile) {
+        long start = profile.start();
+        boolean result = assets.copy(docletOptions.destDir().or(new File(".")));
+        profile.phase("images", start);
+        return result;
+    }
+
+    private boolean export(AsciidoctorRenderer renderer, File file) {
+        try {
+            CommentExporter exporter = CommentExporter.open(file, renderer);
+            boolean result;
+            try {
+                result = iterator.render(rootDoc, exporter);
+            } finally {
+                exporter.close();
+            }
+            rootDoc.printNotice("Exported " + exporter.records() + " comments to " + file);
+            return result;
+        } catch (IOException e) {
+            rootDoc.printError("Error writing export file: " + e.getLocalizedMessage());
+            return false;
+        }
+    }
+
+    private boolean lint() {
+        AsciidocLinter linter = new AsciidocLinter(docletOptions, rootDoc);
+        try {
+            return iterator.render(rootDoc, linter)
+                    && linter.report();
+        } finally {
+            linter.cleanup();
+        }
+    }
+
+    private boolean postProcess(RenderProfile profile) {
+        if (docletOptions.noHtml()) return true;
+        if (!docletOptions.stylesheetFile().isPresent()) {
+            long start = profile.start();
+            boolean result = stylesheets.copy();
+            profile.phase("stylesheets", start);
+            if (!result) return false;
+        }
+        if (docletOptions.reproducible() && !docletOptions.noTimestamp()) {
+            long start = profile.start();
+            boolean result = new ReproducibleOutput(docletOptions, rootDoc).removeTimestamps();
+            profile.phase("timestamps", start);
+            return result;
+        }
+        return true;
     }
 }
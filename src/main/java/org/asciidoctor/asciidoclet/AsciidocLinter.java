@@ -0,0 +1,321 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Optional;
+import com.sun.javadoc.Doc;
+import com.sun.javadoc.DocErrorReporter;
+import org.asciidoctor.Asciidoctor;
+import org.asciidoctor.Options;
+import org.asciidoctor.internal.RubyHashUtil;
+import org.jruby.Ruby;
+import org.jruby.RubyArray;
+import org.jruby.RubyModule;
+import org.jruby.RubyString;
+import org.jruby.runtime.builtin.IRubyObject;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks the AsciiDoc in comments without generating any documentation.
+ *
+ * Each comment and tag is checked for delimited blocks that are never closed and for tables whose
+ * cells do not fill their columns, which Asciidoctor silently ends or drops at the end of the comment.
+ * It is then parsed by Asciidoctor, without being converted, and the warnings Asciidoctor prints
+ * while parsing are collected, such as missing `include::` files, tables without a leading separator
+ * or list items out of sequence. Attribute references that are not defined are found in the text of
+ * the parsed blocks. Problems are reported as warnings at the position of the commented element.
+ * Documents are not modified, so the standard doclet is not needed afterwards.
+ *
+ * The Java integration only offers a combined parse and conversion, so parsing is done by a small Ruby
+ * module in the JRuby runtime of the instance, written against Asciidoctor
+ * {@value AsciidoctorRuntime#RUBY_ASCIIDOCTOR_VERSION}. Asciidoctor prints its warnings to the
+ * standard error stream of Ruby, which is captured while a comment is parsed. With other releases,
+ * or instances without a JRuby runtime, each comment is converted to HTML instead, and only missing
+ * include files and attribute references left in the output are found.
+ */
+public class AsciidocLinter implements DocletRenderer {
+
+    private static final String SCRIPT = "require 'stringio'\n"
+            + "module AsciidocletLint\n"
+            + "  def self.check(input, options)\n"
+            + "    errors = StringIO.new\n"
+            + "    stderr, $stderr = $stderr, errors\n"
+            + "    begin\n"
+            + "      doc = Asciidoctor.load(input, options)\n"
+            + "    ensure\n"
+            + "      $stderr = stderr\n"
+            + "    end\n"
+            + "    problems = errors.string.lines.map {|line| line.chomp.sub(/^asciidoctor: (WARNING|ERROR): (<stdin>: )?/, '') }\n"
+            + "    names = []\n"
+            + "    unresolved(doc, doc, names)\n"
+            + "    problems + names.uniq.map {|name| \"unresolved attribute reference: {#{name}}\" }\n"
+            + "  end\n"
+            + "  def self.unresolved(doc, node, names)\n"
+            + "    texts = [node.instance_variable_get(:@title)]\n"
+            + "    case node\n"
+            + "    when Asciidoctor::Block\n"
+            + "      texts << node.lines * \"\\n\" if node.subs.include?(:attributes)\n"
+            + "    when Asciidoctor::ListItem\n"
+            + "      texts << node.instance_variable_get(:@text)\n"
+            + "    when Asciidoctor::Table\n"
+            + "      (node.rows.head + node.rows.body + node.rows.foot).flatten.each do |cell|\n"
+            + "        if cell.inner_document\n"
+            + "          unresolved(cell.inner_document, cell.inner_document, names)\n"
+            + "        else\n"
+            + "          texts << cell.instance_variable_get(:@text)\n"
+            + "        end\n"
+            + "      end\n"
+            + "    end\n"
+            // references in passthroughs and monospaced text are literal text
+            + "    texts.compact.each do |text|\n"
+            + "      node.extract_passthroughs(text).gsub(/\\+[^+\\n]+\\+/, '').scan(Asciidoctor::REGEXP[:attr_ref]) do\n"
+            + "        m = $~\n"
+            + "        next if m[1] || m[3] || m[4]\n"
+            + "        name = m[2].downcase\n"
+            + "        names << name unless doc.attributes.has_key?(name) || Asciidoctor::INTRINSICS.has_key?(name)\n"
+            + "      end\n"
+            + "    end\n"
+            + "    node.instance_variable_set(:@passthroughs, [])\n"
+            + "    children = node.is_a?(Asciidoctor::AbstractBlock) ? node.blocks.flatten.compact : []\n"
+            + "    children.each {|child| unresolved(doc, child, names) }\n"
+            + "  end\n"
+            + "end\n";
+
+    private final Asciidoctor asciidoctor;
+    private final Optional<Ruby> ruby;
+    private final Optional<AsciidoctorRuntime.Lease> lease;
+    private final Options options;
+    private final File basedir;
+    private final DocErrorReporter errorReporter;
+    private int checked;
+    private int warnings;
+
+    public AsciidocLinter(DocletOptions docletOptions, DocErrorReporter errorReporter) {
+        this(docletOptions, errorReporter, AsciidoctorRuntime.SHARED.acquire(errorReporter, RenderProfile.DISABLED, false));
+    }
+
+    private AsciidocLinter(DocletOptions docletOptions, DocErrorReporter errorReporter, AsciidoctorRuntime.Lease lease) {
+        this(docletOptions, errorReporter, lease.asciidoctor(), Optional.of(lease));
+    }
+
+    /**
+     * Constructor used directly for testing purposes only.
+     */
+    protected AsciidocLinter(DocletOptions docletOptions, DocErrorReporter errorReporter, Asciidoctor asciidoctor) {
+        this(docletOptions, errorReporter, asciidoctor, Optional.<AsciidoctorRuntime.Lease>absent());
+    }
+
+    private AsciidocLinter(DocletOptions docletOptions, DocErrorReporter errorReporter, Asciidoctor asciidoctor,
+                           Optional<AsciidoctorRuntime.Lease> lease) {
+        this.asciidoctor = asciidoctor;
+        this.ruby = AsciidoctorRuntime.scriptedRuntime(asciidoctor, SCRIPT);
+        this.lease = lease;
+        this.errorReporter = errorReporter;
+        this.options = AsciidoctorRenderer.buildOptions(docletOptions, Optional.<OutputTemplates>absent());
+        this.basedir = docletOptions.includeBasedir().or(new File(System.getProperty("user.dir")));
+    }
+
+    /**
+     * Checks the comment and tags of a document.
+     *
+     * @param doc input
+     */
+    @Override
+    public void renderDoc(Doc doc) {
+        JavadocComment comment = JavadocComment.parse(doc.getRawCommentText());
+        check(doc, comment.body(), false);
+        for (JavadocComment.Tag tag : comment.tags()) {
+            check(doc, tag.text(), true);
+        }
+    }
+
+    /**
+     * Prints a summary of the check.
+     *
+     * @return true if no problems were found
+     */
+    public boolean report() {
+        errorReporter.printNotice("Checked " + checked + " comments and tags, " + warnings + " warning(s)");
+        return warnings == 0;
+    }
+
+    public void cleanup() {
+        if (lease.isPresent()) lease.get().release();
+    }
+
+    private void check(Doc doc, String input, boolean inline) {
+        String source = AsciidoctorRenderer.cleanJavadocInput(input);
+        if (source.isEmpty()) return;
+        checked++;
+        for (String problem : structureProblems(source)) warn(doc, problem);
+
+        options.setDocType(inline ? AsciidoctorRenderer.INLINE_DOCTYPE : null);
+        if (ruby.isPresent()) {
+            for (String problem : parse(source)) warn(doc, problem);
+            return;
+        }
+        checkIncludes(doc, source);
+        String output = asciidoctor.render(source, options);
+        if (output != null) checkAttributes(doc, source, output);
+    }
+
+    private List<String> parse(String source) {
+        Ruby runtime = ruby.get();
+        RubyModule module = runtime.getModule("AsciidocletLint");
+        IRubyObject problems = module.callMethod(runtime.getCurrentContext(), "check", new IRubyObject[]{
+                RubyString.newUnicodeString(runtime, source),
+                RubyHashUtil.convertMapToRubyHashWithSymbols(runtime, options.map())});
+        List<String> result = new ArrayList<String>();
+        for (Object problem : (RubyArray) problems) result.add(problem.toString());
+        return result;
+    }
+
+    /**
+     * Finds delimited blocks that are not closed and tables whose cells do not fill their columns.
+     * Delimiters inside verbatim blocks and tables are content, and a block is only closed by a line
+     * equal to the one that opened it.
+     *
+     * @param source AsciiDoc source of a comment
+     * @return descriptions of the problems, with line numbers relative to the comment
+     */
+    static List<String> structureProblems(String source) {
+        List<String> problems = new ArrayList<String>();
+        LinkedList<OpenBlock> blocks = new LinkedList<OpenBlock>();
+        String previous = "";
+        String[] lines = source.split("\n", -1);
+        for (int i = 0; i < lines.length; i++) {
+            String trimmed = lines[i].trim();
+            OpenBlock top = blocks.peek();
+            if (top != null && trimmed.equals(top.closing)) {
+                blocks.pop();
+                if (top.table != null) checkTable(top, problems);
+            }
+            else if ((top == null || top.compound) && JavadocComment.DELIMITER_PATTERN.matcher(trimmed).matches()) {
+                blocks.push(new OpenBlock(trimmed, i + 1, previous.startsWith("[") ? previous : ""));
+            }
+            else if (top != null && top.table != null) {
+                top.table.add(lines[i]);
+            }
+            if (!trimmed.isEmpty()) previous = trimmed;
+        }
+        // an unclosed block takes the closing lines of the blocks around it
+        if (!blocks.isEmpty()) {
+            OpenBlock innermost = blocks.peek();
+            problems.add("unterminated " + innermost.kind() + " block opened at line " + innermost.line);
+        }
+        return problems;
+    }
+
+    private static void checkTable(OpenBlock table, List<String> problems) {
+        if (table.attributes.contains("format=") || table.attributes.contains("separator=")) return;
+        int columns = 0;
+        Matcher cols = COLS_PATTERN.matcher(table.attributes);
+        if (cols.find()) {
+            String spec = cols.group(1) != null ? cols.group(1) : cols.group(2);
+            Matcher repeat = REPEAT_PATTERN.matcher(spec.trim());
+            columns = repeat.matches() ? Integer.parseInt(repeat.group(1)) : spec.split("[,;]").length;
+        }
+        int cells = 0;
+        for (String line : table.table) {
+            int lineCells = 0;
+            for (int start = 0, end = line.indexOf('|'); end >= 0; start = end + 1, end = line.indexOf('|', start)) {
+                if (end > 0 && line.charAt(end - 1) == '\\') continue;
+                Matcher spec = CELL_SPEC_PATTERN.matcher(line.substring(start, end));
+                if (!spec.find()) {
+                    lineCells++;
+                    continue;
+                }
+                // rows spanned by a cell change the count of the rows below, which is not followed here
+                if (spec.group(3) != null) return;
+                lineCells += (spec.group(1) != null ? Integer.parseInt(spec.group(1)) : 1)
+                        * (spec.group(2) != null ? Integer.parseInt(spec.group(2)) : 1);
+            }
+            if (columns == 0) columns = lineCells;
+            cells += lineCells;
+        }
+        if (columns > 0 && cells % columns != 0) {
+            problems.add("table opened at line " + table.line + " has " + cells + " cells, which do not fill its "
+                    + columns + " columns");
+        }
+    }
+
+    private static class OpenBlock {
+        final String closing;
+        final int line;
+        final String attributes;
+        final boolean compound;
+        final List<String> table;
+
+        OpenBlock(String opening, int line, String attributes) {
+            this.closing = JavadocComment.closingDelimiter(opening);
+            this.line = line;
+            this.attributes = attributes;
+            this.compound = JavadocComment.COMPOUND_DELIMITER_PATTERN.matcher(opening).matches();
+            this.table = opening.equals("|===") ? new ArrayList<String>() : null;
+        }
+
+        String kind() {
+            switch (closing.charAt(0)) {
+                case '-': return closing.equals("--") ? "open" : "listing";
+                case '.': return "literal";
+                case '+': return "passthrough";
+                case '/': return "comment";
+                case '=': return "example";
+                case '_': return "quote";
+                case '*': return "sidebar";
+                case '|': return "table";
+                default: return "fenced code";
+            }
+        }
+    }
+
+    private void checkIncludes(Doc doc, String source) {
+        Matcher matcher = INCLUDE_PATTERN.matcher(source);
+        while (matcher.find()) {
+            String target = matcher.group(1);
+            if (target.contains("{") || target.contains("://")) continue;
+            File file = new File(target);
+            if (!file.isAbsolute()) file = new File(basedir, target);
+            if (!file.exists()) warn(doc, "include file not found: " + target + " (resolved to " + file + ")");
+        }
+    }
+
+    private void checkAttributes(Doc doc, String source, String output) {
+        Set<String> unresolved = new LinkedHashSet<String>();
+        // references in listings, monospaced text and passthroughs are literal text
+        Matcher matcher = ATTRIBUTE_REFERENCE_PATTERN.matcher(LITERAL_OUTPUT_PATTERN.matcher(output).replaceAll(""));
+        String text = PASSTHROUGH_PATTERN.matcher(source).replaceAll("");
+        while (matcher.find()) {
+            String reference = matcher.group();
+            int index = text.indexOf(reference);
+            while (index > 0 && text.charAt(index - 1) == '\\') index = text.indexOf(reference, index + 1);
+            if (index >= 0) unresolved.add(matcher.group(1));
+        }
+        for (String name : unresolved) warn(doc, "unresolved attribute reference: {" + name + "}");
+    }
+
+    private void warn(Doc doc, String message) {
+        warnings++;
+        if (doc.position() != null) errorReporter.printWarning(doc.position(), message);
+        else errorReporter.printWarning(message);
+    }
+
+    private static final Pattern COLS_PATTERN = Pattern.compile("cols=(?:\"([^\"]*)\"|([^,\\]]*))");
+    private static final Pattern REPEAT_PATTERN = Pattern.compile("(\\d+)\\*.*");
+    /**
+     * Cell specification in front of a separator: repeat count, column span and row span.
+     */
+    private static final Pattern CELL_SPEC_PATTERN = Pattern.compile(
+            "(?:^|\\s)(?:(\\d+)\\*)?(?:(\\d+)?(?:\\.(\\d+))?\\+)?[<^>]?(?:\\.[<^>])?[adehlmsv]?$");
+    private static final Pattern INCLUDE_PATTERN = Pattern.compile("(?m)^include::([^\\[\\n]+)\\[");
+    private static final Pattern ATTRIBUTE_REFERENCE_PATTERN = Pattern.compile("\\{([A-Za-z0-9_][A-Za-z0-9_-]*)\\}");
+    private static final Pattern LITERAL_OUTPUT_PATTERN = Pattern.compile("(?s)<(pre|code)[ >].*?</\\1>");
+    private static final Pattern PASSTHROUGH_PATTERN = Pattern.compile(
+            "(?s)\\+\\+\\+.*?\\+\\+\\+|\\$\\$.*?\\$\\$|pass:[a-z,]*\\[.*?\\]|\\+[^+\\n]+\\+|`[^`\\n]+`");
+}
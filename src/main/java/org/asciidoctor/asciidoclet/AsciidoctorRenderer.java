@@ -1,13 +1,23 @@
 package org.asciidoctor.asciidoclet;
 
 import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.sun.javadoc.ClassDoc;
 import com.sun.javadoc.Doc;
 import com.sun.javadoc.DocErrorReporter;
-import com.sun.javadoc.Tag;
+import com.sun.javadoc.MemberDoc;
 import org.asciidoctor.*;
 
-import static org.asciidoctor.Asciidoctor.Factory.create;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.security.CodeSource;
+import java.util.*;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.regex.Pattern;
 
 /**
  * Doclet renderer using and configuring Asciidoctor.
@@ -23,9 +33,7 @@ public class AsciidoctorRenderer implements DocletRenderer {
                 .attribute("icons", null)
                 .attribute("idprefix", "")
                 .attribute("javadoc", "")
-                .attribute("notitle", null)
-                .attribute("source-highlighter", "coderay")
-                .attribute("coderay-css", "class");
+                .attribute("notitle", null);
     }
 
     private static OptionsBuilder defaultOptions() {
@@ -39,31 +47,255 @@ public class AsciidoctorRenderer implements DocletRenderer {
 
     private final Asciidoctor asciidoctor;
     private final Optional<OutputTemplates> templates;
-    private final Options options;
+    private final Optional<AsciidoctorRuntime.Lease> lease;
+    private final RenderOptions renderOptions;
+    private final boolean coderay;
+    private final Optional<RubyLibraries> libraries;
+    private final Optional<HtmlMinifier> minifier;
+    private final RenderProfile profile;
+    private final Optional<RenderCache> cache;
+    private final String fingerprint;
+    private final String remoteFingerprint;
+    private final Optional<SymbolIndex> symbols;
+    private final Optional<ImageAssets> assets;
+    private final Optional<BackendConverter> converter;
+    private final Optional<CommentClassifier> classifier;
+    private final Optional<BlockCache> blockCache;
+    private List<String[]> alternateOutputs = new ArrayList<String[]>();
+    private Map<String, JavadocComment> alternates = Collections.emptyMap();
+    private JavadocComment rendered = JavadocComment.parse("");
+    private Optional<RenderRecorder> recorder = Optional.absent();
+    private final List<RemoteTier> remotes = new ArrayList<RemoteTier>();
+    private int cacheHits;
+    private int cacheLookups;
 
     public AsciidoctorRenderer(DocletOptions docletOptions, DocErrorReporter errorReporter) {
-        this(docletOptions, OutputTemplates.create(errorReporter), create());
+        this(builder(docletOptions), AsciidoctorRuntime.SHARED.acquire(errorReporter, RenderProfile.DISABLED));
     }
 
     /**
      * Constructor used directly for testing purposes only.
      */
     protected AsciidoctorRenderer(DocletOptions docletOptions, Optional<OutputTemplates> templates, Asciidoctor asciidoctor) {
+        this(builder(docletOptions), templates, asciidoctor, Optional.<AsciidoctorRuntime.Lease>absent());
+    }
+
+    private AsciidoctorRenderer(Builder builder, AsciidoctorRuntime.Lease lease) {
+        this(builder, lease.templates(), lease.asciidoctor(), Optional.of(lease));
+    }
+
+    private AsciidoctorRenderer(Builder builder, Optional<OutputTemplates> templates, Asciidoctor asciidoctor,
+                                Optional<AsciidoctorRuntime.Lease> lease) {
+        DocletOptions docletOptions = builder.docletOptions;
         this.asciidoctor = asciidoctor;
         this.templates = templates;
-        this.options = buildOptions(docletOptions, templates);
+        this.lease = lease;
+        this.profile = builder.profile;
+        Options options = buildOptions(docletOptions, templates);
+        this.fingerprint = options.map().toString();
+        this.remoteFingerprint = remoteFingerprint(options, templates.isPresent());
+        this.renderOptions = new RenderOptions(docletOptions, templates);
+        this.coderay = !Iterables.any(docletOptions.attributes(), new Predicate<String>() {
+            @Override
+            public boolean apply(String attribute) {
+                return attribute.startsWith("source-highlighter");
+            }
+        });
+        this.libraries = lease.isPresent() ? Optional.of(lease.get().libraries()) : Optional.<RubyLibraries>absent();
+        this.minifier = docletOptions.minify() ? Optional.of(new HtmlMinifier()) : Optional.<HtmlMinifier>absent();
+        boolean remoteCache = docletOptions.remoteCache().isPresent() || docletOptions.prerendered().isPresent();
+        this.cache = lease.isPresent() && (docletOptions.watch() || docletOptions.versioned() || remoteCache)
+                ? Optional.of(lease.get().cache())
+                : remoteCache ? Optional.of(new RenderCache()) : Optional.<RenderCache>absent();
+        this.symbols = builder.symbols;
+        this.assets = builder.assets;
+        this.converter = docletOptions.backends().isEmpty() ? Optional.<BackendConverter>absent()
+                : Optional.of(new BackendConverter(asciidoctor, docletOptions.backends()));
+        this.classifier = docletOptions.detectHtml() ? Optional.of(new CommentClassifier(docletOptions)) : Optional.<CommentClassifier>absent();
+        this.blockCache = docletOptions.blockCache()
+                ? Optional.of(new BlockCache(lease.isPresent() ? lease.get().cache() : new RenderCache(), fingerprint,
+                        remoteFingerprint))
+                : Optional.<BlockCache>absent();
+    }
+
+    /**
+     * @param docletOptions options of the run
+     * @return a builder of a renderer with the profile, symbol index or image assets of the run
+     */
+    public static Builder builder(DocletOptions docletOptions) {
+        return new Builder(docletOptions);
+    }
+
+    /**
+     * Builds a renderer with what a run adds to its doclet options.
+     */
+    public static class Builder {
+        private final DocletOptions docletOptions;
+        private RenderProfile profile = RenderProfile.DISABLED;
+        private Optional<SymbolIndex> symbols = Optional.absent();
+        private Optional<ImageAssets> assets = Optional.absent();
+
+        private Builder(DocletOptions docletOptions) {
+            this.docletOptions = docletOptions;
+        }
+
+        /**
+         * @param profile receives the timings of each render
+         */
+        public Builder profile(RenderProfile profile) {
+            this.profile = profile;
+            return this;
+        }
+
+        /**
+         * @param symbols links the names of documented types and members in rendered comments
+         */
+        public Builder symbols(SymbolIndex symbols) {
+            this.symbols = Optional.of(symbols);
+            return this;
+        }
+
+        /**
+         * @param assets copies the images referenced from rendered comments
+         */
+        public Builder assets(ImageAssets assets) {
+            this.assets = Optional.of(assets);
+            return this;
+        }
+
+        /**
+         * Builds a renderer on the shared Asciidoctor runtime.
+         *
+         * @param errorReporter receives the errors of setting up the runtime
+         */
+        public AsciidoctorRenderer build(DocErrorReporter errorReporter) {
+            return new AsciidoctorRenderer(this, AsciidoctorRuntime.SHARED.acquire(errorReporter, profile));
+        }
+
+        /**
+         * Builds a renderer on the given Asciidoctor instance, for testing purposes only.
+         */
+        AsciidoctorRenderer build(Optional<OutputTemplates> templates, Asciidoctor asciidoctor) {
+            return new AsciidoctorRenderer(this, templates, asciidoctor, Optional.<AsciidoctorRuntime.Lease>absent());
+        }
+    }
+
+    /**
+     * The options of renders, picked for each input: templates only apply to paragraphs and sections,
+     * which inline renders do not have, and source blocks are marked by a `source` style or a fenced
+     * delimiter, unless they are included from another file. The output is the same as with all options.
+     *
+     * {@link RenderReplay} picks the options of recorded inputs the same way.
+     */
+    static class RenderOptions {
+        private final DoctypeOptions block;
+        private final DoctypeOptions inline;
+
+        RenderOptions(DocletOptions docletOptions, Optional<OutputTemplates> templates) {
+            this.block = new DoctypeOptions(buildOptions(docletOptions, templates, false),
+                    buildOptions(docletOptions, templates, true), null);
+            this.inline = new DoctypeOptions(buildOptions(docletOptions, Optional.<OutputTemplates>absent(), false),
+                    buildOptions(docletOptions, Optional.<OutputTemplates>absent(), true), INLINE_DOCTYPE);
+        }
+
+        /**
+         * @param input cleaned AsciiDoc source
+         * @param inline whether to render with the inline doctype
+         * @return the options to render the input with
+         */
+        Options get(String input, boolean inline) {
+            return (inline ? this.inline : block).get(highlights(input));
+        }
+
+        static boolean highlights(String input) {
+            return SOURCE_PATTERN.matcher(input).find();
+        }
+    }
+
+    /**
+     * The options of one doctype, without and with source highlighting.
+     */
+    private static class DoctypeOptions {
+        final Options plain;
+        final Options highlighted;
+
+        /**
+         * @param doctype the doctype, or null for the default one
+         */
+        DoctypeOptions(Options plain, Options highlighted, String doctype) {
+            this.plain = plain;
+            this.highlighted = highlighted;
+            plain.setDocType(doctype);
+            highlighted.setDocType(doctype);
+        }
+
+        Options get(boolean highlight) {
+            return highlight ? highlighted : plain;
+        }
+    }
+
+    /**
+     * Identifies the options on any machine: the template directory and the include base directory
+     * are local paths, so the templates are identified by a hash of their content instead. The versions
+     * of Asciidoclet, Asciidoctor and JRuby are included, as other versions may render differently.
+     */
+    static String remoteFingerprint(Options options, boolean templates) {
+        Map<String, Object> portable = new TreeMap<String, Object>(options.map());
+        portable.remove(Options.TEMPLATE_DIRS);
+        portable.remove(Options.BASEDIR);
+        return portable.toString() + (templates ? OutputTemplates.hash() : "") + VERSIONS;
+    }
+
+    static final String VERSIONS = "asciidoclet " + version(AsciidoctorRenderer.class)
+            + ", asciidoctor " + version(Asciidoctor.class) + ", jruby " + org.jruby.runtime.Constants.VERSION;
+
+    /**
+     * Reads the version from the manifest of the jar of the class. The package of a class does not
+     * tell, as `org.asciidoctor` is split between Asciidoclet and the Java integration, and is defined
+     * by whichever jar a class is loaded from first.
+     *
+     * @return the version in the manifest of the jar of the class, or "dev" when run from classes
+     */
+    private static String version(Class<?> type) {
+        CodeSource source = type.getProtectionDomain().getCodeSource();
+        if (source == null || !source.getLocation().getPath().endsWith(".jar")) return "dev";
+        try {
+            JarFile jar = new JarFile(new File(source.getLocation().toURI()));
+            try {
+                Manifest manifest = jar.getManifest();
+                String version = manifest == null ? null
+                        : manifest.getMainAttributes().getValue(java.util.jar.Attributes.Name.IMPLEMENTATION_VERSION);
+                return version != null ? version : "dev";
+            } finally {
+                jar.close();
+            }
+        } catch (IOException e) {
+            return "dev";
+        } catch (URISyntaxException e) {
+            return "dev";
+        }
+    }
+
+    static Options buildOptions(DocletOptions docletOptions, Optional<OutputTemplates> templates) {
+        return buildOptions(docletOptions, templates, true);
     }
 
-    private Options buildOptions(DocletOptions docletOptions, Optional<OutputTemplates> templates) {
+    /**
+     * @param highlight whether to highlight source blocks with CodeRay, which is loaded by the first render that does
+     */
+    private static Options buildOptions(DocletOptions docletOptions, Optional<OutputTemplates> templates, boolean highlight) {
         OptionsBuilder opts = defaultOptions();
         if (docletOptions.includeBasedir().isPresent()) opts.baseDir(docletOptions.includeBasedir().get());
         if (templates.isPresent()) opts.templateDir(templates.get().templateDir());
-        opts.attributes(buildAttributes(docletOptions));
+        opts.attributes(buildAttributes(docletOptions, highlight));
         return opts.get();
     }
 
-    private Attributes buildAttributes(DocletOptions docletOptions) {
-        return defaultAttributes()
+    private static Attributes buildAttributes(DocletOptions docletOptions, boolean highlight) {
+        AttributesBuilder attributes = defaultAttributes();
+        if (highlight) attributes.attribute("source-highlighter", "coderay").attribute("coderay-css", "class");
+        if (docletOptions.reproducible()) attributes.attributes(ReproducibleOutput.dateAttributes());
+        return attributes
                 .arguments(Iterables.toArray(docletOptions.attributes(), String.class))
                 .get();
     }
@@ -71,38 +303,174 @@ public class AsciidoctorRenderer implements DocletRenderer {
     /**
      * Renders a generic document (class, field, method, etc)
      *
+     * The raw comment is tokenized once and the rendered result is set on the document in a single
+     * call, so the Javadoc tool only parses the comment once more, after rendering.
+     *
      * @param doc input
      */
     @Override
     public void renderDoc(Doc doc) {
-        // hide text that looks like tags (such as annotations in source code) from Javadoc
-        doc.setRawCommentText(doc.getRawCommentText().replaceAll("@([A-Z])", "{@literal @}$1"));
+        if (!remotes.isEmpty() && cache.isPresent() && !converter.isPresent() && !(doc instanceof MemberDoc)) fetch(doc);
+        String raw = doc.getRawCommentText();
+        String rendered = renderComment(doc, raw);
+        if (!rendered.equals(raw)) doc.setRawCommentText(rendered);
+    }
+
+    /**
+     * Renders a raw comment, main description and block tags, to the text the Javadoc tool expects.
+     * With `-asciidoclet-detect-html`, HTML comments are returned as they are.
+     *
+     * @param doc document the comment belongs to, for the profile and file marker; may be `null`
+     * @param raw comment text
+     * @return rendered comment
+     */
+    String renderComment(Doc doc, String raw) {
+        if (classifier.isPresent() && classifier.get().classify(doc, raw) == CommentClassifier.Format.HTML) {
+            alternates = Collections.emptyMap();
+            rendered = JavadocComment.parse(raw);
+            return raw;
+        }
+        JavadocComment comment = JavadocComment.parse(raw);
+        alternateOutputs.clear();
 
         StringBuilder buffer = new StringBuilder();
-        buffer.append(render(doc.commentText(), false));
+        String body = link(render(doc, comment.body(), false));
+        buffer.append(body);
         buffer.append('\n');
-        for ( Tag tag : doc.tags() ) {
-            renderTag(tag, buffer);
+        List<JavadocComment.Tag> tags = new ArrayList<JavadocComment.Tag>(comment.tags().size());
+        for ( JavadocComment.Tag tag : comment.tags() ) {
+            String output = renderTag(doc, tag);
+            buffer.append(tag.name()).append(' ').append(output);
             buffer.append('\n');
+            tags.add(new JavadocComment.Tag(tag.name(), output));
         }
-        doc.setRawCommentText(buffer.toString());
+        rendered = new JavadocComment(body, tags);
+        if (converter.isPresent()) alternates = converter.get().comments(comment, alternateOutputs);
+        return buffer.toString();
+    }
+
+    /**
+     * Renders a fragment of a comment, such as the text of a block tag, with the inline doctype.
+     *
+     * @param input AsciiDoc source
+     * @return rendered fragment
+     */
+    String renderInline(String input) {
+        alternateOutputs.clear();
+        return link(render(null, input, true));
+    }
+
+    /**
+     * The last rendered comment, with the output of its main description and of each block tag,
+     * as the Javadoc tool would parse it from the rendered text.
+     *
+     * @return rendered comment
+     */
+    public JavadocComment rendered() {
+        return rendered;
+    }
+
+    /**
+     * The last rendered comment in each backend given with `-asciidoclet-backends`, rendered from the
+     * same parse as the main output.
+     *
+     * @return comments by backend, empty without additional backends
+     */
+    public Map<String, JavadocComment> alternates() {
+        return alternates;
     }
 
+    /**
+     * Records each Asciidoctor render from now on.
+     *
+     * @param recorder receives the renders
+     */
+    public void recordTo(RenderRecorder recorder) {
+        this.recorder = Optional.of(recorder);
+    }
+
+    /**
+     * Looks up rendered comments and tags in a remote cache first, and stores those rendered here in it.
+     * Remote caches are looked up in the order they are added, each for what the previous ones did not have.
+     *
+     * @param remote cache kept outside of this run
+     */
+    public void cacheRemotely(RemoteCache remote) {
+        remotes.add(new RemoteTier(remote));
+        if (blockCache.isPresent()) blockCache.get().cacheRemotely(remote);
+    }
+
+    /**
+     * Prints statistics about the documents rendered so far.
+     *
+     * @param errorReporter receives the statistics as notices
+     */
+    public void report(DocErrorReporter errorReporter) {
+        if (profile.enabled() && libraries.isPresent()) {
+            errorReporter.printNotice(libraries.get().report());
+        }
+        if (classifier.isPresent()) {
+            classifier.get().report(errorReporter);
+        }
+        if (blockCache.isPresent()) {
+            blockCache.get().report(errorReporter);
+        }
+        for (RemoteTier remote : remotes) {
+            errorReporter.printNotice("Fetched " + remote.hits + " of " + remote.lookups + " rendered comments and tags from "
+                    + remote.cache.description() + (remote.stores > 0 ? ", and stored " + remote.stores : ""));
+        }
+        if (cache.isPresent()) {
+            errorReporter.printNotice("Reused " + cacheHits + " of " + cacheLookups + " rendered comments and tags from the cache");
+        }
+        if (symbols.isPresent()) {
+            errorReporter.printNotice("Linked " + symbols.get().links() + " type and member names");
+        }
+        if (minifier.isPresent()) {
+            errorReporter.printNotice("Minified rendered HTML by " + minifier.get().saved() + " of "
+                    + minifier.get().inputLength() + " bytes");
+        }
+    }
+
+    /**
+     * Releases the shared Asciidoctor runtime, or deletes the templates if they are not shared.
+     */
     public void cleanup() {
-        if (templates.isPresent()) templates.get().delete();
+        if (lease.isPresent()) lease.get().release();
+        else if (templates.isPresent()) templates.get().delete();
+    }
+
+    /**
+     * Like {@link #cleanup()}, but also tears down the shared Asciidoctor runtime unless another run still uses it.
+     *
+     * @return true if the runtime was torn down
+     */
+    public boolean shutdownRuntime() {
+        if (!lease.isPresent()) {
+            cleanup();
+            return false;
+        }
+        return lease.get().shutdown();
     }
 
     /**
      * Renders a document tag in the standard way.
      *
+     * @param doc document the tag belongs to
      * @param tag input
-     * @param buffer output buffer
+     * @return rendered tag text
+     */
+    private String renderTag(Doc doc, JavadocComment.Tag tag) {
+        String output = render(doc, tag.text(), true);
+        return REFERENCE_TAGS.contains(tag.name()) ? output : link(output);
+    }
+
+    /**
+     * Block tags starting with a reference, which must not be turned into a link.
      */
-    private void renderTag(Tag tag, StringBuilder buffer) {
-        //print out directly
-        buffer.append(tag.name());
-        buffer.append(" ");
-        buffer.append(render(tag.text(), true));
+    private static final Set<String> REFERENCE_TAGS = ImmutableSet.of("@see", "@throws", "@exception", "@serialField");
+
+    private String link(String output) {
+        return symbols.isPresent() ? symbols.get().link(output) : output;
     }
 
     /**
@@ -112,14 +480,187 @@ public class AsciidoctorRenderer implements DocletRenderer {
      * end line (e.g., `"\n "`), which gets left behind by the Javadoc
      * processor.
      *
+     * The result is then minified and its local images collected, if enabled,
+     * and any `@` starting a line of the result is escaped, so the Javadoc tool does not mistake it for
+     * a block tag (e.g., annotations in listings).
+     *
+     * @param doc document the input belongs to
      * @param input AsciiDoc source
      * @return content rendered by Asciidoctor
      */
-    private String render(String input, boolean inline) {
-        options.setDocType(inline ? INLINE_DOCTYPE : null);
-        return asciidoctor.render(cleanJavadocInput(input), options);
+    private String render(Doc doc, String input, boolean inline) {
+        Options options = options(input, inline);
+        long start = profile.start();
+        String cleanInput = cleanJavadocInput(input);
+        long cleaned = recorder.isPresent() ? System.nanoTime() : profile.start();
+        String output;
+        if (converter.isPresent()) {
+            String[] outputs = converter.get().render(cleanInput, options);
+            alternateOutputs.add(outputs);
+            output = outputs[0];
+        } else {
+            output = renderCached(cleanInput, inline, options);
+        }
+        long rendered = recorder.isPresent() ? System.nanoTime() : profile.start();
+        if (recorder.isPresent()) recorder.get().record(cleanInput, inline, output, rendered - cleaned);
+        if (minifier.isPresent()) output = minifier.get().minify(output);
+        if (assets.isPresent()) output = assets.get().rewrite(output);
+        output = escapeTagStarts(output);
+        if (profile.enabled()) profile.render(doc, inline, input.length(), output == null ? 0 : output.length(), start, cleaned, rendered);
+        return output;
+    }
+
+    /**
+     * Picks the options a render needs, see {@link RenderOptions}, so that JRuby loads the Ruby libraries
+     * of templates and source highlighting when they are first used.
+     */
+    private Options options(String input, boolean inline) {
+        if (libraries.isPresent()) {
+            if (!inline && templates.isPresent()) libraries.get().require(RubyLibraries.TILT, profile);
+            if (coderay && RenderOptions.highlights(input)) libraries.get().require(RubyLibraries.CODERAY, profile);
+        }
+        return renderOptions.get(input, inline);
     }
 
+    private static final Pattern SOURCE_PATTERN = Pattern.compile("source|```|~~~|include::");
+
+    /**
+     * Fetches the rendered comments and tags of a document from the remote caches into the local one,
+     * in a single lookup per cache together with those of its members if it is a class.
+     */
+    private void fetch(Doc doc) {
+        long start = profile.start();
+        Map<String, String> keys = new LinkedHashMap<String, String>();
+        addKeys(doc, keys);
+        if (doc instanceof ClassDoc) {
+            for (MemberDoc member : DocletIterator.members((ClassDoc) doc)) addKeys(member, keys);
+        }
+        for (RemoteTier remote : remotes) {
+            if (keys.isEmpty()) break;
+            Map<String, String> outputs = remote.cache.lookup(keys.keySet());
+            remote.lookups += keys.size();
+            for (Map.Entry<String, String> output : outputs.entrySet()) {
+                String key = keys.remove(output.getKey());
+                if (key == null) continue;
+                cache.get().put(key, output.getValue());
+                remote.hits++;
+            }
+        }
+        profile.phase("remote-cache", start);
+    }
+
+    /**
+     * Adds the remote and local keys of the comment and tags of a document that are not cached locally.
+     */
+    private void addKeys(Doc doc, Map<String, String> keys) {
+        String raw = doc.getRawCommentText();
+        if (raw == null) return;
+        JavadocComment comment = JavadocComment.parse(raw);
+        addKey(cleanJavadocInput(comment.body()), false, keys);
+        for (JavadocComment.Tag tag : comment.tags()) addKey(cleanJavadocInput(tag.text()), true, keys);
+    }
+
+    private void addKey(String input, boolean inline, Map<String, String> keys) {
+        if (!isShared(input)) return;
+        String key = RenderCache.key(fingerprint, inline, input);
+        if (!cache.get().get(key).isPresent()) keys.put(remoteKey(input, inline), key);
+    }
+
+    /**
+     * Whether the output of an input may be cached and shared with other machines. Included files are
+     * not part of the key, so inputs including them are not.
+     */
+    static boolean isShared(String input) {
+        return !input.contains("include::");
+    }
+
+    /**
+     * Computes the key of a cleaned input in a {@link RemoteCache}.
+     */
+    String remoteKey(String input, boolean inline) {
+        return RenderCache.key(remoteFingerprint, inline, input);
+    }
+
+    /**
+     * Renders a cleaned input with Asciidoctor only, to the output cached under its key.
+     * Unlike {@link #renderComment(Doc, String)}, this may be called by several threads at once.
+     *
+     * @param input cleaned AsciiDoc source
+     * @param inline whether to render with the inline doctype
+     * @return output of Asciidoctor
+     */
+    String renderShared(String input, boolean inline) {
+        return asciidoctor.render(input, options(input, inline));
+    }
+
+    /**
+     * Computes the key in a {@link RemoteCache} of a block split from a comment by {@link BlockCache}.
+     */
+    String blockRemoteKey(String source) {
+        return BlockCache.remoteKey(remoteFingerprint, source);
+    }
+
+    /**
+     * Renders a block split from a comment the way {@link BlockCache} caches it.
+     * Like {@link #renderShared(String, boolean)}, this may be called by several threads at once.
+     *
+     * @param comment cleaned AsciiDoc source of the comment, which selects the options
+     * @param source AsciiDoc source of the block
+     * @return output of Asciidoctor
+     */
+    String renderSharedBlock(String comment, String source) {
+        return asciidoctor.render(source, options(comment, false));
+    }
+
+    /**
+     * Renders an input through the cache. Included files are not part of the key, so inputs including
+     * them are always rendered, e.g. when the watcher reruns javadoc after an included file changed.
+     */
+    private String renderCached(String input, boolean inline, Options options) {
+        if (!cache.isPresent() || !isShared(input)) return renderBlocks(input, inline, options);
+        String key = RenderCache.key(fingerprint, inline, input);
+        Optional<String> cached = cache.get().get(key);
+        cacheLookups++;
+        if (cached.isPresent()) {
+            cacheHits++;
+            return cached.get();
+        }
+        String output = renderBlocks(input, inline, options);
+        cache.get().put(key, output);
+        if (!remotes.isEmpty() && output != null && isShared(input)) {
+            String remoteKey = remoteKey(input, inline);
+            for (RemoteTier remote : remotes) {
+                if (remote.cache.store(remoteKey, output)) remote.stores++;
+            }
+        }
+        return output;
+    }
+
+    private String renderBlocks(String input, boolean inline, Options options) {
+        if (!blockCache.isPresent() || inline) return asciidoctor.render(input, options);
+        return blockCache.get().render(asciidoctor, input, options);
+    }
+
+    /**
+     * A remote cache and what was fetched from and stored in it.
+     */
+    private static class RemoteTier {
+        final RemoteCache cache;
+        int hits;
+        int lookups;
+        int stores;
+
+        RemoteTier(RemoteCache cache) {
+            this.cache = cache;
+        }
+    }
+
+    static String escapeTagStarts(String output) {
+        return output == null ? null : TAG_START_PATTERN.matcher(output).replaceAll("$1&#64;");
+    }
+
+    private static final Pattern TAG_START_PATTERN = Pattern.compile("(?m)^(\\s*)@");
+
     protected static String cleanJavadocInput(String input){
         return input.trim()
             .replaceAll("\n ", "\n") // Newline space to accommodate javadoc newlines.
@@ -0,0 +1,277 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.javadoc.DocErrorReporter;
+import org.asciidoctor.Asciidoctor;
+import org.jruby.Ruby;
+import org.jruby.runtime.builtin.IRubyObject;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide, reference counted holder of a warm Asciidoctor instance and its output templates.
+ *
+ * Booting JRuby and Asciidoctor is expensive, and the javadoc tool may run the doclet several times
+ * in the same JVM (e.g., in a Maven reactor build). Each run acquires a {@link Lease} and releases it
+ * when done. When the last lease is released the runtime stays warm for an idle period, so that a
+ * following run can reuse it, and is shut down afterwards or when the JVM exits.
+ *
+ * Options and attributes are passed to Asciidoctor with every render call, so the shared instance
+ * carries no per-run state. The template directory only ever holds the bundled templates and is
+ * shared along with the instance, as is a {@link RenderCache} of rendered output that runs may use,
+ * and the {@link RubyLibraries} loaded so far.
+ *
+ * Shutting down tears down the JRuby runtime behind the instance, which frees the Ruby heap and
+ * JIT-compiled code even if a stale reference to the instance remains. Leases taken before a shutdown
+ * belong to an earlier generation of the runtime, and releasing them does not count against the leases
+ * of the current one.
+ */
+class AsciidoctorRuntime {
+
+    static final long IDLE_TIMEOUT_SECONDS = 60;
+
+    /**
+     * The Asciidoctor release whose internals the Ruby scripts of the doclet are written against.
+     */
+    static final String RUBY_ASCIIDOCTOR_VERSION = "0.1.4";
+
+    static final AsciidoctorRuntime SHARED = new AsciidoctorRuntime(new Supplier<Asciidoctor>() {
+        @Override
+        public Asciidoctor get() {
+            return Asciidoctor.Factory.create();
+        }
+    }, IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+    private final Supplier<Asciidoctor> factory;
+    private final long idleTimeout;
+    private final TimeUnit idleTimeoutUnit;
+    private final ScheduledExecutorService scheduler;
+
+    private Asciidoctor asciidoctor;
+    private Optional<OutputTemplates> templates = Optional.absent();
+    private boolean templatesPrepared;
+    private RenderCache cache;
+    private RubyLibraries libraries;
+    private int references;
+    private int generation;
+    private ScheduledFuture<?> idleShutdown;
+    private boolean shutdownHookRegistered;
+
+    AsciidoctorRuntime(Supplier<Asciidoctor> factory, long idleTimeout, TimeUnit idleTimeoutUnit) {
+        this.factory = factory;
+        this.idleTimeout = idleTimeout;
+        this.idleTimeoutUnit = idleTimeoutUnit;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("asciidoclet-runtime-%d")
+                .build());
+    }
+
+    /**
+     * Acquires the shared instance, creating it if there is no warm one.
+     *
+     * @param errorReporter reports problems preparing the output templates
+     * @param profile records the time taken to create the instance and templates
+     * @return a lease that must be released when the run is done
+     */
+    synchronized Lease acquire(DocErrorReporter errorReporter, RenderProfile profile) {
+        return acquire(errorReporter, profile, true);
+    }
+
+    /**
+     * Acquires the shared instance, creating it if there is no warm one.
+     *
+     * @param errorReporter reports problems preparing the output templates
+     * @param profile records the time taken to create the instance and templates
+     * @param withTemplates whether the run renders with the output templates; if not, they are not prepared for it
+     * @return a lease that must be released when the run is done
+     */
+    synchronized Lease acquire(DocErrorReporter errorReporter, RenderProfile profile, boolean withTemplates) {
+        if (idleShutdown != null) {
+            idleShutdown.cancel(false);
+            idleShutdown = null;
+        }
+        if (asciidoctor == null) {
+            long start = profile.start();
+            asciidoctor = factory.get();
+            profile.phase("asciidoctor-boot", start);
+            cache = new RenderCache();
+            libraries = new RubyLibraries(rubyRuntime(asciidoctor));
+            registerShutdownHook();
+        }
+        if (withTemplates && !templatesPrepared) {
+            long start = profile.start();
+            templates = OutputTemplates.create(errorReporter);
+            profile.phase("templates", start);
+            templatesPrepared = true;
+        }
+        references++;
+        return new Lease(generation, asciidoctor, withTemplates ? templates : Optional.<OutputTemplates>absent(),
+                cache, libraries);
+    }
+
+    synchronized boolean isWarm() {
+        return asciidoctor != null;
+    }
+
+    synchronized int references() {
+        return references;
+    }
+
+    /**
+     * Tears down the warm instance immediately, regardless of outstanding leases.
+     */
+    synchronized void shutdown() {
+        if (idleShutdown != null) {
+            idleShutdown.cancel(false);
+            idleShutdown = null;
+        }
+        if (asciidoctor != null) tearDown(asciidoctor);
+        if (templates.isPresent()) templates.get().delete();
+        templates = Optional.absent();
+        templatesPrepared = false;
+        cache = null;
+        libraries = null;
+        asciidoctor = null;
+        references = 0;
+        generation++;
+    }
+
+    private synchronized void release(int generation) {
+        if (generation != this.generation || references == 0) return;
+        if (--references == 0 && asciidoctor != null) {
+            idleShutdown = scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    shutdownIfIdle();
+                }
+            }, idleTimeout, idleTimeoutUnit);
+        }
+    }
+
+    private synchronized void shutdownIfIdle() {
+        if (references == 0) shutdown();
+    }
+
+    /**
+     * Tears down the JRuby runtime of an instance created by `Asciidoctor.Factory`. Other instances are left alone.
+     */
+    private static void tearDown(Asciidoctor asciidoctor) {
+        Optional<Ruby> ruby = rubyRuntime(asciidoctor);
+        if (ruby.isPresent()) ruby.get().tearDown();
+    }
+
+    /**
+     * Looks up the JRuby runtime of an instance created by `Asciidoctor.Factory`. The integration
+     * offers no API for this, so the runtime is looked up reflectively.
+     *
+     * @return the runtime, absent for other instances
+     */
+    static Optional<Ruby> rubyRuntime(Asciidoctor asciidoctor) {
+        for (Class<?> type = asciidoctor.getClass(); type != null; type = type.getSuperclass()) {
+            try {
+                Field field = type.getDeclaredField("rubyRuntime");
+                field.setAccessible(true);
+                Object ruby = field.get(asciidoctor);
+                return ruby instanceof Ruby ? Optional.of((Ruby) ruby) : Optional.<Ruby>absent();
+            } catch (NoSuchFieldException e) {
+                // look in the superclass
+            } catch (IllegalAccessException e) {
+                return Optional.absent();
+            }
+        }
+        return Optional.absent();
+    }
+
+    /**
+     * Loads a Ruby script that relies on the internals of Asciidoctor {@value #RUBY_ASCIIDOCTOR_VERSION}
+     * into the JRuby runtime of an instance.
+     *
+     * @return the runtime with the script loaded, absent for instances without a JRuby runtime or
+     * running another release
+     */
+    static Optional<Ruby> scriptedRuntime(Asciidoctor asciidoctor, String script) {
+        Optional<Ruby> ruby = rubyRuntime(asciidoctor);
+        if (!ruby.isPresent()) return ruby;
+        IRubyObject version = ruby.get().evalScriptlet("defined?(Asciidoctor::VERSION) ? Asciidoctor::VERSION : nil");
+        if (!RUBY_ASCIIDOCTOR_VERSION.equals(version.isNil() ? null : version.toString())) return Optional.absent();
+        ruby.get().evalScriptlet(script);
+        return ruby;
+    }
+
+    private void registerShutdownHook() {
+        if (shutdownHookRegistered) return;
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                shutdown();
+            }
+        }, "asciidoclet-runtime-shutdown"));
+        shutdownHookRegistered = true;
+    }
+
+    /**
+     * A single run's hold on the shared instance.
+     */
+    class Lease {
+        private final int generation;
+        private final Asciidoctor asciidoctor;
+        private final Optional<OutputTemplates> templates;
+        private final RenderCache cache;
+        private final RubyLibraries libraries;
+        private boolean released;
+
+        private Lease(int generation, Asciidoctor asciidoctor, Optional<OutputTemplates> templates, RenderCache cache,
+                      RubyLibraries libraries) {
+            this.generation = generation;
+            this.asciidoctor = asciidoctor;
+            this.templates = templates;
+            this.cache = cache;
+            this.libraries = libraries;
+        }
+
+        Asciidoctor asciidoctor() {
+            return asciidoctor;
+        }
+
+        Optional<OutputTemplates> templates() {
+            return templates;
+        }
+
+        RenderCache cache() {
+            return cache;
+        }
+
+        RubyLibraries libraries() {
+            return libraries;
+        }
+
+        void release() {
+            synchronized (AsciidoctorRuntime.this) {
+                if (released) return;
+                released = true;
+                AsciidoctorRuntime.this.release(generation);
+            }
+        }
+
+        /**
+         * Releases the lease and shuts the runtime down right away, unless another run still holds a lease.
+         *
+         * @return true if the runtime was shut down
+         */
+        boolean shutdown() {
+            synchronized (AsciidoctorRuntime.this) {
+                release();
+                if (references > 0) return false;
+                AsciidoctorRuntime.this.shutdown();
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.asciidoctor.Asciidoctor;
+import org.asciidoctor.Options;
+import org.asciidoctor.internal.RubyHashUtil;
+import org.jruby.Ruby;
+import org.jruby.RubyArray;
+import org.jruby.RubyModule;
+import org.jruby.RubyString;
+import org.jruby.runtime.builtin.IRubyObject;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Renders AsciiDoc to the primary backend and to additional backends from a single parse.
+ *
+ * Asciidoctor parses the input when it loads a document and applies substitutions and templates
+ * when it renders, so a loaded document is rendered once per backend by switching its backend
+ * attributes and renderer in between, without the HTML templates of the primary backend. The Java
+ * integration only offers a combined load and render, so this is done by a small Ruby module in the
+ * JRuby runtime of the instance. The module relies on the internals of the Asciidoctor release it
+ * was written for, {@value AsciidoctorRuntime#RUBY_ASCIIDOCTOR_VERSION}; with other releases, or
+ * instances without a JRuby runtime, each backend is rendered separately. Conditionals on the
+ * backend are resolved while parsing, so they follow the primary backend in a single parse.
+ *
+ * The `text` backend is not an Asciidoctor backend; it is plain text taken from the primary output.
+ */
+class BackendConverter {
+
+    static final String TEXT = "text";
+
+    private static final String SCRIPT = "module AsciidocletBackends\n"
+            + "  def self.render(input, options, backends)\n"
+            + "    doc = Asciidoctor.load(input, options)\n"
+            + "    outputs = [doc.render]\n"
+            + "    primary = doc.instance_variable_get(:@original_attributes)\n"
+            + "    doctype = Regexp.escape(primary['doctype'].to_s)\n"
+            + "    stale = /^(backend|basebackend|filetype)-|^(#{Regexp.escape(primary['backend'].to_s)}"
+            + "|#{Regexp.escape(primary['basebackend'].to_s)})-#{doctype}$/\n"
+            + "    backends.each do |backend|\n"
+            + "      attributes = primary.reject {|name, _| name =~ stale }\n"
+            + "      attributes['backend'] = backend\n"
+            + "      doc.instance_variable_set(:@attributes, attributes)\n"
+            + "      doc.update_backend_attributes\n"
+            + "      doc.instance_variable_set(:@original_attributes, attributes.dup)\n"
+            + "      doc.instance_variable_set(:@renderer, nil)\n"
+            + "      outputs << doc.render(:template_dirs => nil)\n"
+            + "    end\n"
+            + "    outputs\n"
+            + "  end\n"
+            + "end\n";
+
+    private final Asciidoctor asciidoctor;
+    private final Optional<Ruby> ruby;
+    private final List<String> backends;
+    private final List<String> asciidoctorBackends;
+
+    BackendConverter(Asciidoctor asciidoctor, Iterable<String> backends) {
+        this.asciidoctor = asciidoctor;
+        this.backends = ImmutableList.copyOf(backends);
+        ImmutableList.Builder<String> asciidoctorBackends = ImmutableList.builder();
+        for (String backend : this.backends) {
+            if (!backend.equals(TEXT)) asciidoctorBackends.add(backend);
+        }
+        this.asciidoctorBackends = asciidoctorBackends.build();
+        this.ruby = AsciidoctorRuntime.scriptedRuntime(asciidoctor, SCRIPT);
+    }
+
+    /**
+     * @return the additional backends, in the order their outputs are returned
+     */
+    List<String> backends() {
+        return backends;
+    }
+
+    /**
+     * Renders the input to the primary backend of the options and to the additional backends.
+     *
+     * @param input AsciiDoc source
+     * @param options options for the primary backend
+     * @return the primary output, followed by the output of each additional backend
+     */
+    String[] render(String input, Options options) {
+        List<String> outputs = ruby.isPresent() && !asciidoctorBackends.isEmpty()
+                ? renderLoaded(input, options) : renderEach(input, options);
+        String[] result = new String[backends.size() + 1];
+        result[0] = outputs.get(0);
+        for (int i = 0, rendered = 1; i < backends.size(); i++) {
+            result[i + 1] = backends.get(i).equals(TEXT) ? text(result[0]) : outputs.get(rendered++);
+        }
+        return result;
+    }
+
+    private List<String> renderLoaded(String input, Options options) {
+        Ruby runtime = ruby.get();
+        IRubyObject[] names = new IRubyObject[asciidoctorBackends.size()];
+        for (int i = 0; i < names.length; i++) names[i] = RubyString.newUnicodeString(runtime, asciidoctorBackends.get(i));
+        RubyModule module = runtime.getModule("AsciidocletBackends");
+        IRubyObject outputs = module.callMethod(runtime.getCurrentContext(), "render", new IRubyObject[]{
+                RubyString.newUnicodeString(runtime, input),
+                RubyHashUtil.convertMapToRubyHashWithSymbols(runtime, options.map()),
+                RubyArray.newArrayNoCopy(runtime, names)});
+        List<String> result = new ArrayList<String>();
+        for (Object output : (RubyArray) outputs) result.add(output == null ? "" : output.toString());
+        return result;
+    }
+
+    private List<String> renderEach(String input, Options options) {
+        List<String> result = new ArrayList<String>();
+        result.add(asciidoctor.render(input, options));
+        for (String backend : asciidoctorBackends) {
+            Map<String, Object> map = new HashMap<String, Object>(options.map());
+            map.put(Options.BACKEND, backend);
+            map.remove(Options.TEMPLATE_DIRS);
+            result.add(asciidoctor.render(input, map));
+        }
+        return result;
+    }
+
+    /**
+     * Builds the comment of each additional backend from the outputs of rendering a comment's parts.
+     *
+     * @param comment the comment, for the tag names
+     * @param outputs the outputs of rendering the body, then each tag
+     * @return comments by backend
+     */
+    Map<String, JavadocComment> comments(JavadocComment comment, List<String[]> outputs) {
+        ImmutableMap.Builder<String, JavadocComment> comments = ImmutableMap.builder();
+        for (int i = 0; i < backends.size(); i++) {
+            List<JavadocComment.Tag> tags = new ArrayList<JavadocComment.Tag>();
+            for (int tag = 0; tag < comment.tags().size(); tag++) {
+                tags.add(new JavadocComment.Tag(comment.tags().get(tag).name(), outputs.get(tag + 1)[i + 1]));
+            }
+            comments.put(backends.get(i), new JavadocComment(outputs.get(0)[i + 1], tags));
+        }
+        return comments.build();
+    }
+
+    /**
+     * Converts HTML to plain text, keeping line breaks between blocks.
+     */
+    static String text(String html) {
+        if (html == null) return "";
+        String text = BLOCK_END_PATTERN.matcher(html).replaceAll("\n");
+        text = TAG_PATTERN.matcher(text).replaceAll("");
+        text = text.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"").replace("&#39;", "'")
+                .replace("&#64;", "@").replace("&#160;", " ").replace("&nbsp;", " ").replace("&amp;", "&");
+        text = TRAILING_SPACE_PATTERN.matcher(text).replaceAll("");
+        return BLANK_LINES_PATTERN.matcher(text).replaceAll("\n\n").trim();
+    }
+
+    private static final Pattern BLOCK_END_PATTERN = Pattern.compile("(?i)<br\\s*/?>|</(p|div|li|dt|dd|h\\d|tr|pre|table)>");
+    private static final Pattern TAG_PATTERN = Pattern.compile("<[^>]*>");
+    private static final Pattern TRAILING_SPACE_PATTERN = Pattern.compile("(?m)[ \\t]+$");
+    private static final Pattern BLANK_LINES_PATTERN = Pattern.compile("\\n{3,}");
+}
@@ -0,0 +1,321 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Optional;
+import com.sun.javadoc.DocErrorReporter;
+import org.asciidoctor.Asciidoctor;
+import org.asciidoctor.Options;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Renders the listings, tables and admonitions of comments once, and reuses their output wherever the
+ * same block appears again.
+ *
+ * The top-level delimited blocks and admonition paragraphs of a comment are found by a scan of its
+ * lines. Each one is rendered on its own and replaced in the comment by a passthrough placeholder, so
+ * Asciidoctor renders the rest of the comment around it; the placeholder is then replaced by the
+ * output of the block. Blocks are cached by a hash of the options and their source in the
+ * {@link RenderCache} of the shared runtime, so they are also reused by later runs in the same JVM.
+ * Blocks that are not cached locally are looked up in the {@link RemoteCache remote caches} of the
+ * run, such as a {@link PreRenderStore} that {@link PreRender} wrote the blocks of the sources to,
+ * and the blocks rendered here are stored in them, so that a rebuild in a new JVM only renders the
+ * blocks that changed. Remote caches only hold the output of a block, so a key maps to the same bytes
+ * on every machine; the time a block took to render, which the report of saved time is based on, is
+ * only kept in the local cache.
+ *
+ * Splitting a comment costs one render more than rendering it whole, so a comment is only split once
+ * one of its blocks is cached or was seen before; the first comment with a block is rendered whole,
+ * unless it consists of the block alone.
+ *
+ * Comments whose blocks may depend on the rest of the comment are rendered whole: those with
+ * attribute entries, cross references, footnotes, counters, includes or conditionals, and blocks
+ * with callouts.
+ */
+class BlockCache {
+
+    private static final String PLACEHOLDER = "<!--asciidoclet-block-%d-->";
+
+    private final RenderCache cache;
+    private final String fingerprint;
+    private final String remoteFingerprint;
+    private final List<RemoteCache> remotes = new ArrayList<RemoteCache>();
+    private final Set<String> seen = new HashSet<String>();
+    private int lookups;
+    private int hits;
+    private long savedNanos;
+    private int misses;
+    private long missNanos;
+    private int fetched;
+    private int stored;
+
+    /**
+     * @param fingerprint identifies the options in the local cache
+     * @param remoteFingerprint identifies the options in remote caches
+     */
+    BlockCache(RenderCache cache, String fingerprint, String remoteFingerprint) {
+        this.cache = cache;
+        this.fingerprint = fingerprint + "#block";
+        this.remoteFingerprint = remoteFingerprint;
+    }
+
+    /**
+     * Looks up blocks in a remote cache when they are not cached locally, and stores those rendered here in it.
+     *
+     * @param remote cache kept outside of this run
+     */
+    void cacheRemotely(RemoteCache remote) {
+        remotes.add(remote);
+    }
+
+    /**
+     * Computes the key of a block in a {@link RemoteCache}.
+     *
+     * @param remoteFingerprint identifies the options on any machine
+     * @param source AsciiDoc source of the block, as returned by {@link #sources(String)}
+     */
+    static String remoteKey(String remoteFingerprint, String source) {
+        // earlier releases stored the render time in front of the output under "#block"
+        return RenderCache.key(remoteFingerprint + "#block-output", false, source);
+    }
+
+    /**
+     * @return key of the time it took to render the block with the given key, in the local cache
+     */
+    private static String timeKey(String key) {
+        return key + "#nanos";
+    }
+
+    /**
+     * Renders a comment with the block doctype, reusing the output of its cached blocks.
+     *
+     * @param input cleaned AsciiDoc source
+     * @return rendered comment
+     */
+    String render(Asciidoctor asciidoctor, String input, Options options) {
+        List<int[]> blocks = blocks(input);
+        if (blocks.isEmpty()) return asciidoctor.render(input, options);
+        String[] lines = input.split("\n", -1);
+        StringBuilder remainder = new StringBuilder(input.length());
+        List<String> sources = new ArrayList<String>();
+        List<String> keys = new ArrayList<String>();
+        int line = 0;
+        for (int[] block : blocks) {
+            append(remainder, lines, line, block[0]);
+            String source = source(lines, block);
+            remainder.append("++++\n").append(String.format(PLACEHOLDER, keys.size())).append("\n++++\n");
+            sources.add(source);
+            keys.add(RenderCache.key(fingerprint, false, source));
+            line = block[1] + 1;
+        }
+        append(remainder, lines, line, lines.length);
+        String rest = remainder.toString().trim();
+        boolean single = keys.size() == 1 && rest.equals("++++\n" + String.format(PLACEHOLDER, 0) + "\n++++");
+        fetch(sources, keys);
+        boolean known = false;
+        for (String key : keys) known |= !seen.add(key) || cache.get(key).isPresent();
+        if (!known && !single) return asciidoctor.render(input, options);
+
+        List<String> outputs = new ArrayList<String>();
+        for (int i = 0; i < blocks.size(); i++) {
+            String output = renderBlock(asciidoctor, keys.get(i), sources.get(i), options, !single);
+            if (output == null) return asciidoctor.render(input, options);
+            outputs.add(output);
+        }
+        if (single) return outputs.get(0);
+        String output = asciidoctor.render(rest, options);
+        for (int i = 0; i < outputs.size(); i++) {
+            String placeholder = String.format(PLACEHOLDER, i);
+            if (output == null || !output.contains(placeholder)) return asciidoctor.render(input, options);
+            output = output.replace(placeholder, outputs.get(i));
+        }
+        return output;
+    }
+
+    /**
+     * Fetches the blocks that are not cached locally from the remote caches, in a single lookup per cache.
+     */
+    private void fetch(List<String> sources, List<String> keys) {
+        if (remotes.isEmpty()) return;
+        Map<String, String> missing = new LinkedHashMap<String, String>();
+        for (int i = 0; i < keys.size(); i++) {
+            if (!cache.get(keys.get(i)).isPresent()) missing.put(remoteKey(remoteFingerprint, sources.get(i)), keys.get(i));
+        }
+        for (RemoteCache remote : remotes) {
+            if (missing.isEmpty()) break;
+            for (Map.Entry<String, String> output : remote.lookup(missing.keySet()).entrySet()) {
+                String key = missing.remove(output.getKey());
+                if (key == null) continue;
+                cache.put(key, output.getValue());
+                fetched++;
+            }
+        }
+    }
+
+    /**
+     * @param split whether the block is rendered apart from the rest of its comment, at extra cost
+     */
+    private String renderBlock(Asciidoctor asciidoctor, String key, String source, Options options, boolean split) {
+        lookups++;
+        Optional<String> cached = cache.get(key);
+        if (cached.isPresent()) {
+            hits++;
+            // blocks fetched from a remote cache were not timed here
+            Optional<String> nanos = cache.get(timeKey(key));
+            if (nanos.isPresent()) savedNanos += Long.parseLong(nanos.get());
+            return cached.get();
+        }
+        long start = System.nanoTime();
+        String output = asciidoctor.render(source, options);
+        if (output == null) return null;
+        long nanos = System.nanoTime() - start;
+        if (split) {
+            misses++;
+            missNanos += nanos;
+        }
+        cache.put(key, output);
+        cache.put(timeKey(key), Long.toString(nanos));
+        for (RemoteCache remote : remotes) {
+            if (remote.store(remoteKey(remoteFingerprint, source), output)) stored++;
+        }
+        return output;
+    }
+
+    private static void append(StringBuilder buffer, String[] lines, int from, int to) {
+        for (int i = from; i < to; i++) buffer.append(lines[i]).append('\n');
+    }
+
+    /**
+     * Reports the reused blocks and the time saved, net of the time spent rendering blocks apart from their comments.
+     */
+    void report(DocErrorReporter errorReporter) {
+        errorReporter.printNotice("Reused " + hits + " of " + lookups + " rendered blocks, saving about "
+                + TimeUnit.NANOSECONDS.toMillis(savedNanos - missNanos) + " ms net of "
+                + TimeUnit.NANOSECONDS.toMillis(missNanos) + " ms rendering " + misses + " blocks on their own"
+                + (remotes.isEmpty() ? "" : "; fetched " + fetched + " blocks from remote caches and stored " + stored));
+    }
+
+    /**
+     * Finds the blocks of a comment that can be rendered on their own.
+     *
+     * @param input cleaned AsciiDoc source
+     * @return source of each block, including its title and attribute lines
+     */
+    static List<String> sources(String input) {
+        List<String> sources = new ArrayList<String>();
+        String[] lines = input.split("\n", -1);
+        for (int[] block : blocks(input)) sources.add(source(lines, block));
+        return sources;
+    }
+
+    private static String source(String[] lines, int[] block) {
+        StringBuilder source = new StringBuilder();
+        append(source, lines, block[0], block[1] + 1);
+        return source.toString().trim();
+    }
+
+    /**
+     * Finds the blocks of a comment that can be rendered on their own.
+     *
+     * @param input cleaned AsciiDoc source
+     * @return first and last line of each block, including its title and attribute lines
+     */
+    static List<int[]> blocks(String input) {
+        List<int[]> blocks = new ArrayList<int[]>();
+        if (DEPENDENT_PATTERN.matcher(input).find()) return blocks;
+        String[] lines = input.split("\n", -1);
+        boolean boundary = true;
+        int i = 0;
+        while (i < lines.length) {
+            String trimmed = lines[i].trim();
+            if (trimmed.isEmpty()) {
+                boundary = true;
+                i++;
+                continue;
+            }
+            int start = i;
+            boolean titled = false;
+            if (boundary) {
+                for (; i < lines.length && BLOCK_PREFIX_PATTERN.matcher(lines[i].trim()).matches(); i++) {
+                    titled |= lines[i].trim().startsWith(".");
+                }
+                if (i == lines.length) break;
+                trimmed = lines[i].trim();
+                // attribute lines followed by a blank line still apply to the next block, indented lines are literal
+                if (trimmed.isEmpty() || Character.isWhitespace(lines[i].charAt(0))) boundary = false;
+            }
+            if (JavadocComment.DELIMITER_PATTERN.matcher(trimmed).matches()) {
+                int end = closingLine(lines, i);
+                if (end < 0) break;
+                if (boundary && CACHED_DELIMITER_PATTERN.matcher(trimmed).matches() && blankOrEnd(lines, end + 1)
+                        && !(titled && NUMBERED_DELIMITER_PATTERN.matcher(trimmed).matches()) && !hasCallouts(lines, i, end)) {
+                    blocks.add(new int[]{start, end});
+                }
+                i = end + 1;
+            }
+            else if (boundary && ADMONITION_PATTERN.matcher(trimmed).lookingAt()) {
+                int end = i;
+                boolean plain = true;
+                while (!blankOrEnd(lines, end + 1)) {
+                    end++;
+                    plain &= !INTERRUPTING_PATTERN.matcher(lines[end].trim()).lookingAt();
+                }
+                if (plain) blocks.add(new int[]{start, end});
+                i = end + 1;
+            }
+            else {
+                i++;
+            }
+            boundary = false;
+        }
+        return blocks;
+    }
+
+    /**
+     * Finds the line closing a delimited block: the first line equal to the closing delimiter that is
+     * not inside a block nested in it. Only blocks with AsciiDoc content can contain nested blocks.
+     *
+     * @return index of the closing line, -1 if the block or a block nested in it is not closed
+     */
+    static int closingLine(String[] lines, int opening) {
+        String trimmed = lines[opening].trim();
+        String delimiter = JavadocComment.closingDelimiter(trimmed);
+        boolean compound = JavadocComment.COMPOUND_DELIMITER_PATTERN.matcher(trimmed).matches();
+        for (int i = opening + 1; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.equals(delimiter)) return i;
+            if (compound && JavadocComment.DELIMITER_PATTERN.matcher(line).matches()) {
+                i = closingLine(lines, i);
+                if (i < 0) return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean blankOrEnd(String[] lines, int i) {
+        return i >= lines.length || lines[i].trim().isEmpty();
+    }
+
+    private static boolean hasCallouts(String[] lines, int from, int to) {
+        for (int i = from; i <= to; i++) {
+            if (CALLOUT_PATTERN.matcher(lines[i]).find()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Content that makes the output of a block depend on the rest of the comment.
+     */
+    private static final Pattern DEPENDENT_PATTERN = Pattern.compile(
+            "(?m)^:!?\\w[^:]*:(\\s|$)|<<|xref:|footnote|\\{counter|^\\s*(include|ifdef|ifndef|ifeval|endif)::");
+    private static final Pattern BLOCK_PREFIX_PATTERN = Pattern.compile("\\[.*\\]|\\.[^.\\s].*");
+    private static final Pattern CACHED_DELIMITER_PATTERN = Pattern.compile("\\|===|-{4,}|\\.{4,}|={4,}|\\*{4,}|_{4,}");
+    /**
+     * Blocks that are numbered when they have a title, like "Table 1."
+     */
+    private static final Pattern NUMBERED_DELIMITER_PATTERN = Pattern.compile("\\|===|={4,}");
+    private static final Pattern ADMONITION_PATTERN = Pattern.compile("(NOTE|TIP|IMPORTANT|WARNING|CAUTION): ");
+    private static final Pattern INTERRUPTING_PATTERN = Pattern.compile("\\+$|\\[|//|[*.-]+ |\\d+\\. |(--|\\|===|-{4,}|\\.{4,}|\\+{4,}|/{4,}|={4,}|_{4,}|\\*{4,})$|```(?!`)|~~~(?!~)");
+    private static final Pattern CALLOUT_PATTERN = Pattern.compile("<\\d+>\\s*$");
+}
@@ -0,0 +1,45 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Optional;
+import com.sun.javadoc.DocErrorReporter;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Checks whether a class data sharing archive given to the JVM running javadoc is in use.
+ *
+ * The JVM ignores an archive that does not match the JVM or the `-Xbootclasspath/a` it was dumped
+ * with when started with `-Xshare:auto`. The doclet then runs as usual, only without the faster
+ * startup, so a mismatch is reported as a notice rather than an error.
+ */
+public class ClassDataSharing {
+
+    static final String ARCHIVE_OPTION = "-XX:SharedArchiveFile=";
+
+    /**
+     * Prints a notice if an archive was requested but the JVM does not use it.
+     *
+     * @param errorReporter receives the notice
+     */
+    public static void check(DocErrorReporter errorReporter) {
+        check(ManagementFactory.getRuntimeMXBean().getInputArguments(),
+                System.getProperty("java.vm.info", ""), errorReporter);
+    }
+
+    static void check(List<String> jvmArguments, String vmInfo, DocErrorReporter errorReporter) {
+        Optional<String> archive = archive(jvmArguments);
+        if (archive.isPresent() && !vmInfo.contains("sharing")) {
+            errorReporter.printNotice("Class data sharing archive " + archive.get() + " is not used, it does not match"
+                    + " this JVM or -Xbootclasspath/a; build it again to restore the faster startup");
+        }
+    }
+
+    private static Optional<String> archive(List<String> jvmArguments) {
+        String archive = null;
+        for (String argument : jvmArguments) {
+            if (argument.startsWith(ARCHIVE_OPTION)) archive = argument.substring(ARCHIVE_OPTION.length());
+        }
+        return Optional.fromNullable(archive);
+    }
+}
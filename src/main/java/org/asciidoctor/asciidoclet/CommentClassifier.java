@@ -0,0 +1,163 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
+import com.sun.javadoc.Doc;
+import com.sun.javadoc.DocErrorReporter;
+import com.sun.javadoc.SourcePosition;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tells legacy HTML comments from AsciiDoc comments, so HTML comments can be passed to the standard
+ * doclet as they are.
+ *
+ * A comment is HTML if it has an HTML tag commonly used in Javadoc, such as `<p>`, `<ul>` or `<code>`,
+ * outside of AsciiDoc delimited blocks and monospaced text. The comment is scanned once, line by line.
+ *
+ * A source file can mark all of its comments as one format with a line comment before the package declaration:
+ *
+ * [source,java]
+ * // asciidoclet: asciidoc
+ * // asciidoclet: html
+ */
+public class CommentClassifier {
+
+    public enum Format {
+        ASCIIDOC, HTML
+    }
+
+    private final Charset encoding;
+    private final Map<File, Optional<Format>> markers = new HashMap<File, Optional<Format>>();
+    private final int[] detected = new int[Format.values().length];
+    private final int[] marked = new int[Format.values().length];
+
+    public CommentClassifier(DocletOptions docletOptions) {
+        this.encoding = docletOptions.encoding();
+    }
+
+    /**
+     * Classifies a comment and counts it.
+     *
+     * @param doc document the comment belongs to, for the marker of its source file; may be `null`
+     * @param raw comment text
+     * @return the format of the comment
+     */
+    public Format classify(Doc doc, String raw) {
+        Optional<Format> marker = doc == null ? Optional.<Format>absent() : marker(doc.position());
+        if (marker.isPresent()) {
+            marked[marker.get().ordinal()]++;
+            return marker.get();
+        }
+        Format format = isHtml(raw) ? Format.HTML : Format.ASCIIDOC;
+        detected[format.ordinal()]++;
+        return format;
+    }
+
+    public void report(DocErrorReporter errorReporter) {
+        errorReporter.printNotice("Rendered " + (detected[Format.ASCIIDOC.ordinal()] + marked[Format.ASCIIDOC.ordinal()])
+                + " AsciiDoc comments and passed through " + (detected[Format.HTML.ordinal()] + marked[Format.HTML.ordinal()])
+                + " HTML comments (" + marked[Format.ASCIIDOC.ordinal()] + " and " + marked[Format.HTML.ordinal()]
+                + " by file marker)");
+    }
+
+    static boolean isHtml(String raw) {
+        if (raw.indexOf('<') < 0) return false;
+        String delimiter = null;
+        int start = 0;
+        int length = raw.length();
+        while (start < length) {
+            int end = raw.indexOf('\n', start);
+            if (end < 0) end = length;
+            String trimmed = raw.substring(start, end).trim();
+            if (delimiter != null) {
+                if (trimmed.equals(delimiter)) delimiter = null;
+            }
+            else if (!trimmed.isEmpty() && DELIMITER_CHARS.indexOf(trimmed.charAt(0)) >= 0
+                    && JavadocComment.DELIMITER_PATTERN.matcher(trimmed).matches()) {
+                delimiter = JavadocComment.closingDelimiter(trimmed);
+            }
+            else if (hasHtmlTag(raw, start, end)) {
+                return true;
+            }
+            start = end + 1;
+        }
+        return false;
+    }
+
+    private static final String DELIMITER_CHARS = "-|./+=_*`~";
+
+    private static boolean hasHtmlTag(String raw, int start, int end) {
+        boolean monospace = false;
+        for (int i = start; i < end; i++) {
+            char c = raw.charAt(i);
+            if (c == '`') monospace = !monospace;
+            else if (c == '<' && !monospace && isHtmlTag(raw, i + 1, end)) return true;
+        }
+        return false;
+    }
+
+    private static boolean isHtmlTag(String raw, int start, int end) {
+        if (start < end && raw.charAt(start) == '/') start++;
+        int nameEnd = start;
+        while (nameEnd < end && Character.isLetterOrDigit(raw.charAt(nameEnd))) nameEnd++;
+        if (nameEnd == start || nameEnd == end) return false;
+        char next = raw.charAt(nameEnd);
+        if (next != '>' && next != '/' && !Character.isWhitespace(next)) return false;
+        return HTML_TAGS.contains(raw.substring(start, nameEnd).toLowerCase(Locale.ROOT));
+    }
+
+    private static final Set<String> HTML_TAGS = ImmutableSet.of(
+            "p", "br", "ul", "ol", "li", "dl", "dt", "dd", "pre", "code", "tt", "b", "i", "em", "strong",
+            "a", "table", "tr", "td", "th", "blockquote", "div", "h1", "h2", "h3", "h4", "h5", "h6", "hr");
+
+    private Optional<Format> marker(SourcePosition position) {
+        if (position == null || position.file() == null) return Optional.absent();
+        File file = position.file();
+        Optional<Format> marker = markers.get(file);
+        if (marker == null) {
+            marker = file.getName().endsWith(".java") ? readMarker(file) : Optional.<Format>absent();
+            markers.put(file, marker);
+        }
+        return marker;
+    }
+
+    /**
+     * Reads the marker from the comments at the start of the file, up to the first line of code,
+     * usually the package declaration.
+     */
+    private Optional<Format> readMarker(File file) {
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), encoding));
+            try {
+                boolean blockComment = false;
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    String trimmed = line.trim();
+                    if (blockComment || trimmed.startsWith("/*")) {
+                        int end = trimmed.indexOf("*/", blockComment ? 0 : 2);
+                        blockComment = end < 0;
+                        if (blockComment || trimmed.substring(end + 2).trim().isEmpty()) continue;
+                        break;
+                    }
+                    if (!trimmed.isEmpty() && !trimmed.startsWith("//")) break;
+                    Matcher matcher = MARKER_PATTERN.matcher(trimmed);
+                    if (matcher.matches()) return Optional.of(Format.valueOf(matcher.group(1).toUpperCase(Locale.ROOT)));
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            // no marker
+        }
+        return Optional.absent();
+    }
+
+    private static final Pattern MARKER_PATTERN = Pattern.compile("//\\s*asciidoclet:\\s*(asciidoc|html)\\s*");
+}
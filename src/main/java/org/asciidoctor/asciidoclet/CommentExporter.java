@@ -0,0 +1,174 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Charsets;
+import com.sun.javadoc.*;
+
+import java.io.*;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a JSON record of each document to a file, right after it is rendered.
+ *
+ * Each line of the file is one record, holding the qualified name, kind and source position of the
+ * document, the rendered comment, and the name and rendered text of each block tag, also in the
+ * additional backends of the {@link AsciidoctorRenderer}, if any. The rendered comment is taken from
+ * the renderer, so the Javadoc tool does not parse it for the export. Records are streamed through a
+ * buffer, so the export does not hold the rendered documents in memory. Files ending in `.gz` are
+ * compressed.
+ */
+public class CommentExporter implements DocletRenderer, Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final AsciidoctorRenderer renderer;
+    private final Writer writer;
+    private IOException error;
+    private int records;
+
+    CommentExporter(AsciidoctorRenderer renderer, Writer writer) {
+        this.renderer = renderer;
+        this.writer = writer;
+    }
+
+    /**
+     * @param file export file, compressed if its name ends in `.gz`
+     * @param renderer renders the documents before they are exported
+     * @return an exporter writing to the file
+     */
+    public static CommentExporter open(File file, AsciidoctorRenderer renderer) throws IOException {
+        OutputStream output = new FileOutputStream(file);
+        try {
+            if (file.getName().endsWith(".gz")) output = new GZIPOutputStream(output, BUFFER_SIZE);
+        } catch (IOException e) {
+            output.close();
+            throw e;
+        }
+        return new CommentExporter(renderer, new BufferedWriter(new OutputStreamWriter(output, Charsets.UTF_8), BUFFER_SIZE));
+    }
+
+    @Override
+    public void renderDoc(Doc doc) {
+        renderer.renderDoc(doc);
+        if (error != null) return;
+        try {
+            write(doc, renderer.rendered(), renderer.alternates());
+            records++;
+        } catch (IOException e) {
+            error = e;
+        }
+    }
+
+    /**
+     * @return number of records written
+     */
+    public int records() {
+        return records;
+    }
+
+    /**
+     * Flushes and closes the file.
+     *
+     * @throws IOException if writing a record or closing the file failed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            if (error == null) error = e;
+        }
+        if (error != null) throw error;
+    }
+
+    private void write(Doc doc, JavadocComment rendered, Map<String, JavadocComment> alternates) throws IOException {
+        writer.write("{\"name\":");
+        string(name(doc));
+        writer.write(",\"kind\":");
+        string(kind(doc));
+        SourcePosition position = doc.position();
+        if (position != null && position.file() != null) {
+            writer.write(",\"file\":");
+            string(position.file().getPath());
+            writer.write(",\"line\":");
+            writer.write(Integer.toString(position.line()));
+        }
+        writer.write(",\"html\":");
+        string(rendered.body());
+        writer.write(",\"tags\":");
+        tags(rendered.tags());
+        if (!alternates.isEmpty()) {
+            writer.write(",\"backends\":{");
+            boolean first = true;
+            for (Map.Entry<String, JavadocComment> alternate : alternates.entrySet()) {
+                if (!first) writer.write(',');
+                first = false;
+                string(alternate.getKey());
+                writer.write(":{\"body\":");
+                string(alternate.getValue().body());
+                writer.write(",\"tags\":");
+                tags(alternate.getValue().tags());
+                writer.write('}');
+            }
+            writer.write('}');
+        }
+        writer.write("}\n");
+    }
+
+    private void tags(List<JavadocComment.Tag> tags) throws IOException {
+        writer.write('[');
+        for (int i = 0; i < tags.size(); i++) {
+            if (i > 0) writer.write(',');
+            writer.write("{\"name\":");
+            string(tags.get(i).name());
+            writer.write(",\"text\":");
+            string(tags.get(i).text());
+            writer.write('}');
+        }
+        writer.write(']');
+    }
+
+    private void string(String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': writer.write("\\\""); break;
+                case '\\': writer.write("\\\\"); break;
+                case '\n': writer.write("\\n"); break;
+                case '\r': writer.write("\\r"); break;
+                case '\t': writer.write("\\t"); break;
+                default:
+                    if (c < 0x20 || c == '\u2028' || c == '\u2029') writer.write(String.format("\\u%04x", (int) c));
+                    else writer.write(c);
+            }
+        }
+        writer.write('"');
+    }
+
+    static String name(Doc doc) {
+        if (doc instanceof ExecutableMemberDoc) {
+            ExecutableMemberDoc executable = (ExecutableMemberDoc) doc;
+            return executable.qualifiedName() + executable.signature();
+        }
+        if (doc instanceof ProgramElementDoc) return ((ProgramElementDoc) doc).qualifiedName();
+        if (doc instanceof RootDoc) return "";
+        return doc.name();
+    }
+
+    static String kind(Doc doc) {
+        if (doc instanceof RootDoc) return "overview";
+        if (doc instanceof PackageDoc) return "package";
+        if (doc.isAnnotationType()) return "annotation";
+        if (doc.isInterface()) return "interface";
+        if (doc.isEnum()) return "enum";
+        if (doc.isClass()) return "class";
+        if (doc.isAnnotationTypeElement()) return "element";
+        if (doc.isEnumConstant()) return "enum-constant";
+        if (doc.isField()) return "field";
+        if (doc.isConstructor()) return "constructor";
+        if (doc.isMethod()) return "method";
+        return "unknown";
+    }
+}
@@ -0,0 +1,81 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.sun.javadoc.DocErrorReporter;
+
+import java.io.Closeable;
+
+/**
+ * Renders comments outside of a javadoc run, e.g. for hovers in an IDE.
+ *
+ * Comments are rendered like Asciidoclet renders them for the javadoc tool, with the same input
+ * cleanup and options. The renderer holds a lease on the shared {@link AsciidoctorRuntime}, so it stays
+ * warm until the renderer is closed. Recent results are kept in a cache bounded by the number of
+ * entries, which evicts the least recently used results first.
+ *
+ * Instances are thread-safe. Cached results are returned without locking; Asciidoctor renders one
+ * comment at a time.
+ */
+public class CommentRenderer implements Closeable {
+
+    static final int DEFAULT_CACHE_SIZE = 1000;
+
+    /**
+     * What a raw comment holds.
+     */
+    public enum Kind {
+        /**
+         * A whole comment: main description and block tags, as returned by `Doc.getRawCommentText()`.
+         */
+        COMMENT,
+        /**
+         * A fragment of a comment, such as the text of a block tag, which is rendered inline.
+         */
+        INLINE
+    }
+
+    private final AsciidoctorRenderer renderer;
+    private final Cache<String, String> cache;
+
+    public CommentRenderer(DocletOptions docletOptions) {
+        this(docletOptions, ConsoleErrorReporter.INSTANCE, DEFAULT_CACHE_SIZE);
+    }
+
+    public CommentRenderer(DocletOptions docletOptions, DocErrorReporter errorReporter, int cacheSize) {
+        this(new AsciidoctorRenderer(docletOptions, errorReporter), cacheSize);
+    }
+
+    CommentRenderer(AsciidoctorRenderer renderer, int cacheSize) {
+        this.renderer = renderer;
+        this.cache = CacheBuilder.newBuilder().maximumSize(cacheSize).build();
+    }
+
+    /**
+     * Renders a raw comment.
+     *
+     * @param raw comment text
+     * @param kind what the text holds
+     * @return the rendered comment, in the form the Javadoc tool expects
+     */
+    public String renderComment(String raw, Kind kind) {
+        String key = kind.ordinal() + raw;
+        String output = cache.getIfPresent(key);
+        if (output != null) return output;
+        synchronized (renderer) {
+            output = kind == Kind.COMMENT ? renderer.renderComment(null, raw) : renderer.renderInline(raw);
+        }
+        if (output == null) output = "";
+        cache.put(key, output);
+        return output;
+    }
+
+    /**
+     * Releases the shared Asciidoctor runtime. It stays warm for a while in case another renderer or run needs it.
+     */
+    @Override
+    public void close() {
+        cache.invalidateAll();
+        renderer.cleanup();
+    }
+}
@@ -0,0 +1,40 @@
+package org.asciidoctor.asciidoclet;
+
+import com.sun.javadoc.DocErrorReporter;
+import com.sun.javadoc.SourcePosition;
+
+/**
+ * Reports errors and warnings to standard error, for use outside of javadoc. Notices are dropped.
+ */
+class ConsoleErrorReporter implements DocErrorReporter {
+
+    static final ConsoleErrorReporter INSTANCE = new ConsoleErrorReporter();
+
+    @Override
+    public void printError(String msg) {
+        System.err.println("error: " + msg);
+    }
+
+    @Override
+    public void printError(SourcePosition pos, String msg) {
+        printError(msg);
+    }
+
+    @Override
+    public void printWarning(String msg) {
+        System.err.println("warning: " + msg);
+    }
+
+    @Override
+    public void printWarning(SourcePosition pos, String msg) {
+        printWarning(msg);
+    }
+
+    @Override
+    public void printNotice(String msg) {
+    }
+
+    @Override
+    public void printNotice(SourcePosition pos, String msg) {
+    }
+}
@@ -0,0 +1,58 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Optional;
+import com.sun.javadoc.RootDoc;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Points the `-d` option of a run at another directory, until restored.
+ *
+ * The standard doclet only checks for functional interfaces and scripts in comments, and only runs
+ * doclint and honors `-locale`, when it is given the javadoc tool's own `RootDoc`, so the run cannot
+ * be wrapped. Instead, the value of `-d` is replaced in the option arrays, which the `RootDoc` returns
+ * as they are, and which the standard doclet reads its options from.
+ */
+public final class DestDirOption {
+
+    private final List<String[]> options;
+    private final List<String> values;
+
+    private DestDirOption(List<String[]> options, List<String> values) {
+        this.options = options;
+        this.values = values;
+    }
+
+    /**
+     * @param rootDoc the run
+     * @param destDir the directory the run writes to
+     * @return the replaced option to restore, or absent if the run has no `-d` option or does not
+     * return its option arrays as they are
+     */
+    public static Optional<DestDirOption> redirect(RootDoc rootDoc, File destDir) {
+        List<String[]> options = new ArrayList<String[]>();
+        List<String> values = new ArrayList<String>();
+        for (String[] option : rootDoc.options()) {
+            if (option.length > 1 && DocletOptions.DESTDIR.equals(option[0])) {
+                options.add(option);
+                values.add(option[1]);
+                option[1] = destDir.getPath();
+            }
+        }
+        DestDirOption redirected = new DestDirOption(options, values);
+        if (!options.isEmpty() && Optional.of(destDir).equals(new DocletOptions(rootDoc).destDir())) {
+            return Optional.of(redirected);
+        }
+        redirected.restore();
+        return Optional.absent();
+    }
+
+    /**
+     * Points the `-d` option back at the directory it was given.
+     */
+    public void restore() {
+        for (int i = 0; i < options.size(); i++) options.get(i)[1] = values.get(i);
+    }
+}
@@ -5,8 +5,7 @@ import com.google.common.io.Files;
 import com.sun.javadoc.*;
 
 import java.io.*;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
 import java.util.regex.Pattern;
 
 /**
@@ -17,27 +16,42 @@ import java.util.regex.Pattern;
 public class DocletIterator {
 
     private final DocletOptions docletOptions;
+    private final RenderFilter filter;
+    private int skipped;
 
     public DocletIterator(DocletOptions docletOptions) {
         this.docletOptions = docletOptions;
+        this.filter = new RenderFilter(docletOptions);
     }
 
     /**
      * Renders a RootDoc's contents.
      *
+     * Classes and members excluded with `-asciidoclet-include`, `-asciidoclet-exclude` or
+     * `-asciidoclet-exclude-annotated` are left as they are.
+     *
      * @param rootDoc
      * @param renderer
      */
     public boolean render(RootDoc rootDoc, DocletRenderer renderer) {
         if (!processOverview(rootDoc, renderer)) return false;
-        Set<PackageDoc> packages = new HashSet<PackageDoc>();
+        skipped = 0;
+        Set<PackageDoc> packages = new LinkedHashSet<PackageDoc>();
         for (ClassDoc doc : rootDoc.classes()) {
+            if (filter.skip(doc.containingPackage())) {
+                skipClass(doc);
+                continue;
+            }
             packages.add(doc.containingPackage());
-            renderClass(doc, renderer);
+            if (filter.skip(doc)) skipClass(doc);
+            else renderClass(doc, renderer);
         }
         for (PackageDoc doc : packages) {
             renderer.renderDoc(doc);
         }
+        if (filter.enabled()) {
+            rootDoc.printNotice("Skipped rendering " + skipped + " comments of excluded classes and members");
+        }
         return true;
     }
 
@@ -49,23 +63,26 @@ public class DocletIterator {
     private void renderClass(ClassDoc doc, DocletRenderer renderer) {
         //handle the various parts of the Class doc
         renderer.renderDoc(doc);
-        for ( MemberDoc member : doc.fields() ) {
-            renderer.renderDoc(member);
-        }
-        for ( MemberDoc member : doc.constructors() ) {
-            renderer.renderDoc(member);
-        }
-        for ( MemberDoc member : doc.methods() ) {
-            renderer.renderDoc(member);
-        }
-        for ( MemberDoc member : doc.enumConstants() ) {
-            renderer.renderDoc(member);
+        for ( MemberDoc member : members(doc) ) {
+            if (filter.skipMember(member)) skipped++;
+            else renderer.renderDoc(member);
         }
+    }
+
+    private void skipClass(ClassDoc doc) {
+        skipped += 1 + members(doc).size();
+    }
+
+    static List<MemberDoc> members(ClassDoc doc) {
+        List<MemberDoc> members = new ArrayList<MemberDoc>();
+        Collections.addAll(members, doc.fields());
+        Collections.addAll(members, doc.constructors());
+        Collections.addAll(members, doc.methods());
+        Collections.addAll(members, doc.enumConstants());
         if ( doc instanceof AnnotationTypeDoc) {
-            for ( MemberDoc member : ((AnnotationTypeDoc)doc).elements() ) {
-                renderer.renderDoc(member);
-            }
+            Collections.addAll(members, ((AnnotationTypeDoc)doc).elements());
         }
+        return members;
     }
 
     private boolean processOverview(RootDoc rootDoc, DocletRenderer renderer) {
@@ -3,12 +3,16 @@ package org.asciidoctor.asciidoclet;
 import com.google.common.base.Optional;
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.sun.javadoc.DocErrorReporter;
 import com.sun.javadoc.RootDoc;
 
 import java.io.File;
 import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 /**
  * Provides an interface to the doclet options we are interested in.
@@ -19,7 +23,41 @@ public class DocletOptions {
     public static final String INCLUDE_BASEDIR = "-include-basedir";
     public static final String STYLESHEETFILE = "-stylesheetfile";
     public static final String DESTDIR = "-d";
+    public static final String SOURCEPATH = "-sourcepath";
+    public static final String SUBPACKAGES = "-subpackages";
+    public static final String NOTIMESTAMP = "-notimestamp";
     public static final String ATTRIBUTES = "-attributes";
+    public static final String MINIFY = "-asciidoclet-minify";
+    public static final String PROFILE = "-asciidoclet-profile";
+    public static final String LINT = "-asciidoclet-lint";
+    public static final String WATCH = "-asciidoclet-watch";
+    /**
+     * Marks the javadoc runs started by {@link DocletWatcher}, which must not start a watcher of their own.
+     */
+    static final String WATCHING = "-asciidoclet-watching";
+    /**
+     * Marks the javadoc runs documenting a version for {@link VersionedSite}, which share the render cache.
+     */
+    static final String VERSIONED = "-asciidoclet-versioned";
+    public static final String SHUTDOWN_RUNTIME = "-asciidoclet-shutdown-runtime";
+    public static final String AUTOLINK = "-asciidoclet-autolink";
+    public static final String PAGE_WRITER = "-asciidoclet-page-writer";
+    public static final String EXPORT = "-asciidoclet-export";
+    public static final String NO_HTML = "-asciidoclet-no-html";
+    public static final String COPY_IMAGES = "-asciidoclet-copy-images";
+    public static final String SYNC_OUTPUT = "-asciidoclet-sync-output";
+    public static final String ARCHIVE = "-asciidoclet-archive";
+    public static final String BACKENDS = "-asciidoclet-backends";
+    public static final String INCLUDE_PACKAGES = "-asciidoclet-include";
+    public static final String EXCLUDE_PACKAGES = "-asciidoclet-exclude";
+    public static final String EXCLUDE_ANNOTATED = "-asciidoclet-exclude-annotated";
+    public static final String REPRODUCIBLE = "-asciidoclet-reproducible";
+    public static final String RECORD = "-asciidoclet-record";
+    public static final String DETECT_HTML = "-asciidoclet-detect-html";
+    public static final String BLOCK_CACHE = "-asciidoclet-block-cache";
+    public static final String VERSION = "-asciidoclet-version";
+    public static final String REMOTE_CACHE = "-asciidoclet-remote-cache";
+    public static final String PRERENDERED = "-asciidoclet-prerendered";
 
     private final Optional<File> basedir;
     private final Optional<File> overview;
@@ -27,6 +65,32 @@ public class DocletOptions {
     private final Optional<File> destdir;
     private final Charset encoding;
     private final List<String> attributes;
+    private final boolean minify;
+    private final Optional<File> profile;
+    private final boolean lint;
+    private final boolean watch;
+    private final boolean watching;
+    private final boolean versioned;
+    private final boolean shutdownRuntime;
+    private final boolean autolink;
+    private final boolean pageWriter;
+    private final Optional<File> export;
+    private final boolean noHtml;
+    private final boolean copyImages;
+    private final boolean syncOutput;
+    private final Optional<File> archive;
+    private final List<String> backends;
+    private final List<String> includePackages;
+    private final List<String> excludePackages;
+    private final List<String> excludeAnnotated;
+    private final boolean reproducible;
+    private final boolean noTimestamp;
+    private final Optional<File> record;
+    private final boolean detectHtml;
+    private final boolean blockCache;
+    private final Map<String, String> versions;
+    private final Optional<String> remoteCache;
+    private final Optional<File> prerendered;
 
     public static final DocletOptions NONE = new DocletOptions(new String[][]{});
 
@@ -41,6 +105,32 @@ public class DocletOptions {
         File destdir = null;
         Charset encoding = Charset.defaultCharset();
         ImmutableList.Builder<String> attrs = ImmutableList.builder();
+        boolean minify = false;
+        File profile = null;
+        boolean lint = false;
+        boolean watch = false;
+        boolean watching = false;
+        boolean versioned = false;
+        boolean shutdownRuntime = false;
+        boolean autolink = false;
+        boolean pageWriter = false;
+        File export = null;
+        boolean noHtml = false;
+        boolean copyImages = false;
+        boolean syncOutput = false;
+        File archive = null;
+        ImmutableList.Builder<String> backends = ImmutableList.builder();
+        ImmutableList.Builder<String> includePackages = ImmutableList.builder();
+        ImmutableList.Builder<String> excludePackages = ImmutableList.builder();
+        ImmutableList.Builder<String> excludeAnnotated = ImmutableList.builder();
+        boolean reproducible = false;
+        boolean noTimestamp = false;
+        File record = null;
+        boolean detectHtml = false;
+        boolean blockCache = false;
+        Map<String, String> versions = new LinkedHashMap<String, String>();
+        String remoteCache = null;
+        File prerendered = null;
         for (String[] option : options) {
             if (option.length > 0) {
                 if (INCLUDE_BASEDIR.equals(option[0])) {
@@ -61,6 +151,86 @@ public class DocletOptions {
                 else if (ATTRIBUTES.equals(option[0])) {
                     attrs.addAll(attributeSplitter.split(option[1]));
                 }
+                else if (MINIFY.equals(option[0])) {
+                    minify = true;
+                }
+                else if (PROFILE.equals(option[0])) {
+                    profile = new File(option[1]);
+                }
+                else if (LINT.equals(option[0])) {
+                    lint = true;
+                }
+                else if (WATCH.equals(option[0])) {
+                    watch = true;
+                }
+                else if (WATCHING.equals(option[0])) {
+                    watching = true;
+                }
+                else if (VERSIONED.equals(option[0])) {
+                    versioned = true;
+                }
+                else if (SHUTDOWN_RUNTIME.equals(option[0])) {
+                    shutdownRuntime = true;
+                }
+                else if (AUTOLINK.equals(option[0])) {
+                    autolink = true;
+                }
+                else if (PAGE_WRITER.equals(option[0])) {
+                    pageWriter = true;
+                }
+                else if (EXPORT.equals(option[0])) {
+                    export = new File(option[1]);
+                }
+                else if (NO_HTML.equals(option[0])) {
+                    noHtml = true;
+                }
+                else if (COPY_IMAGES.equals(option[0])) {
+                    copyImages = true;
+                }
+                else if (SYNC_OUTPUT.equals(option[0])) {
+                    syncOutput = true;
+                }
+                else if (ARCHIVE.equals(option[0])) {
+                    archive = new File(option[1]);
+                }
+                else if (BACKENDS.equals(option[0])) {
+                    backends.addAll(listSplitter.split(option[1]));
+                }
+                else if (INCLUDE_PACKAGES.equals(option[0])) {
+                    includePackages.addAll(listSplitter.split(option[1]));
+                }
+                else if (EXCLUDE_PACKAGES.equals(option[0])) {
+                    excludePackages.addAll(listSplitter.split(option[1]));
+                }
+                else if (EXCLUDE_ANNOTATED.equals(option[0])) {
+                    excludeAnnotated.addAll(listSplitter.split(option[1]));
+                }
+                else if (REPRODUCIBLE.equals(option[0])) {
+                    reproducible = true;
+                }
+                else if (NOTIMESTAMP.equals(option[0])) {
+                    noTimestamp = true;
+                }
+                else if (RECORD.equals(option[0])) {
+                    record = new File(option[1]);
+                }
+                else if (DETECT_HTML.equals(option[0])) {
+                    detectHtml = true;
+                }
+                else if (BLOCK_CACHE.equals(option[0])) {
+                    blockCache = true;
+                }
+                else if (VERSION.equals(option[0])) {
+                    int separator = option[1].indexOf('=');
+                    if (separator < 0) versions.put(option[1].trim(), "");
+                    else versions.put(option[1].substring(0, separator).trim(), option[1].substring(separator + 1).trim());
+                }
+                else if (REMOTE_CACHE.equals(option[0])) {
+                    remoteCache = option[1];
+                }
+                else if (PRERENDERED.equals(option[0])) {
+                    prerendered = new File(option[1]);
+                }
             }
         }
 
@@ -70,6 +240,32 @@ public class DocletOptions {
         this.destdir = Optional.fromNullable(destdir);
         this.encoding = encoding;
         this.attributes = attrs.build();
+        this.minify = minify;
+        this.profile = Optional.fromNullable(profile);
+        this.lint = lint;
+        this.watch = watch;
+        this.watching = watching;
+        this.versioned = versioned;
+        this.shutdownRuntime = shutdownRuntime;
+        this.autolink = autolink;
+        this.pageWriter = pageWriter;
+        this.export = Optional.fromNullable(export);
+        this.noHtml = noHtml;
+        this.copyImages = copyImages;
+        this.syncOutput = syncOutput;
+        this.archive = Optional.fromNullable(archive);
+        this.backends = backends.build();
+        this.includePackages = includePackages.build();
+        this.excludePackages = excludePackages.build();
+        this.excludeAnnotated = excludeAnnotated.build();
+        this.reproducible = reproducible;
+        this.noTimestamp = noTimestamp;
+        this.record = Optional.fromNullable(record);
+        this.detectHtml = detectHtml;
+        this.blockCache = blockCache;
+        this.versions = ImmutableMap.copyOf(versions);
+        this.remoteCache = Optional.fromNullable(remoteCache);
+        this.prerendered = Optional.fromNullable(prerendered);
     }
 
     public Optional<File> overview() {
@@ -96,16 +292,175 @@ public class DocletOptions {
         return attributes;
     }
 
+    public boolean minify() {
+        return minify;
+    }
+
+    public Optional<File> profile() {
+        return profile;
+    }
+
+    public boolean lint() {
+        return lint;
+    }
+
+    public boolean watch() {
+        return watch;
+    }
+
+    /**
+     * @return whether this run was started by a {@link DocletWatcher}
+     */
+    public boolean watching() {
+        return watching;
+    }
+
+    /**
+     * @return whether this run documents a version for a {@link VersionedSite}
+     */
+    public boolean versioned() {
+        return versioned;
+    }
+
+    public boolean shutdownRuntime() {
+        return shutdownRuntime;
+    }
+
+    public boolean autolink() {
+        return autolink;
+    }
+
+    public boolean pageWriter() {
+        return pageWriter;
+    }
+
+    public Optional<File> export() {
+        return export;
+    }
+
+    public boolean noHtml() {
+        return noHtml;
+    }
+
+    public boolean copyImages() {
+        return copyImages;
+    }
+
+    public boolean syncOutput() {
+        return syncOutput;
+    }
+
+    public Optional<File> archive() {
+        return archive;
+    }
+
+    public List<String> backends() {
+        return backends;
+    }
+
+    public List<String> includePackages() {
+        return includePackages;
+    }
+
+    public List<String> excludePackages() {
+        return excludePackages;
+    }
+
+    public List<String> excludeAnnotated() {
+        return excludeAnnotated;
+    }
+
+    public boolean reproducible() {
+        return reproducible;
+    }
+
+    public boolean noTimestamp() {
+        return noTimestamp;
+    }
+
+    public Optional<File> record() {
+        return record;
+    }
+
+    public boolean detectHtml() {
+        return detectHtml;
+    }
+
+    public boolean blockCache() {
+        return blockCache;
+    }
+
+    /**
+     * @return source path by version name, in the order given
+     */
+    public Map<String, String> versions() {
+        return versions;
+    }
+
+    /**
+     * @return base URL of the remote render cache
+     */
+    public Optional<String> remoteCache() {
+        return remoteCache;
+    }
+
+    /**
+     * @return store written by {@link PreRender}
+     */
+    public Optional<File> prerendered() {
+        return prerendered;
+    }
+
     public static boolean validOptions(String[][] options, DocErrorReporter errorReporter, StandardAdapter standardDoclet) {
         DocletOptions docletOptions = new DocletOptions(options);
 
         if (!docletOptions.includeBasedir().isPresent()) {
             errorReporter.printWarning(INCLUDE_BASEDIR + " must be present for includes or file reference features.");
         }
+        if (docletOptions.archive().isPresent() && !docletOptions.destDir().isPresent()) {
+            errorReporter.printError(ARCHIVE + " requires " + DESTDIR + ".");
+            return false;
+        }
+        if (!docletOptions.backends().isEmpty() && !docletOptions.export().isPresent()) {
+            errorReporter.printError(BACKENDS + " requires " + EXPORT + ".");
+            return false;
+        }
+        if (!docletOptions.versions().isEmpty() && !validVersions(docletOptions, errorReporter)) {
+            return false;
+        }
+        if (docletOptions.remoteCache().isPresent() && !REMOTE_CACHE_PATTERN.matcher(docletOptions.remoteCache().get()).matches()) {
+            errorReporter.printError(REMOTE_CACHE + " expects an http or https URL, but got " + docletOptions.remoteCache().get());
+            return false;
+        }
 
         return standardDoclet.validOptions(options, errorReporter);
     }
 
+    private static boolean validVersions(DocletOptions docletOptions, DocErrorReporter errorReporter) {
+        if (!docletOptions.destDir().isPresent()) {
+            errorReporter.printError(VERSION + " requires " + DESTDIR + ".");
+            return false;
+        }
+        if (docletOptions.watch() || docletOptions.archive().isPresent() || docletOptions.syncOutput()
+                || docletOptions.record().isPresent()) {
+            errorReporter.printError(VERSION + " cannot be combined with " + WATCH + ", " + ARCHIVE + ", " + SYNC_OUTPUT
+                    + " or " + RECORD + ".");
+            return false;
+        }
+        for (Map.Entry<String, String> version : docletOptions.versions().entrySet()) {
+            if (!VERSION_NAME_PATTERN.matcher(version.getKey()).matches() || version.getValue().isEmpty()) {
+                errorReporter.printError(VERSION + " expects <name>=<sourcepath>, with a name made of letters, digits, "
+                        + "'.', '_' and '-', but got " + version.getKey() + "=" + version.getValue());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final Pattern REMOTE_CACHE_PATTERN = Pattern.compile("https?://[^/?#\\s]+(/[^?#\\s]*)?");
+
+    private static final Pattern VERSION_NAME_PATTERN = Pattern.compile("(?!\\.+$)[\\w.-]+");
+
     public static int optionLength(String option, StandardAdapter standardDoclet) {
         if (INCLUDE_BASEDIR.equals(option)) {
             return 2;
@@ -113,8 +468,84 @@ public class DocletOptions {
         if (ATTRIBUTES.equals(option)) {
             return 2;
         }
+        if (MINIFY.equals(option)) {
+            return 1;
+        }
+        if (PROFILE.equals(option)) {
+            return 2;
+        }
+        if (LINT.equals(option)) {
+            return 1;
+        }
+        if (WATCH.equals(option)) {
+            return 1;
+        }
+        if (WATCHING.equals(option)) {
+            return 1;
+        }
+        if (VERSIONED.equals(option)) {
+            return 1;
+        }
+        if (SHUTDOWN_RUNTIME.equals(option)) {
+            return 1;
+        }
+        if (AUTOLINK.equals(option)) {
+            return 1;
+        }
+        if (PAGE_WRITER.equals(option)) {
+            return 1;
+        }
+        if (EXPORT.equals(option)) {
+            return 2;
+        }
+        if (NO_HTML.equals(option)) {
+            return 1;
+        }
+        if (COPY_IMAGES.equals(option)) {
+            return 1;
+        }
+        if (SYNC_OUTPUT.equals(option)) {
+            return 1;
+        }
+        if (ARCHIVE.equals(option)) {
+            return 2;
+        }
+        if (BACKENDS.equals(option)) {
+            return 2;
+        }
+        if (INCLUDE_PACKAGES.equals(option)) {
+            return 2;
+        }
+        if (EXCLUDE_PACKAGES.equals(option)) {
+            return 2;
+        }
+        if (EXCLUDE_ANNOTATED.equals(option)) {
+            return 2;
+        }
+        if (REPRODUCIBLE.equals(option)) {
+            return 1;
+        }
+        if (RECORD.equals(option)) {
+            return 2;
+        }
+        if (DETECT_HTML.equals(option)) {
+            return 1;
+        }
+        if (BLOCK_CACHE.equals(option)) {
+            return 1;
+        }
+        if (VERSION.equals(option)) {
+            return 2;
+        }
+        if (REMOTE_CACHE.equals(option)) {
+            return 2;
+        }
+        if (PRERENDERED.equals(option)) {
+            return 2;
+        }
         return standardDoclet.optionLength(option);
     }
 
     private static final Splitter attributeSplitter = Splitter.onPattern("\\s*;\\s*").omitEmptyStrings().trimResults();
+    private static final Splitter listSplitter = Splitter.onPattern("[,;]").omitEmptyStrings().trimResults();
 }
@@ -0,0 +1,362 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Optional;
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.PackageDoc;
+import com.sun.javadoc.RootDoc;
+import com.sun.javadoc.SourcePosition;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Watches the sources of a javadoc run and documents the packages of changed files again.
+ *
+ * The watched files are the source files of all documented classes and packages, the `-overview`
+ * file and the files they include with `include::` directives, followed through included files as
+ * well. Included files are resolved like Asciidoctor does, against `-include-basedir` for comments
+ * and against the directory of the including file otherwise. The files are polled for changes in
+ * modification time or size, as `WatchService` is not available on Java 6, and a changed file is
+ * read again for the files it includes.
+ *
+ * A change starts a javadoc run through {@link JavadocLauncher} for only the packages of the changed
+ * source files and of the source files that include a changed file. It writes to a directory next to
+ * the destination directory, and links to the other packages through the `package-list` of the
+ * previous output with `-linkoffline`, so these links are marked as external until the next full run.
+ * The pages of those packages are then copied over the previous output, which keeps all other pages,
+ * such as the overview, the index and the `class-use` pages.
+ * When the pages of a package would be added or removed, or the `-overview` file or a file that no
+ * documented package is known for changes, javadoc is run again for all sources instead.
+ *
+ * The runs share the warm Asciidoctor runtime and its cache, so only changed comments are rendered by
+ * Asciidoctor again. The runs are marked with an internal option, as the doclet may be loaded again
+ * for each of them and cannot tell from its own state.
+ */
+public class DocletWatcher {
+
+    static final long POLL_INTERVAL_MILLIS = 500;
+
+    private final DocletOptions docletOptions;
+    private final RootDoc rootDoc;
+    private final Set<File> sources;
+    private final Map<File, Set<String>> packages;
+    private final File basedir;
+    private final Map<File, Set<File>> includes = new HashMap<File, Set<File>>();
+    private Set<File> watched;
+    private Map<File, Long> snapshot;
+
+    public DocletWatcher(DocletOptions docletOptions, RootDoc rootDoc) {
+        this.docletOptions = docletOptions;
+        this.rootDoc = rootDoc;
+        this.packages = sourcePackages(rootDoc);
+        this.sources = sourceFiles(docletOptions, packages.keySet());
+        this.basedir = docletOptions.includeBasedir().or(new File(System.getProperty("user.dir")));
+        this.watched = watchedFiles();
+        this.snapshot = snapshot(watched);
+    }
+
+    /**
+     * Polls for changes and documents the changed packages again on every change, until the thread is interrupted.
+     *
+     * @param launcher runs javadoc
+     */
+    public void watch(JavadocLauncher launcher) {
+        try {
+            rootDoc.printNotice("Watching " + watched.size() + " files for changes, press Ctrl+C to stop");
+            while (!Thread.currentThread().isInterrupted()) {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+                Set<File> changed = poll();
+                if (changed.isEmpty()) continue;
+
+                rootDoc.printNotice("Changed: " + changed);
+                regenerate(changed, launcher);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Documents the packages affected by changed files again, or all packages if needed.
+     *
+     * @param changed the changed files
+     * @param launcher runs javadoc
+     * @return true if javadoc succeeded
+     */
+    boolean regenerate(Set<File> changed, JavadocLauncher launcher) {
+        long start = System.currentTimeMillis();
+        Optional<Set<String>> affected = affectedPackages(changed);
+        String regenerated = "all packages";
+        boolean result;
+        if (affected.isPresent() && canDocumentPackages()) {
+            Optional<Boolean> partial = documentPackages(affected.get(), launcher);
+            if (partial.isPresent()) {
+                regenerated = affected.get().size() == 1 ? "package " + affected.get().iterator().next()
+                        : affected.get().size() + " packages";
+                result = partial.get();
+            } else {
+                result = launcher.execute(arguments(rootDoc)) == 0;
+            }
+        } else {
+            result = launcher.execute(arguments(rootDoc)) == 0;
+        }
+        rootDoc.printNotice("Regenerated " + regenerated + " in " + (System.currentTimeMillis() - start) + " ms"
+                + (result ? "" : " with errors"));
+        return result;
+    }
+
+    /**
+     * @return the packages of the changed source files and of the source files that include a changed
+     * file, or absent if all packages are to be documented again
+     */
+    Optional<Set<String>> affectedPackages(Set<File> changed) {
+        Set<String> affected = new TreeSet<String>();
+        for (File file : changed) {
+            if (!file.isFile()) return Optional.absent();
+            boolean known = false;
+            for (Map.Entry<File, Set<String>> source : packages.entrySet()) {
+                if (source.getKey().equals(file) || includedBy(source.getKey()).contains(file)) {
+                    affected.addAll(source.getValue());
+                    known = true;
+                }
+            }
+            if (!known) return Optional.absent();
+        }
+        // classes in the unnamed package are written next to the overview
+        return affected.contains("") ? Optional.<Set<String>>absent() : Optional.of(affected);
+    }
+
+    /**
+     * @return the files a file includes, directly or through other included files
+     */
+    private Set<File> includedBy(File file) {
+        Set<File> included = new HashSet<File>();
+        Deque<File> pending = new ArrayDeque<File>();
+        pending.push(file);
+        while (!pending.isEmpty()) {
+            Set<File> direct = includes.get(pending.pop());
+            if (direct == null) continue;
+            for (File include : direct) {
+                if (included.add(include)) pending.push(include);
+            }
+        }
+        return included;
+    }
+
+    /**
+     * Packages are only documented on their own if the previous output is in the destination
+     * directory, with a `package-list` to link the other packages to.
+     */
+    private boolean canDocumentPackages() {
+        return docletOptions.destDir().isPresent() && !docletOptions.noHtml() && !docletOptions.syncOutput()
+                && !docletOptions.archive().isPresent()
+                && new File(docletOptions.destDir().get(), PACKAGE_LIST).isFile();
+    }
+
+    /**
+     * Documents packages into a directory next to the destination directory and copies their pages
+     * to the destination directory.
+     *
+     * @return whether javadoc succeeded, or absent if pages of the packages would be added or removed
+     */
+    private Optional<Boolean> documentPackages(Set<String> affected, JavadocLauncher launcher) {
+        File destDir = docletOptions.destDir().get().getAbsoluteFile();
+        File packagesDir = new File(destDir.getParentFile(), "." + destDir.getName() + ".watch");
+        try {
+            StagedOutput.delete(packagesDir);
+            if (launcher.execute(packageArguments(rootDoc, packagesDir, destDir, affected)) != 0) return Optional.of(false);
+            List<String> pages = new ArrayList<String>();
+            for (String packageName : affected) {
+                String path = packageName.replace('.', '/') + "/";
+                List<String> packagePages = packagePages(packagesDir, path);
+                if (!packagePages.equals(packagePages(destDir, path))) {
+                    rootDoc.printNotice("Pages of package " + packageName + " were added or removed, documenting all packages");
+                    return Optional.absent();
+                }
+                for (String page : StagedOutput.files(new File(packagesDir, path), path, new ArrayList<String>())) {
+                    if (packagePages.contains(page) || page.startsWith(path + DOC_FILES)) pages.add(page);
+                }
+            }
+            for (String page : pages) OutputSync.move(new File(packagesDir, page), new File(destDir, page));
+            return Optional.of(true);
+        } catch (IOException e) {
+            rootDoc.printWarning("Cannot document the changed packages on their own: " + e.getLocalizedMessage());
+            return Optional.absent();
+        } finally {
+            try {
+                StagedOutput.delete(packagesDir);
+            } catch (IOException e) {
+                rootDoc.printWarning(e.getLocalizedMessage());
+            }
+        }
+    }
+
+    /**
+     * @return the pages directly in the directory of a package, but its `package-use.html`, which lists
+     * uses from all packages
+     */
+    private static List<String> packagePages(File root, String path) {
+        List<String> pages = new ArrayList<String>();
+        String[] names = new File(root, path).list();
+        if (names == null) return pages;
+        Arrays.sort(names);
+        for (String name : names) {
+            if (new File(root, path + name).isFile() && !name.equals(PACKAGE_USE)) pages.add(path + name);
+        }
+        return pages;
+    }
+
+    /**
+     * @return the arguments of the run to repeat for some of its packages only, writing to another directory
+     */
+    static List<String> packageArguments(RootDoc rootDoc, File packagesDir, File destDir, Collection<String> packageNames) {
+        List<String> args = new ArrayList<String>();
+        args.add(DocletOptions.WATCHING);
+        args.addAll(JavadocLauncher.options(rootDoc, DocletOptions.WATCHING, DocletOptions.DESTDIR,
+                DocletOptions.SUBPACKAGES, DocletOptions.OVERVIEW, DocletOptions.EXPORT, DocletOptions.RECORD, USE));
+        args.addAll(Arrays.asList(DocletOptions.DESTDIR, packagesDir.getPath(), NOINDEX, LINKOFFLINE, ".", destDir.getPath()));
+        args.addAll(packageNames);
+        return args;
+    }
+
+    /**
+     * @return the arguments of the run to repeat, marked as started by a watcher
+     */
+    static List<String> arguments(RootDoc rootDoc) {
+        List<String> args = new ArrayList<String>();
+        args.add(DocletOptions.WATCHING);
+        args.addAll(JavadocLauncher.arguments(rootDoc, DocletOptions.WATCHING));
+        return args;
+    }
+
+    /**
+     * @return the files that changed, were added or were removed since the last call
+     */
+    Set<File> poll() {
+        Map<File, Long> current = snapshot(watched);
+        Set<File> changed = new TreeSet<File>();
+        for (Map.Entry<File, Long> entry : current.entrySet()) {
+            if (!entry.getValue().equals(snapshot.get(entry.getKey()))) changed.add(entry.getKey());
+        }
+        for (File file : snapshot.keySet()) {
+            if (!current.containsKey(file)) changed.add(file);
+        }
+        if (!changed.isEmpty()) {
+            for (File file : changed) includes.remove(file);
+            Set<File> previous = watched;
+            watched = watchedFiles();
+            current.keySet().retainAll(watched);
+            Set<File> added = new HashSet<File>(watched);
+            added.removeAll(previous);
+            current.putAll(snapshot(added));
+        }
+        snapshot = current;
+        return changed;
+    }
+
+    /**
+     * @return the files polled for changes
+     */
+    Set<File> watched() {
+        return watched;
+    }
+
+    /**
+     * Collects the sources and the files they include, reading the files whose includes are not known yet.
+     */
+    private Set<File> watchedFiles() {
+        Set<File> watched = new HashSet<File>(sources);
+        Deque<File> pending = new ArrayDeque<File>(sources);
+        while (!pending.isEmpty()) {
+            File file = pending.pop();
+            Set<File> included = includes.get(file);
+            if (included == null) {
+                included = includedFiles(file);
+                includes.put(file, included);
+            }
+            for (File include : included) {
+                if (watched.add(include)) pending.push(include);
+            }
+        }
+        return watched;
+    }
+
+    /**
+     * Reads the targets of the `include::` directives of a file, in all of its doc comments if it is a Java source.
+     */
+    private Set<File> includedFiles(File file) {
+        Set<File> included = new HashSet<File>();
+        if (!file.isFile()) return included;
+        boolean source = sources.contains(file);
+        try {
+            List<? extends CharSequence> texts = file.getName().endsWith(".java")
+                    ? SourceComments.extract(SourceComments.read(file, docletOptions.encoding()))
+                    : Collections.singletonList(SourceComments.read(file, docletOptions.encoding()));
+            for (CharSequence text : texts) {
+                Matcher matcher = INCLUDE_PATTERN.matcher(text);
+                while (matcher.find()) {
+                    String target = matcher.group(1).trim();
+                    if (target.contains("{") || target.contains("://")) continue;
+                    File include = new File(target);
+                    if (!include.isAbsolute()) include = new File(source ? basedir : file.getParentFile(), target);
+                    included.add(include);
+                }
+            }
+        } catch (IOException e) {
+            // the file is polled anyway, and read again once it changes
+        }
+        return included;
+    }
+
+    private static Map<File, Long> snapshot(Collection<File> files) {
+        Map<File, Long> snapshot = new HashMap<File, Long>();
+        for (File file : files) {
+            if (file.isFile()) snapshot.put(file, signature(file));
+        }
+        return snapshot;
+    }
+
+    private static long signature(File file) {
+        return file.lastModified() * 31 + file.length();
+    }
+
+    private static Set<File> sourceFiles(DocletOptions docletOptions, Set<File> sources) {
+        Set<File> files = new HashSet<File>(sources);
+        if (docletOptions.overview().isPresent()) files.add(docletOptions.overview().get());
+        return files;
+    }
+
+    /**
+     * @return the source files of all documented classes and packages, with the packages they document
+     */
+    private static Map<File, Set<String>> sourcePackages(RootDoc rootDoc) {
+        Map<File, Set<String>> packages = new HashMap<File, Set<String>>();
+        for (ClassDoc classDoc : rootDoc.classes()) {
+            PackageDoc packageDoc = classDoc.containingPackage();
+            addPosition(classDoc.position(), packageDoc != null ? packageDoc.name() : "", packages);
+        }
+        for (PackageDoc packageDoc : rootDoc.specifiedPackages()) {
+            addPosition(packageDoc.position(), packageDoc.name(), packages);
+        }
+        return packages;
+    }
+
+    private static void addPosition(SourcePosition position, String packageName, Map<File, Set<String>> packages) {
+        if (position == null || position.file() == null) return;
+        Set<String> names = packages.get(position.file());
+        if (names == null) packages.put(position.file(), names = new HashSet<String>());
+        names.add(packageName);
+    }
+
+    private static final String PACKAGE_LIST = "package-list";
+    private static final String PACKAGE_USE = "package-use.html";
+    private static final String DOC_FILES = "doc-files/";
+    private static final String USE = "-use";
+    private static final String NOINDEX = "-noindex";
+    private static final String LINKOFFLINE = "-linkoffline";
+
+    private static final Pattern INCLUDE_PATTERN = Pattern.compile("(?m)^\\s*include::([^\\[\\n]+)\\[");
+}
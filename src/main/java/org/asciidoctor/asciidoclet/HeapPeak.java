@@ -0,0 +1,65 @@
+package org.asciidoctor.asciidoclet;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+
+/**
+ * Measures the peak heap usage of the phases of a doclet run.
+ *
+ * The peak of a phase is the sum of the peak usage of all heap memory pools since the previous
+ * phase ended. Pools peak at different times, so this is an upper bound of the actual peak.
+ */
+public class HeapPeak {
+
+    private static final long MB = 1024 * 1024;
+
+    private final List<MemoryPoolMXBean> pools;
+
+    private HeapPeak(List<MemoryPoolMXBean> pools) {
+        this.pools = pools;
+        reset();
+    }
+
+    /**
+     * Starts measuring the first phase.
+     */
+    public static HeapPeak start() {
+        return new HeapPeak(ManagementFactory.getMemoryPoolMXBeans());
+    }
+
+    /**
+     * Ends the current phase and starts the next one.
+     *
+     * @return peak heap usage of the phase that ended, in bytes
+     */
+    public long next() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : pools) {
+            MemoryUsage usage = pool.getType() == MemoryType.HEAP ? pool.getPeakUsage() : null;
+            if (usage != null) peak += usage.getUsed();
+        }
+        reset();
+        return peak;
+    }
+
+    private void reset() {
+        for (MemoryPoolMXBean pool : pools) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) pool.resetPeakUsage();
+        }
+    }
+
+    static String megabytes(long bytes) {
+        return (bytes + MB / 2) / MB + " MB";
+    }
+
+    /**
+     * Formats the peaks of the rendering and HTML phases as a notice.
+     */
+    public static String report(long renderPeak, long htmlPeak) {
+        return "Peak heap " + megabytes(renderPeak) + " while rendering comments, " + megabytes(htmlPeak)
+                + " while generating HTML (" + (htmlPeak <= renderPeak ? "-" : "+") + megabytes(Math.abs(htmlPeak - renderPeak)) + ")";
+    }
+}
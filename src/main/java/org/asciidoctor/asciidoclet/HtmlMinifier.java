@@ -0,0 +1,201 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Minifies the HTML fragments rendered by Asciidoctor before they are handed to the standard doclet.
+ *
+ * The fragment is processed in a single pass:
+ *
+ * * whitespace outside of tags is collapsed into a single space, and dropped around block level tags;
+ * * empty `<div>` wrappers without an `id` are removed;
+ * * empty `class`, `id`, `style` and `title` attributes are removed, and whitespace between attributes is collapsed.
+ *
+ * The content of `<pre>`, `<code>`, `<textarea>`, `<script>` and `<style>` elements is copied unchanged.
+ */
+class HtmlMinifier {
+
+    private static final Set<String> BLOCK_TAGS = ImmutableSet.of(
+            "address", "article", "aside", "blockquote", "br", "caption", "col", "colgroup", "dd", "div", "dl", "dt",
+            "figcaption", "figure", "footer", "form", "h1", "h2", "h3", "h4", "h5", "h6", "header", "hr", "li", "nav",
+            "ol", "p", "pre", "section", "table", "tbody", "td", "tfoot", "th", "thead", "tr", "ul");
+
+    private static final Set<String> PRESERVED_TAGS = ImmutableSet.of("pre", "code", "textarea", "script", "style");
+
+    private static final Set<String> REMOVABLE_EMPTY_ATTRIBUTES = ImmutableSet.of("class", "id", "style", "title");
+
+    private long inputLength;
+    private long outputLength;
+
+    /**
+     * @param html fragment rendered by Asciidoctor
+     * @return minified fragment
+     */
+    String minify(String html) {
+        if (html == null) return null;
+        int length = html.length();
+        StringBuilder out = new StringBuilder(length);
+        // start and end offsets in the output of each open div, start is -1 for divs that are kept even if empty
+        int[] divs = new int[32];
+        int depth = 0;
+        boolean pendingSpace = false;
+        boolean afterBlock = true;
+
+        int i = 0;
+        while (i < length) {
+            char c = html.charAt(i);
+            if (isWhitespace(c)) {
+                pendingSpace = true;
+                i++;
+            }
+            else if (c == '<' && html.startsWith("<!--", i)) {
+                int end = html.indexOf("-->", i + 4);
+                end = end < 0 ? length : end + 3;
+                if (pendingSpace && !afterBlock) out.append(' ');
+                out.append(html, i, end);
+                pendingSpace = false;
+                afterBlock = false;
+                i = end;
+            }
+            else if (c == '<' && i + 1 < length && isTagStart(html.charAt(i + 1))) {
+                boolean closing = html.charAt(i + 1) == '/';
+                int nameStart = closing ? i + 2 : i + 1;
+                int nameEnd = nameStart;
+                while (nameEnd < length && isNameChar(html.charAt(nameEnd))) nameEnd++;
+                String name = html.substring(nameStart, nameEnd).toLowerCase(Locale.ENGLISH);
+                boolean block = BLOCK_TAGS.contains(name);
+
+                if (pendingSpace && !afterBlock && !block) out.append(' ');
+                pendingSpace = false;
+                afterBlock = block;
+
+                int tagStart = out.length();
+                out.append(html, i, nameEnd);
+                i = writeAttributes(html, nameEnd, out);
+
+                if ("div".equals(name)) {
+                    if (!closing) {
+                        if (depth == divs.length) divs = Arrays.copyOf(divs, depth * 2);
+                        divs[depth++] = out.indexOf(" id=", tagStart) < 0 ? tagStart : -1;
+                        divs[depth++] = out.length();
+                    }
+                    else if (depth > 0) {
+                        int openEnd = divs[--depth];
+                        int openStart = divs[--depth];
+                        if (openStart >= 0 && openEnd == tagStart) out.setLength(openStart);
+                    }
+                }
+                else if (!closing && PRESERVED_TAGS.contains(name) && out.charAt(out.length() - 2) != '/') {
+                    int end = indexOfClosingTag(html, name, i);
+                    out.append(html, i, end);
+                    afterBlock = false;
+                    i = end;
+                }
+            }
+            else {
+                if (pendingSpace && !afterBlock) out.append(' ');
+                pendingSpace = false;
+                afterBlock = false;
+                out.append(c);
+                i++;
+            }
+        }
+
+        inputLength += length;
+        outputLength += out.length();
+        return out.toString();
+    }
+
+    /**
+     * Number of characters removed so far. The removed characters are all ASCII, so this is also the number of
+     * bytes saved in the UTF-8 output.
+     */
+    long saved() {
+        return inputLength - outputLength;
+    }
+
+    long inputLength() {
+        return inputLength;
+    }
+
+    /**
+     * Copies the attributes of a tag, up to and including the closing `>`.
+     *
+     * @return index following the tag
+     */
+    private static int writeAttributes(String html, int i, StringBuilder out) {
+        int length = html.length();
+        while (i < length) {
+            char c = html.charAt(i);
+            if (c == '>') {
+                out.append('>');
+                return i + 1;
+            }
+            if (isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            if (c == '/') {
+                out.append('/');
+                i++;
+                continue;
+            }
+
+            int nameStart = i;
+            while (i < length && !isWhitespace(html.charAt(i)) && "=>/".indexOf(html.charAt(i)) < 0) i++;
+            int nameEnd = i;
+            while (i < length && isWhitespace(html.charAt(i))) i++;
+
+            int valueStart = -1;
+            int valueEnd = -1;
+            if (i < length && html.charAt(i) == '=') {
+                i++;
+                while (i < length && isWhitespace(html.charAt(i))) i++;
+                valueStart = i;
+                if (i < length && (html.charAt(i) == '"' || html.charAt(i) == '\'')) {
+                    int close = html.indexOf(html.charAt(i), i + 1);
+                    i = close < 0 ? length : close + 1;
+                }
+                else {
+                    while (i < length && !isWhitespace(html.charAt(i)) && html.charAt(i) != '>') i++;
+                }
+                valueEnd = i;
+            }
+
+            boolean emptyValue = valueStart >= 0 && (valueEnd - valueStart == 0
+                    || (valueEnd - valueStart == 2 && (html.charAt(valueStart) == '"' || html.charAt(valueStart) == '\'')
+                            && html.charAt(valueStart + 1) == html.charAt(valueStart)));
+            if (emptyValue && REMOVABLE_EMPTY_ATTRIBUTES.contains(html.substring(nameStart, nameEnd).toLowerCase(Locale.ENGLISH))) {
+                continue;
+            }
+            out.append(' ').append(html, nameStart, nameEnd);
+            if (valueStart >= 0) out.append('=').append(html, valueStart, valueEnd);
+        }
+        return length;
+    }
+
+    private static int indexOfClosingTag(String html, String name, int from) {
+        int i = html.indexOf("</", from);
+        while (i >= 0) {
+            if (html.regionMatches(true, i + 2, name, 0, name.length())) return i;
+            i = html.indexOf("</", i + 2);
+        }
+        return html.length();
+    }
+
+    private static boolean isTagStart(char c) {
+        return c == '/' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isNameChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\n' || c == '\t' || c == '\r' || c == '\f';
+    }
+}
@@ -0,0 +1,211 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.collect.Iterables;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.javadoc.DocErrorReporter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link RemoteCache} speaking a content-addressed HTTP protocol, as served by {@link RenderCacheServer}.
+ *
+ * Keys are appended to the base URL given with `-asciidoclet-remote-cache`:
+ *
+ * - `GET <base><key>` returns the output of a key, or 404 if it is not cached.
+ * - `GET <base>?keys=<key>,<key>,...` looks up several keys and returns each output found as a line
+ *   `<key> <length>`, followed by the UTF-8 output of that many bytes.
+ * - `PUT <base><key>` stores the UTF-8 request body as the output of a key.
+ *
+ * Lookups are made while the renderer waits, at most {@link #MAX_BATCH_KEYS} keys per request.
+ * Outputs are stored by a background thread. Each request times out after {@link #TIMEOUT_MILLIS};
+ * after the first failure the remote cache is no longer used in this run, and everything is rendered
+ * locally.
+ */
+public class HttpRemoteCache implements RemoteCache {
+
+    static final int TIMEOUT_MILLIS = 2000;
+    static final int MAX_BATCH_KEYS = 100;
+    static final long CLOSE_TIMEOUT_MILLIS = 10000;
+
+    private final String base;
+    private final DocErrorReporter errorReporter;
+    private final ExecutorService stores;
+    private final AtomicInteger stored = new AtomicInteger();
+    private volatile boolean available = true;
+
+    public HttpRemoteCache(String base, DocErrorReporter errorReporter) {
+        this.base = base.endsWith("/") ? base : base + "/";
+        this.errorReporter = errorReporter;
+        this.stores = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("asciidoclet-remote-cache-%d")
+                .build());
+    }
+
+    @Override
+    public Map<String, String> lookup(Collection<String> keys) {
+        Map<String, String> outputs = new HashMap<String, String>();
+        for (List<String> batch : Iterables.partition(keys, MAX_BATCH_KEYS)) {
+            if (!available) break;
+            try {
+                HttpURLConnection connection = open(base + "?keys=" + Joiner.on(',').join(batch), "GET");
+                InputStream in = response(connection, "looking up outputs");
+                try {
+                    outputs.putAll(readEntries(in));
+                } finally {
+                    in.close();
+                }
+            } catch (IOException e) {
+                unavailable(e);
+            }
+        }
+        return outputs;
+    }
+
+    @Override
+    public boolean store(final String key, final String output) {
+        if (!available || output == null) return false;
+        try {
+            stores.execute(new Runnable() {
+                @Override
+                public void run() {
+                    put(key, output);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            // closed, the output is not stored
+            return false;
+        }
+    }
+
+    @Override
+    public String description() {
+        return "the remote cache at " + base;
+    }
+
+    private void put(String key, String output) {
+        if (!available) return;
+        try {
+            HttpURLConnection connection = open(base + key, "PUT");
+            // not streamed, so that a request on a stale kept-alive connection is retried on a new one
+            connection.setDoOutput(true);
+            OutputStream out = connection.getOutputStream();
+            try {
+                out.write(output.getBytes(Charsets.UTF_8));
+            } finally {
+                out.close();
+            }
+            response(connection, "storing an output").close();
+            stored.incrementAndGet();
+        } catch (IOException e) {
+            unavailable(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        stores.shutdown();
+        try {
+            if (!stores.awaitTermination(CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                stores.shutdownNow();
+                errorReporter.printWarning("Gave up storing outputs in the remote render cache at " + base);
+            }
+        } catch (InterruptedException e) {
+            stores.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return number of outputs stored so far
+     */
+    int stored() {
+        return stored.get();
+    }
+
+    boolean isAvailable() {
+        return available;
+    }
+
+    private HttpURLConnection open(String url, String method) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(TIMEOUT_MILLIS);
+        connection.setReadTimeout(TIMEOUT_MILLIS);
+        connection.setUseCaches(false);
+        return connection;
+    }
+
+    /**
+     * Returns the body of a successful response. Closing it once read keeps the connection alive for
+     * the next request, which {@link HttpURLConnection#disconnect()} would not.
+     */
+    private static InputStream response(HttpURLConnection connection, String action) throws IOException {
+        int status = connection.getResponseCode();
+        if (status / 100 != 2) {
+            connection.disconnect();
+            throw new IOException("HTTP " + status + " " + action);
+        }
+        return connection.getInputStream();
+    }
+
+    private synchronized void unavailable(IOException e) {
+        if (!available) return;
+        available = false;
+        errorReporter.printWarning("Rendering locally, the remote render cache at " + base + " failed: " + e);
+    }
+
+    /**
+     * Writes outputs in the format of a batched lookup.
+     */
+    static void writeEntries(Map<String, String> outputs, OutputStream out) throws IOException {
+        for (Map.Entry<String, String> entry : outputs.entrySet()) {
+            byte[] output = entry.getValue().getBytes(Charsets.UTF_8);
+            out.write((entry.getKey() + " " + output.length + "\n").getBytes(Charsets.UTF_8));
+            out.write(output);
+        }
+    }
+
+    /**
+     * Reads the outputs of a batched lookup.
+     */
+    static Map<String, String> readEntries(InputStream in) throws IOException {
+        byte[] body = ByteStreams.toByteArray(in);
+        Map<String, String> outputs = new LinkedHashMap<String, String>();
+        int position = 0;
+        while (position < body.length) {
+            int end = position;
+            while (end < body.length && body[end] != '\n') end++;
+            String[] header = new String(body, position, end - position, Charsets.UTF_8).split(" ");
+            int length;
+            try {
+                length = header.length == 2 ? Integer.parseInt(header[1]) : -1;
+            } catch (NumberFormatException e) {
+                length = -1;
+            }
+            position = end + 1;
+            if (length < 0 || position + length > body.length) throw new IOException("Malformed lookup response");
+            outputs.put(header[0], new String(body, position, length, Charsets.UTF_8));
+            position += length;
+        }
+        return outputs;
+    }
+}
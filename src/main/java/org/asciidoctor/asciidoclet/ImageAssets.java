@@ -0,0 +1,118 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.sun.javadoc.DocErrorReporter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Collects the local images referenced from rendered comments and copies them to the output.
+ *
+ * Image paths are resolved against `-include-basedir`, like Asciidoctor does. Each image is named
+ * after the hash of its content, so an image referenced from many comments, or under several paths,
+ * is copied once, and images already in the output with the same hash are not copied again.
+ * References are rewritten relative to the documentation root, so they resolve from pages at any depth.
+ */
+public class ImageAssets {
+
+    static final String IMAGES_DIR = "images";
+
+    private static final Pattern IMG_SRC_PATTERN = Pattern.compile("(<img\\b[^>]*?\\bsrc=\")([^\"]+)(\")");
+    private static final Pattern EXTERNAL_PATTERN = Pattern.compile("^([a-zA-Z][a-zA-Z0-9+.-]*:|/|\\{@docRoot\\}).*");
+
+    private final File baseDir;
+    private final DocErrorReporter errorReporter;
+    private final Map<String, String> references = new HashMap<String, String>();
+    private final Map<String, File> images = new LinkedHashMap<String, File>();
+
+    public ImageAssets(DocletOptions docletOptions, DocErrorReporter errorReporter) {
+        this(docletOptions.includeBasedir().or(new File(".")), errorReporter);
+    }
+
+    ImageAssets(File baseDir, DocErrorReporter errorReporter) {
+        this.baseDir = baseDir;
+        this.errorReporter = errorReporter;
+    }
+
+    /**
+     * Rewrites the local image references of rendered HTML to the copies in the output.
+     *
+     * @param html rendered comment
+     * @return the comment, referring to the copied images
+     */
+    public String rewrite(String html) {
+        if (html == null || !html.contains("<img")) return html;
+        Matcher matcher = IMG_SRC_PATTERN.matcher(html);
+        StringBuffer result = new StringBuffer(html.length());
+        while (matcher.find()) {
+            String target = asset(matcher.group(2));
+            matcher.appendReplacement(result, Matcher.quoteReplacement(matcher.group(1) + target + matcher.group(3)));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    private String asset(String reference) {
+        if (EXTERNAL_PATTERN.matcher(reference).matches()) return reference;
+        String asset = references.get(reference);
+        if (asset == null) {
+            asset = reference;
+            File image = new File(baseDir, reference);
+            if (!image.isFile()) {
+                errorReporter.printWarning("Image not found: " + image);
+            } else {
+                try {
+                    String name = Files.hash(image, Hashing.sha1()) + extension(image.getName());
+                    images.put(name, image);
+                    asset = "{@docRoot}/" + IMAGES_DIR + "/" + name;
+                } catch (IOException e) {
+                    errorReporter.printWarning("Cannot read image " + image + ": " + e.getLocalizedMessage());
+                }
+            }
+            references.put(reference, asset);
+        }
+        return asset;
+    }
+
+    /**
+     * Copies the referenced images to the `images` directory of the output, skipping images already there.
+     * Images are named by the hash of their content, so an existing file is kept if its hash matches its name.
+     *
+     * @param destDir output directory
+     * @return success
+     */
+    public boolean copy(File destDir) {
+        if (images.isEmpty()) return true;
+        File imagesDir = new File(destDir, IMAGES_DIR);
+        if (!imagesDir.isDirectory() && !imagesDir.mkdirs()) {
+            errorReporter.printError("Cannot create directory " + imagesDir);
+            return false;
+        }
+        int copied = 0;
+        try {
+            for (Map.Entry<String, File> image : images.entrySet()) {
+                File target = new File(imagesDir, image.getKey());
+                if (target.isFile() && image.getKey().startsWith(Files.hash(target, Hashing.sha1()).toString())) continue;
+                Files.copy(image.getValue(), target);
+                copied++;
+            }
+        } catch (IOException e) {
+            errorReporter.printError("Error copying images: " + e.getLocalizedMessage());
+            return false;
+        }
+        errorReporter.printNotice("Copied " + copied + " of " + images.size() + " referenced images to " + imagesDir);
+        return true;
+    }
+
+    private static String extension(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot).toLowerCase();
+    }
+}
@@ -0,0 +1,139 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * A raw Javadoc comment split into its main description and block tags.
+ *
+ * The comment is tokenized in a single pass over the raw comment text, so the Javadoc tool does not
+ * have to parse the comment before it is rendered. A block tag starts on a line whose first non-blank
+ * character is an `@` followed by a lower case letter, following the Javadoc convention. Lines inside
+ * AsciiDoc delimited blocks (listings, literals, open blocks, etc.) never start a tag, so annotations
+ * in code examples are kept as part of the text.
+ */
+public class JavadocComment {
+
+    private final String body;
+    private final List<Tag> tags;
+
+    JavadocComment(String body, List<Tag> tags) {
+        this.body = body;
+        this.tags = tags;
+    }
+
+    /**
+     * The main description, up to the first block tag.
+     */
+    public String body() {
+        return body;
+    }
+
+    /**
+     * The block tags, in source order.
+     */
+    public List<Tag> tags() {
+        return tags;
+    }
+
+    /**
+     * Tokenizes a raw comment, as returned by `Doc.getRawCommentText()`.
+     *
+     * @param raw comment text
+     * @return the parsed comment
+     */
+    public static JavadocComment parse(String raw) {
+        StringBuilder body = new StringBuilder();
+        ImmutableList.Builder<Tag> tags = ImmutableList.builder();
+        String tagName = null;
+        StringBuilder tagText = null;
+        String delimiter = null;
+
+        int start = 0;
+        int length = raw.length();
+        while (start < length) {
+            int end = raw.indexOf('\n', start);
+            if (end < 0) end = length;
+            String line = raw.substring(start, end);
+            String trimmed = line.trim();
+
+            if (delimiter != null) {
+                if (trimmed.equals(delimiter)) delimiter = null;
+            }
+            else if (isDelimiter(trimmed)) {
+                delimiter = closingDelimiter(trimmed);
+            }
+            else if (startsTag(trimmed)) {
+                if (tagName != null) tags.add(new Tag(tagName, tagText.toString().trim()));
+                int nameEnd = 1;
+                while (nameEnd < trimmed.length() && !Character.isWhitespace(trimmed.charAt(nameEnd))) nameEnd++;
+                tagName = trimmed.substring(0, nameEnd);
+                tagText = new StringBuilder(trimmed.substring(nameEnd));
+                start = end + 1;
+                continue;
+            }
+
+            StringBuilder target = tagName == null ? body : tagText;
+            if (target.length() > 0 || tagName != null) target.append('\n');
+            target.append(line);
+            start = end + 1;
+        }
+        if (tagName != null) tags.add(new Tag(tagName, tagText.toString().trim()));
+
+        return new JavadocComment(body.toString(), tags.build());
+    }
+
+    private static boolean startsTag(String trimmed) {
+        return trimmed.length() > 1 && trimmed.charAt(0) == '@'
+                && trimmed.charAt(1) >= 'a' && trimmed.charAt(1) <= 'z';
+    }
+
+    private static boolean isDelimiter(String trimmed) {
+        return DELIMITER_PATTERN.matcher(trimmed).matches();
+    }
+
+    /**
+     * Lines opening a delimited block. A fenced code block may name its language after the fence, e.g. "```java".
+     */
+    static final Pattern DELIMITER_PATTERN = Pattern.compile(
+            "--|\\|===|(-{4,}|\\.{4,}|\\+{4,}|/{4,}|={4,}|_{4,}|\\*{4,})|```(?!`).*|~~~(?!~).*");
+
+    /**
+     * Lines opening a delimited block whose content is AsciiDoc, so delimiters inside it open nested blocks.
+     */
+    static final Pattern COMPOUND_DELIMITER_PATTERN = Pattern.compile("--|={4,}|_{4,}|\\*{4,}");
+
+    /**
+     * @param opening trimmed line matching {@link #DELIMITER_PATTERN}
+     * @return the line that closes the block
+     */
+    static String closingDelimiter(String opening) {
+        return opening.startsWith("```") || opening.startsWith("~~~") ? opening.substring(0, 3) : opening;
+    }
+
+    /**
+     * A block tag, such as `@param` or `@return`.
+     */
+    public static class Tag {
+        private final String name;
+        private final String text;
+
+        Tag(String name, String text) {
+            this.name = name;
+            this.text = text;
+        }
+
+        /**
+         * The tag name, including the leading `@`.
+         */
+        public String name() {
+            return name;
+        }
+
+        public String text() {
+            return text;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.PackageDoc;
+import com.sun.javadoc.RootDoc;
+import com.sun.tools.javadoc.Main;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Runs the javadoc tool again, in the current JVM, with a doclet loaded from the current class loader.
+ *
+ * Since the doclet classes are not loaded again, the runs share the warm {@link AsciidoctorRuntime}
+ * and its {@link RenderCache}. On Java 6, javadoc cannot be given a parent class loader for the
+ * doclet, so the doclet is loaded again from the `-docletpath` and the runs do not share anything.
+ */
+public class JavadocLauncher {
+
+    private static final String DOCLET = "-doclet";
+
+    private final Class<?> docletClass;
+
+    public JavadocLauncher(Class<?> docletClass) {
+        this.docletClass = docletClass;
+    }
+
+    /**
+     * Rebuilds the javadoc arguments of a run from its options, specified packages and specified classes.
+     *
+     * @param rootDoc the run to repeat
+     * @param exclude options to leave out
+     * @return javadoc arguments, without the `-doclet` option
+     */
+    public static List<String> arguments(RootDoc rootDoc, String... exclude) {
+        ImmutableList.Builder<String> args = ImmutableList.builder();
+        args.addAll(options(rootDoc, exclude));
+        for (PackageDoc packageDoc : rootDoc.specifiedPackages()) {
+            args.add(packageDoc.name());
+        }
+        for (ClassDoc classDoc : rootDoc.specifiedClasses()) {
+            if (classDoc.position() != null) args.add(classDoc.position().file().getPath());
+        }
+        return args.build();
+    }
+
+    /**
+     * Rebuilds the javadoc options of a run, without its specified packages and classes.
+     *
+     * @param rootDoc the run to repeat
+     * @param exclude options to leave out
+     * @return javadoc options, without the `-doclet` option
+     */
+    public static List<String> options(RootDoc rootDoc, String... exclude) {
+        Set<String> excluded = ImmutableSet.<String>builder().add(DOCLET).add(exclude).build();
+        ImmutableList.Builder<String> args = ImmutableList.builder();
+        // javadoc reports the doclet options twice, identical options are only passed once
+        Set<List<String>> seen = new HashSet<List<String>>();
+        for (String[] option : rootDoc.options()) {
+            if (option.length == 0 || excluded.contains(option[0]) || !seen.add(Arrays.asList(option))) continue;
+            args.add(option);
+        }
+        return args.build();
+    }
+
+    /**
+     * Runs javadoc with the doclet.
+     *
+     * @param args javadoc arguments, without the `-doclet` option
+     * @return javadoc exit code
+     */
+    public int execute(List<String> args) {
+        String[] argArray = args.toArray(new String[args.size()]);
+        try {
+            // Main.execute(String, String, ClassLoader, String...) is available since Java 7
+            Method execute = Main.class.getMethod("execute", String.class, String.class, ClassLoader.class, String[].class);
+            return (Integer) execute.invoke(null, "javadoc", docletClass.getName(), docletClass.getClassLoader(), argArray);
+        } catch (NoSuchMethodException e) {
+            return Main.execute("javadoc", docletClass.getName(), argArray);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.io.Files;
+import com.sun.javadoc.DocErrorReporter;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.TimeZone;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Generates the output of a run into a temporary directory, then writes it to a zip or jar archive.
+ *
+ * The temporary directory is on the local disk rather than next to the archive, so only the archive
+ * is written to the (possibly slower) file system it is created on. Entries are added in order of
+ * their paths with a fixed modification time, so archives of the same output are identical. If the
+ * output cannot be redirected, the destination directory itself is archived.
+ */
+public class OutputArchive extends StagedOutput {
+
+    /**
+     * Modification time of all entries, 1980-01-01T00:00:00Z, the start of the zip date range.
+     */
+    static final long ENTRY_TIME = 315532800000L;
+
+    private final File archive;
+    private final File destDir;
+
+    public OutputArchive(File archive, File destDir, DocErrorReporter errorReporter) throws IOException {
+        this(archive, destDir, temporaryDirectory(), errorReporter);
+    }
+
+    OutputArchive(File archive, File destDir, File stagingDir, DocErrorReporter errorReporter) {
+        super(stagingDir, errorReporter);
+        this.archive = archive.getAbsoluteFile();
+        this.destDir = destDir;
+    }
+
+    /**
+     * Writes the output to the archive, replacing it once complete.
+     *
+     * @return success
+     */
+    @Override
+    public boolean publish() {
+        File source = redirected() ? stagingDir : destDir;
+        File partial = new File(archive.getParentFile(), archive.getName() + ".part");
+        try {
+            List<String> files = files(source, "", new ArrayList<String>());
+            files.remove(relativePath(source, archive));
+            files.remove(relativePath(source, partial));
+            write(source, files, partial);
+            if (!partial.renameTo(archive) && !(archive.delete() && partial.renameTo(archive))) {
+                throw new IOException("Cannot replace " + archive);
+            }
+            errorReporter.printNotice("Archived " + files.size() + " files to " + archive);
+            return true;
+        } catch (IOException e) {
+            errorReporter.printError("Error writing archive: " + e.getLocalizedMessage());
+            partial.delete();
+            return false;
+        }
+    }
+
+    private static void write(File source, List<String> files, File partial) throws IOException {
+        File directory = partial.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) throw new IOException("Cannot create directory " + directory);
+        ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(partial), 64 * 1024));
+        try {
+            String previous = "";
+            for (String path : files) {
+                addDirectories(zip, previous, path);
+                ZipEntry entry = new ZipEntry(path);
+                entry.setTime(localEntryTime());
+                zip.putNextEntry(entry);
+                Files.copy(new File(source, path), zip);
+                zip.closeEntry();
+                previous = path;
+            }
+        } finally {
+            zip.close();
+        }
+    }
+
+    /**
+     * Adds the directories of a path that were not added for the previous path.
+     */
+    private static void addDirectories(ZipOutputStream zip, String previous, String path) throws IOException {
+        for (int slash = path.indexOf('/'); slash >= 0; slash = path.indexOf('/', slash + 1)) {
+            String directory = path.substring(0, slash + 1);
+            if (previous.startsWith(directory)) continue;
+            ZipEntry entry = new ZipEntry(directory);
+            entry.setTime(localEntryTime());
+            zip.putNextEntry(entry);
+            zip.closeEntry();
+        }
+    }
+
+    private static String relativePath(File directory, File file) {
+        String prefix = directory.getAbsolutePath() + File.separator;
+        String path = file.getAbsolutePath();
+        return path.startsWith(prefix) ? path.substring(prefix.length()).replace(File.separatorChar, '/') : null;
+    }
+
+    private static File temporaryDirectory() throws IOException {
+        File file = File.createTempFile("asciidoclet", ".staging");
+        if (!file.delete()) throw new IOException("Cannot create staging directory " + file);
+        return file;
+    }
+
+    /**
+     * Zip files store local date and time fields, which {@link ZipEntry#setTime} takes from the default time
+     * zone. Shifting {@link #ENTRY_TIME} by the zone offset stores 1980-01-01 00:00 in all time zones, so
+     * archives of the same output are identical wherever they are written.
+     */
+    static long localEntryTime() {
+        return ENTRY_TIME - TimeZone.getDefault().getOffset(ENTRY_TIME);
+    }
+}
@@ -0,0 +1,172 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.sun.javadoc.DocErrorReporter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Generates the output of a run into a staging directory, then moves only the changed files into
+ * the destination directory.
+ *
+ * Unchanged files keep their modification time, so tools like rsync skip them. A file is unchanged
+ * when its content hash matches the hash recorded by the previous run, or the hash of the existing
+ * file if there is no record or the file's size or modification time differ from the record, so
+ * files edited outside of a run are repaired. Generation times in pages are not part of the hash.
+ * Changed files are renamed into place, which replaces them atomically on the same file system;
+ * otherwise they are copied to a temporary file next to their target first, so readers never see a
+ * partly written file. Files recorded by the previous run but not generated by this one are removed;
+ * other files in the destination directory are left alone.
+ *
+ * The staging directory is a hidden sibling of the destination directory, so renames stay on the
+ * same file system.
+ */
+public class OutputSync extends StagedOutput {
+
+    static final String MANIFEST = ".asciidoclet-manifest";
+
+    private final File destDir;
+
+    public OutputSync(File destDir, DocErrorReporter errorReporter) {
+        super(new File(destDir.getAbsoluteFile().getParentFile(), "." + destDir.getName() + ".staging"), errorReporter);
+        this.destDir = destDir.getAbsoluteFile();
+    }
+
+    /**
+     * Moves the changed files from the staging directory to the destination directory, and removes stale files.
+     *
+     * @return success
+     */
+    @Override
+    public boolean publish() {
+        if (!redirected()) return true;
+        try {
+            if (!destDir.isDirectory() && !destDir.mkdirs()) throw new IOException("Cannot create directory " + destDir);
+            Map<String, Record> previous = readManifest();
+            Map<String, Record> current = new TreeMap<String, Record>();
+            int changed = 0;
+            for (String path : files(stagingDir, "", new ArrayList<String>())) {
+                File staged = new File(stagingDir, path);
+                File target = new File(destDir, path);
+                String hash = hash(staged);
+                if (!hash.equals(existingHash(target, previous.get(path)))) {
+                    move(staged, target);
+                    changed++;
+                }
+                current.put(path, new Record(hash, target));
+            }
+            int removed = 0;
+            for (String path : previous.keySet()) {
+                if (!current.containsKey(path) && removeStale(new File(destDir, path))) removed++;
+            }
+            writeManifest(current);
+            errorReporter.printNotice("Synced output to " + destDir + ": " + changed + " changed, "
+                    + (current.size() - changed) + " unchanged, " + removed + " stale files removed");
+            return true;
+        } catch (IOException e) {
+            errorReporter.printError("Error syncing output: " + e.getLocalizedMessage());
+            return false;
+        }
+    }
+
+    private static String existingHash(File target, Record recorded) throws IOException {
+        if (!target.isFile()) return null;
+        return recorded != null && recorded.matches(target) ? recorded.hash : hash(target);
+    }
+
+    /**
+     * Hashes a file. The generation time the standard doclet writes to each page, unless run with
+     * `-notimestamp`, is left out, so pages only differing in it are unchanged.
+     */
+    static String hash(File file) throws IOException {
+        if (!file.getName().endsWith(".html")) return Files.hash(file, Hashing.sha1()).toString();
+        String content = ReproducibleOutput.removeTimestamps(Files.toString(file, Charsets.ISO_8859_1));
+        return Hashing.sha1().hashString(content, Charsets.ISO_8859_1).toString();
+    }
+
+    static void move(File staged, File target) throws IOException {
+        File directory = target.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) throw new IOException("Cannot create directory " + directory);
+        if (staged.renameTo(target)) return;
+        // the staging directory may be on another file system, but a temporary file next to the target is not
+        File temporary = new File(directory, "." + target.getName() + ".tmp");
+        try {
+            Files.copy(staged, temporary);
+            if (temporary.renameTo(target)) return;
+            // File.renameTo does not replace existing files on some platforms
+            if (target.delete() && temporary.renameTo(target)) return;
+            throw new IOException("Cannot replace " + target);
+        } finally {
+            if (temporary.exists() && !temporary.delete()) temporary.deleteOnExit();
+        }
+    }
+
+    private boolean removeStale(File file) {
+        if (!file.isFile() || !file.delete()) return false;
+        for (File directory = file.getParentFile(); !directory.equals(destDir); directory = directory.getParentFile()) {
+            String[] children = directory.list();
+            if (children == null || children.length > 0 || !directory.delete()) break;
+        }
+        return true;
+    }
+
+    /**
+     * Reads the manifest of the previous run. Each line holds the hash, size and modification time of a
+     * file and its path, separated by tabs; manifests of earlier versions only hold the hash and path.
+     */
+    private Map<String, Record> readManifest() throws IOException {
+        Map<String, Record> manifest = new HashMap<String, Record>();
+        File file = new File(destDir, MANIFEST);
+        if (!file.isFile()) return manifest;
+        for (String line : Files.readLines(file, Charsets.UTF_8)) {
+            String[] fields = line.split("\t", 4);
+            try {
+                if (fields.length == 4) {
+                    manifest.put(fields[3], new Record(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2])));
+                } else if (fields.length == 2) {
+                    manifest.put(fields[1], new Record(fields[0], -1, -1));
+                }
+            } catch (NumberFormatException e) {
+                // the file is hashed again
+            }
+        }
+        return manifest;
+    }
+
+    private void writeManifest(Map<String, Record> manifest) throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (Map.Entry<String, Record> entry : manifest.entrySet()) {
+            Record record = entry.getValue();
+            content.append(record.hash).append('\t').append(record.length).append('\t').append(record.modified)
+                    .append('\t').append(entry.getKey()).append('\n');
+        }
+        Files.write(content, new File(destDir, MANIFEST), Charsets.UTF_8);
+    }
+
+    /**
+     * The hash of a published file, and its size and modification time to tell whether it was changed since.
+     */
+    private static class Record {
+        final String hash;
+        final long length;
+        final long modified;
+
+        Record(String hash, long length, long modified) {
+            this.hash = hash;
+            this.length = length;
+            this.modified = modified;
+        }
+
+        Record(String hash, File file) {
+            this(hash, file.length(), file.lastModified());
+        }
+
+        boolean matches(File file) {
+            return file.length() == length && file.lastModified() == modified;
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package org.asciidoctor.asciidoclet;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Optional;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.common.io.ByteSink;
 import com.google.common.io.Files;
 import com.google.common.io.Resources;
@@ -12,14 +15,17 @@ import java.net.URL;
 
 /**
  * Sets up a temporary directory containing output templates for use by Asciidoctor.
+ *
+ * The templates are ERB, which the html5 backend loads anyway; only Tilt is loaded on top of it for
+ * them. Haml templates would add more than half a second to the first render.
  */
 class OutputTemplates {
 
     private final File templateDir;
 
     static final String[] templateNames = new String[] {
-            "section.html.haml",
-            "block_paragraph.html.haml"
+            "section.html.erb",
+            "block_paragraph.html.erb"
     };
 
     private OutputTemplates(File templateDir) {
@@ -35,6 +41,23 @@ class OutputTemplates {
         return templateDir;
     }
 
+    /**
+     * @return hash of the bundled templates, which identifies their output
+     */
+    static String hash() {
+        Hasher hasher = Hashing.sha1().newHasher();
+        for (String templateName : templateNames) {
+            hasher.putString(templateName, Charsets.UTF_8);
+            URL src = OutputTemplates.class.getClassLoader().getResource("templates/" + templateName);
+            try {
+                if (src != null) hasher.putBytes(Resources.toByteArray(src));
+            } catch (IOException e) {
+                // identified by name only
+            }
+        }
+        return hasher.hash().toString();
+    }
+
     void delete() {
         for (String templateName : templateNames) new File(templateDir, templateName).delete();
         templateDir.delete();
@@ -0,0 +1,263 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * An HTML page written by the {@link PageWriter}.
+ *
+ * Pages hold HTML fragments taken from the Javadoc model and are laid out by {@link #render(String)},
+ * which does not touch the model, so pages can be rendered concurrently. The markup follows the
+ * standard doclet of Java 7 and 8, so the pages are styled by the same stylesheet.
+ */
+class Page {
+
+    private final String path;
+    private final String root;
+    private final String title;
+    private final String navigation;
+    private final String header;
+    private final String content;
+    private final List<Table> summaries;
+    private final List<Details> details;
+    private final String footer;
+
+    /**
+     * @param navigation the items of the navigation bar
+     * @param header     the content of the header, or empty for pages without one
+     * @param content    the content shown before the member summaries, pages without content or members
+     *                   have no content container
+     * @param footer     the content following the content container
+     */
+    Page(String path, String root, String title, String navigation, String header, String content,
+         List<Table> summaries, List<Details> details, String footer) {
+        this.path = path;
+        this.root = root;
+        this.title = title;
+        this.navigation = navigation;
+        this.header = header;
+        this.content = content;
+        this.summaries = summaries;
+        this.details = details;
+        this.footer = footer;
+    }
+
+    /**
+     * @return path of the page, relative to the destination directory
+     */
+    String path() {
+        return path;
+    }
+
+    String render(String charset) {
+        StringBuilder html = new StringBuilder(4096 + content.length());
+        head(html, charset);
+        html.append("<body>\n");
+        navigation(html, "top");
+        if (header.length() > 0) html.append("<div class=\"header\">\n").append(header).append("</div>\n");
+        if (content.length() > 0 || !summaries.isEmpty() || !details.isEmpty()) {
+            html.append("<div class=\"contentContainer\">\n").append(content);
+            if (!summaries.isEmpty()) {
+                html.append("<div class=\"summary\">\n<ul class=\"blockList\">\n<li class=\"blockList\">\n");
+                for (Table table : summaries) table.render(html);
+                html.append("</li>\n</ul>\n</div>\n");
+            }
+            if (!details.isEmpty()) {
+                html.append("<div class=\"details\">\n<ul class=\"blockList\">\n<li class=\"blockList\">\n");
+                for (Details section : details) section.render(html);
+                html.append("</li>\n</ul>\n</div>\n");
+            }
+            html.append("</div>\n");
+        }
+        html.append(footer);
+        navigation(html, "bottom");
+        return html.append("</body>\n</html>\n").toString();
+    }
+
+    void head(StringBuilder html, String charset) {
+        html.append("<!DOCTYPE HTML PUBLIC \"-//W3C//DTD HTML 4.01 Transitional//EN\" \"http://www.w3.org/TR/html4/loose.dtd\">\n")
+                .append("<html lang=\"en\">\n<head>\n")
+                .append("<meta http-equiv=\"Content-Type\" content=\"text/html; charset=").append(charset).append("\">\n")
+                .append("<title>").append(title).append("</title>\n")
+                .append("<link rel=\"stylesheet\" type=\"text/css\" href=\"").append(root).append("stylesheet.css\" title=\"Style\">\n")
+                .append("</head>\n");
+    }
+
+    private void navigation(StringBuilder html, String position) {
+        html.append("<div class=\"").append(position).append("Nav\"><a name=\"navbar.").append(position).append("\">\n<!--   -->\n</a>\n")
+                .append("<ul class=\"navList\" title=\"Navigation\">\n").append(navigation).append("</ul>\n</div>\n")
+                .append("<div class=\"subNav\">\n<ul class=\"navList\">\n<li><a href=\"").append(root)
+                .append("allclasses-noframe.html\">All&nbsp;Classes</a></li>\n</ul>\n</div>\n");
+    }
+
+    /**
+     * A page of the frames layout, or the frameset itself, without navigation bars.
+     */
+    static class Frame extends Page {
+        private final String body;
+        private final boolean frameset;
+
+        /**
+         * @param body the body of the page, or the frames of a frameset
+         */
+        Frame(String path, String root, String title, String body, boolean frameset) {
+            super(path, root, title, "", "", "", ImmutableList.<Table>of(), ImmutableList.<Details>of(), "");
+            this.body = body;
+            this.frameset = frameset;
+        }
+
+        @Override
+        String render(String charset) {
+            StringBuilder html = new StringBuilder(1024 + body.length());
+            if (frameset) {
+                html.append("<!DOCTYPE HTML PUBLIC \"-//W3C//DTD HTML 4.01 Frameset//EN\" \"http://www.w3.org/TR/html4/frameset.dtd\">\n")
+                        .append("<html lang=\"en\">\n<head>\n")
+                        .append("<meta http-equiv=\"Content-Type\" content=\"text/html; charset=").append(charset).append("\">\n")
+                        .append("<title>").append(super.title).append("</title>\n</head>\n")
+                        .append(body);
+            } else {
+                head(html, charset);
+                html.append("<body>\n").append(body).append("</body>\n");
+            }
+            return html.append("</html>\n").toString();
+        }
+    }
+
+    /**
+     * A summary table of members, followed by the members inherited from each superclass and interface.
+     * Tables without a first header have a single column, tables without rows only list inherited members.
+     */
+    static class Table {
+        private final String anchor;
+        private final String title;
+        private final String cssClass;
+        private final String firstHeader;
+        private final String lastHeader;
+        private final List<String[]> rows;
+        private final List<Inherited> inherited;
+
+        Table(String anchor, String title, String cssClass, String firstHeader, String lastHeader, List<String[]> rows,
+              List<Inherited> inherited) {
+            this.anchor = anchor;
+            this.title = title;
+            this.cssClass = cssClass;
+            this.firstHeader = firstHeader;
+            this.lastHeader = lastHeader;
+            this.rows = ImmutableList.copyOf(rows);
+            this.inherited = ImmutableList.copyOf(inherited);
+        }
+
+        void render(StringBuilder html) {
+            html.append("<ul class=\"blockList\">\n<li class=\"blockList\"><a name=\"").append(anchor).append("\">\n<!--   -->\n</a>\n")
+                    .append("<h3>").append(title).append("</h3>\n");
+            if (!rows.isEmpty()) {
+                html.append("<table class=\"").append(cssClass).append("\" border=\"0\" cellpadding=\"3\" cellspacing=\"0\" summary=\"")
+                        .append(title).append(" table\">\n")
+                        .append("<caption><span>").append(title).append("</span><span class=\"tabEnd\">&nbsp;</span></caption>\n")
+                        .append("<tr>\n");
+                if (firstHeader == null) {
+                    html.append("<th class=\"colOne\" scope=\"col\">").append(lastHeader).append("</th>\n</tr>\n");
+                } else {
+                    html.append("<th class=\"colFirst\" scope=\"col\">").append(firstHeader).append("</th>\n")
+                            .append("<th class=\"colLast\" scope=\"col\">").append(lastHeader).append("</th>\n</tr>\n");
+                }
+                for (int i = 0; i < rows.size(); i++) {
+                    String[] row = rows.get(i);
+                    html.append("<tr class=\"").append(i % 2 == 0 ? "altColor" : "rowColor").append("\">\n");
+                    if (firstHeader == null) {
+                        html.append("<td class=\"colOne\">").append(row[1]).append("</td>\n</tr>\n");
+                    } else {
+                        html.append("<td class=\"colFirst\">").append(row[0]).append("</td>\n")
+                                .append("<td class=\"colLast\">").append(row[1]).append("</td>\n</tr>\n");
+                    }
+                }
+                html.append("</table>\n");
+            }
+            for (Inherited list : inherited) list.render(html);
+            html.append("</li>\n</ul>\n");
+        }
+    }
+
+    /**
+     * The members of one kind a class inherits from a superclass or interface.
+     */
+    static class Inherited {
+        private final String anchor;
+        private final String heading;
+        private final List<String> members;
+
+        Inherited(String anchor, String heading, List<String> members) {
+            this.anchor = anchor;
+            this.heading = heading;
+            this.members = ImmutableList.copyOf(members);
+        }
+
+        void render(StringBuilder html) {
+            html.append("<ul class=\"blockList\">\n<li class=\"blockList\"><a name=\"").append(anchor).append("\">\n<!--   -->\n</a>\n")
+                    .append("<h3>").append(heading).append("</h3>\n<code>");
+            for (int i = 0; i < members.size(); i++) {
+                if (i > 0) html.append(", ");
+                html.append(members.get(i));
+            }
+            html.append("</code></li>\n</ul>\n");
+        }
+    }
+
+    /**
+     * The detail section of one kind of member.
+     */
+    static class Details {
+        private final String anchor;
+        private final String title;
+        private final List<Detail> entries;
+
+        Details(String anchor, String title, List<Detail> entries) {
+            this.anchor = anchor;
+            this.title = title;
+            this.entries = ImmutableList.copyOf(entries);
+        }
+
+        void render(StringBuilder html) {
+            html.append("<ul class=\"blockList\">\n<li class=\"blockList\"><a name=\"").append(anchor).append("\">\n<!--   -->\n</a>\n")
+                    .append("<h3>").append(title).append("</h3>\n");
+            for (int i = 0; i < entries.size(); i++) {
+                String list = i == entries.size() - 1 ? "blockListLast" : "blockList";
+                entries.get(i).render(html, list);
+            }
+            html.append("</li>\n</ul>\n");
+        }
+    }
+
+    /**
+     * The details of a single member.
+     */
+    static class Detail {
+        private final String anchor;
+        private final String erasureAnchor;
+        private final String name;
+        private final String signature;
+        private final String body;
+
+        /**
+         * @param erasureAnchor a second anchor of the member, or null
+         */
+        Detail(String anchor, String erasureAnchor, String name, String signature, String body) {
+            this.anchor = anchor;
+            this.erasureAnchor = erasureAnchor;
+            this.name = name;
+            this.signature = signature;
+            this.body = body;
+        }
+
+        void render(StringBuilder html, String list) {
+            if (erasureAnchor != null) html.append("<a name=\"").append(erasureAnchor).append("\">\n<!--   -->\n</a>");
+            html.append("<a name=\"").append(anchor).append("\">\n<!--   -->\n</a>\n")
+                    .append("<ul class=\"").append(list).append("\">\n<li class=\"blockList\">\n")
+                    .append("<h4>").append(name).append("</h4>\n")
+                    .append("<pre>").append(signature).append("</pre>\n")
+                    .append(body)
+                    .append("</li>\n</ul>\n");
+        }
+    }
+}
@@ -0,0 +1,1104 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.sun.javadoc.*;
+
+import java.text.MessageFormat;
+import java.util.*;
+
+/**
+ * Builds the {@link Page}s of a run from the Javadoc model.
+ *
+ * The Javadoc model is evaluated lazily and is not thread safe, so pages are built on a single
+ * thread, and only rendering and writing them is done concurrently. Anything the pages cannot
+ * show like the standard doclet does fails the build with {@link Unsupported}.
+ */
+class PageBuilder {
+
+    /**
+     * Thrown for Javadoc content the pages do not support.
+     */
+    static class Unsupported extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        Unsupported(String message) {
+            super(message);
+        }
+    }
+
+    private static final String DOCLET_RESOURCES = "com.sun.tools.doclets.internal.toolkit.resources.doclets";
+    private static final String[] KINDS = {"Interface", "Class", "Enum", "Exception", "Error"};
+    private static final String FRAMES_TITLE = "Generated Documentation (Untitled)";
+
+    private enum Nav { OVERVIEW, PACKAGE, CLASS }
+
+    /**
+     * The kinds of members a class inherits, as named in the inherited member lists.
+     */
+    private enum Members {
+        NESTED_CLASSES("nested.classes", "Nested classes/interfaces") {
+            @Override
+            ProgramElementDoc[] of(ClassDoc classDoc) {
+                return classDoc.innerClasses();
+            }
+        },
+        FIELDS("fields", "Fields") {
+            @Override
+            ProgramElementDoc[] of(ClassDoc classDoc) {
+                return classDoc.fields();
+            }
+        },
+        METHODS("methods", "Methods") {
+            @Override
+            ProgramElementDoc[] of(ClassDoc classDoc) {
+                return classDoc.methods();
+            }
+        };
+
+        private final String anchor;
+        private final String label;
+
+        Members(String anchor, String label) {
+            this.anchor = anchor;
+            this.label = label;
+        }
+
+        abstract ProgramElementDoc[] of(ClassDoc classDoc);
+    }
+
+    private final RootDoc rootDoc;
+    private final Map<ClassDoc, List<ClassDoc>> subclasses = new HashMap<ClassDoc, List<ClassDoc>>();
+    private final Map<ClassDoc, List<ClassDoc>> subinterfaces = new HashMap<ClassDoc, List<ClassDoc>>();
+    private final Map<ClassDoc, List<ClassDoc>> implementations = new HashMap<ClassDoc, List<ClassDoc>>();
+    private SortedMap<String, PackageDoc> packages = new TreeMap<String, PackageDoc>();
+    private boolean overview;
+
+    PageBuilder(RootDoc rootDoc) {
+        this.rootDoc = rootDoc;
+    }
+
+    List<Page> build() throws Unsupported {
+        ClassDoc[] classes = sorted(rootDoc.classes());
+        for (ClassDoc classDoc : classes) {
+            packages.put(classDoc.containingPackage().name(), classDoc.containingPackage());
+            if (classDoc.isEnum()) documentEnum(classDoc);
+        }
+        // like the standard doclet, a run of a single package starts with the package instead of an overview
+        overview = packages.size() != 1;
+        for (String[] option : rootDoc.options()) {
+            if (option.length > 0 && option[0].equals(DocletOptions.OVERVIEW)) overview = true;
+        }
+        indexHierarchy(classes);
+
+        ImmutableList.Builder<Page> pages = ImmutableList.builder();
+        pages.add(framesPage());
+        if (overview) {
+            pages.add(overviewPage());
+            pages.add(overviewFrame());
+        }
+        pages.add(allClassesPage("allclasses-frame.html", classes, true));
+        pages.add(allClassesPage("allclasses-noframe.html", classes, false));
+        pages.add(constantValuesPage());
+        for (PackageDoc packageDoc : packages.values()) {
+            pages.add(packagePage(packageDoc));
+            pages.add(packageFrame(packageDoc));
+        }
+        for (ClassDoc classDoc : classes) {
+            pages.add(classPage(classDoc));
+        }
+        return pages.build();
+    }
+
+    /**
+     * @return the names of the documented packages, in the format of the `package-list` file
+     */
+    String packageList() {
+        SortedSet<String> names = new TreeSet<String>();
+        for (ClassDoc classDoc : rootDoc.classes()) names.add(classDoc.containingPackage().name());
+        StringBuilder list = new StringBuilder();
+        for (String name : names) {
+            if (name.length() > 0) list.append(name).append('\n');
+        }
+        return list.toString();
+    }
+
+    /**
+     * Gives the `values` and `valueOf` methods of an enum the comments the standard doclet gives them.
+     */
+    private static void documentEnum(ClassDoc classDoc) {
+        ResourceBundle resources = ResourceBundle.getBundle(DOCLET_RESOURCES);
+        for (MethodDoc method : classDoc.methods()) {
+            Parameter[] parameters = method.parameters();
+            if (method.name().equals("values") && parameters.length == 0) {
+                method.setRawCommentText(MessageFormat.format(resources.getString("doclet.enum_values_doc.main"), classDoc.name())
+                        + "\n@return " + resources.getString("doclet.enum_values_doc.return"));
+            } else if (method.name().equals("valueOf") && parameters.length == 1
+                    && parameters[0].type().qualifiedTypeName().equals(String.class.getName())) {
+                method.setRawCommentText(MessageFormat.format(resources.getString("doclet.enum_valueof_doc.main"), classDoc.name())
+                        + "\n@param name " + resources.getString("doclet.enum_valueof_doc.param_name")
+                        + "\n@return " + resources.getString("doclet.enum_valueof_doc.return")
+                        + "\n@throws IllegalArgumentException " + resources.getString("doclet.enum_valueof_doc.throws_ila")
+                        + "\n@throws NullPointerException " + resources.getString("doclet.enum_valueof_doc.throws_npe"));
+            }
+        }
+    }
+
+    /**
+     * Finds the known subclasses, subinterfaces and implementations of each class and interface.
+     */
+    private void indexHierarchy(ClassDoc[] classes) {
+        for (ClassDoc classDoc : classes) {
+            ClassDoc superclass = classDoc.superclass();
+            if (!classDoc.isInterface() && superclass != null) known(subclasses, superclass).add(classDoc);
+            for (Type interfaceType : allInterfaces(classDoc)) {
+                known(classDoc.isInterface() ? subinterfaces : implementations, interfaceType.asClassDoc()).add(classDoc);
+            }
+        }
+    }
+
+    private static List<ClassDoc> known(Map<ClassDoc, List<ClassDoc>> index, ClassDoc classDoc) {
+        List<ClassDoc> known = index.get(classDoc);
+        if (known == null) index.put(classDoc, known = new ArrayList<ClassDoc>());
+        return known;
+    }
+
+    private String navigation(Nav current, String root) {
+        StringBuilder html = new StringBuilder();
+        if (overview) navItem(html, current == Nav.OVERVIEW, "Overview", root + "overview-summary.html");
+        String packagePage = current == Nav.CLASS ? "package-summary.html"
+                : overview ? null : root + packagePath(packages.values().iterator().next()) + "package-summary.html";
+        navItem(html, current == Nav.PACKAGE, "Package", packagePage);
+        navItem(html, current == Nav.CLASS, "Class", null);
+        return html.toString();
+    }
+
+    private static void navItem(StringBuilder html, boolean current, String label, String href) {
+        if (current) html.append("<li class=\"navBarCell1Rev\">").append(label).append("</li>\n");
+        else if (href != null) html.append("<li><a href=\"").append(href).append("\">").append(label).append("</a></li>\n");
+        else html.append("<li>").append(label).append("</li>\n");
+    }
+
+    private Page framesPage() {
+        String start = overview ? "overview-summary.html" : packagePath(packages.values().iterator().next()) + "package-summary.html";
+        StringBuilder frames = new StringBuilder("<frameset cols=\"20%,80%\" title=\"Documentation frame\">\n");
+        String allClasses = "<frame src=\"allclasses-frame.html\" name=\"packageFrame\" "
+                + "title=\"All classes and interfaces (except non-static nested types)\">\n";
+        if (overview) {
+            frames.append("<frameset rows=\"30%,70%\" title=\"Left frames\">\n")
+                    .append("<frame src=\"overview-frame.html\" name=\"packageListFrame\" title=\"All Packages\">\n")
+                    .append(allClasses).append("</frameset>\n");
+        } else {
+            frames.append(allClasses);
+        }
+        frames.append("<frame src=\"").append(start).append("\" name=\"classFrame\" ")
+                .append("title=\"Package, class and interface descriptions\" scrolling=\"yes\">\n")
+                .append("<noframes>\n<h2>Frame Alert</h2>\n<p>This document is designed to be viewed using the frames feature. ")
+                .append("If you see this message, you are using a non-frame-capable web client. Link to <a href=\"").append(start)
+                .append("\">Non-frame version</a>.</p>\n</noframes>\n</frameset>\n");
+        return new Page.Frame("index.html", "", FRAMES_TITLE, frames.toString(), true);
+    }
+
+    private Page overviewPage() throws Unsupported {
+        List<String[]> rows = new ArrayList<String[]>();
+        for (PackageDoc packageDoc : packages.values()) {
+            rows.add(new String[]{
+                    "<a href=\"" + packagePath(packageDoc) + "package-summary.html\">" + escape(packageName(packageDoc)) + "</a>",
+                    descriptionCell(block(inline(packageDoc, packageDoc.firstSentenceTags(), "")))});
+        }
+        String summary = block(inline(rootDoc, rootDoc.firstSentenceTags(), ""));
+        String description = block(inline(rootDoc, rootDoc.inlineTags(), ""));
+        String header = summary.length() == 0 ? ""
+                : "<div class=\"subTitle\">\n" + summary + "</div>\n<p>See: <a href=\"#overview.description\">Description</a></p>\n";
+        String footer = description.length() == 0 ? ""
+                : "<div class=\"contentContainer\">" + anchor("overview.description") + description + "</div>\n";
+        return new Page("overview-summary.html", "", "Overview", navigation(Nav.OVERVIEW, ""), header,
+                indexTable("overviewSummary", "Packages", "packages", "Package", rows),
+                Collections.<Page.Table>emptyList(), Collections.<Page.Details>emptyList(), footer);
+    }
+
+    private Page overviewFrame() {
+        StringBuilder body = new StringBuilder("<div class=\"indexHeader\"><span><a href=\"allclasses-frame.html\" ")
+                .append("target=\"packageFrame\">All&nbsp;Classes</a></span></div>\n<div class=\"indexContainer\">\n")
+                .append("<h2 title=\"Packages\">Packages</h2>\n<ul title=\"Packages\">\n");
+        for (PackageDoc packageDoc : packages.values()) {
+            body.append("<li><a href=\"").append(packagePath(packageDoc)).append("package-frame.html\" target=\"packageFrame\">")
+                    .append(escape(packageName(packageDoc))).append("</a></li>\n");
+        }
+        body.append("</ul>\n</div>\n<p>&nbsp;</p>\n");
+        return new Page.Frame("overview-frame.html", "", "Overview List", body.toString(), false);
+    }
+
+    private Page allClassesPage(String path, ClassDoc[] classes, boolean frame) {
+        StringBuilder body = new StringBuilder("<h1 class=\"bar\">All&nbsp;Classes</h1>\n<div class=\"indexContainer\">\n<ul>\n");
+        for (ClassDoc classDoc : classes) {
+            body.append("<li>").append(frameLink(classDoc, path(classDoc), frame)).append("</li>\n");
+        }
+        body.append("</ul>\n</div>\n");
+        return new Page.Frame(path, "", "All Classes", body.toString(), false);
+    }
+
+    private Page packageFrame(PackageDoc packageDoc) {
+        String root = root(packageDoc);
+        String name = escape(packageName(packageDoc));
+        StringBuilder body = new StringBuilder("<h1 class=\"bar\"><a href=\"").append(root).append(packagePath(packageDoc))
+                .append("package-summary.html\" target=\"classFrame\">").append(name).append("</a></h1>\n")
+                .append("<div class=\"indexContainer\">\n");
+        for (Map.Entry<String, List<ClassDoc>> kind : kinds(packageDoc).entrySet()) {
+            if (kind.getValue().isEmpty()) continue;
+            String title = plural(kind.getKey());
+            body.append("<h2 title=\"").append(title).append("\">").append(title).append("</h2>\n<ul title=\"").append(title).append("\">\n");
+            for (ClassDoc classDoc : kind.getValue()) {
+                body.append("<li>").append(frameLink(classDoc, classDoc.name() + ".html", true)).append("</li>\n");
+            }
+            body.append("</ul>\n");
+        }
+        body.append("</div>\n");
+        return new Page.Frame(packagePath(packageDoc) + "package-frame.html", root, name, body.toString(), false);
+    }
+
+    private static String frameLink(ClassDoc classDoc, String href, boolean frame) {
+        String name = escape(classDoc.name());
+        return "<a href=\"" + href + "\" title=\"" + kind(classDoc).toLowerCase() + " in " + escape(packageName(classDoc.containingPackage()))
+                + "\"" + (frame ? " target=\"classFrame\"" : "") + ">"
+                + (classDoc.isInterface() ? "<span class=\"interfaceName\">" + name + "</span>" : name) + "</a>";
+    }
+
+    /**
+     * Builds the list of constant values, grouped by the first two components of the package names like the
+     * standard doclet does.
+     */
+    private Page constantValuesPage() {
+        StringBuilder contents = new StringBuilder();
+        StringBuilder constants = new StringBuilder();
+        List<String> groups = new ArrayList<String>();
+        for (PackageDoc packageDoc : packages.values()) {
+            StringBuilder tables = new StringBuilder();
+            for (ClassDoc classDoc : sorted(packageDoc.allClasses())) {
+                if (classDoc.isIncluded()) constantsTable(classDoc, tables);
+            }
+            if (tables.length() == 0) continue;
+            String group = packageDoc.name().replaceFirst("^([^.]*\\.[^.]*)\\..*", "$1");
+            String anchor = group.length() == 0 ? "unnamed.package" : group;
+            String label = group.length() == 0 ? "&lt;Unnamed&gt;" : escape(group) + ".*";
+            boolean listed = false;
+            for (String listedGroup : groups) listed |= packageDoc.name().startsWith(listedGroup);
+            if (!listed) contents.append("<li><a href=\"#").append(anchor).append("\">").append(label).append("</a></li>\n");
+            if (!groups.contains(group)) {
+                groups.add(group);
+                constants.append(anchor(anchor)).append("<h2 title=\"").append(group.length() == 0 ? label : escape(group)).append("\">")
+                        .append(label).append("</h2>\n");
+            }
+            constants.append("<ul class=\"blockList\">\n").append(tables).append("</ul>\n");
+        }
+        String header = "<h1 title=\"Constant Field Values\" class=\"title\">Constant Field Values</h1>\n"
+                + "<h2 title=\"Contents\">Contents</h2>\n<ul>\n" + contents + "</ul>\n";
+        return new Page("constant-values.html", "", "Constant Field Values", navigation(null, ""), header, "",
+                Collections.<Page.Table>emptyList(), Collections.<Page.Details>emptyList(),
+                "<div class=\"constantValuesContainer\">" + constants + "</div>\n");
+    }
+
+    private static void constantsTable(ClassDoc classDoc, StringBuilder html) {
+        List<FieldDoc> fields = new ArrayList<FieldDoc>();
+        for (FieldDoc field : sorted(classDoc.fields())) {
+            if (field.constantValueExpression() != null) fields.add(field);
+        }
+        if (fields.isEmpty()) return;
+        String packageName = classDoc.containingPackage().name();
+        StringBuilder caption = new StringBuilder(packageName.length() == 0 ? "" : escape(packageName) + ".").append(link(classDoc, ""));
+        TypeVariable[] parameters = classDoc.typeParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            caption.append(i == 0 ? "&lt;" : ",").append("<a href=\"").append(path(classDoc)).append("\" title=\"type parameter in ")
+                    .append(escape(classDoc.name())).append("\">").append(escape(parameters[i].typeName())).append("</a>");
+        }
+        if (parameters.length > 0) caption.append("&gt;");
+        html.append("<li class=\"blockList\">\n<table class=\"constantsSummary\" border=\"0\" cellpadding=\"3\" cellspacing=\"0\" ")
+                .append("summary=\"Constant Field Values table, listing constant fields, and values\">\n")
+                .append("<caption><span>").append(caption).append("</span><span class=\"tabEnd\">&nbsp;</span></caption>\n")
+                .append("<tr>\n<th class=\"colFirst\" scope=\"col\">Modifier and Type</th>\n<th scope=\"col\">Constant Field</th>\n")
+                .append("<th class=\"colLast\" scope=\"col\">Value</th>\n</tr>\n<tbody>\n");
+        for (int i = 0; i < fields.size(); i++) {
+            FieldDoc field = fields.get(i);
+            html.append("<tr class=\"").append(i % 2 == 0 ? "altColor" : "rowColor").append("\">\n<td class=\"colFirst\">")
+                    .append(anchor(classDoc.qualifiedName() + "." + field.name()).trim())
+                    .append("<code>").append(field.modifiers().replace(" ", "&nbsp;")).append("&nbsp;").append(type(field.type(), ""))
+                    .append("</code></td>\n<td><code><a href=\"").append(path(classDoc)).append("#").append(anchor(field)).append("\">")
+                    .append(field.name()).append("</a></code></td>\n<td class=\"colLast\"><code>")
+                    .append(escape(field.constantValueExpression())).append("</code></td>\n</tr>\n");
+        }
+        html.append("</tbody>\n</table>\n</li>\n");
+    }
+
+    private Page packagePage(PackageDoc packageDoc) throws Unsupported {
+        String root = root(packageDoc);
+        StringBuilder content = new StringBuilder("<ul class=\"blockList\">\n");
+        for (Map.Entry<String, List<ClassDoc>> kind : kinds(packageDoc).entrySet()) {
+            if (kind.getValue().isEmpty()) continue;
+            List<String[]> rows = new ArrayList<String[]>();
+            for (ClassDoc classDoc : kind.getValue()) {
+                rows.add(new String[]{link(classDoc, root), descriptionCell(block(inline(classDoc, classDoc.firstSentenceTags(), root)))});
+            }
+            content.append("<li class=\"blockList\">\n")
+                    .append(indexTable("typeSummary", kind.getKey() + " Summary", plural(kind.getKey()).toLowerCase(), kind.getKey(), rows))
+                    .append("</li>\n");
+        }
+        content.append("</ul>\n");
+        String name = escape(packageName(packageDoc));
+        String header = "<h1 title=\"Package\" class=\"title\">Package&nbsp;" + name + "</h1>\n";
+        String summary = block(inline(packageDoc, packageDoc.firstSentenceTags(), root));
+        if (summary.length() > 0) {
+            header += "<div class=\"docSummary\">\n" + summary + "</div>\n"
+                    + "<p>See:&nbsp;<a href=\"#package.description\">Description</a></p>\n";
+        }
+        String description = block(inline(packageDoc, packageDoc.inlineTags(), root)) + blockTags(packageDoc, root);
+        if (description.length() > 0) {
+            String title = "Package " + name + " Description";
+            content.append(anchor("package.description")).append("<h2 title=\"").append(title).append("\">").append(title).append("</h2>\n")
+                    .append(description);
+        }
+        return new Page(packagePath(packageDoc) + "package-summary.html", root, name, navigation(Nav.PACKAGE, root), header,
+                content.toString(), Collections.<Page.Table>emptyList(), Collections.<Page.Details>emptyList(), "");
+    }
+
+    /**
+     * @return the included classes of a package, by kind
+     */
+    private static Map<String, List<ClassDoc>> kinds(PackageDoc packageDoc) {
+        Map<String, List<ClassDoc>> kinds = new LinkedHashMap<String, List<ClassDoc>>();
+        for (String kind : KINDS) kinds.put(kind, new ArrayList<ClassDoc>());
+        for (ClassDoc classDoc : sorted(packageDoc.allClasses())) {
+            if (classDoc.isIncluded()) kinds.get(kind(classDoc)).add(classDoc);
+        }
+        return kinds;
+    }
+
+    /**
+     * A table of packages or classes, in the format of the overview and package pages.
+     */
+    private static String indexTable(String cssClass, String caption, String listing, String firstHeader, List<String[]> rows) {
+        StringBuilder html = new StringBuilder("<table class=\"").append(cssClass)
+                .append("\" border=\"0\" cellpadding=\"3\" cellspacing=\"0\" summary=\"").append(caption)
+                .append(" table, listing ").append(listing).append(", and an explanation\">\n")
+                .append("<caption><span>").append(caption).append("</span><span class=\"tabEnd\">&nbsp;</span></caption>\n")
+                .append("<tr>\n<th class=\"colFirst\" scope=\"col\">").append(firstHeader).append("</th>\n")
+                .append("<th class=\"colLast\" scope=\"col\">Description</th>\n</tr>\n<tbody>\n");
+        for (int i = 0; i < rows.size(); i++) {
+            html.append("<tr class=\"").append(i % 2 == 0 ? "altColor" : "rowColor").append("\">\n")
+                    .append("<td class=\"colFirst\">").append(rows.get(i)[0]).append("</td>\n")
+                    .append("<td class=\"colLast\">").append(rows.get(i)[1]).append("</td>\n</tr>\n");
+        }
+        return html.append("</tbody>\n</table>\n").toString();
+    }
+
+    private static String descriptionCell(String block) {
+        return block.length() == 0 ? "&nbsp;" : "\n" + block;
+    }
+
+    private Page classPage(ClassDoc classDoc) throws Unsupported {
+        if (classDoc.isAnnotationType()) throw new Unsupported("annotation types (" + classDoc.qualifiedName() + ")");
+        if (serialized(classDoc)) {
+            throw new Unsupported("serializable classes (" + classDoc.qualifiedName() + "), as the serialized form is not generated");
+        }
+        String root = root(classDoc.containingPackage());
+
+        StringBuilder content = new StringBuilder(classDoc.isInterface() ? "" : inheritanceTree(classDoc, root));
+        content.append("<div class=\"description\">\n<ul class=\"blockList\">\n<li class=\"blockList\">\n");
+        content.append(classInfo(classDoc, root));
+        content.append("<hr>\n<br>\n<pre>").append(classSignature(classDoc, root)).append("</pre>\n");
+        content.append(deprecation(classDoc, root));
+        content.append(block(inline(classDoc, classDoc.inlineTags(), root)));
+        content.append(blockTags(classDoc, root));
+        content.append("</li>\n</ul>\n</div>\n");
+
+        List<Page.Table> summaries = new ArrayList<Page.Table>();
+        List<Page.Details> details = new ArrayList<Page.Details>();
+        List<Page.Inherited> inheritedClasses = inherited(classDoc, Members.NESTED_CLASSES, root);
+        ClassDoc[] nested = sorted(classDoc.innerClasses());
+        if (nested.length > 0 || !inheritedClasses.isEmpty()) {
+            List<String[]> rows = new ArrayList<String[]>();
+            for (ClassDoc inner : nested) {
+                rows.add(new String[]{"<code>" + modifiers(inner) + " " + kind(inner).toLowerCase() + "</code>",
+                        "<code><span class=\"memberNameLink\">" + link(inner, root) + "</span></code>"
+                                + block(inline(inner, inner.firstSentenceTags(), root))});
+            }
+            summaries.add(new Page.Table("nested.class.summary", "Nested Class Summary", "memberSummary",
+                    "Modifier and Type", "Class and Description", rows, inheritedClasses));
+        }
+        fields(classDoc.enumConstants(), "enum.constant", "Enum Constant", null, root, Collections.<Page.Inherited>emptyList(),
+                summaries, details);
+        fields(classDoc.fields(), "field", "Field", "Modifier and Type", root, inherited(classDoc, Members.FIELDS, root),
+                summaries, details);
+        executables(classDoc.constructors(), "constructor", "Constructor", null, root, Collections.<Page.Inherited>emptyList(),
+                summaries, details);
+        executables(classDoc.methods(), "method", "Method", "Modifier and Type", root, inherited(classDoc, Members.METHODS, root),
+                summaries, details);
+
+        String heading = kind(classDoc) + " " + escape(classDoc.name());
+        String header = "<div class=\"subTitle\">" + escape(packageName(classDoc.containingPackage())) + "</div>\n"
+                + "<h2 title=\"" + heading + "\" class=\"title\">" + heading + typeParameters(classDoc.typeParameters(), root) + "</h2>\n";
+        return new Page(path(classDoc), root, escape(classDoc.name()), navigation(Nav.CLASS, root), header, content.toString(),
+                summaries, details, "");
+    }
+
+    /**
+     * @return whether the standard doclet documents the serialized form of a class
+     */
+    private static boolean serialized(ClassDoc classDoc) {
+        if (classDoc.isEnum() || !classDoc.isSerializable()) return false;
+        for (Doc doc : new Doc[]{classDoc, classDoc.containingPackage()}) {
+            Tag[] serial = doc.tags("@serial");
+            if (serial.length > 0) return !serial[0].text().toLowerCase(Locale.ENGLISH).contains("exclude");
+        }
+        return classDoc.isPublic() || classDoc.isProtected();
+    }
+
+    /**
+     * Lists the superclasses of a class, starting at `java.lang.Object`.
+     */
+    private static String inheritanceTree(ClassDoc classDoc, String root) {
+        List<String> entries = new ArrayList<String>();
+        StringBuilder self = new StringBuilder(escape(classDoc.qualifiedName()));
+        TypeVariable[] parameters = classDoc.typeParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            self.append(i == 0 ? "&lt;" : ",").append(escape(parameters[i].typeName()));
+        }
+        entries.add(parameters.length > 0 ? self.append("&gt;").toString() : self.toString());
+        for (Type type = classDoc.superclassType(); type != null; type = type.asClassDoc().superclassType()) {
+            ClassDoc superclass = type.asClassDoc();
+            String name = escape(superclass.qualifiedName());
+            entries.add(0, (superclass.isIncluded() ? link(superclass, root, name) : name) + typeArguments(type, root));
+        }
+        StringBuilder html = new StringBuilder();
+        for (int i = 0; i < entries.size(); i++) {
+            html.append("<ul class=\"inheritance\">\n<li>").append(entries.get(i)).append("</li>\n");
+            if (i < entries.size() - 1) html.append("<li>\n");
+        }
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            html.append("</ul>\n");
+            if (i > 0) html.append("</li>\n");
+        }
+        return html.toString();
+    }
+
+    /**
+     * Lists the type parameters, the superclasses and interfaces, and the known subclasses and implementations
+     * of a class.
+     */
+    private String classInfo(ClassDoc classDoc, String root) throws Unsupported {
+        StringBuilder html = new StringBuilder();
+        String typeParameters = typeParamTags(classDoc, classDoc.typeParamTags(), root);
+        if (typeParameters.length() > 0) html.append("<dl>\n").append(typeParameters).append("</dl>\n");
+        List<String> interfaces = new ArrayList<String>();
+        for (Type interfaceType : allInterfaces(classDoc)) interfaces.add(type(interfaceType, root));
+        if (classDoc.isInterface()) {
+            info(html, "All Superinterfaces:", interfaces);
+            info(html, "All Known Subinterfaces:", links(subinterfaces.get(classDoc), root));
+            info(html, "All Known Implementing Classes:", links(implementations.get(classDoc), root));
+        } else {
+            info(html, "All Implemented Interfaces:", interfaces);
+            info(html, "Direct Known Subclasses:", links(subclasses.get(classDoc), root));
+        }
+        ClassDoc enclosing = classDoc.containingClass();
+        if (enclosing != null) {
+            info(html, enclosing.isInterface() ? "Enclosing interface:" : "Enclosing class:",
+                    Collections.singletonList(link(enclosing, root)));
+        }
+        return html.toString();
+    }
+
+    private static void info(StringBuilder html, String label, List<String> entries) {
+        if (entries.isEmpty()) return;
+        html.append("<dl>\n<dt>").append(label).append("</dt>\n<dd>");
+        for (int i = 0; i < entries.size(); i++) {
+            if (i > 0) html.append(", ");
+            html.append(entries.get(i));
+        }
+        html.append("</dd>\n</dl>\n");
+    }
+
+    private static List<String> links(List<ClassDoc> classes, String root) {
+        if (classes == null) return Collections.emptyList();
+        List<String> links = new ArrayList<String>();
+        for (ClassDoc classDoc : sorted(classes.toArray(new ClassDoc[classes.size()]))) links.add(link(classDoc, root));
+        return links;
+    }
+
+    /**
+     * @return the public or documented interfaces a class implements or an interface extends, directly or not,
+     * sorted by their qualified names
+     */
+    private static List<Type> allInterfaces(ClassDoc classDoc) {
+        Map<ClassDoc, Type> interfaces = new LinkedHashMap<ClassDoc, Type>();
+        allInterfaces(classDoc, interfaces);
+        List<Type> sorted = new ArrayList<Type>(interfaces.values());
+        Collections.sort(sorted, new Comparator<Type>() {
+            @Override
+            public int compare(Type left, Type right) {
+                return left.qualifiedTypeName().compareToIgnoreCase(right.qualifiedTypeName());
+            }
+        });
+        return sorted;
+    }
+
+    private static void allInterfaces(Type type, Map<ClassDoc, Type> interfaces) {
+        // parameterized types substitute their type arguments in the types they extend
+        ParameterizedType parameterized = type.asParameterizedType();
+        ClassDoc classDoc = type.asClassDoc();
+        for (Type interfaceType : parameterized != null ? parameterized.interfaceTypes() : classDoc.interfaceTypes()) {
+            ClassDoc interfaceDoc = interfaceType.asClassDoc();
+            if (!interfaceDoc.isPublic() && !interfaceDoc.isIncluded()) continue;
+            if (!interfaces.containsKey(interfaceDoc)) interfaces.put(interfaceDoc, interfaceType);
+            allInterfaces(interfaceType, interfaces);
+        }
+        Type superclass = parameterized != null ? parameterized.superclassType() : classDoc.superclassType();
+        if (superclass != null && !classDoc.isInterface()) allInterfaces(superclass, interfaces);
+    }
+
+    /**
+     * Lists the members of a kind a class inherits, by the superclass or interface they are inherited from.
+     */
+    private static List<Page.Inherited> inherited(ClassDoc classDoc, Members kind, String root) {
+        Map<ClassDoc, String> levels = new LinkedHashMap<ClassDoc, String>();
+        Map<ClassDoc, List<ProgramElementDoc>> members = new HashMap<ClassDoc, List<ProgramElementDoc>>();
+        inherited(classDoc, classDoc, "", new ArrayList<ProgramElementDoc>(), kind, levels, members);
+
+        List<Page.Inherited> inherited = new ArrayList<Page.Inherited>();
+        for (ClassDoc from : levels.keySet()) {
+            List<ProgramElementDoc> fromMembers = members.get(from);
+            if (from == classDoc || fromMembers.isEmpty()) continue;
+            List<String> entries = new ArrayList<String>();
+            for (ProgramElementDoc member : sorted(fromMembers.toArray(new ProgramElementDoc[fromMembers.size()]))) {
+                if (!from.isIncluded()) entries.add(escape(member.name()));
+                else if (member instanceof ClassDoc) entries.add(link((ClassDoc) member, root));
+                else entries.add(memberLink((MemberDoc) member, root));
+            }
+            String packageName = from.containingPackage().name();
+            String name = from.isIncluded()
+                    ? (packageName.length() == 0 ? "" : escape(packageName) + ".") + link(from, root) : escape(from.qualifiedName());
+            inherited.add(new Page.Inherited(kind.anchor + ".inherited.from.class." + from.qualifiedName(),
+                    kind.label + " inherited from " + (from.isInterface() ? "interface" : "class") + "&nbsp;" + name, entries));
+        }
+        return inherited;
+    }
+
+    /**
+     * Walks the classes and interfaces a class inherits from like the standard doclet does: depth first, through
+     * the interfaces of each class before its superclass. Members are hidden by members of the classes on the path
+     * to them, and classes reached again on a longer path are listed at their last position.
+     */
+    private static void inherited(ClassDoc classDoc, ClassDoc from, String level, List<ProgramElementDoc> hiding, Members kind,
+                                  Map<ClassDoc, String> levels, Map<ClassDoc, List<ProgramElementDoc>> members) {
+        List<ProgramElementDoc> visible = new ArrayList<ProgramElementDoc>();
+        for (ProgramElementDoc member : kind.of(from)) {
+            if (from != classDoc && !inheritable(classDoc, from, member)) continue;
+            boolean hidden = false;
+            for (ProgramElementDoc other : hiding) hidden |= same(member, other);
+            for (ProgramElementDoc other : visible) hidden |= same(member, other);
+            if (!hidden) visible.add(member);
+        }
+        String known = levels.get(from);
+        if (known != null && level.startsWith(known)) levels.remove(from);
+        if (!levels.containsKey(from)) {
+            levels.put(from, level);
+            members.put(from, visible);
+        }
+
+        List<ProgramElementDoc> path = new ArrayList<ProgramElementDoc>(hiding);
+        path.addAll(visible);
+        for (ClassDoc interfaceDoc : from.interfaces()) {
+            inherited(classDoc, interfaceDoc, level + "1", path, kind, levels, members);
+        }
+        ClassDoc superclass = from.superclass();
+        if (!from.isInterface() && superclass != null && superclass != from) {
+            inherited(classDoc, superclass, level + "c", path, kind, levels, members);
+        }
+    }
+
+    private static boolean inheritable(ClassDoc classDoc, ClassDoc from, ProgramElementDoc member) {
+        if (member.isPrivate()) return false;
+        if (member.isPackagePrivate() && !from.containingPackage().equals(classDoc.containingPackage())) return false;
+        // static methods of interfaces are not inherited
+        return !(from.isInterface() && member instanceof MethodDoc && member.isStatic());
+    }
+
+    /**
+     * @return whether members are the same member to the inherited member lists: methods overriding each other or
+     * static methods with the same signature, or fields or nested classes with the same name
+     */
+    private static boolean same(ProgramElementDoc left, ProgramElementDoc right) {
+        if (left instanceof MethodDoc && right instanceof MethodDoc) {
+            MethodDoc leftMethod = (MethodDoc) left;
+            MethodDoc rightMethod = (MethodDoc) right;
+            if (leftMethod.isStatic() && rightMethod.isStatic()) {
+                return leftMethod.name().equals(rightMethod.name()) && leftMethod.signature().equals(rightMethod.signature());
+            }
+            return left == right || leftMethod.overrides(rightMethod) || rightMethod.overrides(leftMethod);
+        }
+        if (left instanceof ClassDoc && right instanceof ClassDoc) {
+            return ((ClassDoc) left).simpleTypeName().equals(((ClassDoc) right).simpleTypeName());
+        }
+        return left.name().equals(right.name());
+    }
+
+    /**
+     * Adds the summary and details of fields, with a type column unless the type header is null.
+     */
+    private void fields(FieldDoc[] fields, String anchor, String title, String typeHeader, String root, List<Page.Inherited> inherited,
+                        List<Page.Table> summaries, List<Page.Details> details) throws Unsupported {
+        if (fields.length == 0 && inherited.isEmpty()) return;
+        List<String[]> rows = new ArrayList<String[]>();
+        for (FieldDoc field : sorted(fields)) {
+            rows.add(new String[]{
+                    typeHeader == null ? null : "<code>" + summaryModifiers(field) + type(field.type(), root) + "</code>",
+                    "<code><span class=\"memberNameLink\"><a href=\"#" + anchor(field) + "\">" + field.name() + "</a></span></code>"
+                            + summaryText(field, root)});
+        }
+        List<Page.Detail> entries = new ArrayList<Page.Detail>();
+        for (FieldDoc field : fields) {
+            String signature = modifiers(field) + "&nbsp;" + type(field.type(), root) + " " + field.name();
+            entries.add(new Page.Detail(anchor(field), null, field.name(), signature, memberBody(field, root)));
+        }
+        summaries.add(new Page.Table(anchor + ".summary", title + " Summary", "memberSummary",
+                typeHeader, title + " and Description", rows, inherited));
+        if (!entries.isEmpty()) details.add(new Page.Details(anchor + ".detail", title + " Detail", entries));
+    }
+
+    /**
+     * Adds the summary and details of constructors or methods, with a type column unless the type header is null.
+     */
+    private void executables(ExecutableMemberDoc[] members, String anchor, String title, String typeHeader, String root,
+                             List<Page.Inherited> inherited, List<Page.Table> summaries, List<Page.Details> details) throws Unsupported {
+        if (members.length == 0 && inherited.isEmpty()) return;
+        List<String[]> rows = new ArrayList<String[]>();
+        for (ExecutableMemberDoc member : sorted(members)) {
+            String type = member instanceof MethodDoc ? type(((MethodDoc) member).returnType(), root) : "";
+            String typeParameters = typeParameters(member.typeParameters(), root);
+            if (typeParameters.length() > 0) typeParameters += "&nbsp;";
+            rows.add(new String[]{
+                    typeHeader == null ? null : "<code>" + summaryModifiers(member) + typeParameters + type + "</code>",
+                    "<code><span class=\"memberNameLink\"><a href=\"#" + anchor(member) + "\">" + member.name() + "</a></span>"
+                            + parameters(member, root, false) + "</code>" + summaryText(member, root)});
+        }
+        List<Page.Detail> entries = new ArrayList<Page.Detail>();
+        for (ExecutableMemberDoc member : members) {
+            if (member instanceof MethodDoc) checkInheritedComment((MethodDoc) member);
+            entries.add(new Page.Detail(anchor(member), erasureAnchor(member), member.name(), executableSignature(member, root),
+                    memberBody(member, root)));
+        }
+        summaries.add(new Page.Table(anchor + ".summary", title + " Summary", "memberSummary",
+                typeHeader, title + " and Description", rows, inherited));
+        if (!entries.isEmpty()) details.add(new Page.Details(anchor + ".detail", title + " Detail", entries));
+    }
+
+    /**
+     * Fails for methods the standard doclet copies comments or tags into from the methods they override or implement.
+     */
+    private static void checkInheritedComment(MethodDoc method) throws Unsupported {
+        List<MethodDoc> inheritedFrom = new ArrayList<MethodDoc>(implementedMethods(method).keySet());
+        if (method.overriddenMethod() != null) inheritedFrom.add(method.overriddenMethod());
+        for (MethodDoc overridden : inheritedFrom) {
+            if (method.inlineTags().length == 0 && overridden.inlineTags().length > 0
+                    || method.tags("@return").length == 0 && overridden.tags("@return").length > 0
+                    || method.paramTags().length < method.parameters().length && overridden.paramTags().length > method.paramTags().length) {
+                throw new Unsupported("inherited comments (" + method.position() + ")");
+            }
+        }
+    }
+
+    /**
+     * @return the interface methods a method implements, with the interface types they are inherited from,
+     * if the class of the method implements interfaces itself
+     */
+    private static Map<MethodDoc, Type> implementedMethods(MethodDoc method) {
+        Map<MethodDoc, Type> implemented = new LinkedHashMap<MethodDoc, Type>();
+        if (method.containingClass().interfaces().length == 0) return implemented;
+        for (Type interfaceType : allInterfaces(method.containingClass())) {
+            for (MethodDoc candidate : interfaceType.asClassDoc().methods()) {
+                if (!candidate.name().equals(method.name()) || !method.overrides(candidate)) continue;
+                boolean overridden = false;
+                for (Iterator<MethodDoc> found = implemented.keySet().iterator(); found.hasNext(); ) {
+                    MethodDoc other = found.next();
+                    if (candidate.overrides(other)) found.remove();
+                    else overridden |= other.overrides(candidate);
+                }
+                if (!overridden) implemented.put(candidate, interfaceType);
+            }
+        }
+        return implemented;
+    }
+
+    /**
+     * Lists the methods a method implements and overrides, like the standard doclet does.
+     */
+    private static String overrides(MethodDoc method, String root) {
+        StringBuilder html = new StringBuilder();
+        for (Map.Entry<MethodDoc, Type> implemented : implementedMethods(method).entrySet()) {
+            html.append("<dt><span class=\"overrideSpecifyLabel\">Specified by:</span></dt>\n<dd><code>")
+                    .append(memberLink(implemented.getKey(), root)).append("</code>&nbsp;in interface&nbsp;<code>")
+                    .append(type(implemented.getValue(), root)).append("</code></dd>\n");
+        }
+        MethodDoc overridden = method.overriddenMethod();
+        if (overridden != null) {
+            Type overriddenType = method.overriddenType();
+            ClassDoc overriddenClass = overriddenType.asClassDoc();
+            // methods of undocumented package private classes are an implementation detail
+            if (overriddenClass.isPublic() || overriddenClass.isIncluded()) {
+                String label = overriddenClass.isAbstract() && method.isAbstract() ? "Specified by:" : "Overrides:";
+                html.append("<dt><span class=\"overrideSpecifyLabel\">").append(label).append("</span></dt>\n<dd><code>")
+                        .append(memberLink(overridden, root)).append("</code>&nbsp;in class&nbsp;<code>")
+                        .append(type(overriddenType, root)).append("</code></dd>\n");
+            }
+        }
+        return html.toString();
+    }
+
+    private String summaryText(Doc doc, String root) throws Unsupported {
+        if (doc.tags("@deprecated").length > 0) {
+            return "\n<div class=\"block\"><span class=\"deprecatedLabel\">Deprecated.</span></div>";
+        }
+        return "\n" + block(inline(doc, doc.firstSentenceTags(), root));
+    }
+
+    private String memberBody(MemberDoc member, String root) throws Unsupported {
+        return deprecation(member, root) + block(inline(member, member.inlineTags(), root)) + blockTags(member, root);
+    }
+
+    private String classSignature(ClassDoc classDoc, String root) {
+        StringBuilder signature = new StringBuilder(modifiers(classDoc));
+        signature.append(' ').append(kind(classDoc).equals("Interface") ? "interface" : classDoc.isEnum() ? "enum" : "class");
+        signature.append(" <span class=\"typeNameLabel\">").append(escape(classDoc.simpleTypeName())).append("</span>");
+        signature.append(typeParameters(classDoc.typeParameters(), root));
+        if (!classDoc.isInterface() && classDoc.superclassType() != null) {
+            signature.append("\nextends ").append(type(classDoc.superclassType(), root));
+        }
+        Type[] interfaces = classDoc.interfaceTypes();
+        if (interfaces.length > 0) {
+            signature.append(classDoc.isInterface() ? "\nextends " : "\nimplements ");
+            for (int i = 0; i < interfaces.length; i++) {
+                if (i > 0) signature.append(", ");
+                signature.append(type(interfaces[i], root));
+            }
+        }
+        return signature.toString();
+    }
+
+    private String executableSignature(ExecutableMemberDoc member, String root) {
+        StringBuilder signature = new StringBuilder(modifiers(member)).append("&nbsp;");
+        String typeParameters = typeParameters(member.typeParameters(), root);
+        if (typeParameters.length() > 0) signature.append(typeParameters).append("&nbsp;");
+        if (member instanceof MethodDoc) signature.append(type(((MethodDoc) member).returnType(), root)).append("&nbsp;");
+        signature.append(member.name()).append(parameters(member, root, true));
+        Type[] exceptions = member.thrownExceptionTypes();
+        if (exceptions.length > 0) {
+            signature.append("\n").append(Strings.repeat(" ", 19)).append("throws ");
+            for (int i = 0; i < exceptions.length; i++) {
+                if (i > 0) signature.append(",\n").append(Strings.repeat(" ", 26));
+                signature.append(type(exceptions[i], root));
+            }
+        }
+        return signature.toString();
+    }
+
+    private String parameters(ExecutableMemberDoc member, String root, boolean wrap) {
+        Parameter[] parameters = member.parameters();
+        StringBuilder html = new StringBuilder("(");
+        for (int i = 0; i < parameters.length; i++) {
+            if (i > 0) html.append(wrap ? ",\n" + Strings.repeat(" ", member.name().length() + 1) : ",&nbsp;");
+            String type = type(parameters[i].type(), root);
+            if (member.isVarArgs() && i == parameters.length - 1) type = type.substring(0, type.length() - 2) + "...";
+            html.append(type).append("&nbsp;").append(parameters[i].name());
+        }
+        return html.append(")").toString();
+    }
+
+    private String deprecation(Doc doc, String root) throws Unsupported {
+        Tag[] deprecated = doc.tags("@deprecated");
+        if (deprecated.length == 0) return "";
+        return "<div class=\"block\"><span class=\"deprecatedLabel\">Deprecated.</span>&nbsp;<span class=\"deprecationComment\">"
+                + inline(doc, deprecated[0].inlineTags(), root) + "</span></div>\n";
+    }
+
+    private String blockTags(Doc doc, String root) throws Unsupported {
+        // like the standard doclet, other block tags are not shown unless requested with options like -author or -tag
+        StringBuilder html = new StringBuilder();
+        if (doc instanceof MethodDoc) html.append(overrides((MethodDoc) doc, root));
+        if (doc instanceof ExecutableMemberDoc) {
+            ExecutableMemberDoc member = (ExecutableMemberDoc) doc;
+            html.append(typeParamTags(doc, member.typeParamTags(), root));
+            ParamTag[] params = member.paramTags();
+            if (params.length > 0) {
+                html.append("<dt><span class=\"paramLabel\">Parameters:</span></dt>\n");
+                for (ParamTag param : params) {
+                    html.append("<dd><code>").append(param.parameterName()).append("</code> - ")
+                            .append(inline(doc, param.inlineTags(), root)).append("</dd>\n");
+                }
+            }
+            Tag[] returns = doc.tags("@return");
+            if (returns.length > 0) {
+                html.append("<dt><span class=\"returnLabel\">Returns:</span></dt>\n<dd>")
+                        .append(inline(doc, returns[0].inlineTags(), root)).append("</dd>\n");
+            }
+            ThrowsTag[] throwsTags = member.throwsTags();
+            if (throwsTags.length > 0) {
+                html.append("<dt><span class=\"throwsLabel\">Throws:</span></dt>\n");
+                for (ThrowsTag tag : throwsTags) {
+                    String exception = tag.exceptionType() != null ? type(tag.exceptionType(), root) : escape(tag.exceptionName());
+                    html.append("<dd><code>").append(exception).append("</code> - ")
+                            .append(inline(doc, tag.inlineTags(), root)).append("</dd>\n");
+                }
+            }
+        }
+        Tag[] since = doc.tags("@since");
+        if (since.length > 0) {
+            html.append("<dt><span class=\"simpleTagLabel\">Since:</span></dt>\n<dd>")
+                    .append(inline(doc, since[0].inlineTags(), root)).append("</dd>\n");
+        }
+        List<String> seeAlso = new ArrayList<String>();
+        for (SeeTag seeTag : doc.seeTags()) {
+            seeAlso.add(seeTag.text().startsWith("\"") || seeTag.text().startsWith("<") ? seeTag.text() : seeLink(doc, seeTag, root, true));
+        }
+        if (doc instanceof FieldDoc && ((FieldDoc) doc).constantValueExpression() != null) {
+            FieldDoc field = (FieldDoc) doc;
+            seeAlso.add("<a href=\"" + root + "constant-values.html#" + field.containingClass().qualifiedName() + "." + field.name()
+                    + "\">Constant Field Values</a>");
+        }
+        if (!seeAlso.isEmpty()) {
+            html.append("<dt><span class=\"seeLabel\">See Also:</span></dt>\n<dd>");
+            for (int i = 0; i < seeAlso.size(); i++) {
+                if (i > 0) html.append(", \n");
+                html.append(seeAlso.get(i));
+            }
+            html.append("</dd>\n");
+        }
+        return html.length() == 0 ? "" : "<dl>\n" + html + "</dl>\n";
+    }
+
+    private String typeParamTags(Doc doc, ParamTag[] params, String root) throws Unsupported {
+        if (params.length == 0) return "";
+        StringBuilder html = new StringBuilder("<dt><span class=\"paramLabel\">Type Parameters:</span></dt>\n");
+        for (ParamTag param : params) {
+            html.append("<dd><code>").append(param.parameterName()).append("</code> - ")
+                    .append(inline(doc, param.inlineTags(), root)).append("</dd>\n");
+        }
+        return html.toString();
+    }
+
+    /**
+     * Converts inline tags to HTML. Text is passed through, since it already is HTML rendered by Asciidoctor.
+     */
+    private String inline(Doc holder, Tag[] tags, String root) throws Unsupported {
+        StringBuilder html = new StringBuilder();
+        for (Tag tag : tags) {
+            String name = tag.name();
+            if (name.equals("Text")) html.append(tag.text());
+            else if (name.equals("@link")) html.append(seeLink(holder, (SeeTag) tag, root, true));
+            else if (name.equals("@linkplain")) html.append(seeLink(holder, (SeeTag) tag, root, false));
+            else if (name.equals("@code")) html.append("<code>").append(escape(tag.text())).append("</code>");
+            else if (name.equals("@literal")) html.append(escape(tag.text()));
+            else if (name.equals("@docRoot")) html.append(root.length() == 0 ? "." : root.substring(0, root.length() - 1));
+            else if (name.equals("@value")) html.append(value(holder, tag));
+            else throw new Unsupported("{" + name + "} tags (" + holder.position() + ")");
+        }
+        return html.toString();
+    }
+
+    private String value(Doc holder, Tag tag) throws Unsupported {
+        // without a reference, the tag must be in the comment of the constant itself
+        Doc member = tag instanceof SeeTag && tag.text().length() > 0 ? ((SeeTag) tag).referencedMember() : holder;
+        if (!(member instanceof FieldDoc) || ((FieldDoc) member).constantValueExpression() == null) {
+            throw new Unsupported("{@value} tags not referring to a constant (" + holder.position() + ")");
+        }
+        return escape(((FieldDoc) member).constantValueExpression());
+    }
+
+    private String seeLink(Doc holder, SeeTag tag, String root, boolean code) {
+        ClassDoc referencedClass = tag.referencedClass();
+        MemberDoc referencedMember = tag.referencedMember();
+        String label = tag.label();
+        if (label == null || label.length() == 0) {
+            if (referencedMember != null) {
+                label = (referencedClass == containingClass(holder) ? "" : referencedClass.name() + ".") + referencedMember.name()
+                        + (referencedMember instanceof ExecutableMemberDoc ? ((ExecutableMemberDoc) referencedMember).flatSignature() : "");
+            } else if (referencedClass != null) {
+                label = referencedClass.name();
+            } else {
+                label = tag.referencedClassName() != null ? tag.referencedClassName() : tag.text();
+            }
+            label = escape(label);
+            if (code) label = "<code>" + label + "</code>";
+        }
+        if (referencedClass == null || !referencedClass.isIncluded()) return label;
+        String href = root + path(referencedClass);
+        if (referencedMember != null) href += "#" + anchor(referencedMember);
+        return "<a href=\"" + href + "\">" + label + "</a>";
+    }
+
+    private static ClassDoc containingClass(Doc doc) {
+        if (doc instanceof ClassDoc) return (ClassDoc) doc;
+        if (doc instanceof MemberDoc) return ((MemberDoc) doc).containingClass();
+        return null;
+    }
+
+    /**
+     * Formats a type, linking it if it is documented in this run.
+     */
+    static String type(Type type, String root) {
+        if (type.asTypeVariable() != null) return escape(type.typeName()) + type.dimension();
+        WildcardType wildcard = type.asWildcardType();
+        if (wildcard != null) {
+            if (wildcard.extendsBounds().length > 0) return "? extends " + type(wildcard.extendsBounds()[0], root);
+            if (wildcard.superBounds().length > 0) return "? super " + type(wildcard.superBounds()[0], root);
+            return "?";
+        }
+        if (type.isPrimitive()) return type.typeName() + type.dimension();
+        ClassDoc classDoc = type.asClassDoc();
+        return (classDoc != null && classDoc.isIncluded() ? link(classDoc, root) : escape(type.qualifiedTypeName()))
+                + typeArguments(type, root) + type.dimension();
+    }
+
+    private static String typeArguments(Type type, String root) {
+        ParameterizedType parameterized = type.asParameterizedType();
+        if (parameterized == null || parameterized.typeArguments().length == 0) return "";
+        StringBuilder html = new StringBuilder("&lt;");
+        Type[] arguments = parameterized.typeArguments();
+        for (int i = 0; i < arguments.length; i++) {
+            if (i > 0) html.append(",");
+            html.append(type(arguments[i], root));
+        }
+        return html.append("&gt;").toString();
+    }
+
+    private static String typeParameters(TypeVariable[] parameters, String root) {
+        if (parameters.length == 0) return "";
+        StringBuilder html = new StringBuilder("&lt;");
+        for (int i = 0; i < parameters.length; i++) {
+            if (i > 0) html.append(",");
+            html.append(escape(parameters[i].typeName()));
+            Type[] bounds = parameters[i].bounds();
+            for (int b = 0; b < bounds.length; b++) {
+                html.append(b == 0 ? " extends " : " &amp; ").append(type(bounds[b], root));
+            }
+        }
+        return html.append("&gt;").toString();
+    }
+
+    private static String link(ClassDoc classDoc, String root) {
+        return link(classDoc, root, escape(classDoc.name()));
+    }
+
+    private static String link(ClassDoc classDoc, String root, String label) {
+        return "<a href=\"" + root + path(classDoc) + "\" title=\"" + kind(classDoc).toLowerCase() + " in "
+                + escape(packageName(classDoc.containingPackage())) + "\">" + label + "</a>";
+    }
+
+    /**
+     * Links a member if it is documented in this run.
+     */
+    private static String memberLink(MemberDoc member, String root) {
+        if (!member.containingClass().isIncluded()) return member.name();
+        return "<a href=\"" + root + path(member.containingClass()) + "#" + anchor(member) + "\">" + member.name() + "</a>";
+    }
+
+    private static String anchor(String name) {
+        return "<a name=\"" + name + "\">\n<!--   -->\n</a>\n";
+    }
+
+    /**
+     * @return the anchor of a member, in the format of the Java 8 standard doclet
+     */
+    static String anchor(MemberDoc member) {
+        if (!(member instanceof ExecutableMemberDoc)) return member.name();
+        ExecutableMemberDoc executable = (ExecutableMemberDoc) member;
+        StringBuilder anchor = new StringBuilder(executable.name());
+        anchor.append('-');
+        Parameter[] parameters = executable.parameters();
+        for (int i = 0; i < parameters.length; i++) {
+            Type type = parameters[i].type();
+            String dimension = type.dimension();
+            if (executable.isVarArgs() && i == parameters.length - 1) dimension = dimension.substring(2) + "...";
+            anchor.append(type.asTypeVariable() != null ? type.typeName() : type.qualifiedTypeName())
+                    .append(dimension.replace("[]", ":A")).append('-');
+        }
+        if (parameters.length == 0) anchor.append('-');
+        return anchor.toString();
+    }
+
+    /**
+     * @return the anchor of an executable member with the erasures of its type variable parameters, which
+     * the standard doclet adds for links from code compiled without generics, or null if it has none
+     */
+    static String erasureAnchor(ExecutableMemberDoc member) {
+        boolean typeVariables = false;
+        for (Parameter parameter : member.parameters()) typeVariables |= parameter.type().asTypeVariable() != null;
+        if (!typeVariables) return null;
+        StringBuilder anchor = new StringBuilder(member.name()).append('-');
+        for (Parameter parameter : member.parameters()) {
+            Type type = parameter.type();
+            anchor.append(type.isPrimitive() ? type.typeName() : type.asClassDoc().qualifiedName())
+                    .append(type.dimension().replace("[]", ":A")).append('-');
+        }
+        return anchor.toString();
+    }
+
+    static String path(ClassDoc classDoc) {
+        return packagePath(classDoc.containingPackage()) + classDoc.name() + ".html";
+    }
+
+    private static String packagePath(PackageDoc packageDoc) {
+        return packageDoc.name().length() == 0 ? "" : packageDoc.name().replace('.', '/') + "/";
+    }
+
+    private static String root(PackageDoc packageDoc) {
+        if (packageDoc.name().length() == 0) return "";
+        return Strings.repeat("../", packageDoc.name().split("\\.").length);
+    }
+
+    private static String packageName(PackageDoc packageDoc) {
+        return packageDoc.name().length() == 0 ? "<Unnamed>" : packageDoc.name();
+    }
+
+    private static String plural(String kind) {
+        return kind.equals("Class") ? "Classes" : kind + "s";
+    }
+
+    private static String kind(ClassDoc classDoc) {
+        if (classDoc.isInterface()) return "Interface";
+        if (classDoc.isEnum()) return "Enum";
+        if (classDoc.isError()) return "Error";
+        if (classDoc.isException()) return "Exception";
+        return "Class";
+    }
+
+    private static String modifiers(ProgramElementDoc doc) {
+        String modifiers = doc.modifiers();
+        if (doc instanceof ClassDoc && ((ClassDoc) doc).isInterface()) {
+            modifiers = modifiers.replace("interface", "").replace("abstract", "").trim().replaceAll("\\s+", " ");
+        }
+        return modifiers;
+    }
+
+    private static String summaryModifiers(ProgramElementDoc doc) {
+        String modifiers = doc.modifiers().replace("public", "").trim();
+        if (doc.containingClass() != null && doc.containingClass().isInterface()) modifiers = modifiers.replace("abstract", "").trim();
+        return modifiers.length() == 0 ? "" : modifiers.replaceAll("\\s+", "&nbsp;") + "&nbsp;";
+    }
+
+    private static String block(String html) {
+        return html.trim().length() == 0 ? "" : "<div class=\"block\">" + html + "</div>\n";
+    }
+
+    private static <T extends Doc> T[] sorted(T[] docs) {
+        T[] sorted = docs.clone();
+        Arrays.sort(sorted, new Comparator<Doc>() {
+            @Override
+            public int compare(Doc left, Doc right) {
+                return left.name().compareTo(right.name());
+            }
+        });
+        return sorted;
+    }
+
+    static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -0,0 +1,183 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.javadoc.DocErrorReporter;
+import com.sun.javadoc.RootDoc;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.UnmappableCharacterException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Writes the class, package and overview pages of a run concurrently, instead of the standard doclet.
+ *
+ * The pages use the markup of the Java 7 and 8 standard doclet, including the frames, the constant
+ * values and the inherited member lists. The trees, index, help page and deprecated list are not
+ * generated, so runs must leave them out with {@link #REQUIRED_OPTIONS}. Runs with other options or
+ * content the page writer does not support are reported by {@link #prepare(RootDoc)}, and should be
+ * generated with the {@link StandardAdapter} instead.
+ */
+public class PageWriter {
+
+    /**
+     * Options that do not change the pages, or are handled by Asciidoclet or the javadoc tool.
+     */
+    static final Set<String> SUPPORTED_OPTIONS = ImmutableSet.of(
+            "-doclet", "-docletpath", "-sourcepath", "-classpath", "-cp", "-bootclasspath", "-extdirs", "-source",
+            "-encoding", "-d", "-public", "-protected", "-package", "-private", "-quiet", "-verbose",
+            "-subpackages", "-exclude", "-locale", "-breakiterator", "-notimestamp",
+            DocletOptions.OVERVIEW, DocletOptions.INCLUDE_BASEDIR, DocletOptions.ATTRIBUTES);
+
+    /**
+     * Options leaving out the pages the page writer does not generate: the trees, the index, the help
+     * page and the deprecated list.
+     */
+    static final List<String> REQUIRED_OPTIONS = ImmutableList.of("-notree", "-noindex", "-nohelp", "-nodeprecatedlist");
+
+    private static final String PACKAGE_LIST = "package-list";
+
+    private final DocletOptions docletOptions;
+    private final DocErrorReporter errorReporter;
+    private final int threads;
+    private List<Page> pages = Collections.emptyList();
+    private String packageList = "";
+
+    public PageWriter(DocletOptions docletOptions, DocErrorReporter errorReporter) {
+        this(docletOptions, errorReporter, Runtime.getRuntime().availableProcessors());
+    }
+
+    PageWriter(DocletOptions docletOptions, DocErrorReporter errorReporter, int threads) {
+        this.docletOptions = docletOptions;
+        this.errorReporter = errorReporter;
+        this.threads = threads;
+    }
+
+    /**
+     * Builds the pages of a run.
+     *
+     * @param rootDoc the run
+     * @return what the page writer does not support, if anything
+     */
+    public Optional<String> prepare(RootDoc rootDoc) {
+        if (!docletOptions.destDir().isPresent()) return Optional.of("running without -d");
+        Set<String> required = new LinkedHashSet<String>(REQUIRED_OPTIONS);
+        for (String[] option : rootDoc.options()) {
+            if (option.length == 0) continue;
+            if (!required.remove(option[0]) && !SUPPORTED_OPTIONS.contains(option[0]) && !option[0].startsWith("-asciidoclet-")) {
+                return Optional.of("the " + option[0] + " option");
+            }
+        }
+        if (!required.isEmpty()) return Optional.of("running without " + Joiner.on(' ').join(required));
+        PageBuilder builder = new PageBuilder(rootDoc);
+        try {
+            pages = builder.build();
+            packageList = builder.packageList();
+            return Optional.absent();
+        } catch (PageBuilder.Unsupported e) {
+            return Optional.of(e.getMessage());
+        }
+    }
+
+    /**
+     * Renders and writes the prepared pages, on as many threads as there are processors.
+     *
+     * @return success
+     */
+    public boolean write() {
+        final File destDir = docletOptions.destDir().get();
+        final Charset charset = docletOptions.encoding();
+        Set<File> directories = new HashSet<File>();
+        for (Page page : pages) {
+            File directory = new File(destDir, page.path()).getParentFile();
+            if (directories.add(directory) && !directory.isDirectory() && !directory.mkdirs()) {
+                errorReporter.printError("Cannot create directory " + directory);
+                return false;
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("asciidoclet-pages-%d")
+                .build());
+        try {
+            List<Future<?>> results = new ArrayList<Future<?>>();
+            for (final Page page : pages) {
+                results.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        write(new File(destDir, page.path()), page.render(charset.name()), charset);
+                        return null;
+                    }
+                }));
+            }
+            write(new File(destDir, PACKAGE_LIST), packageList, charset);
+
+            boolean success = true;
+            for (Future<?> result : results) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    errorReporter.printError(e.getCause().getLocalizedMessage());
+                    success = false;
+                }
+            }
+            errorReporter.printNotice("Wrote " + pages.size() + " pages on " + threads + " threads");
+            return success;
+        } catch (IOException e) {
+            errorReporter.printError(e.getLocalizedMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void write(File file, String content, Charset charset) throws IOException {
+        ByteBuffer bytes = encode(content, charset);
+        FileChannel channel = new FileOutputStream(file).getChannel();
+        try {
+            while (bytes.hasRemaining()) channel.write(bytes);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Encodes a page, writing the characters the charset cannot represent as numeric character references,
+     * so that the page still shows them.
+     */
+    static ByteBuffer encode(String content, Charset charset) throws CharacterCodingException {
+        try {
+            return charset.newEncoder().encode(CharBuffer.wrap(content));
+        } catch (UnmappableCharacterException e) {
+            CharsetEncoder encoder = charset.newEncoder();
+            StringBuilder escaped = new StringBuilder(content.length() + 16);
+            for (int i = 0; i < content.length(); ) {
+                int codePoint = content.codePointAt(i);
+                int end = i + Character.charCount(codePoint);
+                if (codePoint < 0x80 || encoder.canEncode(content.substring(i, end))) {
+                    escaped.append(content, i, end);
+                } else {
+                    escaped.append("&#").append(codePoint).append(';');
+                }
+                i = end;
+            }
+            return charset.newEncoder().encode(CharBuffer.wrap(escaped));
+        }
+    }
+}
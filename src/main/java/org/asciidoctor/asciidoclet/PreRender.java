@@ -0,0 +1,247 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders the doc comments of Java sources ahead of javadoc, e.g. while the sources are compiled,
+ * and writes them to a {@link PreRenderStore} for the doclet to apply with `-asciidoclet-prerendered`.
+ *
+ * Usage: `java -cp <asciidoclet and its dependencies> org.asciidoctor.asciidoclet.PreRender [options] <store> <source dir or file>...`
+ *
+ * The options are those of the doclet that affect rendering, such as `-attributes`, `-include-basedir`,
+ * `-overview` and `-encoding`, and must be the same as for the javadoc run; a comment rendered with
+ * other options is not applied. The files are read and their comments extracted in parallel, and the
+ * comments are rendered on as many threads as there are processors, sharing one Asciidoctor runtime.
+ * Comments that include other files are left to the doclet. With `-asciidoclet-block-cache`, the
+ * blocks that {@link BlockCache} renders on their own are stored as well, so the doclet can reuse them
+ * in comments that changed after the store was written.
+ */
+public class PreRender {
+
+    private final DocletOptions docletOptions;
+    private final AsciidoctorRenderer renderer;
+    private final ExecutorService executor;
+    private final AtomicInteger comments = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private int files;
+
+    PreRender(DocletOptions docletOptions, AsciidoctorRenderer renderer, ExecutorService executor) {
+        this.docletOptions = docletOptions;
+        this.renderer = renderer;
+        this.executor = executor;
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<String>();
+        String[][] options;
+        try {
+            options = options(args, arguments);
+        } catch (IllegalArgumentException e) {
+            options = null;
+            System.err.println(e.getMessage());
+        }
+        if (options == null || arguments.size() < 2) {
+            System.err.println("usage: PreRender [options] <store> <source dir or file>...");
+            System.exit(2);
+        }
+        DocletOptions docletOptions = new DocletOptions(options);
+        File store = new File(arguments.get(0));
+        List<File> sources = new ArrayList<File>();
+        for (String source : arguments.subList(1, arguments.size())) sources.add(new File(source));
+
+        long start = System.currentTimeMillis();
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("asciidoclet-prerender-%d")
+                .build());
+        AsciidoctorRenderer renderer = new AsciidoctorRenderer(docletOptions, ConsoleErrorReporter.INSTANCE);
+        try {
+            PreRender preRender = new PreRender(docletOptions, renderer, executor);
+            Map<String, String> outputs = preRender.run(sources);
+            PreRenderStore.write(store, outputs);
+            System.out.println("Pre-rendered " + outputs.size()
+                    + (docletOptions.blockCache() ? " comments, tags and blocks of " : " comments and tags of ")
+                    + preRender.comments() + " doc comments in " + preRender.files() + " files on " + threads + " threads in "
+                    + (System.currentTimeMillis() - start) + " ms");
+            if (preRender.failures() > 0) {
+                System.out.println(preRender.failures() + " comments and tags failed to render and are left to the doclet");
+            }
+        } finally {
+            executor.shutdown();
+            renderer.shutdownRuntime();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Separates the doclet options from the other arguments.
+     *
+     * @param args command line
+     * @param arguments receives the arguments that are not options
+     * @return options, in the form javadoc passes them to the doclet
+     * @throws IllegalArgumentException if an option is unknown or lacks a value
+     */
+    static String[][] options(String[] args, List<String> arguments) {
+        List<String[]> options = new ArrayList<String[]>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("-")) {
+                arguments.add(args[i]);
+                continue;
+            }
+            int length = DocletOptions.ENCODING.equals(args[i]) || DocletOptions.OVERVIEW.equals(args[i])
+                    ? 2 : DocletOptions.optionLength(args[i], NO_STANDARD_OPTIONS);
+            if (length == 0) throw new IllegalArgumentException("Unknown option " + args[i]);
+            if (i + length > args.length) throw new IllegalArgumentException("Missing value of " + args[i]);
+            String[] option = new String[length];
+            System.arraycopy(args, i, option, 0, length);
+            options.add(option);
+            i += length - 1;
+        }
+        return options.toArray(new String[options.size()][]);
+    }
+
+    /**
+     * The standard doclet's options do not affect rendering.
+     */
+    private static final StandardAdapter NO_STANDARD_OPTIONS = new StandardAdapter() {
+        @Override
+        public int optionLength(String option) {
+            return 0;
+        }
+    };
+
+    /**
+     * Renders the doc comments of the given sources, and the overview if it is an AsciiDoc file.
+     *
+     * @param sources source directories and files
+     * @return outputs by {@link RemoteCache} key
+     */
+    Map<String, String> run(List<File> sources) throws IOException, InterruptedException {
+        List<File> javaFiles = javaFiles(sources);
+        files = javaFiles.size();
+        ConcurrentMap<String, Input> inputs = new ConcurrentHashMap<String, Input>();
+        List<Callable<Void>> extractions = new ArrayList<Callable<Void>>();
+        for (File file : javaFiles) extractions.add(extraction(file, inputs));
+        if (docletOptions.overview().isPresent()
+                && DocletIterator.ASCIIDOC_FILE_PATTERN.matcher(docletOptions.overview().get().getName()).matches()) {
+            add(Files.toString(docletOptions.overview().get(), docletOptions.encoding()), inputs);
+        }
+        invokeAll(extractions);
+
+        final ConcurrentMap<String, String> outputs = new ConcurrentHashMap<String, String>();
+        List<Callable<Void>> renders = new ArrayList<Callable<Void>>();
+        for (final Map.Entry<String, Input> input : inputs.entrySet()) {
+            renders.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    try {
+                        Input value = input.getValue();
+                        String output = value.comment.isPresent()
+                                ? renderer.renderSharedBlock(value.comment.get(), value.input)
+                                : renderer.renderShared(value.input, value.inline);
+                        if (output != null) outputs.put(input.getKey(), output);
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                    }
+                    return null;
+                }
+            });
+        }
+        invokeAll(renders);
+        return outputs;
+    }
+
+    int files() {
+        return files;
+    }
+
+    int comments() {
+        return comments.get();
+    }
+
+    int failures() {
+        return failures.get();
+    }
+
+    private Callable<Void> extraction(final File file, final ConcurrentMap<String, Input> inputs) {
+        return new Callable<Void>() {
+            @Override
+            public Void call() throws IOException {
+                for (String comment : SourceComments.extract(SourceComments.read(file, docletOptions.encoding()))) {
+                    add(comment, inputs);
+                }
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Adds the cleaned main description and block tags of a comment, as {@link AsciidoctorRenderer} renders them.
+     */
+    private void add(String comment, ConcurrentMap<String, Input> inputs) {
+        comments.incrementAndGet();
+        JavadocComment parsed = JavadocComment.parse(comment);
+        String body = AsciidoctorRenderer.cleanJavadocInput(parsed.body());
+        add(body, false, inputs);
+        if (docletOptions.blockCache()) {
+            for (String block : BlockCache.sources(body)) {
+                inputs.putIfAbsent(renderer.blockRemoteKey(block), new Input(block, false, Optional.of(body)));
+            }
+        }
+        for (JavadocComment.Tag tag : parsed.tags()) add(AsciidoctorRenderer.cleanJavadocInput(tag.text()), true, inputs);
+    }
+
+    private void add(String input, boolean inline, ConcurrentMap<String, Input> inputs) {
+        if (AsciidoctorRenderer.isShared(input)) {
+            inputs.putIfAbsent(renderer.remoteKey(input, inline), new Input(input, inline, Optional.<String>absent()));
+        }
+    }
+
+    private void invokeAll(List<Callable<Void>> tasks) throws IOException, InterruptedException {
+        for (Future<Void> task : executor.invokeAll(tasks)) {
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+                throw new RuntimeException(e.getCause());
+            }
+        }
+    }
+
+    static List<File> javaFiles(List<File> sources) {
+        ImmutableList.Builder<File> files = ImmutableList.builder();
+        for (File source : sources) {
+            for (File file : Files.fileTreeTraverser().preOrderTraversal(source)) {
+                if (file.isFile() && file.getName().endsWith(".java")) files.add(file);
+            }
+        }
+        return files.build();
+    }
+
+    private static class Input {
+        final String input;
+        final boolean inline;
+        /**
+         * The comment a block was split from, absent for comments and tags.
+         */
+        final Optional<String> comment;
+
+        Input(String input, boolean inline, Optional<String> comment) {
+            this.input = input;
+            this.inline = inline;
+            this.comment = comment;
+        }
+    }
+}
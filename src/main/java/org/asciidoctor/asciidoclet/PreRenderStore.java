@@ -0,0 +1,90 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.io.*;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The comments rendered by {@link PreRender}, applied by the doclet with `-asciidoclet-prerendered`.
+ *
+ * The store is a compressed file starting with a header, followed by the number of outputs and each
+ * output with its {@link RemoteCache} key. It is read into memory and looked up like a remote cache,
+ * so a comment is only rendered by the doclet if it changed since the store was written, or was not
+ * found in the sources. Outputs are never added to it.
+ */
+public class PreRenderStore implements RemoteCache {
+
+    static final String MAGIC = "asciidoclet-prerendered";
+    static final int VERSION = 1;
+
+    private final File file;
+    private final Map<String, String> outputs;
+
+    PreRenderStore(File file, Map<String, String> outputs) {
+        this.file = file;
+        this.outputs = outputs;
+    }
+
+    public static PreRenderStore read(File file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file)), 64 * 1024));
+        try {
+            if (!MAGIC.equals(in.readUTF())) throw new IOException("Not a store of pre-rendered comments: " + file);
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("Unsupported store version " + version + ": " + file);
+            int count = in.readInt();
+            Map<String, String> outputs = new HashMap<String, String>(count * 4 / 3 + 1);
+            for (int i = 0; i < count; i++) outputs.put(in.readUTF(), RenderRecorder.readString(in));
+            return new PreRenderStore(file, outputs);
+        } finally {
+            in.close();
+        }
+    }
+
+    static void write(File file, Map<String, String> outputs) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(file), 64 * 1024), 64 * 1024));
+        try {
+            out.writeUTF(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(outputs.size());
+            for (Map.Entry<String, String> output : outputs.entrySet()) {
+                out.writeUTF(output.getKey());
+                RenderRecorder.writeString(out, output.getValue());
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    int size() {
+        return outputs.size();
+    }
+
+    @Override
+    public Map<String, String> lookup(Collection<String> keys) {
+        ImmutableMap.Builder<String, String> found = ImmutableMap.builder();
+        for (String key : keys) {
+            String output = outputs.get(key);
+            if (output != null) found.put(key, output);
+        }
+        return found.build();
+    }
+
+    @Override
+    public boolean store(String key, String output) {
+        return false;
+    }
+
+    @Override
+    public String description() {
+        return "the pre-rendered comments in " + file;
+    }
+
+    @Override
+    public void close() {
+    }
+}
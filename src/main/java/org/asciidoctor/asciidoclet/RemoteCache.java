@@ -0,0 +1,43 @@
+package org.asciidoctor.asciidoclet;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A cache of Asciidoctor output kept outside of a run, such as one shared between machines, which
+ * {@link AsciidoctorRenderer} consults for what its local {@link RenderCache} does not have.
+ *
+ * Outputs are addressed by a key computed from the options and the cleaned input with
+ * {@link RenderCache#key(String, boolean, String)}, so any machine rendering the same input with the
+ * same options may use them. A remote cache must not fail a run: when it cannot be reached in time,
+ * lookups find nothing and the inputs are rendered locally.
+ */
+public interface RemoteCache {
+
+    /**
+     * Looks up several outputs at once.
+     *
+     * @param keys keys of the outputs
+     * @return the outputs found, by key
+     */
+    Map<String, String> lookup(Collection<String> keys);
+
+    /**
+     * Stores an output, possibly in the background.
+     *
+     * @param key key of the output
+     * @param output rendered output
+     * @return false if the output is not stored, e.g. because the cache is read-only
+     */
+    boolean store(String key, String output);
+
+    /**
+     * @return describes the cache in reports, e.g. "the remote cache at <url>"
+     */
+    String description();
+
+    /**
+     * Waits for outputs still being stored and releases any resources.
+     */
+    void close();
+}
@@ -0,0 +1,62 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.hash.Hashing;
+
+/**
+ * In-memory cache of Asciidoctor output, keyed by a hash of the options and the cleaned input.
+ *
+ * The cache lives as long as the shared {@link AsciidoctorRuntime}, so repeated runs in the same JVM
+ * only send changed comments through Asciidoctor. Its size is bounded by the total length of the
+ * cached output.
+ */
+class RenderCache {
+
+    static final long MAX_CACHED_CHARS = 32 * 1024 * 1024;
+
+    private final Cache<String, String> cache;
+
+    RenderCache() {
+        this(MAX_CACHED_CHARS);
+    }
+
+    RenderCache(long maxCachedChars) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxCachedChars)
+                .weigher(new Weigher<String, String>() {
+                    @Override
+                    public int weigh(String key, String value) {
+                        return key.length() + value.length();
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Computes the cache key of an input.
+     *
+     * @param fingerprint identifies the Asciidoctor options used to render the input
+     * @param inline whether the input is rendered with the inline doctype
+     * @param input cleaned AsciiDoc source
+     * @return key
+     */
+    static String key(String fingerprint, boolean inline, String input) {
+        return Hashing.sha1().newHasher()
+                .putString(fingerprint, Charsets.UTF_8)
+                .putBoolean(inline)
+                .putString(input, Charsets.UTF_8)
+                .hash().toString();
+    }
+
+    Optional<String> get(String key) {
+        return Optional.fromNullable(cache.getIfPresent(key));
+    }
+
+    void put(String key, String output) {
+        if (output != null) cache.put(key, output);
+    }
+}
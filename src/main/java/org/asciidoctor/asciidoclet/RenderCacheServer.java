@@ -0,0 +1,156 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.base.Splitter;
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * A reference server for the protocol of {@link HttpRemoteCache}, keeping the outputs in memory.
+ *
+ * Usage: `java -cp <asciidoclet and its dependencies> org.asciidoctor.asciidoclet.RenderCacheServer [port [host]]`
+ *
+ * The server listens on `localhost` and port {@link #DEFAULT_PORT} unless told otherwise, and serves
+ * until the JVM is stopped. Its outputs are bounded like those of a {@link RenderCache}, and lost when
+ * it stops.
+ */
+public class RenderCacheServer {
+
+    static final int DEFAULT_PORT = 8765;
+    static final int MAX_OUTPUT_BYTES = 4 * 1024 * 1024;
+    static final int THREADS = 4;
+
+    static {
+        // The JDK server writes the headers and the body of a response separately. Unless it disables
+        // Nagle's algorithm, the body waits for the client's delayed acknowledgement of the headers,
+        // which adds some 40 ms to each lookup on a kept-alive connection.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final RenderCache cache;
+
+    RenderCacheServer(InetSocketAddress address, RenderCache cache) throws IOException {
+        this.server = HttpServer.create(address, 0);
+        this.executor = Executors.newFixedThreadPool(THREADS);
+        this.cache = cache;
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    RenderCacheServer.this.handle(exchange);
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.setExecutor(executor);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 2) {
+            System.err.println("usage: RenderCacheServer [port [host]]");
+            System.exit(2);
+        }
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        String host = args.length > 1 ? args[1] : "localhost";
+        RenderCacheServer server = new RenderCacheServer(new InetSocketAddress(host, port), new RenderCache());
+        server.start();
+        System.out.println("Serving the render cache at http://" + host + ":" + server.port() + "/");
+    }
+
+    void start() {
+        server.start();
+    }
+
+    void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String key = path.substring(path.lastIndexOf('/') + 1);
+        String method = exchange.getRequestMethod();
+        if ("GET".equals(method) && key.isEmpty()) {
+            lookup(exchange, exchange.getRequestURI().getRawQuery());
+        } else if (!KEY_PATTERN.matcher(key).matches()) {
+            exchange.sendResponseHeaders(404, -1);
+        } else if ("GET".equals(method)) {
+            Optional<String> output = cache.get(key);
+            if (output.isPresent()) respond(exchange, output.get().getBytes(Charsets.UTF_8));
+            else exchange.sendResponseHeaders(404, -1);
+        } else if ("PUT".equals(method)) {
+            store(exchange, key);
+        } else {
+            exchange.sendResponseHeaders(405, -1);
+        }
+    }
+
+    private void lookup(HttpExchange exchange, String query) throws IOException {
+        if (query == null || !query.startsWith("keys=")) {
+            exchange.sendResponseHeaders(400, -1);
+            return;
+        }
+        Map<String, String> outputs = new LinkedHashMap<String, String>();
+        for (String key : Splitter.on(',').omitEmptyStrings().split(query.substring("keys=".length()))) {
+            if (!KEY_PATTERN.matcher(key).matches()) {
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            Optional<String> output = cache.get(key);
+            if (output.isPresent()) outputs.put(key, output.get());
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        HttpRemoteCache.writeEntries(outputs, body);
+        respond(exchange, body.toByteArray());
+    }
+
+    private void store(HttpExchange exchange, String key) throws IOException {
+        InputStream in = ByteStreams.limit(exchange.getRequestBody(), MAX_OUTPUT_BYTES + 1);
+        byte[] output = ByteStreams.toByteArray(in);
+        if (output.length > MAX_OUTPUT_BYTES) {
+            exchange.sendResponseHeaders(413, -1);
+            return;
+        }
+        cache.put(key, new String(output, Charsets.UTF_8));
+        exchange.sendResponseHeaders(204, -1);
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+        exchange.sendResponseHeaders(200, body.length == 0 ? -1 : body.length);
+        OutputStream out = exchange.getResponseBody();
+        try {
+            out.write(body);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Keys computed by {@link RenderCache#key(String, boolean, String)}.
+     */
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{40}");
+}
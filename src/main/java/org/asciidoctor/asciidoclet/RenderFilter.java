@@ -0,0 +1,112 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.collect.ImmutableList;
+import com.sun.javadoc.AnnotationDesc;
+import com.sun.javadoc.AnnotationTypeDoc;
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.PackageDoc;
+import com.sun.javadoc.ProgramElementDoc;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Decides which classes and members are rendered with Asciidoctor, so generated or excluded code is
+ * passed to the standard doclet untouched.
+ *
+ * Packages are matched by glob, where `*` matches any characters and a pattern ending in `.*` also
+ * matches the package itself. Annotations are matched by qualified name, or by simple name for names
+ * without a dot. A class is skipped along with its members and nested classes; a member is skipped
+ * on its own if it has an excluded annotation.
+ */
+public class RenderFilter {
+
+    private final List<Pattern> includes;
+    private final List<Pattern> excludes;
+    private final List<String> annotations;
+
+    public RenderFilter(DocletOptions docletOptions) {
+        this.includes = globs(docletOptions.includePackages());
+        this.excludes = globs(docletOptions.excludePackages());
+        this.annotations = docletOptions.excludeAnnotated();
+    }
+
+    /**
+     * @return true if any filter is set
+     */
+    public boolean enabled() {
+        return !includes.isEmpty() || !excludes.isEmpty() || !annotations.isEmpty();
+    }
+
+    /**
+     * @param doc a class
+     * @return true if the class and its members are not rendered
+     */
+    public boolean skip(ClassDoc doc) {
+        if (skip(doc.containingPackage())) return true;
+        for (ClassDoc type = doc; type != null; type = type.containingClass()) {
+            if (annotated(type)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param doc a package
+     * @return true if the package comment and the classes of the package are not rendered
+     */
+    public boolean skip(PackageDoc doc) {
+        String name = doc.name();
+        return !includes.isEmpty() && !matches(includes, name) || matches(excludes, name);
+    }
+
+    /**
+     * @param doc a member of a class that is rendered
+     * @return true if the member is not rendered
+     */
+    public boolean skipMember(ProgramElementDoc doc) {
+        return annotated(doc);
+    }
+
+    private boolean annotated(ProgramElementDoc doc) {
+        if (annotations.isEmpty()) return false;
+        for (AnnotationDesc annotation : doc.annotations()) {
+            AnnotationTypeDoc type;
+            try {
+                type = annotation.annotationType();
+            } catch (ClassCastException e) {
+                // javadoc cannot resolve the annotation type
+                continue;
+            }
+            for (String name : annotations) {
+                if (name.equals(name.indexOf('.') < 0 ? type.simpleTypeName() : type.qualifiedTypeName())) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(List<Pattern> patterns, String name) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(name).matches()) return true;
+        }
+        return false;
+    }
+
+    private static List<Pattern> globs(List<String> globs) {
+        ImmutableList.Builder<Pattern> patterns = ImmutableList.builder();
+        for (String glob : globs) patterns.add(glob(glob));
+        return patterns.build();
+    }
+
+    static Pattern glob(String glob) {
+        boolean subpackages = glob.endsWith(".*");
+        String prefix = subpackages ? glob.substring(0, glob.length() - 2) : glob;
+        StringBuilder regex = new StringBuilder();
+        String[] parts = prefix.split("\\*", -1);
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) regex.append(".*");
+            if (!parts[i].isEmpty()) regex.append(Pattern.quote(parts[i]));
+        }
+        if (subpackages) regex.append("(\\..*)?");
+        return Pattern.compile(regex.toString());
+    }
+}
@@ -0,0 +1,149 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.sun.javadoc.Doc;
+import com.sun.javadoc.DocErrorReporter;
+import com.sun.javadoc.ExecutableMemberDoc;
+import com.sun.javadoc.ProgramElementDoc;
+import com.sun.javadoc.RootDoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records timing events for the phases of a doclet run.
+ *
+ * Recording is off unless the `-asciidoclet-profile` option names an output file. When it is off,
+ * {@link #start()} returns without reading the clock and all other methods return immediately.
+ *
+ * Events are written as tab separated lines, one per rendered comment or tag and one per phase
+ * (Asciidoctor boot, template preparation, standard doclet, stylesheet copying). Render events split
+ * the time spent in Asciidoctor, i.e. in JRuby, from the time spent in Java cleaning the input and
+ * post-processing the output.
+ */
+public class RenderProfile {
+
+    public static final RenderProfile DISABLED = new RenderProfile(null, null);
+
+    static final String HEADER = "# event\tname\tkind\tinput\toutput\tclean_us\tasciidoctor_us\ttotal_us";
+
+    private final File file;
+    private final Writer writer;
+    private long renders;
+    private long asciidoctorNanos;
+    private long totalRenderNanos;
+    private IOException failure;
+
+    private RenderProfile(File file, Writer writer) {
+        this.file = file;
+        this.writer = writer;
+    }
+
+    /**
+     * Creates a profile writing to the file named by the `-asciidoclet-profile` option, if any.
+     */
+    public static RenderProfile create(DocletOptions docletOptions, DocErrorReporter errorReporter) {
+        if (!docletOptions.profile().isPresent()) return DISABLED;
+        File file = docletOptions.profile().get();
+        try {
+            Writer writer = Files.newWriter(file, Charsets.UTF_8);
+            writer.write(HEADER);
+            writer.write('\n');
+            return new RenderProfile(file, writer);
+        } catch (IOException e) {
+            errorReporter.printWarning("Cannot write profile " + file + ": " + e.getLocalizedMessage());
+            return DISABLED;
+        }
+    }
+
+    public boolean enabled() {
+        return writer != null;
+    }
+
+    /**
+     * @return a start time to pass to the recording methods, or 0 if recording is off
+     */
+    public long start() {
+        return enabled() ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records a doclet phase started at `start`.
+     */
+    public void phase(String name, long start) {
+        if (!enabled()) return;
+        write("phase", name, "-", -1, -1, -1, -1, System.nanoTime() - start);
+    }
+
+    /**
+     * Records the rendering of a comment or tag of `doc`.
+     *
+     * @param doc the commented element, or `null` for inputs rendered without one, such as those of
+     * {@link CommentRenderer}, which are recorded with `-` as their name
+     */
+    void render(Doc doc, boolean inline, int inputLength, int outputLength, long start, long cleaned, long rendered) {
+        if (!enabled()) return;
+        long end = System.nanoTime();
+        renders++;
+        asciidoctorNanos += rendered - cleaned;
+        totalRenderNanos += end - start;
+        write("render", name(doc), inline ? "inline" : "block", inputLength, outputLength,
+                cleaned - start, rendered - cleaned, end - start);
+    }
+
+    /**
+     * Prints a summary and closes the event file.
+     */
+    public void close(DocErrorReporter errorReporter) {
+        if (!enabled()) return;
+        try {
+            writer.close();
+            if (failure != null) throw failure;
+            errorReporter.printNotice("Rendered " + renders + " comments and tags in " + millis(totalRenderNanos)
+                    + " ms: " + millis(asciidoctorNanos) + " ms in Asciidoctor, "
+                    + millis(totalRenderNanos - asciidoctorNanos) + " ms in Java. Profile written to " + file);
+        } catch (IOException e) {
+            errorReporter.printWarning("Cannot write profile " + file + ": " + e.getLocalizedMessage());
+        }
+    }
+
+    private void write(String event, String name, String kind, long input, long output, long clean, long asciidoctor, long total) {
+        StringBuilder line = new StringBuilder(event).append('\t').append(name).append('\t').append(kind);
+        appendValue(line, input);
+        appendValue(line, output);
+        appendValue(line, micros(clean));
+        appendValue(line, micros(asciidoctor));
+        appendValue(line, micros(total));
+        try {
+            writer.write(line.append('\n').toString());
+        } catch (IOException e) {
+            if (failure == null) failure = e;
+        }
+    }
+
+    private static void appendValue(StringBuilder line, long value) {
+        line.append('\t');
+        if (value < 0) line.append('-');
+        else line.append(value);
+    }
+
+    private static String name(Doc doc) {
+        if (doc == null) return "-";
+        if (doc instanceof RootDoc) return "overview";
+        if (doc instanceof ExecutableMemberDoc) {
+            return ((ExecutableMemberDoc) doc).qualifiedName() + ((ExecutableMemberDoc) doc).flatSignature();
+        }
+        return doc instanceof ProgramElementDoc ? ((ProgramElementDoc) doc).qualifiedName() : doc.name();
+    }
+
+    private static long micros(long nanos) {
+        return nanos < 0 ? nanos : TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -0,0 +1,129 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.hash.Hashing;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Records the Asciidoctor renders of a run to a file, for {@link RenderReplay} to render them again
+ * without javadoc or the sources.
+ *
+ * The file is gzipped binary. It starts with a header holding the options that affect Asciidoctor
+ * and a fingerprint of the resulting Asciidoctor options, followed by one record per render with the
+ * cleaned input, whether it was rendered inline, the output and the time Asciidoctor took.
+ */
+public class RenderRecorder implements Closeable {
+
+    static final String MAGIC = "asciidoclet-recording";
+    static final int VERSION = 1;
+
+    private final DataOutputStream out;
+    private int records;
+    private IOException error;
+
+    RenderRecorder(OutputStream out, DocletOptions docletOptions) throws IOException {
+        this.out = new DataOutputStream(out);
+        this.out.writeUTF(MAGIC);
+        this.out.writeInt(VERSION);
+        writeString(this.out, fingerprint(docletOptions));
+        List<String[]> options = asciidoctorOptions(docletOptions);
+        this.out.writeInt(options.size());
+        for (String[] option : options) {
+            this.out.writeInt(option.length);
+            for (String value : option) writeString(this.out, value);
+        }
+    }
+
+    public static RenderRecorder open(File file, DocletOptions docletOptions) throws IOException {
+        OutputStream out = new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(file), 64 * 1024), 64 * 1024);
+        try {
+            return new RenderRecorder(out, docletOptions);
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Records a render. The first write error is kept and thrown by {@link #close()}, so a failing
+     * recording does not interrupt the run.
+     *
+     * @param input cleaned AsciiDoc source
+     * @param inline whether the input was rendered with the inline doctype
+     * @param output Asciidoctor output
+     * @param nanos time Asciidoctor took
+     */
+    synchronized void record(String input, boolean inline, String output, long nanos) {
+        if (error != null) return;
+        try {
+            out.writeBoolean(true);
+            out.writeBoolean(inline);
+            writeString(out, input);
+            writeString(out, output);
+            out.writeLong(nanos);
+            records++;
+        } catch (IOException e) {
+            error = e;
+        }
+    }
+
+    public synchronized int records() {
+        return records;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (error == null) out.writeBoolean(false);
+        } finally {
+            out.close();
+        }
+        if (error != null) throw error;
+    }
+
+    /**
+     * The options of a run that affect the Asciidoctor options, as recorded.
+     */
+    static List<String[]> asciidoctorOptions(DocletOptions docletOptions) {
+        List<String[]> options = new ArrayList<String[]>();
+        if (docletOptions.includeBasedir().isPresent()) {
+            options.add(new String[]{DocletOptions.INCLUDE_BASEDIR, docletOptions.includeBasedir().get().getPath()});
+        }
+        for (String attribute : docletOptions.attributes()) {
+            options.add(new String[]{DocletOptions.ATTRIBUTES, attribute});
+        }
+        if (docletOptions.reproducible()) options.add(new String[]{DocletOptions.REPRODUCIBLE});
+        return options;
+    }
+
+    /**
+     * Identifies the Asciidoctor options of a run, leaving out the location of the output templates.
+     */
+    static String fingerprint(DocletOptions docletOptions) {
+        String options = AsciidoctorRenderer.buildOptions(docletOptions, Optional.<OutputTemplates>absent()).map().toString();
+        return Hashing.sha1().hashString(options, Charsets.UTF_8).toString();
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(Charsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, Charsets.UTF_8);
+    }
+}
@@ -0,0 +1,161 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.collect.ImmutableList;
+import org.asciidoctor.Asciidoctor;
+import org.asciidoctor.Options;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Renders the inputs recorded by {@link RenderRecorder} again, without javadoc or the sources, and
+ * reports the throughput and any outputs that differ from the recording.
+ *
+ * Usage: `java -cp <asciidoclet and its dependencies> org.asciidoctor.asciidoclet.RenderReplay <recording> [rounds]`
+ *
+ * Each round renders all recorded inputs; outputs are compared in the first round. With more than
+ * one round, the first rounds warm up JRuby and only the last is timed. Exits with 1 if any output
+ * differs.
+ */
+public class RenderReplay {
+
+    static final int MAX_REPORTED_DIFFERENCES = 10;
+
+    private final String fingerprint;
+    private final String[][] options;
+    private final List<Render> renders;
+
+    RenderReplay(String fingerprint, String[][] options, List<Render> renders) {
+        this.fingerprint = fingerprint;
+        this.options = options;
+        this.renders = renders;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("usage: RenderReplay <recording> [rounds]");
+            System.exit(2);
+        }
+        RenderReplay replay = read(new File(args[0]));
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        AsciidoctorRuntime.Lease lease = AsciidoctorRuntime.SHARED.acquire(ConsoleErrorReporter.INSTANCE, RenderProfile.DISABLED);
+        int differences;
+        try {
+            differences = replay.run(lease.asciidoctor(), replay.renderOptions(lease), rounds, System.out);
+        } finally {
+            lease.shutdown();
+        }
+        System.exit(differences > 0 ? 1 : 0);
+    }
+
+    static RenderReplay read(File file) throws IOException {
+        InputStream in = new BufferedInputStream(new GZIPInputStream(new FileInputStream(file), 64 * 1024));
+        try {
+            return read(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    static RenderReplay read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (!RenderRecorder.MAGIC.equals(in.readUTF())) throw new IOException("Not a recording");
+        int version = in.readInt();
+        if (version != RenderRecorder.VERSION) throw new IOException("Unsupported recording version " + version);
+        String fingerprint = RenderRecorder.readString(in);
+        String[][] options = new String[in.readInt()][];
+        for (int i = 0; i < options.length; i++) {
+            options[i] = new String[in.readInt()];
+            for (int j = 0; j < options[i].length; j++) options[i][j] = RenderRecorder.readString(in);
+        }
+        ImmutableList.Builder<Render> renders = ImmutableList.builder();
+        while (in.readBoolean()) {
+            boolean inline = in.readBoolean();
+            String input = RenderRecorder.readString(in);
+            String output = RenderRecorder.readString(in);
+            renders.add(new Render(input, inline, output, in.readLong()));
+        }
+        return new RenderReplay(fingerprint, options, renders.build());
+    }
+
+    List<Render> renders() {
+        return renders;
+    }
+
+    private AsciidoctorRenderer.RenderOptions renderOptions(AsciidoctorRuntime.Lease lease) {
+        return new AsciidoctorRenderer.RenderOptions(new DocletOptions(options), lease.templates());
+    }
+
+    /**
+     * Renders the recorded inputs.
+     *
+     * @param asciidoctor renders the inputs
+     * @param renderOptions options rebuilt from the recording, picked for each input like the doclet does
+     * @param rounds number of times to render all inputs
+     * @param out receives the report
+     * @return number of outputs that differ from the recording
+     */
+    int run(Asciidoctor asciidoctor, AsciidoctorRenderer.RenderOptions renderOptions, int rounds, PrintStream out) {
+        if (!fingerprint.equals(RenderRecorder.fingerprint(new DocletOptions(options)))) {
+            out.println("The Asciidoctor options differ from those of the recording, outputs may differ");
+        }
+        List<Integer> differences = new ArrayList<Integer>();
+        long nanos = 0;
+        for (int round = 0; round < Math.max(rounds, 1); round++) {
+            nanos = 0;
+            for (int i = 0; i < renders.size(); i++) {
+                Render render = renders.get(i);
+                Options asciidoctorOptions = renderOptions.get(render.input, render.inline);
+                long start = System.nanoTime();
+                String output = asciidoctor.render(render.input, asciidoctorOptions);
+                nanos += System.nanoTime() - start;
+                if (round == 0 && !equal(output, render.output)) differences.add(i);
+            }
+        }
+        long recordedNanos = 0;
+        for (Render render : renders) recordedNanos += render.nanos;
+        out.println("Rendered " + renders.size() + " inputs in " + millis(nanos) + " ms ("
+                + (nanos == 0 ? 0 : renders.size() * 1000000000L / nanos) + " renders/s), recorded run took "
+                + millis(recordedNanos) + " ms");
+        for (int i = 0; i < Math.min(differences.size(), MAX_REPORTED_DIFFERENCES); i++) {
+            Render render = renders.get(differences.get(i));
+            out.println("Output of input " + differences.get(i) + " differs: " + excerpt(render.input));
+        }
+        out.println(differences.size() + " outputs differ from the recording");
+        return differences.size();
+    }
+
+    private static boolean equal(String output, String recorded) {
+        return output == null ? recorded == null : output.equals(recorded);
+    }
+
+    private static long millis(long nanos) {
+        return nanos / 1000000;
+    }
+
+    private static String excerpt(String input) {
+        String line = input.trim();
+        int end = line.indexOf('\n');
+        if (end >= 0) line = line.substring(0, end);
+        return line.length() > 60 ? line.substring(0, 60) + "..." : line;
+    }
+
+    /**
+     * A recorded render.
+     */
+    static class Render {
+        final String input;
+        final boolean inline;
+        final String output;
+        final long nanos;
+
+        Render(String input, boolean inline, String output, long nanos) {
+            this.input = input;
+            this.inline = inline;
+            this.output = output;
+            this.nanos = nanos;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import com.sun.javadoc.DocErrorReporter;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps run-specific details out of the output, so the same sources give the same output.
+ *
+ * Asciidoctor sets the `localdate` and `localtime` attributes, and the `docdate` and `doctime`
+ * attributes derived from them, to the time of rendering; they are fixed to the time given by the
+ * `SOURCE_DATE_EPOCH` environment variable instead, or the start of 1970. The standard doclet writes
+ * the generation time to each page unless run with `-notimestamp`; it is removed from the pages afterwards.
+ */
+public class ReproducibleOutput {
+
+    static final String SOURCE_DATE_EPOCH = "SOURCE_DATE_EPOCH";
+
+    private final File destDir;
+    private final DocErrorReporter errorReporter;
+
+    public ReproducibleOutput(DocletOptions docletOptions, DocErrorReporter errorReporter) {
+        this(docletOptions.destDir().or(new File(".")), errorReporter);
+    }
+
+    ReproducibleOutput(File destDir, DocErrorReporter errorReporter) {
+        this.destDir = destDir;
+        this.errorReporter = errorReporter;
+    }
+
+    /**
+     * @return the Asciidoctor date and time attributes for the time given by `SOURCE_DATE_EPOCH`
+     */
+    static Map<String, Object> dateAttributes() {
+        return dateAttributes(System.getenv(SOURCE_DATE_EPOCH));
+    }
+
+    static Map<String, Object> dateAttributes(String sourceDateEpoch) {
+        long seconds = 0;
+        if (sourceDateEpoch != null) {
+            try {
+                seconds = Long.parseLong(sourceDateEpoch.trim());
+            } catch (NumberFormatException e) {
+                // keep the start of 1970
+            }
+        }
+        Date date = new Date(seconds * 1000);
+        String localDate = format("yyyy-MM-dd", date);
+        String localTime = format("HH:mm:ss", date) + " UTC";
+        return ImmutableMap.<String, Object>of(
+                "localdate", localDate,
+                "localtime", localTime,
+                "localdatetime", localDate + " " + localTime);
+    }
+
+    private static String format(String pattern, Date date) {
+        SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.ROOT);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(date);
+    }
+
+    /**
+     * Removes the generation time from the pages in the destination directory.
+     *
+     * @return success
+     */
+    public boolean removeTimestamps() {
+        try {
+            int changed = 0;
+            for (String path : StagedOutput.files(destDir, "", new ArrayList<String>())) {
+                if (!path.endsWith(".html")) continue;
+                File page = new File(destDir, path);
+                String content = Files.toString(page, Charsets.ISO_8859_1);
+                String stripped = removeTimestamps(content);
+                if (stripped.equals(content)) continue;
+                Files.write(stripped, page, Charsets.ISO_8859_1);
+                changed++;
+            }
+            errorReporter.printNotice("Removed the generation time from " + changed
+                    + " pages, run with " + DocletOptions.NOTIMESTAMP + " to skip this step");
+            return true;
+        } catch (IOException e) {
+            errorReporter.printError("Error removing generation times: " + e.getLocalizedMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Removes the generation time the standard doclet writes to a page.
+     *
+     * @param html page, as ISO-8859-1 so other encodings pass through unchanged
+     * @return the page without the time
+     */
+    static String removeTimestamps(String html) {
+        html = TIMESTAMP_PATTERN.matcher(html).replaceFirst("$1$2");
+        return DATE_PATTERN.matcher(html).replaceFirst("");
+    }
+
+    private static final Pattern TIMESTAMP_PATTERN = Pattern.compile("(<!-- Generated by javadoc) \\([^)]*\\) on [^>]*?( -->)");
+    private static final Pattern DATE_PATTERN = Pattern.compile("<meta name=\"date\" content=\"[^\"]*\">\\r?\\n?");
+}
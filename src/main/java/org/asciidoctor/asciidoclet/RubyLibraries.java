@@ -0,0 +1,59 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Optional;
+import org.jruby.Ruby;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The optional Ruby libraries of a JRuby runtime, loaded when a render first needs them.
+ *
+ * The Java integration requires the libraries named by the options of each render, e.g. CodeRay for
+ * `source-highlighter=coderay` and Tilt for `template_dirs`, so a library is only loaded once a render
+ * passes its option. Requiring it here first keeps its load time apart from the render, so it can be
+ * profiled and reported.
+ */
+class RubyLibraries {
+
+    static final String TILT = "tilt";
+    static final String CODERAY = "coderay";
+
+    private final Optional<Ruby> ruby;
+    private final Map<String, Long> loaded = new LinkedHashMap<String, Long>();
+
+    RubyLibraries(Optional<Ruby> ruby) {
+        this.ruby = ruby;
+    }
+
+    /**
+     * Loads a library unless it was already loaded.
+     *
+     * @param library name to require
+     * @param profile records the load as a `require-<library>` phase
+     */
+    synchronized void require(String library, RenderProfile profile) {
+        if (!ruby.isPresent() || loaded.containsKey(library)) return;
+        long start = System.nanoTime();
+        ruby.get().evalScriptlet("require '" + library + "'");
+        loaded.put(library, System.nanoTime() - start);
+        profile.phase("require-" + library, start);
+    }
+
+    synchronized boolean isLoaded(String library) {
+        return loaded.containsKey(library);
+    }
+
+    synchronized String report() {
+        if (loaded.isEmpty()) return "Loaded no optional Ruby libraries";
+        StringBuilder report = new StringBuilder("Loaded Ruby libraries on demand:");
+        String separator = " ";
+        for (Map.Entry<String, Long> library : loaded.entrySet()) {
+            report.append(separator).append(library.getKey()).append(" in ")
+                    .append(TimeUnit.NANOSECONDS.toMillis(library.getValue())).append(" ms");
+            separator = ", ";
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,143 @@
+package org.asciidoctor.asciidoclet;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the doc comments of Java source files without the javadoc tool, as the text the tool returns
+ * from `Doc.getRawCommentText()`.
+ *
+ * Comments are found by a scan that only knows about string and character literals and other
+ * comments, so a comment that is not attached to a declaration is read as well. Unicode escapes
+ * are left as they are, which the tool would translate.
+ */
+class SourceComments {
+
+    private SourceComments() {
+    }
+
+    /**
+     * Reads a source file through a memory mapping, so its bytes are decoded without being copied to the heap first.
+     *
+     * @param file source file
+     * @param charset encoding of the file
+     * @return content
+     */
+    static CharSequence read(File file, Charset charset) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            return charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                    .decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * @param source content of a source file
+     * @return raw text of each doc comment, in the order of the source
+     */
+    static List<String> extract(CharSequence source) {
+        List<String> comments = new ArrayList<String>();
+        int length = source.length();
+        int i = 0;
+        while (i < length) {
+            char c = source.charAt(i);
+            if (c == '/' && i + 1 < length && source.charAt(i + 1) == '/') {
+                while (i < length && source.charAt(i) != '\n' && source.charAt(i) != '\r') i++;
+            } else if (c == '/' && i + 1 < length && source.charAt(i + 1) == '*') {
+                int end = commentEnd(source, i + 2);
+                if (end < 0) break;
+                // `/**/` is an empty block comment
+                if (end > i + 2 && source.charAt(i + 2) == '*') comments.add(rawText(source, i + 3, end));
+                i = end + 2;
+            } else if (c == '"' || c == '\'') {
+                i = literalEnd(source, i + 1, c);
+            } else {
+                i++;
+            }
+        }
+        return comments;
+    }
+
+    /**
+     * Converts the content of a doc comment to its raw text: leading whitespace and stars are removed
+     * from each line, except for whitespace on lines without a star, and line terminators become `\n`.
+     *
+     * @param source content of a source file
+     * @param start index after the opening `/**`
+     * @param end index of the star that closes the comment
+     * @return raw text
+     */
+    static String rawText(CharSequence source, int start, int end) {
+        int i = start;
+        while (i < end && source.charAt(i) == '*') i++;
+        boolean firstLine = true;
+        if (i < end && source.charAt(i) == '\n') {
+            i++;
+            firstLine = false;
+        } else if (i < end && source.charAt(i) == '\r') {
+            i++;
+            if (i < end && source.charAt(i) == '\n') {
+                i++;
+                firstLine = false;
+            }
+        }
+        StringBuilder text = new StringBuilder(end - i);
+        while (i < end) {
+            int lineStart = i;
+            while (i < end && isWhitespace(source.charAt(i))) i++;
+            // the whitespace before the closing star is dropped as well
+            if (i == end || source.charAt(i) == '*') {
+                while (i < end && source.charAt(i) == '*') i++;
+            } else if (!firstLine) {
+                i = lineStart;
+            }
+            while (i < end) {
+                char c = source.charAt(i++);
+                if (c == '\f') break;
+                if (c == '\r' || c == '\n') {
+                    if (c == '\r' && i < end && source.charAt(i) == '\n') i++;
+                    text.append('\n');
+                    break;
+                }
+                text.append(c);
+            }
+            firstLine = false;
+        }
+        int length = text.length();
+        while (length > 0 && text.charAt(length - 1) == '*') length--;
+        text.setLength(length);
+        return text.toString();
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\f';
+    }
+
+    private static int commentEnd(CharSequence source, int from) {
+        for (int i = from; i + 1 < source.length(); i++) {
+            if (source.charAt(i) == '*' && source.charAt(i + 1) == '/') return i;
+        }
+        return -1;
+    }
+
+    private static int literalEnd(CharSequence source, int from, char quote) {
+        int i = from;
+        while (i < source.length()) {
+            char c = source.charAt(i++);
+            if (c == '\\') i++;
+            else if (c == quote || c == '\n') break;
+        }
+        return i;
+    }
+}
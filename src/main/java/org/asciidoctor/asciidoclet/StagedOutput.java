@@ -0,0 +1,121 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Optional;
+import com.sun.javadoc.DocErrorReporter;
+import com.sun.javadoc.RootDoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Output of a run that is generated into a staging directory first, then published from there.
+ *
+ * While the output is staged, the `-d` option of the run points at the staging directory, see
+ * {@link DestDirOption}.
+ */
+public abstract class StagedOutput {
+
+    protected final File stagingDir;
+    protected final DocErrorReporter errorReporter;
+    private Optional<DestDirOption> redirected = Optional.absent();
+
+    protected StagedOutput(File stagingDir, DocErrorReporter errorReporter) {
+        this.stagingDir = stagingDir;
+        this.errorReporter = errorReporter;
+    }
+
+    File stagingDir() {
+        return stagingDir;
+    }
+
+    /**
+     * Prepares the staging directory and points the `-d` option of a run at it, until {@link #restore()}.
+     *
+     * @param rootDoc the run
+     * @return true if the run writes to the staging directory, false if it writes to the destination directory
+     */
+    public boolean redirect(RootDoc rootDoc) {
+        if (!new DocletOptions(rootDoc).destDir().isPresent()) return false;
+        try {
+            delete(stagingDir);
+        } catch (IOException e) {
+            errorReporter.printWarning(e.getLocalizedMessage());
+            return false;
+        }
+        if (!stagingDir.mkdirs()) {
+            errorReporter.printWarning("Cannot create staging directory " + stagingDir + ", writing output directly");
+            return false;
+        }
+        redirected = DestDirOption.redirect(rootDoc, stagingDir);
+        if (!redirected.isPresent()) {
+            errorReporter.printWarning("Cannot redirect the output to " + stagingDir + ", writing output directly");
+            stagingDir.delete();
+        }
+        return redirected.isPresent();
+    }
+
+    /**
+     * @return true if the run writes to the staging directory
+     */
+    protected boolean redirected() {
+        return redirected.isPresent();
+    }
+
+    /**
+     * Publishes the output of the run.
+     *
+     * @return success
+     */
+    public abstract boolean publish();
+
+    /**
+     * Points the `-d` option of the run back at the destination directory and removes the staging directory.
+     */
+    public void restore() {
+        if (!redirected.isPresent()) return;
+        redirected.get().restore();
+        redirected = Optional.absent();
+        try {
+            delete(stagingDir);
+        } catch (IOException e) {
+            errorReporter.printWarning(e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Lists the files below a directory, ordered by name within each directory.
+     *
+     * @param directory root of the tree
+     * @param prefix prefix of the listed paths
+     * @param files receives the paths of the files, relative to the directory and separated by `/`
+     * @return the files
+     */
+    protected static List<String> files(File directory, String prefix, List<String> files) throws IOException {
+        File[] children = directory.listFiles();
+        if (children == null) throw new IOException("Cannot list " + directory);
+        Arrays.sort(children, BY_NAME);
+        for (File child : children) {
+            if (child.isDirectory()) files(child, prefix + child.getName() + "/", files);
+            else files.add(prefix + child.getName());
+        }
+        return files;
+    }
+
+    private static final Comparator<File> BY_NAME = new Comparator<File>() {
+        @Override
+        public int compare(File left, File right) {
+            return left.getName().compareTo(right.getName());
+        }
+    };
+
+    protected static void delete(File file) throws IOException {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) delete(child);
+        }
+        if (file.exists() && !file.delete()) throw new IOException("Cannot delete " + file);
+    }
+}
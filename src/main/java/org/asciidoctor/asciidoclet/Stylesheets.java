@@ -1,5 +1,7 @@
 package org.asciidoctor.asciidoclet;
 
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
 import com.google.common.io.Resources;
 import com.sun.javadoc.DocErrorReporter;
 
@@ -44,6 +46,26 @@ public class Stylesheets {
         }
     }
 
+    /**
+     * Replaces the stylesheets copied to a subdirectory of the destination directory by one importing
+     * the stylesheet of the destination directory, so that browsers load and cache a single copy.
+     *
+     * @param directory subdirectory of the destination directory
+     * @return success
+     */
+    public boolean share(File directory) {
+        if (!directory.isDirectory()) return true;
+        try {
+            Files.write("@import url('../" + OUTPUT_STYLESHEET + "');\n", new File(directory, OUTPUT_STYLESHEET), Charsets.UTF_8);
+            File coderay = new File(directory, CODERAY_STYLESHEET);
+            if (coderay.exists() && !coderay.delete()) throw new IOException("Cannot delete " + coderay);
+            return true;
+        } catch (IOException e) {
+            errorReporter.printError(e.getLocalizedMessage());
+            return false;
+        }
+    }
+
     String selectStylesheet(String javaVersion) {
         if (javaVersion.matches("^1\\.[56]\\D.*")) return JAVA6_STYLESHEET;
         if (javaVersion.matches("^1\\.[78]\\D.*")) return JAVA8_STYLESHEET;
@@ -0,0 +1,136 @@
+package org.asciidoctor.asciidoclet;
+
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.FieldDoc;
+import com.sun.javadoc.MemberDoc;
+import com.sun.javadoc.MethodDoc;
+import com.sun.javadoc.RootDoc;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of the documented types and members, used to turn monospaced names in rendered comments
+ * into links.
+ *
+ * Types are indexed by simple, nested (`Outer.Inner`) and qualified name. Members are indexed as
+ * `Type#member`, and methods also as `Type#method()` and `Type.method()`, for every name of the type.
+ * Simple names shared by several types are left out, since they cannot be resolved.
+ *
+ * Only whole `<code>` spans are linked, so {@link #link(String)} looks up each span in the index
+ * and needs a single pass over the rendered HTML.
+ */
+public class SymbolIndex {
+
+    private static final String CODE = "<code>";
+    private static final String CODE_END = "</code>";
+
+    private final Map<String, String> targets;
+    private int links;
+
+    SymbolIndex(Map<String, String> targets) {
+        this.targets = targets;
+    }
+
+    /**
+     * Builds the index of all classes of a run.
+     *
+     * @param rootDoc the run
+     * @return index
+     */
+    public static SymbolIndex build(RootDoc rootDoc) {
+        Map<String, String> targets = new HashMap<String, String>();
+        Set<String> ambiguous = new HashSet<String>();
+        for (ClassDoc classDoc : rootDoc.classes()) {
+            for (String name : names(classDoc)) {
+                String qualified = classDoc.qualifiedName();
+                add(targets, ambiguous, name, qualified);
+                for (FieldDoc field : classDoc.fields()) {
+                    add(targets, ambiguous, name + "#" + field.name(), target(field));
+                }
+                for (FieldDoc constant : classDoc.enumConstants()) {
+                    add(targets, ambiguous, name + "#" + constant.name(), target(constant));
+                }
+                for (MethodDoc method : classDoc.methods()) {
+                    add(targets, ambiguous, name + "#" + method.name(), target(method));
+                    add(targets, ambiguous, name + "#" + method.name() + "()", target(method));
+                    add(targets, ambiguous, name + "." + method.name() + "()", target(method));
+                }
+            }
+        }
+        for (String name : ambiguous) targets.remove(name);
+        return new SymbolIndex(targets);
+    }
+
+    private static Set<String> names(ClassDoc classDoc) {
+        Set<String> names = new HashSet<String>();
+        names.add(classDoc.simpleTypeName());
+        names.add(classDoc.name());
+        names.add(classDoc.qualifiedName());
+        return names;
+    }
+
+    private static String target(MemberDoc member) {
+        return member.containingClass().qualifiedName() + "#" + member.name();
+    }
+
+    private static void add(Map<String, String> targets, Set<String> ambiguous, String name, String target) {
+        String previous = targets.put(name, target);
+        if (previous != null && !previous.equals(target)) ambiguous.add(name);
+    }
+
+    /**
+     * Replaces each `<code>` span that names a documented type or member with a `{@link}` tag,
+     * except inside links and preformatted blocks.
+     *
+     * @param html rendered comment
+     * @return the comment with links
+     */
+    public String link(String html) {
+        if (html == null) return null;
+        StringBuilder buffer = null;
+        int copied = 0;
+        int anchors = 0;
+        int pres = 0;
+        int i = html.indexOf('<');
+        while (i >= 0) {
+            int next = i + 1;
+            if (startsTag(html, i, "a")) anchors++;
+            else if (html.startsWith("</a>", i)) anchors = Math.max(0, anchors - 1);
+            else if (startsTag(html, i, "pre")) pres++;
+            else if (html.startsWith("</pre>", i)) pres = Math.max(0, pres - 1);
+            else if (anchors == 0 && pres == 0 && html.startsWith(CODE, i)) {
+                int end = html.indexOf(CODE_END, i + CODE.length());
+                if (end < 0) break;
+                String name = html.substring(i + CODE.length(), end);
+                String target = targets.get(name);
+                if (target != null) {
+                    if (buffer == null) buffer = new StringBuilder(html.length() + 64);
+                    buffer.append(html, copied, i).append("{@link ").append(target).append(' ').append(name).append('}');
+                    copied = end + CODE_END.length();
+                    links++;
+                }
+                next = end + CODE_END.length();
+            }
+            i = html.indexOf('<', next);
+        }
+        if (buffer == null) return html;
+        return buffer.append(html, copied, html.length()).toString();
+    }
+
+    /**
+     * @return the number of links made so far
+     */
+    public int links() {
+        return links;
+    }
+
+    private static boolean startsTag(String html, int i, String name) {
+        int end = i + 1 + name.length();
+        if (!html.startsWith(name, i + 1) || end >= html.length()) return false;
+        char c = html.charAt(end);
+        return c == '>' || c == ' ';
+    }
+}
@@ -0,0 +1,193 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.escape.Escaper;
+import com.google.common.html.HtmlEscapers;
+import com.google.common.io.Files;
+import com.sun.javadoc.PackageDoc;
+import com.sun.javadoc.RootDoc;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Documents several versions of the sources in one javadoc session, each in its own subdirectory of
+ * the destination directory, with an index page linking to all of them.
+ *
+ * Each version is documented by a run of javadoc started through {@link JavadocLauncher} with the
+ * options of this run, the `-sourcepath` of the version and a `-d` below the destination directory.
+ * The runs are marked with an internal option to share the warm Asciidoctor runtime and its
+ * {@link RenderCache}, so a comment that is the same in several versions is only rendered by
+ * Asciidoctor once, by the first version that has it.
+ *
+ * A version with the same `-sourcepath` as this run is documented from the sources javadoc already
+ * parsed for it, instead of parsing them again, with the `-d` option of this run pointing at the
+ * directory of the version while it is documented (see {@link DestDirOption}). The packages of each version are those given to this
+ * run by name, or found by its `-subpackages` option, so versions may differ in their packages. All
+ * versions share the stylesheet of the index page.
+ */
+public class VersionedSite {
+
+    static final String INDEX = "index.html";
+
+    private final DocletOptions docletOptions;
+    private final RootDoc rootDoc;
+    private final Stylesheets stylesheets;
+
+    public VersionedSite(DocletOptions docletOptions, RootDoc rootDoc, Stylesheets stylesheets) {
+        this.docletOptions = docletOptions;
+        this.rootDoc = rootDoc;
+        this.stylesheets = stylesheets;
+    }
+
+    /**
+     * Documents a version from the sources of this run.
+     */
+    public interface Documenter {
+
+        /**
+         * @param rootDoc this run, with `-d` pointing at the directory of the version
+         * @param docletOptions the options of the version
+         * @return success
+         */
+        boolean document(RootDoc rootDoc, DocletOptions docletOptions);
+    }
+
+    /**
+     * Documents all versions, then writes the index page and its stylesheets.
+     *
+     * @param launcher runs javadoc
+     * @param documenter documents the version with the sources of this run
+     * @return true if all versions were documented
+     */
+    public boolean generate(JavadocLauncher launcher, Documenter documenter) {
+        File destDir = docletOptions.destDir().get();
+        String sourcepath = sourcepath(rootDoc);
+        boolean parsed = false;
+        List<String> options = new ArrayList<String>();
+        options.add(DocletOptions.VERSIONED);
+        options.addAll(JavadocLauncher.options(rootDoc, DocletOptions.SOURCEPATH, DocletOptions.DESTDIR,
+                DocletOptions.VERSION, DocletOptions.SHUTDOWN_RUNTIME, DocletOptions.VERSIONED));
+        List<String> packages = packages(rootDoc);
+        boolean result = true;
+        long start = System.currentTimeMillis();
+        try {
+            for (Map.Entry<String, String> version : docletOptions.versions().entrySet()) {
+                rootDoc.printNotice("Documenting version " + version.getKey() + " from " + version.getValue());
+                File versionDir = new File(destDir, version.getKey());
+                Optional<DestDirOption> redirected = !parsed && version.getValue().equals(sourcepath)
+                        ? DestDirOption.redirect(rootDoc, versionDir) : Optional.<DestDirOption>absent();
+                boolean documented;
+                if (redirected.isPresent()) {
+                    parsed = true;
+                    try {
+                        documented = documenter.document(rootDoc, new DocletOptions(versionOptions(rootDoc, versionDir)));
+                    } finally {
+                        redirected.get().restore();
+                    }
+                } else {
+                    List<String> args = new ArrayList<String>(options);
+                    args.addAll(ImmutableList.of(DocletOptions.SOURCEPATH, version.getValue(),
+                            DocletOptions.DESTDIR, versionDir.getPath()));
+                    args.addAll(packages);
+                    documented = launcher.execute(args) == 0;
+                }
+                if (!documented) {
+                    rootDoc.printError("Failed to document version " + version.getKey());
+                    result = false;
+                }
+            }
+        } finally {
+            if (docletOptions.shutdownRuntime()) AsciidoctorRuntime.SHARED.shutdown();
+        }
+        if (!writeIndex(destDir) || !stylesheets.copy()) return false;
+        for (String version : docletOptions.versions().keySet()) {
+            if (!stylesheets.share(new File(destDir, version))) return false;
+        }
+        rootDoc.printNotice("Documented " + docletOptions.versions().size() + " versions in "
+                + (System.currentTimeMillis() - start) + " ms");
+        return result;
+    }
+
+    /**
+     * @return the `-sourcepath` of the run, or null
+     */
+    private static String sourcepath(RootDoc rootDoc) {
+        for (String[] option : rootDoc.options()) {
+            if (option.length > 1 && option[0].equals(DocletOptions.SOURCEPATH)) return option[1];
+        }
+        return null;
+    }
+
+    /**
+     * The options of this run for documenting a version into a directory, as those of a javadoc run for the version.
+     */
+    static String[][] versionOptions(RootDoc rootDoc, File versionDir) {
+        List<String[]> options = new ArrayList<String[]>();
+        for (String[] option : rootDoc.options()) {
+            if (option.length == 0 || option[0].equals(DocletOptions.VERSION) || option[0].equals(DocletOptions.SHUTDOWN_RUNTIME)) {
+                continue;
+            }
+            if (option.length > 1 && option[0].equals(DocletOptions.DESTDIR)) option = new String[]{option[0], versionDir.getPath()};
+            options.add(option);
+        }
+        options.add(new String[]{DocletOptions.VERSIONED});
+        return options.toArray(new String[options.size()][]);
+    }
+
+    /**
+     * The packages to document in each version: none if they are found by `-subpackages`, which is
+     * passed on with the options, otherwise the packages given by name.
+     */
+    static List<String> packages(RootDoc rootDoc) {
+        for (String[] option : rootDoc.options()) {
+            if (option.length > 0 && option[0].equals(DocletOptions.SUBPACKAGES)) return ImmutableList.of();
+        }
+        ImmutableList.Builder<String> packages = ImmutableList.builder();
+        for (PackageDoc packageDoc : rootDoc.specifiedPackages()) packages.add(packageDoc.name());
+        return packages.build();
+    }
+
+    private boolean writeIndex(File destDir) {
+        try {
+            Files.write(index(docletOptions.versions().keySet()), new File(destDir, INDEX), Charsets.UTF_8);
+            return true;
+        } catch (IOException e) {
+            rootDoc.printError("Cannot write the index of versions: " + e.getLocalizedMessage());
+            return false;
+        }
+    }
+
+    static String index(Iterable<String> versions) {
+        Escaper escaper = HtmlEscapers.htmlEscaper();
+        StringBuilder page = new StringBuilder()
+                .append("<!DOCTYPE html>\n")
+                .append("<html lang=\"en\">\n")
+                .append("<head>\n")
+                .append("<meta charset=\"UTF-8\">\n")
+                .append("<title>Versions</title>\n")
+                .append("<link rel=\"stylesheet\" type=\"text/css\" href=\"").append(Stylesheets.OUTPUT_STYLESHEET).append("\">\n")
+                .append("</head>\n")
+                .append("<body>\n")
+                .append("<div class=\"header\">\n")
+                .append("<h1 class=\"title\">Versions</h1>\n")
+                .append("</div>\n")
+                .append("<div class=\"contentContainer\">\n")
+                .append("<ul class=\"blockList\">\n");
+        for (String version : versions) {
+            String name = escaper.escape(version);
+            page.append("<li class=\"blockList\"><a href=\"").append(name).append('/').append(INDEX).append("\">")
+                    .append(name).append("</a></li>\n");
+        }
+        return page.append("</ul>\n")
+                .append("</div>\n")
+                .append("</body>\n")
+                .append("</html>\n")
+                .toString();
+    }
+}
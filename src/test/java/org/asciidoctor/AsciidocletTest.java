@@ -1,13 +1,27 @@
 package org.asciidoctor;
 
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
 import com.sun.javadoc.DocErrorReporter;
 import com.sun.javadoc.LanguageVersion;
 import com.sun.javadoc.RootDoc;
 import org.asciidoctor.asciidoclet.*;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
 import static org.mockito.Mockito.*;
 
 /**
@@ -15,6 +29,9 @@ import static org.mockito.Mockito.*;
  */
 public class AsciidocletTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private StandardAdapter mockAdapter;
     private DocletIterator mockIterator;
     private Stylesheets mockStylesheets;
@@ -80,6 +97,63 @@ public class AsciidocletTest {
         verifyZeroInteractions(mockIterator);
     }
 
+    @Test
+    public void testArchiveWithoutDestDir(){
+        DocErrorReporter mockReporter = mock(DocErrorReporter.class);
+        String[][] inputOptions = new String[][]{{DocletOptions.INCLUDE_BASEDIR, ""}, {DocletOptions.ARCHIVE, "docs.jar"}};
+
+        assertFalse(Asciidoclet.validOptions(inputOptions, mockReporter, mockAdapter));
+
+        verify(mockReporter).printError(contains(DocletOptions.ARCHIVE));
+        verifyZeroInteractions(mockAdapter);
+    }
+
+    @Test
+    public void testBackendsWithoutExport(){
+        DocErrorReporter mockReporter = mock(DocErrorReporter.class);
+        String[][] inputOptions = new String[][]{{DocletOptions.INCLUDE_BASEDIR, ""}, {DocletOptions.BACKENDS, "docbook45"}};
+
+        assertFalse(Asciidoclet.validOptions(inputOptions, mockReporter, mockAdapter));
+
+        verify(mockReporter).printError(contains(DocletOptions.EXPORT));
+        verifyZeroInteractions(mockAdapter);
+    }
+
+    @Test
+    public void testInvalidVersion(){
+        DocErrorReporter mockReporter = mock(DocErrorReporter.class);
+        String[][] inputOptions = new String[][]{{DocletOptions.INCLUDE_BASEDIR, ""}, {DocletOptions.DESTDIR, "site"},
+                {DocletOptions.VERSION, "../1.0=src"}};
+
+        assertFalse(Asciidoclet.validOptions(inputOptions, mockReporter, mockAdapter));
+
+        verify(mockReporter).printError(contains(DocletOptions.VERSION));
+        verifyZeroInteractions(mockAdapter);
+    }
+
+    @Test
+    public void testVersionWithSyncOutput(){
+        DocErrorReporter mockReporter = mock(DocErrorReporter.class);
+        String[][] inputOptions = new String[][]{{DocletOptions.INCLUDE_BASEDIR, ""}, {DocletOptions.DESTDIR, "site"},
+                {DocletOptions.VERSION, "1.0=src"}, {DocletOptions.SYNC_OUTPUT}};
+
+        assertFalse(Asciidoclet.validOptions(inputOptions, mockReporter, mockAdapter));
+
+        verify(mockReporter).printError(contains(DocletOptions.SYNC_OUTPUT));
+        verifyZeroInteractions(mockAdapter);
+    }
+
+    @Test
+    public void testInvalidRemoteCache(){
+        DocErrorReporter mockReporter = mock(DocErrorReporter.class);
+        String[][] inputOptions = new String[][]{{DocletOptions.INCLUDE_BASEDIR, ""}, {DocletOptions.REMOTE_CACHE, "localhost:8765"}};
+
+        assertFalse(Asciidoclet.validOptions(inputOptions, mockReporter, mockAdapter));
+
+        verify(mockReporter).printError(contains(DocletOptions.REMOTE_CACHE));
+        verifyZeroInteractions(mockAdapter);
+    }
+
     @Test
     public void testEmptyBaseDirOption(){
         DocErrorReporter mockReporter = mock(DocErrorReporter.class);
@@ -123,4 +197,174 @@ public class AsciidocletTest {
         verify(mockIterator).render(eq(mockDoc), any(DocletRenderer.class));
         verify(mockStylesheets, never()).copy();
     }
+
+    @Test
+    public void testLint(){
+        RootDoc mockDoc = mock(RootDoc.class);
+        String[][] options = new String[][]{{DocletOptions.LINT}};
+
+        when(mockDoc.options()).thenReturn(options);
+
+        assertTrue(new Asciidoclet(mockDoc, mockIterator, mockStylesheets).start(mockAdapter));
+
+        verify(mockIterator).render(eq(mockDoc), any(AsciidocLinter.class));
+        verify(mockAdapter, never()).start(mockDoc);
+        verify(mockStylesheets, never()).copy();
+    }
+
+    @Test
+    public void testExportWithoutHtml(){
+        RootDoc mockDoc = mock(RootDoc.class);
+        File export = new File(folder.getRoot(), "comments.json");
+        String[][] options = new String[][]{{DocletOptions.EXPORT, export.getPath()}, {DocletOptions.NO_HTML}};
+
+        when(mockDoc.options()).thenReturn(options);
+
+        assertTrue(new Asciidoclet(mockDoc, mockIterator, mockStylesheets).start(mockAdapter));
+
+        verify(mockIterator).render(eq(mockDoc), any(CommentExporter.class));
+        verify(mockDoc).printNotice("Exported 0 comments to " + export);
+        verify(mockAdapter, never()).start(mockDoc);
+        verify(mockStylesheets, never()).copy();
+        assertTrue(export.isFile());
+    }
+
+    @Test
+    public void testReproducibleOutput() throws Exception {
+        File sources = folder.newFolder("src");
+        write(new File(sources, "com/example/Foo.java"), "package com.example;\n"
+                + "/**\n * A *Foo*, documented on {localdate}.\n *\n * == Usage\n * [source,java]\n * new Foo();\n */\n"
+                + "public class Foo {\n    /** @return a `Bar` */\n    public com.example.bar.Bar bar() { return null; }\n}\n");
+        write(new File(sources, "com/example/bar/Bar.java"), "package com.example.bar;\n"
+                + "/** A _Bar_. */\npublic class Bar {}\n");
+        write(new File(sources, "com/example/package-info.java"), "/** Examples. */\npackage com.example;\n");
+
+        File first = generate(sources, "first");
+        File second = generate(sources, "second");
+
+        List<String> files = files(first, "", new ArrayList<String>());
+        assertEquals(files, files(second, "", new ArrayList<String>()));
+        assertTrue(files.contains("com/example/Foo.html"));
+        for (String path : files) {
+            assertTrue(path, com.google.common.io.Files.equal(new File(first, path), new File(second, path)));
+        }
+        String page = com.google.common.io.Files.toString(new File(first, "com/example/Foo.html"), Charsets.UTF_8);
+        assertTrue(page.contains("documented on 1970-01-01"));
+        assertFalse(page.contains("<meta name=\"date\""));
+    }
+
+    @Test
+    public void testSyncOutputMatchesDirectRun() throws Exception {
+        assumeTrue("1.8".equals(System.getProperty("java.specification.version")));
+        File sources = functionalInterface();
+        File direct = new File(folder.getRoot(), "direct");
+        File synced = new File(folder.getRoot(), "synced");
+
+        assertEquals(0, javadoc(sources, direct));
+        assertEquals(0, javadoc(sources, synced, DocletOptions.SYNC_OUTPUT));
+
+        String page = com.google.common.io.Files.toString(new File(direct, "com/example/Task.html"), Charsets.UTF_8);
+        assertTrue(page.contains("Functional Interface:"));
+        assertEquals(page, com.google.common.io.Files.toString(new File(synced, "com/example/Task.html"), Charsets.UTF_8));
+    }
+
+    @Test
+    public void testArchiveMatchesDirectRun() throws Exception {
+        assumeTrue("1.8".equals(System.getProperty("java.specification.version")));
+        File sources = functionalInterface();
+        File direct = new File(folder.getRoot(), "direct");
+        File archive = new File(folder.getRoot(), "docs-javadoc.jar");
+
+        assertEquals(0, javadoc(sources, direct));
+        assertEquals(0, javadoc(sources, new File(folder.getRoot(), "archived"), DocletOptions.ARCHIVE, archive.getPath()));
+
+        List<String> files = files(direct, "", new ArrayList<String>());
+        ZipFile zip = new ZipFile(archive);
+        try {
+            List<String> entries = new ArrayList<String>();
+            for (ZipEntry entry : Collections.list(zip.entries())) {
+                if (entry.isDirectory()) continue;
+                entries.add(entry.getName());
+                assertArrayEquals(entry.getName(), com.google.common.io.Files.toByteArray(new File(direct, entry.getName())),
+                        ByteStreams.toByteArray(zip.getInputStream(entry)));
+            }
+            assertEquals(files, entries);
+        } finally {
+            zip.close();
+        }
+        String page = com.google.common.io.Files.toString(new File(direct, "com/example/Task.html"), Charsets.UTF_8);
+        assertTrue(page.contains("Functional Interface:"));
+    }
+
+    @Test
+    public void testVersionOfThisRunMatchesLaunchedVersion() throws Exception {
+        assumeTrue("1.8".equals(System.getProperty("java.specification.version")));
+        File sources = functionalInterface();
+        File copy = new File(folder.getRoot(), "copy");
+        write(new File(copy, "com/example/Task.java"), com.google.common.io.Files.toString(
+                new File(sources, "com/example/Task.java"), Charsets.UTF_8));
+        File site = new File(folder.getRoot(), "site");
+
+        assertEquals(0, javadoc(sources, site, DocletOptions.VERSION, "1.0=" + sources.getPath(),
+                DocletOptions.VERSION, "2.0=" + copy.getPath()));
+
+        String parsed = com.google.common.io.Files.toString(new File(site, "1.0/com/example/Task.html"), Charsets.UTF_8);
+        assertTrue(parsed.contains("Functional Interface:"));
+        assertEquals(com.google.common.io.Files.toString(new File(site, "2.0/com/example/Task.html"), Charsets.UTF_8), parsed);
+    }
+
+    @Test
+    public void testSyncOutputChecksScripts() throws Exception {
+        assumeTrue("1.8".equals(System.getProperty("java.specification.version")));
+        File sources = folder.newFolder("src");
+        write(new File(sources, "com/example/Foo.java"), "package com.example;\n"
+                + "/** A +++<script>alert(1)</script>+++ Foo. */\npublic class Foo {}\n");
+        File direct = new File(folder.getRoot(), "direct");
+        File synced = new File(folder.getRoot(), "synced");
+
+        assertTrue(javadoc(sources, direct) != 0);
+        assertTrue(javadoc(sources, synced, DocletOptions.SYNC_OUTPUT) != 0);
+
+        assertFalse(new File(synced, "com/example/Foo.html").exists());
+    }
+
+    private File functionalInterface() throws IOException {
+        File sources = folder.newFolder("src");
+        write(new File(sources, "com/example/Task.java"), "package com.example;\n"
+                + "/** A _Task_. */\n@FunctionalInterface\npublic interface Task {\n    /** Runs the task. */\n    void run();\n}\n");
+        return sources;
+    }
+
+    private int javadoc(File sources, File destDir, String... options) {
+        List<String> args = new ArrayList<String>(Arrays.asList("-quiet", "-notimestamp",
+                "-sourcepath", sources.getPath(), "-d", destDir.getPath(), DocletOptions.INCLUDE_BASEDIR, sources.getPath()));
+        args.addAll(Arrays.asList(options));
+        args.add("com.example");
+        return new JavadocLauncher(Asciidoclet.class).execute(args);
+    }
+
+    private File generate(File sources, String name) {
+        File destDir = new File(folder.getRoot(), name);
+        int result = new JavadocLauncher(Asciidoclet.class).execute(Arrays.asList(
+                "-quiet", "-sourcepath", sources.getPath(), "-d", destDir.getPath(),
+                DocletOptions.INCLUDE_BASEDIR, sources.getPath(), DocletOptions.REPRODUCIBLE,
+                "com.example", "com.example.bar"));
+        assertEquals(0, result);
+        return destDir;
+    }
+
+    private static List<String> files(File directory, String prefix, List<String> files) {
+        File[] children = directory.listFiles();
+        Arrays.sort(children);
+        for (File child : children) {
+            if (child.isDirectory()) files(child, prefix + child.getName() + "/", files);
+            else files.add(prefix + child.getName());
+        }
+        return files;
+    }
+
+    private static void write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        com.google.common.io.Files.write(content, file, Charsets.UTF_8);
+    }
 }
@@ -0,0 +1,132 @@
+package org.asciidoctor.asciidoclet;
+
+import com.sun.javadoc.Doc;
+import com.sun.javadoc.DocErrorReporter;
+import com.sun.javadoc.SourcePosition;
+import org.asciidoctor.Asciidoctor;
+import org.asciidoctor.Options;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class AsciidocLinterTest {
+
+    private Asciidoctor mockAsciidoctor;
+    private DocErrorReporter mockErrorReporter;
+    private Doc mockDoc;
+    private SourcePosition mockPosition;
+    private AsciidocLinter linter;
+
+    @Before
+    public void setup() {
+        mockAsciidoctor = mock(Asciidoctor.class);
+        mockErrorReporter = mock(DocErrorReporter.class);
+        mockDoc = mock(Doc.class);
+        mockPosition = mock(SourcePosition.class);
+        when(mockDoc.position()).thenReturn(mockPosition);
+        linter = new AsciidocLinter(new DocletOptions(new String[][]{{DocletOptions.INCLUDE_BASEDIR, "."}}),
+                mockErrorReporter, mockAsciidoctor);
+    }
+
+    @Test
+    public void testCleanComment() {
+        when(mockDoc.getRawCommentText()).thenReturn("Fine {project}.\ninclude::README.asciidoc[tags=usage]\n@return \\{escaped}");
+        when(mockAsciidoctor.render(anyString(), any(Options.class))).thenReturn("<p>Fine name.</p>", "{escaped}");
+
+        linter.renderDoc(mockDoc);
+
+        assertTrue(linter.report());
+        verify(mockErrorReporter, never()).printWarning(any(SourcePosition.class), anyString());
+        verify(mockDoc, never()).setRawCommentText(anyString());
+    }
+
+    @Test
+    public void testMissingInclude() {
+        when(mockDoc.getRawCommentText()).thenReturn("Text\n\ninclude::missing.adoc[]\ninclude::{dir}/skipped.adoc[]");
+
+        linter.renderDoc(mockDoc);
+
+        assertFalse(linter.report());
+        verify(mockErrorReporter).printWarning(eq(mockPosition), contains("missing.adoc"));
+        verify(mockErrorReporter, times(1)).printWarning(any(SourcePosition.class), anyString());
+    }
+
+    @Test
+    public void testUnresolvedAttribute() {
+        when(mockDoc.getRawCommentText()).thenReturn("Version {version}\n\n[source]\n----\n{listing}\n----");
+        when(mockAsciidoctor.render(anyString(), any(Options.class)))
+                .thenReturn("<p>Version {version}</p>\n<pre class=\"highlight\"><code>{listing}</code></pre>");
+
+        linter.renderDoc(mockDoc);
+
+        assertFalse(linter.report());
+        verify(mockErrorReporter).printWarning(mockPosition, "unresolved attribute reference: {version}");
+        verify(mockErrorReporter, times(1)).printWarning(any(SourcePosition.class), anyString());
+    }
+
+    @Test
+    public void testLiteralAttributeReferences() {
+        when(mockDoc.getRawCommentText()).thenReturn("Use `{home}` or +{dir}+, +++{raw}+++ and pass:[{pass}]");
+        when(mockAsciidoctor.render(anyString(), any(Options.class)))
+                .thenReturn("<p>Use <code>{home}</code> or <code>{dir}</code>, {raw} and {pass}</p>");
+
+        linter.renderDoc(mockDoc);
+
+        assertTrue(linter.report());
+        verify(mockErrorReporter, never()).printWarning(any(SourcePosition.class), anyString());
+    }
+
+    @Test
+    public void testUnterminatedNestedBlock() {
+        when(mockDoc.getRawCommentText()).thenReturn("Text\n\n====\nExample\n\n----\ncode\n====");
+
+        linter.renderDoc(mockDoc);
+
+        assertFalse(linter.report());
+        verify(mockErrorReporter).printWarning(mockPosition, "unterminated listing block opened at line 6");
+        verify(mockErrorReporter, times(1)).printWarning(any(SourcePosition.class), anyString());
+    }
+
+    @Test
+    public void testDelimiterOfOtherLength() {
+        when(mockDoc.getRawCommentText()).thenReturn("-----\ncode\n----\n\nText");
+
+        linter.renderDoc(mockDoc);
+
+        assertFalse(linter.report());
+        verify(mockErrorReporter).printWarning(mockPosition, "unterminated listing block opened at line 1");
+    }
+
+    @Test
+    public void testDelimitersInsideVerbatimBlocks() {
+        when(mockDoc.getRawCommentText()).thenReturn("====\n----\n====\n----\n====\n\n....\n----\n....");
+
+        linter.renderDoc(mockDoc);
+
+        assertTrue(linter.report());
+        verify(mockErrorReporter, never()).printWarning(any(SourcePosition.class), anyString());
+    }
+
+    @Test
+    public void testTableWithMissingCell() {
+        when(mockDoc.getRawCommentText()).thenReturn("[cols=\"1,2\"]\n|===\n|a |b\n|c\n|===");
+
+        linter.renderDoc(mockDoc);
+
+        assertFalse(linter.report());
+        verify(mockErrorReporter).printWarning(mockPosition,
+                "table opened at line 2 has 3 cells, which do not fill its 2 columns");
+    }
+
+    @Test
+    public void testTableWithSpansAndEscapes() {
+        when(mockDoc.getRawCommentText()).thenReturn("|===\n|a |b |c\n2+|span |d\n|e \\| f 2*|g\n|===");
+
+        linter.renderDoc(mockDoc);
+
+        assertTrue(linter.report());
+        verify(mockErrorReporter, never()).printWarning(any(SourcePosition.class), anyString());
+    }
+}
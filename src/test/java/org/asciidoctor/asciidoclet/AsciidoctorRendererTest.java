@@ -1,15 +1,19 @@
 package org.asciidoctor.asciidoclet;
 
 import com.google.common.base.Optional;
-import com.sun.javadoc.Doc;
-import com.sun.javadoc.Tag;
+import com.google.common.collect.ImmutableMap;
+import com.sun.javadoc.*;
 import org.asciidoctor.Asciidoctor;
 import org.asciidoctor.Options;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentMatcher;
 
-import static org.junit.Assert.assertEquals;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
 /**
@@ -28,35 +32,28 @@ public class AsciidoctorRendererTest {
     }
 
     @Test
-    public void testAtLiteralRender(){
+    public void testAnnotationIsNotATag(){
         Doc mockDoc = mock(Doc.class);
-        String convertedText = "Test";
-        String rawText = "@" + convertedText;
+        String rawText = "@Test";
 
         when(mockDoc.getRawCommentText()).thenReturn(rawText);
-        when(mockDoc.commentText()).thenReturn("");
-        when(mockDoc.tags()).thenReturn(new Tag[]{});
+        when(mockAsciidoctor.render(eq(rawText), argThat(new OptionsMatcher(false)))).thenReturn("<p>@Test</p>");
 
         renderer.renderDoc(mockDoc);
-        verify(mockDoc).setRawCommentText("{@literal @}" + convertedText);
-        verify(mockAsciidoctor).render(anyString(), any(Options.class));
+        verify(mockDoc).setRawCommentText("<p>@Test</p>\n");
+        verify(mockDoc, never()).commentText();
+        verify(mockDoc, never()).tags();
     }
 
     @Test
     public void testTagRender(){
         Doc mockDoc = mock(Doc.class);
-        Tag mockTag = mock(Tag.class);
 
-        String tagName = "tagName";
+        String tagName = "@tagName";
         String tagText = "tagText";
         String asciidoctorRenderedString = "rendered";
 
-        when(mockTag.name()).thenReturn(tagName);
-        when(mockTag.text()).thenReturn(tagText);
-
-        when(mockDoc.getRawCommentText()).thenReturn("");
-        when(mockDoc.commentText()).thenReturn("");
-        when(mockDoc.tags()).thenReturn(new Tag[]{mockTag});
+        when(mockDoc.getRawCommentText()).thenReturn(tagName + " " + tagText);
 
         when(mockAsciidoctor.render(eq(""), argThat(new OptionsMatcher(false)))).thenReturn("");
         when(mockAsciidoctor.render(eq(tagText), argThat(new OptionsMatcher(true)))).thenReturn(asciidoctorRenderedString);
@@ -65,10 +62,178 @@ public class AsciidoctorRendererTest {
 
         verify(mockAsciidoctor).render(eq(""), argThat(new OptionsMatcher(false)));
         verify(mockAsciidoctor).render(eq(tagText), argThat(new OptionsMatcher(true)));
-        verify(mockDoc).setRawCommentText("");
+        verify(mockDoc, times(1)).setRawCommentText(anyString());
         verify(mockDoc).setRawCommentText("\n" + tagName + " " + asciidoctorRenderedString + "\n");
     }
 
+    @Test
+    public void testAutolink(){
+        Doc mockDoc = mock(Doc.class);
+        SymbolIndex symbols = new SymbolIndex(ImmutableMap.of("Foo", "org.example.Foo"));
+        renderer = AsciidoctorRenderer.builder(DocletOptions.NONE).symbols(symbols)
+                .build(Optional.<OutputTemplates>absent(), mockAsciidoctor);
+
+        when(mockDoc.getRawCommentText()).thenReturn("See `Foo`\n@see Foo\n@return `Foo`");
+        when(mockAsciidoctor.render(eq("See `Foo`"), argThat(new OptionsMatcher(false)))).thenReturn("<p>See <code>Foo</code></p>");
+        when(mockAsciidoctor.render(eq("Foo"), argThat(new OptionsMatcher(true)))).thenReturn("<code>Foo</code>");
+        when(mockAsciidoctor.render(eq("`Foo`"), argThat(new OptionsMatcher(true)))).thenReturn("<code>Foo</code>");
+
+        renderer.renderDoc(mockDoc);
+
+        verify(mockDoc).setRawCommentText("<p>See {@link org.example.Foo Foo}</p>\n@see <code>Foo</code>\n@return {@link org.example.Foo Foo}\n");
+    }
+
+    @Test
+    public void testCopyImages(){
+        Doc mockDoc = mock(Doc.class);
+        ImageAssets mockAssets = mock(ImageAssets.class);
+        renderer = AsciidoctorRenderer.builder(DocletOptions.NONE).assets(mockAssets)
+                .build(Optional.<OutputTemplates>absent(), mockAsciidoctor);
+
+        when(mockDoc.getRawCommentText()).thenReturn("image::a.png[]");
+        when(mockAsciidoctor.render(eq("image::a.png[]"), argThat(new OptionsMatcher(false)))).thenReturn("<img src=\"a.png\">");
+        when(mockAssets.rewrite("<img src=\"a.png\">")).thenReturn("<img src=\"{@docRoot}/images/a.png\">");
+
+        renderer.renderDoc(mockDoc);
+
+        verify(mockDoc).setRawCommentText("<img src=\"{@docRoot}/images/a.png\">\n");
+    }
+
+    @Test
+    public void testRecord(){
+        Doc mockDoc = mock(Doc.class);
+        RenderRecorder mockRecorder = mock(RenderRecorder.class);
+        renderer.recordTo(mockRecorder);
+
+        when(mockDoc.getRawCommentText()).thenReturn(" A *b*\n @return c");
+        when(mockAsciidoctor.render(eq("A *b*"), argThat(new OptionsMatcher(false)))).thenReturn("<p>A <strong>b</strong></p>");
+        when(mockAsciidoctor.render(eq("c"), argThat(new OptionsMatcher(true)))).thenReturn("c");
+
+        renderer.renderDoc(mockDoc);
+
+        verify(mockRecorder).record(eq("A *b*"), eq(false), eq("<p>A <strong>b</strong></p>"), anyLong());
+        verify(mockRecorder).record(eq("c"), eq(true), eq("c"), anyLong());
+    }
+
+    @Test
+    public void testDetectHtml(){
+        Doc mockDoc = mock(Doc.class);
+        renderer = new AsciidoctorRenderer(new DocletOptions(new String[][]{{DocletOptions.DETECT_HTML}}),
+                Optional.<OutputTemplates>absent(), mockAsciidoctor);
+
+        when(mockDoc.getRawCommentText()).thenReturn("Returns <code>null</code>.\n<p>\n@return the value");
+
+        renderer.renderDoc(mockDoc);
+
+        verify(mockDoc, never()).setRawCommentText(anyString());
+        verifyZeroInteractions(mockAsciidoctor);
+    }
+
+    @Test
+    public void testLibrariesOnDemand(){
+        Doc mockDoc = mock(Doc.class);
+        Optional<OutputTemplates> templates = OutputTemplates.create(mock(DocErrorReporter.class));
+        renderer = new AsciidoctorRenderer(DocletOptions.NONE, templates, mockAsciidoctor);
+
+        when(mockDoc.getRawCommentText()).thenReturn("Text\n@return value");
+        renderer.renderDoc(mockDoc);
+        when(mockDoc.getRawCommentText()).thenReturn("[source,java]\n----\nint x;\n----");
+        renderer.renderDoc(mockDoc);
+        templates.get().delete();
+
+        verify(mockAsciidoctor).render(eq("Text"), argThat(new LibrariesMatcher(true, false)));
+        verify(mockAsciidoctor).render(eq("value"), argThat(new LibrariesMatcher(false, false)));
+        verify(mockAsciidoctor).render(eq("[source,java]\n----\nint x;\n----"), argThat(new LibrariesMatcher(true, true)));
+    }
+
+    @Test
+    public void testRemoteCache(){
+        DocletOptions docletOptions = new DocletOptions(new String[][]{{DocletOptions.REMOTE_CACHE, "http://localhost:8765/"}});
+        InMemoryRemoteCache remote = new InMemoryRemoteCache();
+        ClassDoc mockClassDoc = mock(ClassDoc.class);
+        MethodDoc mockMethodDoc = mock(MethodDoc.class);
+        when(mockClassDoc.getRawCommentText()).thenReturn("A class");
+        when(mockClassDoc.fields()).thenReturn(new FieldDoc[0]);
+        when(mockClassDoc.constructors()).thenReturn(new ConstructorDoc[0]);
+        when(mockClassDoc.methods()).thenReturn(new MethodDoc[]{mockMethodDoc});
+        when(mockClassDoc.enumConstants()).thenReturn(new FieldDoc[0]);
+        when(mockMethodDoc.getRawCommentText()).thenReturn("A method\n@return value\n@see include::foo.adoc[]");
+        when(mockAsciidoctor.render(anyString(), any(Options.class))).thenReturn("rendered");
+
+        renderer = new AsciidoctorRenderer(docletOptions, Optional.<OutputTemplates>absent(), mockAsciidoctor);
+        renderer.cacheRemotely(remote);
+        renderer.renderDoc(mockClassDoc);
+        renderer.renderDoc(mockMethodDoc);
+
+        verify(mockAsciidoctor, times(4)).render(anyString(), any(Options.class));
+        assertEquals(3, remote.outputs.size());
+
+        mockAsciidoctor = mock(Asciidoctor.class);
+        when(mockAsciidoctor.render(anyString(), any(Options.class))).thenReturn("rendered");
+        renderer = new AsciidoctorRenderer(docletOptions, Optional.<OutputTemplates>absent(), mockAsciidoctor);
+        renderer.cacheRemotely(remote);
+        renderer.renderDoc(mockClassDoc);
+        renderer.renderDoc(mockMethodDoc);
+
+        verify(mockAsciidoctor).render(eq("include::foo.adoc[]"), any(Options.class));
+        verifyNoMoreInteractions(mockAsciidoctor);
+        assertEquals(2, remote.lookups);
+        verify(mockMethodDoc, times(2)).setRawCommentText("rendered\n@return rendered\n@see rendered\n");
+    }
+
+    @Test
+    public void testIncludesAreNotCached(){
+        DocletOptions docletOptions = new DocletOptions(new String[][]{{DocletOptions.REMOTE_CACHE, "http://localhost:8765/"}});
+        when(mockAsciidoctor.render(anyString(), any(Options.class))).thenReturn("rendered");
+        renderer = new AsciidoctorRenderer(docletOptions, Optional.<OutputTemplates>absent(), mockAsciidoctor);
+
+        renderer.renderComment(null, "include::README.adoc[]");
+        renderer.renderComment(null, "include::README.adoc[]");
+        renderer.renderComment(null, "Plain");
+        renderer.renderComment(null, "Plain");
+
+        verify(mockAsciidoctor, times(2)).render(eq("include::README.adoc[]"), any(Options.class));
+        verify(mockAsciidoctor, times(1)).render(eq("Plain"), any(Options.class));
+    }
+
+    @Test
+    public void testRemoteFingerprint(){
+        Options options = AsciidoctorRenderer.buildOptions(DocletOptions.NONE, Optional.<OutputTemplates>absent());
+        String plain = AsciidoctorRenderer.remoteFingerprint(options, false);
+        String templates = AsciidoctorRenderer.remoteFingerprint(options, true);
+
+        assertTrue(plain.endsWith(AsciidoctorRenderer.VERSIONS));
+        assertTrue(AsciidoctorRenderer.VERSIONS.contains("jruby " + org.jruby.runtime.Constants.VERSION));
+        assertFalse(AsciidoctorRenderer.VERSIONS.contains("asciidoctor dev"));
+        assertTrue(templates.contains(OutputTemplates.hash()));
+        assertFalse(plain.equals(templates));
+    }
+
+    @Test
+    public void testRenderedComment() {
+        Doc mockDoc = mock(Doc.class);
+        when(mockDoc.getRawCommentText()).thenReturn("Body\n@param name the name\n@see Foo");
+        when(mockAsciidoctor.render(eq("Body"), any(Options.class))).thenReturn("<p>Body</p>");
+        when(mockAsciidoctor.render(eq("name the name"), any(Options.class))).thenReturn("name <em>the</em> name");
+        when(mockAsciidoctor.render(eq("Foo"), any(Options.class))).thenReturn("Foo");
+
+        renderer.renderDoc(mockDoc);
+
+        JavadocComment rendered = renderer.rendered();
+        assertEquals("<p>Body</p>", rendered.body());
+        assertEquals(2, rendered.tags().size());
+        assertEquals("@param", rendered.tags().get(0).name());
+        assertEquals("name <em>the</em> name", rendered.tags().get(0).text());
+        assertEquals("Foo", rendered.tags().get(1).text());
+        verify(mockDoc).setRawCommentText("<p>Body</p>\n@param name <em>the</em> name\n@see Foo\n");
+    }
+
+    @Test
+    public void testEscapeTagStarts(){
+        assertEquals("<pre>x\n&#64;Foo\n  &#64;Bar x@y</pre>", AsciidoctorRenderer.escapeTagStarts("<pre>x\n@Foo\n  @Bar x@y</pre>"));
+        assertEquals("{@link Foo}", AsciidoctorRenderer.escapeTagStarts("{@link Foo}"));
+    }
+
     @Test
     public void testCleanInput(){
         assertEquals("test1\ntest2", AsciidoctorRenderer.cleanJavadocInput("  test1\n test2\n"));
@@ -78,6 +243,35 @@ public class AsciidoctorRendererTest {
         assertEquals("/", AsciidoctorRenderer.cleanJavadocInput("{slash}"));
     }
 
+    private static final class InMemoryRemoteCache implements RemoteCache {
+
+        private final Map<String, String> outputs = new HashMap<String, String>();
+        private int lookups;
+
+        @Override
+        public Map<String, String> lookup(Collection<String> keys) {
+            lookups++;
+            Map<String, String> found = new HashMap<String, String>(outputs);
+            found.keySet().retainAll(keys);
+            return found;
+        }
+
+        @Override
+        public boolean store(String key, String output) {
+            outputs.put(key, output);
+            return true;
+        }
+
+        @Override
+        public String description() {
+            return "memory";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
     private static final class OptionsMatcher extends ArgumentMatcher<Options> {
 
         private final boolean inline;
@@ -92,4 +286,23 @@ public class AsciidoctorRendererTest {
             return !inline || (options.map().get(Options.DOCTYPE).equals(AsciidoctorRenderer.INLINE_DOCTYPE));
         }
     }
+
+    private static final class LibrariesMatcher extends ArgumentMatcher<Options> {
+
+        private final boolean templates;
+        private final boolean highlight;
+
+        private LibrariesMatcher(boolean templates, boolean highlight){
+            this.templates = templates;
+            this.highlight = highlight;
+        }
+
+        @Override
+        public boolean matches(Object input) {
+            Map<String, Object> options = ((Options) input).map();
+            Map<?, ?> attributes = (Map<?, ?>) options.get(Options.ATTRIBUTES);
+            return options.containsKey(Options.TEMPLATE_DIRS) == templates
+                    && attributes.containsKey("source-highlighter") == highlight;
+        }
+    }
 }
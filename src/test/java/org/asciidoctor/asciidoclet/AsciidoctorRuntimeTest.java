@@ -0,0 +1,123 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Supplier;
+import com.sun.javadoc.DocErrorReporter;
+import org.asciidoctor.Asciidoctor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class AsciidoctorRuntimeTest {
+
+    private DocErrorReporter mockErrorReporter;
+    private int created;
+
+    @Before
+    public void setup() {
+        mockErrorReporter = mock(DocErrorReporter.class);
+        created = 0;
+    }
+
+    private AsciidoctorRuntime runtime(long idleMillis) {
+        return new AsciidoctorRuntime(new Supplier<Asciidoctor>() {
+            @Override
+            public Asciidoctor get() {
+                created++;
+                return mock(Asciidoctor.class);
+            }
+        }, idleMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testWarmInstanceIsReused() {
+        AsciidoctorRuntime runtime = runtime(TimeUnit.MINUTES.toMillis(1));
+
+        AsciidoctorRuntime.Lease first = runtime.acquire(mockErrorReporter, RenderProfile.DISABLED);
+        first.release();
+        AsciidoctorRuntime.Lease second = runtime.acquire(mockErrorReporter, RenderProfile.DISABLED);
+
+        assertSame(first.asciidoctor(), second.asciidoctor());
+        assertSame(first.templates().get(), second.templates().get());
+        assertEquals(1, created);
+        runtime.shutdown();
+    }
+
+    @Test
+    public void testTemplatesArePreparedWhenNeeded() {
+        AsciidoctorRuntime runtime = runtime(TimeUnit.MINUTES.toMillis(1));
+
+        AsciidoctorRuntime.Lease lint = runtime.acquire(mockErrorReporter, RenderProfile.DISABLED, false);
+        AsciidoctorRuntime.Lease render = runtime.acquire(mockErrorReporter, RenderProfile.DISABLED);
+
+        assertFalse(lint.templates().isPresent());
+        assertTrue(render.templates().get().templateDir().exists());
+        assertSame(lint.asciidoctor(), render.asciidoctor());
+        assertEquals(1, created);
+        runtime.shutdown();
+    }
+
+    @Test
+    public void testReleaseIsCountedOncePerLease() {
+        AsciidoctorRuntime runtime = runtime(TimeUnit.MINUTES.toMillis(1));
+
+        AsciidoctorRuntime.Lease first = runtime.acquire(mockErrorReporter, RenderProfile.DISABLED);
+        runtime.acquire(mockErrorReporter, RenderProfile.DISABLED);
+        first.release();
+        first.release();
+
+        assertEquals(1, runtime.references());
+        runtime.shutdown();
+    }
+
+    @Test
+    public void testReleaseBeforeShutdownIsIgnored() {
+        AsciidoctorRuntime runtime = runtime(TimeUnit.MINUTES.toMillis(1));
+
+        AsciidoctorRuntime.Lease stale = runtime.acquire(mockErrorReporter, RenderProfile.DISABLED);
+        runtime.shutdown();
+        AsciidoctorRuntime.Lease current = runtime.acquire(mockErrorReporter, RenderProfile.DISABLED);
+        stale.release();
+
+        assertEquals(1, runtime.references());
+        assertFalse(stale.shutdown());
+        assertTrue(runtime.isWarm());
+        assertTrue(current.shutdown());
+        assertFalse(runtime.isWarm());
+    }
+
+    @Test
+    public void testShutdownAfterIdle() throws Exception {
+        AsciidoctorRuntime runtime = runtime(10);
+
+        AsciidoctorRuntime.Lease lease = runtime.acquire(mockErrorReporter, RenderProfile.DISABLED);
+        assertTrue(lease.templates().get().templateDir().exists());
+        lease.release();
+
+        for (int i = 0; i < 100 && runtime.isWarm(); i++) Thread.sleep(10);
+
+        assertFalse(runtime.isWarm());
+        assertFalse(lease.templates().get().templateDir().exists());
+        runtime.acquire(mockErrorReporter, RenderProfile.DISABLED);
+        assertEquals(2, created);
+        runtime.shutdown();
+    }
+
+    @Test
+    public void testLeaseShutdownWaitsForOtherLeases() {
+        AsciidoctorRuntime runtime = runtime(TimeUnit.MINUTES.toMillis(1));
+
+        AsciidoctorRuntime.Lease first = runtime.acquire(mockErrorReporter, RenderProfile.DISABLED);
+        AsciidoctorRuntime.Lease second = runtime.acquire(mockErrorReporter, RenderProfile.DISABLED);
+
+        assertFalse(first.shutdown());
+        assertTrue(runtime.isWarm());
+        assertTrue(second.shutdown());
+        assertFalse(runtime.isWarm());
+        assertFalse(second.templates().get().templateDir().exists());
+    }
+}
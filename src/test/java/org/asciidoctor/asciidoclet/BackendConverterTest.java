@@ -0,0 +1,61 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.collect.ImmutableList;
+import org.asciidoctor.Asciidoctor;
+import org.asciidoctor.Options;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BackendConverterTest {
+
+    private Asciidoctor mockAsciidoctor;
+    private BackendConverter converter;
+
+    @Before
+    public void setup() {
+        mockAsciidoctor = mock(Asciidoctor.class);
+        converter = new BackendConverter(mockAsciidoctor, ImmutableList.of("docbook45", BackendConverter.TEXT));
+    }
+
+    @Test
+    public void testRender() {
+        Options options = new Options();
+        options.setBackend("html5");
+        when(mockAsciidoctor.render(eq("A *b*"), any(Options.class))).thenReturn("<p>A <strong>b</strong></p>");
+        when(mockAsciidoctor.render(eq("A *b*"), anyMapOf(String.class, Object.class))).thenReturn("<simpara>A <emphasis role=\"strong\">b</emphasis></simpara>");
+
+        String[] outputs = converter.render("A *b*", options);
+
+        assertArrayEquals(new String[]{"<p>A <strong>b</strong></p>", "<simpara>A <emphasis role=\"strong\">b</emphasis></simpara>", "A b"}, outputs);
+    }
+
+    @Test
+    public void testComments() {
+        JavadocComment comment = new JavadocComment("body", ImmutableList.of(new JavadocComment.Tag("@return", "value")));
+
+        Map<String, JavadocComment> comments = converter.comments(comment, Arrays.asList(
+                new String[]{"<p>body</p>", "<simpara>body</simpara>", "body"},
+                new String[]{"value", "value", "value"}));
+
+        assertEquals(ImmutableList.of("docbook45", "text"), ImmutableList.copyOf(comments.keySet()));
+        assertEquals("<simpara>body</simpara>", comments.get("docbook45").body());
+        assertEquals("@return", comments.get("text").tags().get(0).name());
+        assertEquals("value", comments.get("text").tags().get(0).text());
+    }
+
+    @Test
+    public void testText() {
+        assertEquals("A <b> & c\n\nd", BackendConverter.text("<div class=\"paragraph\"><p>A &lt;b&gt; &amp; c</p></div>\n\n\n<p>d</p>"));
+        assertEquals("x\ny", BackendConverter.text("x<br>y"));
+        assertEquals("", BackendConverter.text(null));
+    }
+}
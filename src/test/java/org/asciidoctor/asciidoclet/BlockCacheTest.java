@@ -0,0 +1,157 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.collect.ImmutableMap;
+import com.sun.javadoc.DocErrorReporter;
+import org.asciidoctor.Asciidoctor;
+import org.asciidoctor.Options;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class BlockCacheTest {
+
+    private static final String LISTING = "[source,java]\n----\nFoo foo;\n----";
+
+    private Asciidoctor mockAsciidoctor;
+    private Options options;
+    private BlockCache blockCache;
+
+    @Before
+    public void setup() {
+        mockAsciidoctor = mock(Asciidoctor.class);
+        options = new Options();
+        blockCache = new BlockCache(new RenderCache(), "options", "remote");
+    }
+
+    @Test
+    public void testBlocks() {
+        List<int[]> blocks = BlockCache.blocks("Text\n\n" + LISTING + "\n\nNOTE: A note\nover two lines.\n\nMore text");
+
+        assertEquals(2, blocks.size());
+        assertArrayEquals(new int[]{2, 5}, blocks.get(0));
+        assertArrayEquals(new int[]{7, 8}, blocks.get(1));
+    }
+
+    @Test
+    public void testBlocksAtBoundariesOnly() {
+        assertTrue(BlockCache.blocks("Text\n----\nFoo\n----").isEmpty());
+        assertTrue(BlockCache.blocks("----\nFoo\n----\nText").isEmpty());
+        assertTrue(BlockCache.blocks("[source,java]\n\n----\nFoo\n----").isEmpty());
+        assertTrue(BlockCache.blocks(" NOTE: literal").isEmpty());
+    }
+
+    @Test
+    public void testDependentBlocksAreNotCached() {
+        assertTrue(BlockCache.blocks(":foo: bar\n\n----\n{foo}\n----").isEmpty());
+        assertTrue(BlockCache.blocks("See <<foo>>.\n\n----\nFoo\n----").isEmpty());
+        assertTrue(BlockCache.blocks("----\nFoo <1>\n----\n<1> callout").isEmpty());
+        assertTrue(BlockCache.blocks(".Numbered\n|===\n| a\n|===").isEmpty());
+        assertTrue(BlockCache.blocks("NOTE: A note\n* with a list").isEmpty());
+        assertEquals(1, BlockCache.blocks(".Not numbered\n----\nFoo\n----").size());
+    }
+
+    @Test
+    public void testNestedBlocks() {
+        assertArrayEquals(new int[]{0, 4}, BlockCache.blocks("====\n----\n====\n----\n====").get(0));
+        assertArrayEquals(new int[]{0, 6}, BlockCache.blocks("====\n======\n....\n======\n....\n======\n====\n\nText").get(0));
+        assertTrue(BlockCache.blocks("====\n----\nFoo\n====").isEmpty());
+    }
+
+    @Test
+    public void testDelimiterOfOtherLength() {
+        assertArrayEquals(new int[]{0, 3}, BlockCache.blocks("-----\nFoo\n----\n-----").get(0));
+        assertEquals(1, BlockCache.blocks("====\n--\nFoo\n--\n====").size());
+        assertTrue(BlockCache.blocks("-----\nFoo\n----").isEmpty());
+    }
+
+    @Test
+    public void testBlocksAreFetchedFromRemoteCache() {
+        RemoteCache mockRemote = mock(RemoteCache.class);
+        String remoteKey = BlockCache.remoteKey("remote", LISTING);
+        when(mockRemote.lookup(anyCollectionOf(String.class))).thenReturn(ImmutableMap.of(remoteKey, "<pre>Foo foo;</pre>"));
+        blockCache.cacheRemotely(mockRemote);
+
+        assertEquals("<pre>Foo foo;</pre>", blockCache.render(mockAsciidoctor, LISTING, options));
+
+        verifyZeroInteractions(mockAsciidoctor);
+        verify(mockRemote).lookup(anyCollectionOf(String.class));
+        verify(mockRemote, never()).store(anyString(), anyString());
+    }
+
+    @Test
+    public void testRenderedBlocksAreStoredRemotely() {
+        DocErrorReporter mockErrorReporter = mock(DocErrorReporter.class);
+        RemoteCache mockRemote = mock(RemoteCache.class);
+        when(mockRemote.lookup(anyCollectionOf(String.class))).thenReturn(ImmutableMap.<String, String>of());
+        when(mockRemote.store(anyString(), anyString())).thenReturn(true);
+        when(mockAsciidoctor.render(LISTING, options)).thenReturn("<pre>Foo foo;</pre>");
+        blockCache.cacheRemotely(mockRemote);
+
+        assertEquals("<pre>Foo foo;</pre>", blockCache.render(mockAsciidoctor, LISTING, options));
+        blockCache.report(mockErrorReporter);
+
+        verify(mockRemote).store(BlockCache.remoteKey("remote", LISTING), "<pre>Foo foo;</pre>");
+        verify(mockErrorReporter).printNotice(endsWith("; fetched 0 blocks from remote caches and stored 1"));
+    }
+
+    @Test
+    public void testBlockIsSplicedIntoComment() {
+        String input = "Text\n\n" + LISTING;
+        String rest = "Text\n\n++++\n<!--asciidoclet-block-0-->\n++++";
+        when(mockAsciidoctor.render(input, options)).thenReturn("<p>Text</p>\n<pre>Foo foo;</pre>");
+        when(mockAsciidoctor.render(LISTING, options)).thenReturn("<pre>Foo foo;</pre>");
+        when(mockAsciidoctor.render(rest, options)).thenReturn("<p>Text</p>\n<!--asciidoclet-block-0-->");
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("<p>Text</p>\n<pre>Foo foo;</pre>", blockCache.render(mockAsciidoctor, input, options));
+        }
+
+        verify(mockAsciidoctor).render(input, options);
+        verify(mockAsciidoctor).render(LISTING, options);
+        verify(mockAsciidoctor, times(2)).render(rest, options);
+    }
+
+    @Test
+    public void testFirstCommentIsRenderedWhole() {
+        DocErrorReporter mockErrorReporter = mock(DocErrorReporter.class);
+        String input = "Text\n\n" + LISTING;
+        when(mockAsciidoctor.render(input, options)).thenReturn("whole");
+
+        assertEquals("whole", blockCache.render(mockAsciidoctor, input, options));
+        blockCache.report(mockErrorReporter);
+
+        verify(mockAsciidoctor, times(1)).render(any(String.class), any(Options.class));
+        verify(mockErrorReporter).printNotice(
+                matches("Reused 0 of 0 rendered blocks, saving about 0 ms net of 0 ms rendering 0 blocks on their own"));
+    }
+
+    @Test
+    public void testBlocksAreReused() {
+        DocErrorReporter mockErrorReporter = mock(DocErrorReporter.class);
+        when(mockAsciidoctor.render(LISTING, options)).thenReturn("<pre>Foo foo;</pre>");
+
+        assertEquals("<pre>Foo foo;</pre>", blockCache.render(mockAsciidoctor, LISTING, options));
+        assertEquals("<pre>Foo foo;</pre>", blockCache.render(mockAsciidoctor, LISTING + "\n", options));
+        blockCache.report(mockErrorReporter);
+
+        verify(mockAsciidoctor, times(1)).render(any(String.class), any(Options.class));
+        verify(mockErrorReporter).printNotice(startsWith("Reused 1 of 2 rendered blocks"));
+    }
+
+    @Test
+    public void testMissingPlaceholderRendersWholeComment() {
+        String input = "Text\n\n" + LISTING;
+        when(mockAsciidoctor.render(LISTING, options)).thenReturn("<pre>Foo foo;</pre>");
+        when(mockAsciidoctor.render(input, options)).thenReturn("whole");
+
+        assertEquals("whole", blockCache.render(mockAsciidoctor, input, options));
+        assertEquals("whole", blockCache.render(mockAsciidoctor, input, options));
+
+        verify(mockAsciidoctor, times(2)).render(input, options);
+    }
+}
@@ -0,0 +1,44 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.collect.ImmutableList;
+import com.sun.javadoc.DocErrorReporter;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+public class ClassDataSharingTest {
+
+    private static final List<String> ARCHIVE_ARGUMENTS =
+            ImmutableList.of("-Xbootclasspath/a:lib.jar", "-XX:SharedArchiveFile=asciidoclet.jsa", "-Xshare:auto");
+
+    private DocErrorReporter mockErrorReporter;
+
+    @Before
+    public void setup() {
+        mockErrorReporter = mock(DocErrorReporter.class);
+    }
+
+    @Test
+    public void testArchiveInUse() {
+        ClassDataSharing.check(ARCHIVE_ARGUMENTS, "mixed mode, sharing", mockErrorReporter);
+
+        verifyZeroInteractions(mockErrorReporter);
+    }
+
+    @Test
+    public void testArchiveNotInUse() {
+        ClassDataSharing.check(ARCHIVE_ARGUMENTS, "mixed mode", mockErrorReporter);
+
+        verify(mockErrorReporter).printNotice(contains("asciidoclet.jsa is not used"));
+    }
+
+    @Test
+    public void testNoArchive() {
+        ClassDataSharing.check(ImmutableList.of("-Xmx1g"), "mixed mode", mockErrorReporter);
+
+        verifyZeroInteractions(mockErrorReporter);
+    }
+}
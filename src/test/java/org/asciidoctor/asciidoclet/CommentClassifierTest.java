@@ -0,0 +1,92 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.sun.javadoc.Doc;
+import com.sun.javadoc.DocErrorReporter;
+import com.sun.javadoc.SourcePosition;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.asciidoctor.asciidoclet.CommentClassifier.Format.ASCIIDOC;
+import static org.asciidoctor.asciidoclet.CommentClassifier.Format.HTML;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class CommentClassifierTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testHtml() {
+        assertTrue(CommentClassifier.isHtml("Returns the value.\n<p>\nMore."));
+        assertTrue(CommentClassifier.isHtml("A list:\n<ul>\n<li>one</li>\n</ul>"));
+        assertTrue(CommentClassifier.isHtml("Returns <code>null</code> if absent."));
+        assertTrue(CommentClassifier.isHtml("See <a href=\"http://example.com\">example</a>"));
+        assertTrue(CommentClassifier.isHtml("Text\n@return <b>true</b> if set"));
+        assertTrue(CommentClassifier.isHtml("Line<br/>break"));
+    }
+
+    @Test
+    public void testAsciiDoc() {
+        assertFalse(CommentClassifier.isHtml("Returns the *value*.\n\nMore."));
+        assertFalse(CommentClassifier.isHtml("A `List<String>` of names, or `<p>` tags."));
+        assertFalse(CommentClassifier.isHtml("If a < b and b > c"));
+        assertFalse(CommentClassifier.isHtml("Example:\n[source,html]\n----\n<p>Hello</p>\n----\nDone."));
+        assertFalse(CommentClassifier.isHtml("Returns a Map<K, V>"));
+        assertFalse(CommentClassifier.isHtml("Example:\n```html\n<p>Hello</p>\n```\nDone."));
+        assertFalse(CommentClassifier.isHtml("<p"));
+    }
+
+    @Test
+    public void testFileMarker() throws Exception {
+        File html = source("Legacy.java", "// Copyright\n// asciidoclet: html\npackage com.example;\n");
+        File asciidoc = source("Modern.java", "//asciidoclet:asciidoc\npackage com.example;\n");
+        File late = source("Late.java", "package com.example;\n// asciidoclet: html\n");
+        CommentClassifier classifier = new CommentClassifier(DocletOptions.NONE);
+
+        assertEquals(HTML, classifier.classify(mockDoc(html), "Plain *AsciiDoc*"));
+        assertEquals(HTML, classifier.classify(mockDoc(html), "More"));
+        assertEquals(ASCIIDOC, classifier.classify(mockDoc(asciidoc), "A <p> paragraph"));
+        assertEquals(HTML, classifier.classify(mockDoc(late), "A <p> paragraph"));
+        assertEquals(ASCIIDOC, classifier.classify(null, "A *paragraph*"));
+
+        DocErrorReporter mockErrorReporter = mock(DocErrorReporter.class);
+        classifier.report(mockErrorReporter);
+        verify(mockErrorReporter).printNotice("Rendered 2 AsciiDoc comments and passed through 3 HTML comments (1 and 2 by file marker)");
+    }
+
+    @Test
+    public void testFileMarkerBeforeCode() throws Exception {
+        File header = source("Header.java", "/*\n * Copyright\n */\n\n// asciidoclet: html\nclass Header {}\n");
+        File method = source("Method.java", "class Method {\n    void m() {\n        // asciidoclet: html\n    }\n}\n");
+        File imports = source("Imports.java", "import java.util.List;\n// asciidoclet: html\nclass Imports {}\n");
+        File inline = source("Inline.java", "/* Copyright */ class Inline {}\n// asciidoclet: html\n");
+        CommentClassifier classifier = new CommentClassifier(DocletOptions.NONE);
+
+        assertEquals(HTML, classifier.classify(mockDoc(header), "Plain *AsciiDoc*"));
+        assertEquals(ASCIIDOC, classifier.classify(mockDoc(method), "Plain *AsciiDoc*"));
+        assertEquals(ASCIIDOC, classifier.classify(mockDoc(imports), "Plain *AsciiDoc*"));
+        assertEquals(ASCIIDOC, classifier.classify(mockDoc(inline), "Plain *AsciiDoc*"));
+    }
+
+    private File source(String name, String content) throws Exception {
+        File file = new File(folder.getRoot(), name);
+        Files.write(content, file, Charsets.UTF_8);
+        return file;
+    }
+
+    private static Doc mockDoc(File file) {
+        SourcePosition position = mock(SourcePosition.class);
+        when(position.file()).thenReturn(file);
+        Doc doc = mock(Doc.class);
+        when(doc.position()).thenReturn(position);
+        return doc;
+    }
+}
@@ -0,0 +1,88 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.sun.javadoc.*;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class CommentExporterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private AsciidoctorRenderer mockRenderer;
+    private MethodDoc mockMethod;
+
+    @Before
+    public void setup() {
+        mockRenderer = mock(AsciidoctorRenderer.class);
+        mockMethod = mock(MethodDoc.class);
+        SourcePosition position = mock(SourcePosition.class);
+
+        when(mockMethod.isMethod()).thenReturn(true);
+        when(mockMethod.qualifiedName()).thenReturn("example.Type.method");
+        when(mockMethod.signature()).thenReturn("(java.lang.String)");
+        when(mockMethod.position()).thenReturn(position);
+        when(position.file()).thenReturn(new File("Type.java"));
+        when(position.line()).thenReturn(12);
+        when(mockRenderer.rendered()).thenReturn(new JavadocComment("<div class=\"paragraph\">\n<p>Says \"hi\"</p>\n</div>",
+                ImmutableList.of(new JavadocComment.Tag("@param", "name who\tto greet"))));
+    }
+
+    @Test
+    public void testRecord() throws IOException {
+        StringWriter output = new StringWriter();
+        CommentExporter exporter = new CommentExporter(mockRenderer, output);
+
+        exporter.renderDoc(mockMethod);
+        exporter.close();
+
+        verify(mockRenderer).renderDoc(mockMethod);
+        verify(mockMethod, never()).commentText();
+        verify(mockMethod, never()).tags();
+        assertEquals(1, exporter.records());
+        assertEquals(RECORD, output.toString());
+    }
+
+    @Test
+    public void testCompressedFile() throws IOException {
+        File file = new File(folder.getRoot(), "comments.json.gz");
+        CommentExporter exporter = CommentExporter.open(file, mockRenderer);
+
+        exporter.renderDoc(mockMethod);
+        exporter.renderDoc(mockMethod);
+        exporter.close();
+
+        GZIPInputStream input = new GZIPInputStream(new FileInputStream(file));
+        try {
+            assertEquals(RECORD + RECORD, new String(ByteStreams.toByteArray(input), Charsets.UTF_8));
+        } finally {
+            input.close();
+        }
+    }
+
+    @Test
+    public void testKind() {
+        assertEquals("method", CommentExporter.kind(mockMethod));
+        assertEquals("package", CommentExporter.kind(mock(PackageDoc.class)));
+        assertEquals("overview", CommentExporter.kind(mock(RootDoc.class)));
+    }
+
+    private static final String RECORD = "{\"name\":\"example.Type.method(java.lang.String)\",\"kind\":\"method\","
+            + "\"file\":\"Type.java\",\"line\":12,"
+            + "\"html\":\"<div class=\\\"paragraph\\\">\\n<p>Says \\\"hi\\\"</p>\\n</div>\","
+            + "\"tags\":[{\"name\":\"@param\",\"text\":\"name who\\tto greet\"}]}\n";
+}
@@ -0,0 +1,55 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Optional;
+import org.asciidoctor.Asciidoctor;
+import org.asciidoctor.Options;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+public class CommentRendererTest {
+
+    private Asciidoctor mockAsciidoctor;
+    private CommentRenderer renderer;
+
+    @Before
+    public void setup() {
+        mockAsciidoctor = mock(Asciidoctor.class);
+        renderer = new CommentRenderer(new AsciidoctorRenderer(DocletOptions.NONE, Optional.<OutputTemplates>absent(), mockAsciidoctor), 2);
+    }
+
+    @Test
+    public void testRenderComment() {
+        when(mockAsciidoctor.render(eq("A *b*"), any(Options.class))).thenReturn("<p>A <strong>b</strong></p>");
+        when(mockAsciidoctor.render(eq("the `c`"), any(Options.class))).thenReturn("the <code>c</code>");
+
+        assertEquals("<p>A <strong>b</strong></p>\n@return the <code>c</code>\n",
+                renderer.renderComment(" A *b*\n @return the `c`", CommentRenderer.Kind.COMMENT));
+    }
+
+    @Test
+    public void testRenderInline() {
+        when(mockAsciidoctor.render(eq("the `c`"), any(Options.class))).thenReturn("the <code>c</code>");
+
+        assertEquals("the <code>c</code>", renderer.renderComment("the `c`", CommentRenderer.Kind.INLINE));
+    }
+
+    @Test
+    public void testCache() {
+        when(mockAsciidoctor.render(anyString(), any(Options.class))).thenReturn("rendered");
+
+        renderer.renderComment("a", CommentRenderer.Kind.INLINE);
+        renderer.renderComment("a", CommentRenderer.Kind.INLINE);
+        renderer.renderComment("a", CommentRenderer.Kind.COMMENT);
+        verify(mockAsciidoctor, times(2)).render(eq("a"), any(Options.class));
+
+        renderer.renderComment("b", CommentRenderer.Kind.INLINE);
+        renderer.renderComment("c", CommentRenderer.Kind.INLINE);
+        renderer.renderComment("a", CommentRenderer.Kind.INLINE);
+        verify(mockAsciidoctor, times(3)).render(eq("a"), any(Options.class));
+    }
+}
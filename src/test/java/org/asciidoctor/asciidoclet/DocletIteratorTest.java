@@ -94,4 +94,36 @@ public class DocletIteratorTest {
         assertTrue(iterator.render(mockDoc, mockRenderer));
         verify(mockRenderer).renderDoc(mockDoc);
     }
+
+    @Test
+    public void testExcludedPackage() {
+        when(mockPackageDoc.name()).thenReturn("com.example.proto");
+        DocletIterator iterator = new DocletIterator(new DocletOptions(new String[][] {{DocletOptions.EXCLUDE_PACKAGES, "com.example.proto"}}));
+
+        assertTrue(iterator.render(mockDoc, mockRenderer));
+        verify(mockRenderer, never()).renderDoc(any(Doc.class));
+        verify(mockDoc).printNotice("Skipped rendering 5 comments of excluded classes and members");
+    }
+
+    @Test
+    public void testExcludedMember() {
+        when(mockPackageDoc.name()).thenReturn("com.example");
+        AnnotationTypeDoc generated = mock(AnnotationTypeDoc.class);
+        when(generated.simpleTypeName()).thenReturn("Generated");
+        AnnotationDesc annotation = mock(AnnotationDesc.class);
+        when(annotation.annotationType()).thenReturn(generated);
+        when(mockMethodDoc.annotations()).thenReturn(new AnnotationDesc[]{annotation});
+        when(mockClassDoc.annotations()).thenReturn(new AnnotationDesc[0]);
+        when(mockFieldDoc.annotations()).thenReturn(new AnnotationDesc[0]);
+        when(mockEnumFieldDoc.annotations()).thenReturn(new AnnotationDesc[0]);
+        when(mockConstructorDoc.annotations()).thenReturn(new AnnotationDesc[0]);
+        DocletIterator iterator = new DocletIterator(new DocletOptions(new String[][] {{DocletOptions.EXCLUDE_ANNOTATED, "Generated"}}));
+
+        assertTrue(iterator.render(mockDoc, mockRenderer));
+        verify(mockRenderer).renderDoc(mockClassDoc);
+        verify(mockRenderer).renderDoc(mockFieldDoc);
+        verify(mockRenderer, never()).renderDoc(mockMethodDoc);
+        verify(mockRenderer).renderDoc(mockPackageDoc);
+        verify(mockDoc).printNotice("Skipped rendering 1 comments of excluded classes and members");
+    }
 }
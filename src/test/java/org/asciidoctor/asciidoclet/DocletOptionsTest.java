@@ -1,8 +1,10 @@
 package org.asciidoctor.asciidoclet;
 
 import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
 import org.junit.Test;
 
+import java.io.File;
 import java.nio.charset.Charset;
 
 import static org.junit.Assert.*;
@@ -41,4 +43,124 @@ public class DocletOptionsTest {
         assertFalse(DocletOptions.NONE.destDir().isPresent());
         assertEquals("target", new DocletOptions(new String[][]{{DESTDIR, "target"}}).destDir().get().getName());
     }
+
+    @Test
+    public void testMinify() {
+        assertFalse(DocletOptions.NONE.minify());
+        assertTrue(new DocletOptions(new String[][]{{MINIFY}}).minify());
+    }
+
+    @Test
+    public void testShutdownRuntime() {
+        assertFalse(DocletOptions.NONE.shutdownRuntime());
+        assertTrue(new DocletOptions(new String[][]{{SHUTDOWN_RUNTIME}}).shutdownRuntime());
+    }
+
+    @Test
+    public void testAutolink() {
+        assertFalse(DocletOptions.NONE.autolink());
+        assertTrue(new DocletOptions(new String[][]{{AUTOLINK}}).autolink());
+    }
+
+    @Test
+    public void testPageWriter() {
+        assertFalse(DocletOptions.NONE.pageWriter());
+        assertTrue(new DocletOptions(new String[][]{{PAGE_WRITER}}).pageWriter());
+    }
+
+    @Test
+    public void testExport() {
+        assertFalse(DocletOptions.NONE.export().isPresent());
+        assertFalse(DocletOptions.NONE.noHtml());
+        DocletOptions options = new DocletOptions(new String[][]{{EXPORT, "comments.json.gz"}, {NO_HTML}});
+        assertEquals(new File("comments.json.gz"), options.export().get());
+        assertTrue(options.noHtml());
+    }
+
+    @Test
+    public void testCopyImages() {
+        assertFalse(DocletOptions.NONE.copyImages());
+        assertTrue(new DocletOptions(new String[][]{{COPY_IMAGES}}).copyImages());
+    }
+
+    @Test
+    public void testSyncOutput() {
+        assertFalse(DocletOptions.NONE.syncOutput());
+        assertTrue(new DocletOptions(new String[][]{{SYNC_OUTPUT}}).syncOutput());
+    }
+
+    @Test
+    public void testArchive() {
+        assertFalse(DocletOptions.NONE.archive().isPresent());
+        assertEquals(new File("docs.jar"), new DocletOptions(new String[][]{{ARCHIVE, "docs.jar"}}).archive().get());
+    }
+
+    @Test
+    public void testBackends() {
+        assertTrue(DocletOptions.NONE.backends().isEmpty());
+        assertEquals(ImmutableList.of("docbook45", "text"), new DocletOptions(new String[][]{{BACKENDS, "docbook45, text"}}).backends());
+    }
+
+    @Test
+    public void testRenderFilters() {
+        assertTrue(DocletOptions.NONE.includePackages().isEmpty());
+        assertTrue(DocletOptions.NONE.excludePackages().isEmpty());
+        assertTrue(DocletOptions.NONE.excludeAnnotated().isEmpty());
+        DocletOptions options = new DocletOptions(new String[][]{
+                {INCLUDE_PACKAGES, "com.example.*"}, {EXCLUDE_PACKAGES, "com.example.proto.*,com.example.jaxb"},
+                {EXCLUDE_ANNOTATED, "Generated"}});
+        assertEquals(ImmutableList.of("com.example.*"), options.includePackages());
+        assertEquals(ImmutableList.of("com.example.proto.*", "com.example.jaxb"), options.excludePackages());
+        assertEquals(ImmutableList.of("Generated"), options.excludeAnnotated());
+    }
+
+    @Test
+    public void testReproducible() {
+        assertFalse(DocletOptions.NONE.reproducible());
+        assertFalse(DocletOptions.NONE.noTimestamp());
+        DocletOptions options = new DocletOptions(new String[][]{{REPRODUCIBLE}, {NOTIMESTAMP}});
+        assertTrue(options.reproducible());
+        assertTrue(options.noTimestamp());
+    }
+
+    @Test
+    public void testRecord() {
+        assertFalse(DocletOptions.NONE.record().isPresent());
+        assertEquals(new File("renders.bin"), new DocletOptions(new String[][]{{RECORD, "renders.bin"}}).record().get());
+    }
+
+    @Test
+    public void testDetectHtml() {
+        assertFalse(DocletOptions.NONE.detectHtml());
+        assertTrue(new DocletOptions(new String[][]{{DETECT_HTML}}).detectHtml());
+    }
+
+    @Test
+    public void testBlockCache() {
+        assertFalse(DocletOptions.NONE.blockCache());
+        assertTrue(new DocletOptions(new String[][]{{BLOCK_CACHE}}).blockCache());
+    }
+
+    @Test
+    public void testVersions() {
+        assertTrue(DocletOptions.NONE.versions().isEmpty());
+        DocletOptions options = new DocletOptions(new String[][]{{VERSION, "2.0=v2/src"}, {VERSION, "1.0 = v1/src"}, {VERSION, "nopath"}});
+
+        assertEquals(ImmutableList.of("2.0", "1.0", "nopath"), ImmutableList.copyOf(options.versions().keySet()));
+        assertEquals("v2/src", options.versions().get("2.0"));
+        assertEquals("v1/src", options.versions().get("1.0"));
+        assertEquals("", options.versions().get("nopath"));
+    }
+
+    @Test
+    public void testRemoteCache() {
+        assertFalse(DocletOptions.NONE.remoteCache().isPresent());
+        assertEquals("http://localhost:8765/", new DocletOptions(new String[][]{{REMOTE_CACHE, "http://localhost:8765/"}}).remoteCache().get());
+    }
+
+    @Test
+    public void testPrerendered() {
+        assertFalse(DocletOptions.NONE.prerendered().isPresent());
+        assertEquals(new File("comments.gz"), new DocletOptions(new String[][]{{PRERENDERED, "comments.gz"}}).prerendered().get());
+    }
 }
@@ -0,0 +1,188 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.PackageDoc;
+import com.sun.javadoc.RootDoc;
+import com.sun.javadoc.SourcePosition;
+import org.asciidoctor.Asciidoclet;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class DocletWatcherTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File dir;
+    private RootDoc mockRootDoc;
+    private File source;
+
+    @Before
+    public void setup() throws IOException {
+        dir = folder.getRoot();
+        source = new File(dir, "Example.java");
+        Files.write("class Example {}", source, Charsets.UTF_8);
+
+        ClassDoc[] classDocs = {classDoc(source, "com.example")};
+        mockRootDoc = mock(RootDoc.class);
+        when(mockRootDoc.classes()).thenReturn(classDocs);
+        when(mockRootDoc.specifiedPackages()).thenReturn(new PackageDoc[0]);
+    }
+
+    private static ClassDoc classDoc(File file, String packageName) {
+        ClassDoc mockClassDoc = mock(ClassDoc.class);
+        PackageDoc mockPackageDoc = mock(PackageDoc.class);
+        SourcePosition mockPosition = mock(SourcePosition.class);
+        when(mockClassDoc.position()).thenReturn(mockPosition);
+        when(mockClassDoc.containingPackage()).thenReturn(mockPackageDoc);
+        when(mockPackageDoc.name()).thenReturn(packageName);
+        when(mockPosition.file()).thenReturn(file);
+        return mockClassDoc;
+    }
+
+    @Test
+    public void testPollReportsChangedSources() throws IOException {
+        DocletWatcher watcher = new DocletWatcher(DocletOptions.NONE, mockRootDoc);
+
+        assertTrue(watcher.poll().isEmpty());
+        Files.write("class Example { int changed; }", source, Charsets.UTF_8);
+
+        assertEquals(ImmutableSet.of(source), watcher.poll());
+        assertTrue(watcher.poll().isEmpty());
+    }
+
+    @Test
+    public void testPollWatchesIncludedFiles() throws IOException {
+        File docs = new File(dir, "docs");
+        assertTrue(docs.mkdir());
+        File include = new File(docs, "include.adoc");
+        File nested = new File(docs, "nested.adoc");
+        File unrelated = new File(dir, "unrelated.adoc");
+        Files.write("/**\n * Example\n *\n * include::docs/include.adoc[]\n */\nclass Example {}", source, Charsets.UTF_8);
+        Files.write("include::nested.adoc[]\n", include, Charsets.UTF_8);
+        DocletWatcher watcher = new DocletWatcher(new DocletOptions(new String[][]{{DocletOptions.INCLUDE_BASEDIR, dir.getPath()}}),
+                mockRootDoc);
+
+        assertEquals(ImmutableSet.of(source, include, nested), watcher.watched());
+        Files.write("nested", nested, Charsets.UTF_8);
+        Files.write("unrelated", unrelated, Charsets.UTF_8);
+
+        assertEquals(ImmutableSet.of(nested), watcher.poll());
+        assertTrue(include.delete());
+        assertEquals(ImmutableSet.of(include), watcher.poll());
+        assertEquals(ImmutableSet.of(source, include), watcher.watched());
+    }
+
+    @Test
+    public void testPollFollowsNewIncludes() throws IOException {
+        File include = new File(dir, "include.adoc");
+        Files.write("include", include, Charsets.UTF_8);
+        DocletWatcher watcher = new DocletWatcher(new DocletOptions(new String[][]{{DocletOptions.INCLUDE_BASEDIR, dir.getPath()}}),
+                mockRootDoc);
+        assertEquals(ImmutableSet.of(source), watcher.watched());
+
+        Files.write("/** include::include.adoc[] */ class Example {}", source, Charsets.UTF_8);
+
+        assertEquals(ImmutableSet.of(source), watcher.poll());
+        assertEquals(ImmutableSet.of(source, include), watcher.watched());
+        Files.write("include changed", include, Charsets.UTF_8);
+        assertEquals(ImmutableSet.of(include), watcher.poll());
+    }
+
+    @Test
+    public void testAffectedPackages() throws IOException {
+        File include = new File(dir, "include.adoc");
+        File overview = new File(dir, "overview.adoc");
+        File unnamed = new File(dir, "Unnamed.java");
+        Files.write("/** include::include.adoc[] */ class Example {}", source, Charsets.UTF_8);
+        Files.write("include", include, Charsets.UTF_8);
+        Files.write("overview", overview, Charsets.UTF_8);
+        Files.write("class Unnamed {}", unnamed, Charsets.UTF_8);
+        ClassDoc[] classDocs = {classDoc(source, "com.example"), classDoc(unnamed, "")};
+        when(mockRootDoc.classes()).thenReturn(classDocs);
+        DocletWatcher watcher = new DocletWatcher(new DocletOptions(new String[][]{{DocletOptions.INCLUDE_BASEDIR, dir.getPath()},
+                {DocletOptions.OVERVIEW, overview.getPath()}}), mockRootDoc);
+
+        assertEquals(Optional.of(ImmutableSet.of("com.example")), watcher.affectedPackages(ImmutableSet.of(source)));
+        assertEquals(Optional.of(ImmutableSet.of("com.example")), watcher.affectedPackages(ImmutableSet.of(include)));
+        assertFalse(watcher.affectedPackages(ImmutableSet.of(overview)).isPresent());
+        assertFalse(watcher.affectedPackages(ImmutableSet.of(unnamed)).isPresent());
+        assertFalse(watcher.affectedPackages(ImmutableSet.of(new File(dir, "Removed.java"))).isPresent());
+    }
+
+    @Test
+    public void testRegeneratesChangedPackage() throws IOException {
+        File sources = folder.newFolder("src");
+        File example = new File(sources, "com/example/Example.java");
+        File other = new File(sources, "com/other/Other.java");
+        write(example, "package com.example;\n/** An _example_, see {@link com.other.Other}. */\npublic class Example {}\n");
+        write(other, "package com.other;\n/** Another class. */\npublic class Other {}\n");
+        File destDir = new File(dir, "docs");
+        String[][] options = {{"-sourcepath", sources.getPath()}, {DocletOptions.DESTDIR, destDir.getPath()},
+                {DocletOptions.NOTIMESTAMP}, {DocletOptions.INCLUDE_BASEDIR, sources.getPath()}, {"-quiet"}};
+        JavadocLauncher launcher = new JavadocLauncher(Asciidoclet.class);
+        assertEquals(0, launcher.execute(Arrays.asList("-sourcepath", sources.getPath(), "-d", destDir.getPath(),
+                DocletOptions.NOTIMESTAMP, DocletOptions.INCLUDE_BASEDIR, sources.getPath(), "-quiet", "com.example", "com.other")));
+        when(mockRootDoc.options()).thenReturn(options);
+        ClassDoc[] classDocs = {classDoc(example, "com.example"), classDoc(other, "com.other")};
+        when(mockRootDoc.classes()).thenReturn(classDocs);
+        DocletWatcher watcher = new DocletWatcher(new DocletOptions(options), mockRootDoc);
+        File otherPage = new File(destDir, "com/other/Other.html");
+        File overviewPage = new File(destDir, "overview-summary.html");
+        assertTrue(otherPage.setLastModified(1000000000000L));
+        assertTrue(overviewPage.setLastModified(1000000000000L));
+
+        write(example, "package com.example;\n/** A _changed_ example, see {@link com.other.Other}. */\npublic class Example {}\n");
+        assertTrue(watcher.regenerate(ImmutableSet.of(example), launcher));
+
+        String page = Files.toString(new File(destDir, "com/example/Example.html"), Charsets.UTF_8);
+        assertTrue(page.contains("<em>changed</em>"));
+        assertTrue(page.contains("com/other/Other.html"));
+        assertEquals(1000000000000L, otherPage.lastModified());
+        assertEquals(1000000000000L, overviewPage.lastModified());
+        assertFalse(new File(dir, ".docs.watch").exists());
+        verify(mockRootDoc).printNotice(startsWith("Regenerated package com.example in "));
+    }
+
+    @Test
+    public void testPackageArguments() {
+        when(mockRootDoc.options()).thenReturn(new String[][]{{DocletOptions.WATCH}, {"-d", "out"}, {"-subpackages", "com"},
+                {"-use"}, {DocletOptions.OVERVIEW, "overview.adoc"}});
+
+        List<String> args = DocletWatcher.packageArguments(mockRootDoc, new File(".out.watch"), new File("out"),
+                ImmutableSet.of("com.example"));
+
+        assertEquals(Arrays.asList(DocletOptions.WATCHING, DocletOptions.WATCH, "-d", ".out.watch", "-noindex",
+                "-linkoffline", ".", "out", "com.example"), args);
+    }
+
+    private static void write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        Files.write(content, file, Charsets.UTF_8);
+    }
+
+    @Test
+    public void testRerunsAreMarked() {
+        when(mockRootDoc.options()).thenReturn(new String[][]{{DocletOptions.WATCHING}, {DocletOptions.WATCH}, {"-d", "out"}});
+        when(mockRootDoc.specifiedClasses()).thenReturn(new ClassDoc[0]);
+
+        List<String> args = DocletWatcher.arguments(mockRootDoc);
+
+        assertEquals(Arrays.asList(DocletOptions.WATCHING, DocletOptions.WATCH, "-d", "out"), args);
+        assertTrue(new DocletOptions(new String[][]{{args.get(0)}}).watching());
+    }
+}
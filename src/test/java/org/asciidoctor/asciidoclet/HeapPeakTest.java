@@ -0,0 +1,27 @@
+package org.asciidoctor.asciidoclet;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HeapPeakTest {
+
+    private static final long MB = 1024 * 1024;
+
+    @Test
+    public void testPeakIsMeasured() {
+        HeapPeak heap = HeapPeak.start();
+        byte[] allocation = new byte[4 * (int) MB];
+
+        assertTrue(heap.next() >= allocation.length);
+    }
+
+    @Test
+    public void testReport() {
+        assertEquals("Peak heap 300 MB while rendering comments, 120 MB while generating HTML (-180 MB)",
+                HeapPeak.report(300 * MB, 120 * MB));
+        assertEquals("Peak heap 100 MB while rendering comments, 120 MB while generating HTML (+20 MB)",
+                HeapPeak.report(100 * MB, 120 * MB));
+    }
+}
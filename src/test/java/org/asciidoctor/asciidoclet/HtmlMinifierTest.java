@@ -0,0 +1,52 @@
+package org.asciidoctor.asciidoclet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class HtmlMinifierTest {
+
+    private HtmlMinifier minifier;
+
+    @Before
+    public void setup() {
+        minifier = new HtmlMinifier();
+    }
+
+    @Test
+    public void testCollapseWhitespace() {
+        assertEquals("<p>Some <em>emphasized</em> <strong>text</strong> here</p><p>next</p>",
+                minifier.minify("\n<p>Some  <em>emphasized</em>\n<strong>text</strong>\n   here</p>\n\n<p>next</p>\n"));
+    }
+
+    @Test
+    public void testPreAndCodeUnchanged() {
+        String listing = "<pre class=\"highlight\"><code class=\"java\">  int x;\n\n  @Foo  </code></pre>";
+        assertEquals("<div class=\"content\">" + listing + "</div>",
+                minifier.minify("<div class=\"content\">\n" + listing + "\n</div>"));
+        assertEquals("<p>call <code>a(  b )</code> now</p>", minifier.minify("<p>call <code>a(  b )</code>\nnow</p>"));
+    }
+
+    @Test
+    public void testRemoveEmptyWrappers() {
+        assertEquals("<p>text</p>", minifier.minify("<div class=\"sect1\">\n<div class=\"sectionbody\">\n</div>\n</div>\n<p>text</p>"));
+        assertEquals("<div id=\"anchor\"></div>", minifier.minify("<div id=\"anchor\">\n</div>"));
+        assertEquals("<div class=\"paragraph\"><p>text</p></div>", minifier.minify("<div class=\"paragraph\">\n<p>text</p>\n</div>"));
+    }
+
+    @Test
+    public void testRemoveEmptyAttributes() {
+        assertEquals("<p>text</p><a href=\"x\">link</a>", minifier.minify("<p class=\"\" id=''>text</p><a\n   href=\"x\"  title=\"\">link</a>"));
+        assertEquals("<p class=xx>text</p><p class=ab>text</p>", minifier.minify("<p class=xx>text</p><p class=ab>text</p>"));
+    }
+
+    @Test
+    public void testReportSaved() {
+        minifier.minify("<p>a</p>\n\n");
+        minifier.minify("  <p>b</p>");
+
+        assertEquals(20, minifier.inputLength());
+        assertEquals(4, minifier.saved());
+    }
+}
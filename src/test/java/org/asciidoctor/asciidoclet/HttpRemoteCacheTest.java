@@ -0,0 +1,103 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.sun.javadoc.DocErrorReporter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class HttpRemoteCacheTest {
+
+    private static final String KEY = RenderCache.key("options", false, "Foo");
+    private static final String OTHER_KEY = RenderCache.key("options", true, "Bar");
+
+    private DocErrorReporter mockErrorReporter;
+    private RenderCache cache;
+    private RenderCacheServer server;
+
+    @Before
+    public void setup() throws IOException {
+        mockErrorReporter = mock(DocErrorReporter.class);
+        cache = new RenderCache();
+        server = new RenderCacheServer(new InetSocketAddress("localhost", 0), cache);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testStoreAndLookup() {
+        HttpRemoteCache remote = new HttpRemoteCache("http://localhost:" + server.port(), mockErrorReporter);
+        remote.store(KEY, "<p>Foo</p>");
+        remote.store(OTHER_KEY, "");
+        remote.close();
+
+        assertEquals(2, remote.stored());
+        assertEquals(ImmutableMap.of(KEY, "<p>Foo</p>", OTHER_KEY, ""),
+                remote.lookup(ImmutableList.of(KEY, OTHER_KEY, RenderCache.key("options", false, "Baz"))));
+        verifyZeroInteractions(mockErrorReporter);
+    }
+
+    @Test
+    public void testLookupIsBatched() {
+        List<String> keys = new ArrayList<String>();
+        for (int i = 0; i < HttpRemoteCache.MAX_BATCH_KEYS * 2 + 1; i++) {
+            String key = RenderCache.key("options", false, "Foo " + i);
+            cache.put(key, "<p>Foo " + i + "</p>");
+            keys.add(key);
+        }
+        HttpRemoteCache remote = new HttpRemoteCache("http://localhost:" + server.port() + "/", mockErrorReporter);
+
+        Map<String, String> outputs = remote.lookup(keys);
+
+        assertEquals(keys.size(), outputs.size());
+        assertEquals("<p>Foo 200</p>", outputs.get(keys.get(200)));
+    }
+
+    @Test
+    public void testUnavailableCacheFindsNothing() throws IOException {
+        ServerSocket closed = new ServerSocket(0);
+        int port = closed.getLocalPort();
+        closed.close();
+        HttpRemoteCache remote = new HttpRemoteCache("http://localhost:" + port + "/", mockErrorReporter);
+
+        assertTrue(remote.lookup(ImmutableList.of(KEY)).isEmpty());
+        assertTrue(remote.lookup(ImmutableList.of(KEY)).isEmpty());
+        remote.store(KEY, "<p>Foo</p>");
+        remote.close();
+
+        assertFalse(remote.isAvailable());
+        assertEquals(0, remote.stored());
+        verify(mockErrorReporter, times(1)).printWarning(startsWith("Rendering locally"));
+    }
+
+    @Test
+    public void testEntries() throws IOException {
+        Map<String, String> outputs = ImmutableMap.of(KEY, "<p>Foo\n\u2713</p>", OTHER_KEY, "");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        HttpRemoteCache.writeEntries(outputs, out);
+
+        assertEquals(outputs, HttpRemoteCache.readEntries(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    @Test(expected = IOException.class)
+    public void testMalformedEntries() throws IOException {
+        HttpRemoteCache.readEntries(new ByteArrayInputStream((KEY + " 20\n<p>Foo</p>").getBytes("UTF-8")));
+    }
+}
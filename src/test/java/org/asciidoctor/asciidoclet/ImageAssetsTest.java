@@ -0,0 +1,81 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.sun.javadoc.DocErrorReporter;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class ImageAssetsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private DocErrorReporter mockErrorReporter;
+    private ImageAssets assets;
+    private File destDir;
+    private String asset;
+
+    @Before
+    public void setup() throws IOException {
+        File baseDir = folder.newFolder("src");
+        destDir = folder.newFolder("docs");
+        new File(baseDir, "images").mkdir();
+        Files.write("diagram", new File(baseDir, "images/diagram.PNG"), Charsets.UTF_8);
+        Files.write("diagram", new File(baseDir, "copy.png"), Charsets.UTF_8);
+        asset = Hashing.sha1().hashString("diagram", Charsets.UTF_8) + ".png";
+        mockErrorReporter = mock(DocErrorReporter.class);
+        assets = new ImageAssets(baseDir, mockErrorReporter);
+    }
+
+    @Test
+    public void testRewrite() {
+        String html = assets.rewrite("<div class=\"imageblock\"><img src=\"images/diagram.PNG\" alt=\"diagram\"></div>"
+                + "<span class=\"image\"><img src=\"copy.png\" alt=\"copy\"></span>");
+
+        assertEquals("<div class=\"imageblock\"><img src=\"{@docRoot}/images/" + asset + "\" alt=\"diagram\"></div>"
+                + "<span class=\"image\"><img src=\"{@docRoot}/images/" + asset + "\" alt=\"copy\"></span>", html);
+    }
+
+    @Test
+    public void testExternalAndMissingImages() {
+        String html = "<img src=\"http://example.com/a.png\"><img src=\"/a.png\"><img src=\"data:image/png;base64,AA\">";
+        assertEquals(html, assets.rewrite(html));
+        assertEquals("<img src=\"missing.png\">", assets.rewrite("<img src=\"missing.png\">"));
+        verify(mockErrorReporter).printWarning(contains("missing.png"));
+    }
+
+    @Test
+    public void testCopiesEachImageOnce() throws IOException {
+        assets.rewrite("<img src=\"images/diagram.PNG\"><img src=\"copy.png\">");
+
+        assertTrue(assets.copy(destDir));
+        assertEquals("diagram", Files.toString(new File(destDir, "images/" + asset), Charsets.UTF_8));
+        verify(mockErrorReporter).printNotice(startsWith("Copied 1 of 1 referenced images"));
+
+        assertTrue(assets.copy(destDir));
+        verify(mockErrorReporter).printNotice(startsWith("Copied 0 of 1 referenced images"));
+    }
+
+    @Test
+    public void testReplacesChangedImageOfSameSize() throws IOException {
+        assets.rewrite("<img src=\"copy.png\">");
+        File target = new File(destDir, "images/" + asset);
+        target.getParentFile().mkdirs();
+        Files.write("DIAGRAM", target, Charsets.UTF_8);
+
+        assertTrue(assets.copy(destDir));
+
+        assertEquals("diagram", Files.toString(target, Charsets.UTF_8));
+        verify(mockErrorReporter).printNotice(startsWith("Copied 1 of 1 referenced images"));
+    }
+}
@@ -0,0 +1,65 @@
+package org.asciidoctor.asciidoclet;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class JavadocCommentTest {
+
+    @Test
+    public void testBodyOnly() {
+        JavadocComment comment = JavadocComment.parse(" First line.\n\n Second paragraph.");
+
+        assertEquals(" First line.\n\n Second paragraph.", comment.body());
+        assertEquals(0, comment.tags().size());
+    }
+
+    @Test
+    public void testBlockTags() {
+        JavadocComment comment = JavadocComment.parse(" Body.\n\n @param name the\n  name\n @return value\n");
+
+        assertEquals(" Body.\n", comment.body());
+        assertEquals(2, comment.tags().size());
+        assertEquals("@param", comment.tags().get(0).name());
+        assertEquals("name the\n  name", comment.tags().get(0).text());
+        assertEquals("@return", comment.tags().get(1).name());
+        assertEquals("value", comment.tags().get(1).text());
+    }
+
+    @Test
+    public void testAnnotationsAreNotTags() {
+        JavadocComment comment = JavadocComment.parse(" @Deprecated is not a tag\n @since 0.1");
+
+        assertEquals(" @Deprecated is not a tag", comment.body());
+        assertEquals(1, comment.tags().size());
+        assertEquals("@since", comment.tags().get(0).name());
+    }
+
+    @Test
+    public void testTagsInDelimitedBlocks() {
+        String listing = " [source,java]\n ----\n @author not a tag\n ----\n --\n @see not a tag\n --";
+        JavadocComment comment = JavadocComment.parse(listing + "\n @see Foo");
+
+        assertEquals(listing, comment.body());
+        assertEquals(1, comment.tags().size());
+        assertEquals("Foo", comment.tags().get(0).text());
+    }
+
+    @Test
+    public void testTagsInFencedCodeBlocks() {
+        String listing = " ```java\n @interface Foo {}\n @see not a tag\n ```\n ~~~\n @return not a tag\n ~~~";
+        JavadocComment comment = JavadocComment.parse(listing + "\n @see Foo");
+
+        assertEquals(listing, comment.body());
+        assertEquals(1, comment.tags().size());
+        assertEquals("Foo", comment.tags().get(0).text());
+    }
+
+    @Test
+    public void testEmptyComment() {
+        JavadocComment comment = JavadocComment.parse("");
+
+        assertEquals("", comment.body());
+        assertEquals(0, comment.tags().size());
+    }
+}
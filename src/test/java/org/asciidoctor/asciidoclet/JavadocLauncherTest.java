@@ -0,0 +1,42 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.collect.ImmutableList;
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.PackageDoc;
+import com.sun.javadoc.RootDoc;
+import com.sun.javadoc.SourcePosition;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class JavadocLauncherTest {
+
+    @Test
+    public void testArguments() {
+        RootDoc mockRootDoc = mock(RootDoc.class);
+        PackageDoc mockPackageDoc = mock(PackageDoc.class);
+        ClassDoc mockClassDoc = mock(ClassDoc.class);
+        SourcePosition mockPosition = mock(SourcePosition.class);
+        when(mockRootDoc.options()).thenReturn(new String[][]{
+                {"-doclet", "org.asciidoctor.Asciidoclet"},
+                {"-docletpath", "lib"},
+                {"-d", "target"},
+                {"-doclet", "org.asciidoctor.Asciidoclet"},
+                {"-docletpath", "lib"},
+                {DocletOptions.WATCH}});
+        when(mockRootDoc.specifiedPackages()).thenReturn(new PackageDoc[]{mockPackageDoc});
+        when(mockRootDoc.specifiedClasses()).thenReturn(new ClassDoc[]{mockClassDoc});
+        when(mockPackageDoc.name()).thenReturn("org.example");
+        when(mockClassDoc.position()).thenReturn(mockPosition);
+        when(mockPosition.file()).thenReturn(new File("Example.java"));
+
+        assertEquals(ImmutableList.of("-docletpath", "lib", "-d", "target", "org.example", "Example.java"),
+                JavadocLauncher.arguments(mockRootDoc, DocletOptions.WATCH));
+        assertEquals(ImmutableList.of("-docletpath", "lib", "-d", "target"),
+                JavadocLauncher.options(mockRootDoc, DocletOptions.WATCH));
+    }
+}
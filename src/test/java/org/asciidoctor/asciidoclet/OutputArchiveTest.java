@@ -0,0 +1,119 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import com.sun.javadoc.DocErrorReporter;
+import com.sun.javadoc.RootDoc;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class OutputArchiveTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private DocErrorReporter mockErrorReporter;
+    private RootDoc mockRootDoc;
+    private String[] destDirOption;
+    private File destDir;
+    private File archive;
+
+    @Before
+    public void setup() {
+        destDir = new File(folder.getRoot(), "docs");
+        archive = new File(folder.getRoot(), "dist/docs.jar");
+        destDirOption = new String[]{DocletOptions.DESTDIR, destDir.getPath()};
+        mockErrorReporter = mock(DocErrorReporter.class);
+        mockRootDoc = mock(RootDoc.class);
+        when(mockRootDoc.options()).thenReturn(new String[][]{destDirOption});
+    }
+
+    @Test
+    public void testArchive() throws IOException {
+        OutputArchive output = run();
+
+        assertEquals(EXPECTED_ENTRIES, entries());
+        assertFalse(output.stagingDir().exists());
+        assertFalse(destDir.exists());
+        assertEquals(destDir.getPath(), destDirOption[1]);
+        verify(mockErrorReporter).printNotice("Archived 4 files to " + archive.getAbsolutePath());
+    }
+
+    @Test
+    public void testDeterministic() throws IOException {
+        run();
+        byte[] first = Files.toByteArray(archive);
+        run();
+
+        assertArrayEquals(first, Files.toByteArray(archive));
+    }
+
+    @Test
+    public void testArchivesDestDirWithoutRedirect() throws IOException {
+        new File(destDir, "pkg").mkdirs();
+        Files.write("page", new File(destDir, "pkg/A.html"), Charsets.UTF_8);
+        OutputArchive output = new OutputArchive(archive, destDir, new File(folder.getRoot(), "staging"), mockErrorReporter);
+
+        assertTrue(output.publish());
+
+        assertEquals(ImmutableList.of("pkg/", "pkg/A.html"), entries());
+    }
+
+    private OutputArchive run() throws IOException {
+        OutputArchive output = new OutputArchive(archive, destDir, new File(folder.getRoot(), "staging"), mockErrorReporter);
+        assertTrue(output.redirect(mockRootDoc));
+        try {
+            write(output.stagingDir(), "stylesheet.css", "b/B.html", "a/A.html", "a/b/C.html");
+            assertTrue(output.publish());
+        } finally {
+            output.restore();
+        }
+        return output;
+    }
+
+    private void write(File dir, String... paths) throws IOException {
+        for (String path : paths) {
+            File file = new File(dir, path);
+            file.getParentFile().mkdirs();
+            Files.write(path, file, Charsets.UTF_8);
+        }
+    }
+
+    private List<String> entries() throws IOException {
+        ZipFile zip = new ZipFile(archive);
+        try {
+            List<String> entries = new ArrayList<String>();
+            for (ZipEntry entry : Collections.list(zip.entries())) {
+                Calendar time = Calendar.getInstance();
+                time.setTimeInMillis(entry.getTime());
+                assertEquals(1980, time.get(Calendar.YEAR));
+                assertEquals(Calendar.JANUARY, time.get(Calendar.MONTH));
+                assertEquals(1, time.get(Calendar.DAY_OF_MONTH));
+                assertEquals(0, time.get(Calendar.HOUR_OF_DAY));
+                entries.add(entry.getName());
+            }
+            return entries;
+        } finally {
+            zip.close();
+        }
+    }
+
+    private static final List<String> EXPECTED_ENTRIES =
+            ImmutableList.of("a/", "a/A.html", "a/b/", "a/b/C.html", "b/", "b/B.html", "stylesheet.css");
+
+}
@@ -0,0 +1,161 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.io.Files;
+import com.sun.javadoc.DocErrorReporter;
+import com.sun.javadoc.RootDoc;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class OutputSyncTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private DocErrorReporter mockErrorReporter;
+    private RootDoc mockRootDoc;
+    private String[] destDirOption;
+    private File destDir;
+
+    @Before
+    public void setup() {
+        destDir = new File(folder.getRoot(), "docs");
+        destDirOption = new String[]{DocletOptions.DESTDIR, destDir.getPath()};
+        mockErrorReporter = mock(DocErrorReporter.class);
+        mockRootDoc = mock(RootDoc.class);
+        when(mockRootDoc.options()).thenReturn(new String[][]{destDirOption});
+    }
+
+    @Test
+    public void testRedirect() {
+        OutputSync sync = new OutputSync(destDir, mockErrorReporter);
+
+        assertTrue(sync.redirect(mockRootDoc));
+        assertEquals(Optional.of(sync.stagingDir()), new DocletOptions(mockRootDoc).destDir());
+        assertTrue(sync.stagingDir().isDirectory());
+
+        sync.restore();
+        assertEquals(destDir.getPath(), destDirOption[1]);
+        assertFalse(sync.stagingDir().exists());
+    }
+
+    @Test
+    public void testNoRedirectWithoutDestDir() {
+        when(mockRootDoc.options()).thenReturn(new String[0][]);
+
+        assertFalse(new OutputSync(destDir, mockErrorReporter).redirect(mockRootDoc));
+    }
+
+    @Test
+    public void testNoRedirectOfCopiedOptions() {
+        when(mockRootDoc.options()).thenAnswer(new Answer<String[][]>() {
+            @Override
+            public String[][] answer(InvocationOnMock invocation) {
+                return new String[][]{destDirOption.clone()};
+            }
+        });
+        OutputSync sync = new OutputSync(destDir, mockErrorReporter);
+
+        assertFalse(sync.redirect(mockRootDoc));
+
+        verify(mockErrorReporter).printWarning(startsWith("Cannot redirect the output"));
+        assertFalse(sync.stagingDir().exists());
+        assertEquals(destDir.getPath(), destDirOption[1]);
+    }
+
+    @Test
+    public void testSync() throws IOException {
+        run("a.html", "first", "pkg/b.html", "unchanged");
+        verify(mockErrorReporter).printNotice(endsWith("2 changed, 0 unchanged, 0 stale files removed"));
+        File unchanged = new File(destDir, "pkg/b.html");
+        assertTrue(unchanged.setLastModified(1000000000000L));
+
+        run("a.html", "second", "pkg/b.html", "unchanged");
+        verify(mockErrorReporter).printNotice(endsWith("1 changed, 1 unchanged, 0 stale files removed"));
+        assertEquals("second", Files.toString(new File(destDir, "a.html"), Charsets.UTF_8));
+        assertEquals(1000000000000L, unchanged.lastModified());
+
+        run("a.html", "second");
+        verify(mockErrorReporter).printNotice(endsWith("0 changed, 1 unchanged, 1 stale files removed"));
+        assertFalse(new File(destDir, "pkg").exists());
+    }
+
+    @Test
+    public void testRepairsEditedFiles() throws IOException {
+        run("a.html", "generated", "b.html", "generated");
+        File resized = new File(destDir, "a.html");
+        File touched = new File(destDir, "b.html");
+        Files.write("edited by hand", resized, Charsets.UTF_8);
+        Files.write("GENERATED", touched, Charsets.UTF_8);
+        assertTrue(touched.setLastModified(1000000000000L));
+
+        run("a.html", "generated", "b.html", "generated");
+
+        verify(mockErrorReporter, times(2)).printNotice(endsWith("2 changed, 0 unchanged, 0 stale files removed"));
+        assertEquals("generated", Files.toString(resized, Charsets.UTF_8));
+        assertEquals("generated", Files.toString(touched, Charsets.UTF_8));
+    }
+
+    @Test
+    public void testMoveAcrossDirectories() throws IOException {
+        File staged = folder.newFile("staged.html");
+        Files.write("new", staged, Charsets.UTF_8);
+        File target = new File(destDir, "pkg/a.html");
+
+        OutputSync.move(staged, target);
+
+        assertEquals("new", Files.toString(target, Charsets.UTF_8));
+        assertEquals(Arrays.asList("a.html"), Arrays.asList(target.getParentFile().list()));
+    }
+
+    @Test
+    public void testLeavesOtherFiles() throws IOException {
+        destDir.mkdirs();
+        Files.write("mine", new File(destDir, "notes.txt"), Charsets.UTF_8);
+
+        run("a.html", "first");
+        run("b.html", "first");
+
+        assertTrue(new File(destDir, "notes.txt").isFile());
+        assertFalse(new File(destDir, "a.html").exists());
+    }
+
+    @Test
+    public void testHashIgnoresGenerationTime() throws IOException {
+        File first = folder.newFile("first.html");
+        File second = folder.newFile("second.html");
+        Files.write("<!-- Generated by javadoc (1.8.0_392) on Sun Oct 18 10:00:00 UTC 2026 -->\n"
+                + "<meta name=\"date\" content=\"2026-10-18\">\n<p>x</p>", first, Charsets.UTF_8);
+        Files.write("<!-- Generated by javadoc (1.8.0_392) on Mon Oct 19 11:00:00 UTC 2026 -->\n"
+                + "<meta name=\"date\" content=\"2026-10-19\">\n<p>x</p>", second, Charsets.UTF_8);
+
+        assertEquals(OutputSync.hash(first), OutputSync.hash(second));
+    }
+
+    private void run(String... files) throws IOException {
+        OutputSync sync = new OutputSync(destDir, mockErrorReporter);
+        assertTrue(sync.redirect(mockRootDoc));
+        try {
+            for (int i = 0; i < files.length; i += 2) {
+                File file = new File(sync.stagingDir(), files[i]);
+                file.getParentFile().mkdirs();
+                Files.write(files[i + 1], file, Charsets.UTF_8);
+            }
+            assertTrue(sync.publish());
+        } finally {
+            sync.restore();
+        }
+    }
+}
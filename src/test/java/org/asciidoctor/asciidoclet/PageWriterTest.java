@@ -0,0 +1,431 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+import com.sun.javadoc.*;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.net.URI;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.*;
+
+public class PageWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private DocErrorReporter mockErrorReporter;
+    private RootDoc mockRootDoc;
+    private File destDir;
+
+    @Before
+    public void setup() throws IOException {
+        destDir = folder.newFolder("docs");
+        mockErrorReporter = mock(DocErrorReporter.class);
+        mockRootDoc = mock(RootDoc.class);
+        when(mockRootDoc.classes()).thenReturn(new ClassDoc[0]);
+        when(mockRootDoc.inlineTags()).thenReturn(new Tag[0]);
+        when(mockRootDoc.firstSentenceTags()).thenReturn(new Tag[0]);
+        optOut(new String[]{DocletOptions.DESTDIR, destDir.getPath()});
+    }
+
+    @Test
+    public void testWritesPages() throws IOException {
+        PageWriter writer = new PageWriter(new DocletOptions(mockRootDoc), mockErrorReporter, 2);
+
+        assertEquals(Optional.<String>absent(), writer.prepare(mockRootDoc));
+        assertTrue(writer.write());
+
+        for (String page : new String[]{"overview-summary.html", "overview-frame.html", "allclasses-frame.html",
+                "allclasses-noframe.html", "constant-values.html"}) {
+            String html = Files.toString(new File(destDir, page), Charsets.UTF_8);
+            assertTrue(page, html.contains("<link rel=\"stylesheet\" type=\"text/css\" href=\"stylesheet.css\""));
+        }
+        assertContains(Files.toString(new File(destDir, "index.html"), Charsets.UTF_8),
+                "<frame src=\"overview-summary.html\" name=\"classFrame\"");
+        assertTrue(new File(destDir, "package-list").isFile());
+        verify(mockErrorReporter).printNotice("Wrote 6 pages on 2 threads");
+    }
+
+    @Test
+    public void testWritesClassPage() throws IOException {
+        PackageDoc mockPackageDoc = mock(PackageDoc.class, EMPTY);
+        ClassDoc mockClassDoc = mock(ClassDoc.class, EMPTY);
+        when(mockPackageDoc.name()).thenReturn("com.example");
+        when(mockPackageDoc.allClasses()).thenReturn(new ClassDoc[]{mockClassDoc});
+        when(mockClassDoc.name()).thenReturn("Example");
+        when(mockClassDoc.simpleTypeName()).thenReturn("Example");
+        when(mockClassDoc.qualifiedName()).thenReturn("com.example.Example");
+        when(mockClassDoc.modifiers()).thenReturn("public");
+        when(mockClassDoc.containingPackage()).thenReturn(mockPackageDoc);
+        when(mockClassDoc.isIncluded()).thenReturn(true);
+        when(mockClassDoc.asClassDoc()).thenReturn(mockClassDoc);
+        doReturn(text("<p>An example.</p>")).when(mockClassDoc).inlineTags();
+        doReturn(text("An example.")).when(mockClassDoc).firstSentenceTags();
+        when(mockRootDoc.classes()).thenReturn(new ClassDoc[]{mockClassDoc});
+
+        Type intType = mock(Type.class, EMPTY);
+        when(intType.isPrimitive()).thenReturn(true);
+        when(intType.typeName()).thenReturn("int");
+        Type stringType = type("java.lang.String");
+        Type exceptionType = type("java.io.IOException");
+
+        FieldDoc field = member(FieldDoc.class, mockClassDoc, "count", "public static final");
+        when(field.type()).thenReturn(intType);
+        when(field.constantValueExpression()).thenReturn("1");
+
+        ConstructorDoc constructor = member(ConstructorDoc.class, mockClassDoc, "Example", "public");
+        when(constructor.isConstructor()).thenReturn(true);
+
+        MethodDoc method = member(MethodDoc.class, mockClassDoc, "parse", "public");
+        Parameter parameter = mock(Parameter.class, EMPTY);
+        when(parameter.name()).thenReturn("input");
+        when(parameter.type()).thenReturn(stringType);
+        ParamTag paramTag = mock(ParamTag.class, EMPTY);
+        when(paramTag.parameterName()).thenReturn("input");
+        doReturn(text("the input")).when(paramTag).inlineTags();
+        Tag returnTag = mock(Tag.class, EMPTY);
+        doReturn(text("the result")).when(returnTag).inlineTags();
+        ThrowsTag throwsTag = mock(ThrowsTag.class, EMPTY);
+        when(throwsTag.exceptionType()).thenReturn(exceptionType);
+        doReturn(text("if it fails")).when(throwsTag).inlineTags();
+        SeeTag seeTag = mock(SeeTag.class, EMPTY);
+        when(seeTag.text()).thenReturn("#count");
+        when(seeTag.referencedClass()).thenReturn(mockClassDoc);
+        when(seeTag.referencedMember()).thenReturn(field);
+        when(method.returnType()).thenReturn(stringType);
+        when(method.parameters()).thenReturn(new Parameter[]{parameter});
+        when(method.paramTags()).thenReturn(new ParamTag[]{paramTag});
+        when(method.tags("@return")).thenReturn(new Tag[]{returnTag});
+        when(method.throwsTags()).thenReturn(new ThrowsTag[]{throwsTag});
+        when(method.thrownExceptionTypes()).thenReturn(new Type[]{exceptionType});
+        when(method.seeTags()).thenReturn(new SeeTag[]{seeTag});
+
+        when(mockClassDoc.fields()).thenReturn(new FieldDoc[]{field});
+        when(mockClassDoc.constructors()).thenReturn(new ConstructorDoc[]{constructor});
+        when(mockClassDoc.methods()).thenReturn(new MethodDoc[]{method});
+        PageWriter writer = new PageWriter(new DocletOptions(mockRootDoc), mockErrorReporter, 1);
+
+        assertEquals(Optional.<String>absent(), writer.prepare(mockRootDoc));
+        assertTrue(writer.write());
+
+        String html = Files.toString(new File(destDir, "com/example/Example.html"), Charsets.UTF_8);
+        assertContains(html, "<link rel=\"stylesheet\" type=\"text/css\" href=\"../../stylesheet.css\" title=\"Style\">");
+        assertContains(html, "<div class=\"subTitle\">com.example</div>\n<h2 title=\"Class Example\" class=\"title\">Class Example</h2>");
+        assertContains(html, "<div class=\"description\">\n<ul class=\"blockList\">\n<li class=\"blockList\">\n<hr>\n<br>\n"
+                + "<pre>public class <span class=\"typeNameLabel\">Example</span></pre>\n<div class=\"block\"><p>An example.</p></div>\n");
+        assertContains(html, "<h3>Field Summary</h3>\n<table class=\"memberSummary\" border=\"0\" cellpadding=\"3\" cellspacing=\"0\" "
+                + "summary=\"Field Summary table\">\n<caption><span>Field Summary</span><span class=\"tabEnd\">&nbsp;</span></caption>\n"
+                + "<tr>\n<th class=\"colFirst\" scope=\"col\">Modifier and Type</th>\n<th class=\"colLast\" scope=\"col\">Field and Description</th>\n</tr>\n"
+                + "<tr class=\"altColor\">\n<td class=\"colFirst\"><code>static&nbsp;final&nbsp;int</code></td>\n"
+                + "<td class=\"colLast\"><code><span class=\"memberNameLink\"><a href=\"#count\">count</a></span></code>\n"
+                + "<div class=\"block\">The count.</div>\n</td>\n</tr>\n</table>");
+        assertContains(html, "<th class=\"colOne\" scope=\"col\">Constructor and Description</th>\n</tr>\n<tr class=\"altColor\">\n"
+                + "<td class=\"colOne\"><code><span class=\"memberNameLink\"><a href=\"#Example--\">Example</a></span>()</code>");
+        assertContains(html, "<td class=\"colFirst\"><code>java.lang.String</code></td>\n<td class=\"colLast\"><code><span class=\"memberNameLink\">"
+                + "<a href=\"#parse-java.lang.String-\">parse</a></span>(java.lang.String&nbsp;input)</code>");
+        assertContains(html, "<a name=\"field.detail\">\n<!--   -->\n</a>\n<h3>Field Detail</h3>\n<a name=\"count\">\n<!--   -->\n</a>\n"
+                + "<ul class=\"blockListLast\">\n<li class=\"blockList\">\n<h4>count</h4>\n"
+                + "<pre>public static final&nbsp;int count</pre>\n<div class=\"block\">The count.</div>\n"
+                + "<dl>\n<dt><span class=\"seeLabel\">See Also:</span></dt>\n"
+                + "<dd><a href=\"../../constant-values.html#com.example.Example.count\">Constant Field Values</a></dd>\n</dl>\n</li>\n</ul>");
+        assertContains(html, "<h4>parse</h4>\n<pre>public&nbsp;java.lang.String&nbsp;parse(java.lang.String&nbsp;input)\n"
+                + "                   throws java.io.IOException</pre>\n<div class=\"block\">The parse.</div>\n<dl>\n"
+                + "<dt><span class=\"paramLabel\">Parameters:</span></dt>\n<dd><code>input</code> - the input</dd>\n"
+                + "<dt><span class=\"returnLabel\">Returns:</span></dt>\n<dd>the result</dd>\n"
+                + "<dt><span class=\"throwsLabel\">Throws:</span></dt>\n<dd><code>java.io.IOException</code> - if it fails</dd>\n"
+                + "<dt><span class=\"seeLabel\">See Also:</span></dt>\n"
+                + "<dd><a href=\"../../com/example/Example.html#count\"><code>count</code></a></dd>\n</dl>\n");
+        assertContains(html, "<li><a href=\"package-summary.html\">Package</a></li>\n<li class=\"navBarCell1Rev\">Class</li>");
+
+        String packagePage = Files.toString(new File(destDir, "com/example/package-summary.html"), Charsets.UTF_8);
+        assertContains(packagePage, "<td class=\"colFirst\"><a href=\"../../com/example/Example.html\" title=\"class in com.example\">Example</a></td>\n"
+                + "<td class=\"colLast\">\n<div class=\"block\">An example.</div>\n</td>");
+
+        String constants = Files.toString(new File(destDir, "constant-values.html"), Charsets.UTF_8);
+        assertContains(constants, "<td class=\"colFirst\"><a name=\"com.example.Example.count\">\n<!--   -->\n</a>"
+                + "<code>public&nbsp;static&nbsp;final&nbsp;int</code></td>\n"
+                + "<td><code><a href=\"com/example/Example.html#count\">count</a></code></td>\n<td class=\"colLast\"><code>1</code></td>");
+
+        String stylesheet = Resources.toString(Resources.getResource("stylesheet8.css"), Charsets.UTF_8);
+        for (String page : new String[]{html, packagePage, constants}) {
+            for (String cssClass : cssClasses(page)) {
+                // the standard doclet does not style its summary section either
+                if (cssClass.equals("summary")) continue;
+                assertTrue("." + cssClass + " is not styled", Pattern.compile("\\." + cssClass + "\\b").matcher(stylesheet).find());
+            }
+        }
+    }
+
+    @Test
+    public void testPagesMatchStandardDoclet() throws IOException {
+        assumeTrue("1.8".equals(System.getProperty("java.specification.version")));
+        File sources = folder.newFolder("src");
+        write(sources, "demo/package-info.java", "/** Shapes and units. They are measured. */\npackage demo;\n");
+        write(sources, "demo/Shape.java", "package demo;\n/** A shape. */\npublic interface Shape {\n"
+                + "    /** The area.\n     * @return the area */\n    double area();\n}\n");
+        write(sources, "demo/Circle.java", "package demo;\n/** A circle. */\npublic class Circle implements Shape {\n"
+                + "    /** The default radius. */\n    public static final int DEFAULT_RADIUS = 1;\n"
+                + "    /** The radius. */\n    protected final double radius;\n"
+                + "    /** Creates a circle.\n     * @param radius the radius */\n    public Circle(double radius) { this.radius = radius; }\n"
+                + "    /** The area of the circle.\n     * @return the area */\n    public double area() { return Math.PI * radius * radius; }\n"
+                + "    /** Describes the circle. */\n    @Override\n    public String toString() { return \"circle\"; }\n"
+                + "    /** Builds circles. */\n    public static class Builder {\n    }\n}\n");
+        write(sources, "demo/Unit.java", "package demo;\n/** A unit. */\npublic enum Unit {\n"
+                + "    /** Meters. */\n    METER,\n    /** Feet. */\n    FOOT\n}\n");
+        write(sources, "demo/util/Sizes.java", "package demo.util;\nimport demo.Circle;\n"
+                + "/** Sizes of circles.\n * @param <T> the tag type */\npublic class Sizes<T> extends Circle {\n"
+                + "    /** The maximum. */\n    public static final String MAX = \"max\";\n"
+                + "    /** Creates sizes. */\n    public Sizes() { super(DEFAULT_RADIUS); }\n"
+                + "    /** Tags a value.\n     * @param <S> the value type\n     * @param value the value\n     * @return the value */\n"
+                + "    public <S> S tagged(S value) { return value; }\n}\n");
+
+        File standard = folder.newFolder("standard");
+        File written = folder.newFolder("written");
+        assertEquals(0, new JavadocLauncher(com.sun.tools.doclets.standard.Standard.class).execute(javadoc(sources, standard)));
+        assertEquals(0, new JavadocLauncher(WritingDoclet.class).execute(javadoc(sources, written)));
+
+        Set<String> pages = pages(standard);
+        assertEquals(pages, pages(written));
+        for (String page : pages) {
+            assertEquals(page, outline(standard, page), outline(written, page));
+        }
+    }
+
+    @Test
+    public void testMissingDestDir() {
+        options(new String[]{DocletOptions.ENCODING, "UTF-8"});
+
+        assertEquals(Optional.of("running without -d"),
+                new PageWriter(new DocletOptions(mockRootDoc), mockErrorReporter).prepare(mockRootDoc));
+    }
+
+    @Test
+    public void testMissingOptOut() {
+        options(new String[]{DocletOptions.DESTDIR, destDir.getPath()}, new String[]{"-notree"}, new String[]{"-noindex"});
+
+        assertEquals(Optional.of("running without -nohelp -nodeprecatedlist"),
+                new PageWriter(new DocletOptions(mockRootDoc), mockErrorReporter).prepare(mockRootDoc));
+    }
+
+    @Test
+    public void testUnsupportedOption() {
+        optOut(new String[]{DocletOptions.DESTDIR, destDir.getPath()}, new String[]{"-linksource"});
+
+        assertEquals(Optional.of("the -linksource option"),
+                new PageWriter(new DocletOptions(mockRootDoc), mockErrorReporter).prepare(mockRootDoc));
+    }
+
+    @Test
+    public void testUnsupportedInlineTag() {
+        Tag inheritDoc = mock(Tag.class);
+        when(inheritDoc.name()).thenReturn("@inheritDoc");
+        when(mockRootDoc.inlineTags()).thenReturn(new Tag[]{inheritDoc});
+
+        Optional<String> unsupported = new PageWriter(new DocletOptions(mockRootDoc), mockErrorReporter).prepare(mockRootDoc);
+
+        assertTrue(unsupported.get().startsWith("{@inheritDoc} tags"));
+    }
+
+    @Test
+    public void testValueTagInClassComment() {
+        PackageDoc mockPackageDoc = mock(PackageDoc.class, EMPTY);
+        ClassDoc mockClassDoc = mock(ClassDoc.class, EMPTY);
+        when(mockPackageDoc.name()).thenReturn("com.example");
+        when(mockPackageDoc.allClasses()).thenReturn(new ClassDoc[]{mockClassDoc});
+        when(mockClassDoc.name()).thenReturn("Example");
+        when(mockClassDoc.simpleTypeName()).thenReturn("Example");
+        when(mockClassDoc.qualifiedName()).thenReturn("com.example.Example");
+        when(mockClassDoc.containingPackage()).thenReturn(mockPackageDoc);
+        when(mockClassDoc.isIncluded()).thenReturn(true);
+        when(mockClassDoc.asClassDoc()).thenReturn(mockClassDoc);
+        Tag value = mock(Tag.class, EMPTY);
+        when(value.name()).thenReturn("@value");
+        doReturn(new Tag[]{value}).when(mockClassDoc).inlineTags();
+        when(mockRootDoc.classes()).thenReturn(new ClassDoc[]{mockClassDoc});
+
+        Optional<String> unsupported = new PageWriter(new DocletOptions(mockRootDoc), mockErrorReporter).prepare(mockRootDoc);
+
+        assertTrue(unsupported.get().startsWith("{@value} tags not referring to a constant"));
+    }
+
+    @Test
+    public void testWritesUnmappableCharactersAsReferences() throws IOException {
+        optOut(new String[]{DocletOptions.DESTDIR, destDir.getPath()}, new String[]{DocletOptions.ENCODING, "ISO-8859-1"});
+        doReturn(text("<p>Caf\u00e9 \u2713</p>")).when(mockRootDoc).inlineTags();
+        PageWriter writer = new PageWriter(new DocletOptions(mockRootDoc), mockErrorReporter);
+
+        assertEquals(Optional.<String>absent(), writer.prepare(mockRootDoc));
+        assertTrue(writer.write());
+
+        String html = Files.toString(new File(destDir, "overview-summary.html"), Charsets.ISO_8859_1);
+        assertContains(html, "<meta http-equiv=\"Content-Type\" content=\"text/html; charset=ISO-8859-1\">");
+        assertContains(html, "Caf\u00e9 &#10003;");
+    }
+
+    @Test
+    public void testEscape() {
+        assertEquals("List&lt;? extends T&gt; &amp; &quot;x&quot;", PageBuilder.escape("List<? extends T> & \"x\""));
+    }
+
+    private void options(String[]... options) {
+        when(mockRootDoc.options()).thenReturn(options);
+    }
+
+    /**
+     * Sets options, opting out of the pages the page writer does not generate.
+     */
+    private void optOut(String[]... options) {
+        List<String[]> all = new ArrayList<String[]>(Arrays.asList(options));
+        for (String option : PageWriter.REQUIRED_OPTIONS) all.add(new String[]{option});
+        options(all.toArray(new String[all.size()][]));
+    }
+
+    /**
+     * Runs the page writer as a doclet.
+     */
+    public static class WritingDoclet {
+        public static boolean start(RootDoc rootDoc) {
+            PageWriter writer = new PageWriter(new DocletOptions(rootDoc), rootDoc);
+            Optional<String> unsupported = writer.prepare(rootDoc);
+            if (unsupported.isPresent()) {
+                rootDoc.printError("Unsupported: " + unsupported.get());
+                return false;
+            }
+            return writer.write();
+        }
+
+        public static int optionLength(String option) {
+            return com.sun.tools.doclets.standard.Standard.optionLength(option);
+        }
+
+        public static LanguageVersion languageVersion() {
+            return LanguageVersion.JAVA_1_5;
+        }
+    }
+
+    private static final Pattern OUTLINE = Pattern.compile(
+            "<a name=\"([^\"]+)\"|<h[1-4][^>]*>(.*?)</h[1-4]>|<dt>(.*?)</dt>|<frame src=\"([^\"]+)\" name=\"([^\"]+)\"|href=\"([^\"]+)\"",
+            Pattern.DOTALL);
+
+    private static List<String> javadoc(File sources, File destDir) {
+        List<String> args = new ArrayList<String>(Arrays.asList("-quiet", "-notimestamp", "-d", destDir.getPath(),
+                "-sourcepath", sources.getPath()));
+        args.addAll(PageWriter.REQUIRED_OPTIONS);
+        args.addAll(Arrays.asList("demo", "demo.util"));
+        return args;
+    }
+
+    private static Set<String> pages(File destDir) {
+        Set<String> pages = new TreeSet<String>();
+        for (File file : Files.fileTreeTraverser().preOrderTraversal(destDir)) {
+            if (file.getName().endsWith(".html")) pages.add(destDir.toURI().relativize(file.toURI()).getPath());
+        }
+        return pages;
+    }
+
+    /**
+     * Lists the anchors, headings, labels, frames and resolved links of a page between the navigation bars,
+     * leaving out the markup both doclets lay out differently.
+     */
+    private static List<String> outline(File destDir, String page) throws IOException {
+        String html = Files.toString(new File(destDir, page), Charsets.UTF_8);
+        int start = html.indexOf("<div class=\"header\">");
+        if (start < 0) start = html.indexOf("<div class=\"contentContainer\">");
+        if (start >= 0) html = html.substring(start, html.indexOf("<div class=\"bottomNav\">"));
+        List<String> outline = new ArrayList<String>();
+        Matcher matcher = OUTLINE.matcher(html);
+        while (matcher.find()) {
+            if (matcher.group(1) != null) {
+                outline.add("anchor " + matcher.group(1));
+            } else if (matcher.group(2) != null) {
+                outline.add("heading " + plain(matcher.group(2)));
+            } else if (matcher.group(3) != null) {
+                outline.add("label " + plain(matcher.group(3)));
+            } else if (matcher.group(4) != null) {
+                outline.add("frame " + matcher.group(5) + " " + matcher.group(4));
+            } else {
+                String href = matcher.group(6);
+                if (href.startsWith("javascript:") || href.endsWith(".css")) continue;
+                outline.add("link " + URI.create(page).resolve(href));
+            }
+        }
+        return outline;
+    }
+
+    private static String plain(String html) {
+        return html.replaceAll("<[^>]+>", "").replace("&nbsp;", " ").replaceAll("\\s+", " ").trim();
+    }
+
+    private static void write(File directory, String path, String content) throws IOException {
+        File file = new File(directory, path);
+        Files.createParentDirs(file);
+        Files.write(content, file, Charsets.UTF_8);
+    }
+
+    /**
+     * Answers empty arrays and strings, so only the parts of the model a page shows need to be stubbed.
+     */
+    private static final Answer<Object> EMPTY = new Answer<Object>() {
+        @Override
+        public Object answer(InvocationOnMock invocation) throws Throwable {
+            Class<?> type = invocation.getMethod().getReturnType();
+            if (type.isArray()) return Array.newInstance(type.getComponentType(), 0);
+            if (type == String.class) return "";
+            return RETURNS_DEFAULTS.answer(invocation);
+        }
+    };
+
+    private static <T extends MemberDoc> T member(Class<T> type, ClassDoc containingClass, String name, String modifiers) {
+        T member = mock(type, EMPTY);
+        when(member.name()).thenReturn(name);
+        when(member.modifiers()).thenReturn(modifiers);
+        when(member.containingClass()).thenReturn(containingClass);
+        String sentence = "The " + name + ".";
+        doReturn(text(sentence)).when(member).inlineTags();
+        doReturn(text(sentence)).when(member).firstSentenceTags();
+        return member;
+    }
+
+    private static Type type(String qualifiedName) {
+        Type type = mock(Type.class, EMPTY);
+        when(type.qualifiedTypeName()).thenReturn(qualifiedName);
+        when(type.typeName()).thenReturn(qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1));
+        return type;
+    }
+
+    private static Tag[] text(String text) {
+        Tag tag = mock(Tag.class, EMPTY);
+        when(tag.name()).thenReturn("Text");
+        when(tag.text()).thenReturn(text);
+        return new Tag[]{tag};
+    }
+
+    private static void assertContains(String html, String expected) {
+        assertTrue("Expected\n" + expected + "\nin\n" + html, html.contains(expected));
+    }
+
+    private static Set<String> cssClasses(String html) {
+        Set<String> classes = new TreeSet<String>();
+        Matcher matcher = Pattern.compile("class=\"([^\"]+)\"").matcher(html);
+        while (matcher.find()) {
+            for (String cssClass : matcher.group(1).split(" ")) classes.add(cssClass);
+        }
+        return classes;
+    }
+}
@@ -0,0 +1,44 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class PreRenderStoreTest {
+
+    private static final String KEY = RenderCache.key("options", false, "Foo");
+    private static final String OTHER_KEY = RenderCache.key("options", true, "Bar");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        File file = new File(folder.getRoot(), "comments.gz");
+        PreRenderStore.write(file, ImmutableMap.of(KEY, "<p>Foo \u2713</p>", OTHER_KEY, ""));
+
+        PreRenderStore store = PreRenderStore.read(file);
+
+        assertEquals(2, store.size());
+        assertEquals(ImmutableMap.of(KEY, "<p>Foo \u2713</p>"),
+                store.lookup(ImmutableList.of(KEY, RenderCache.key("options", false, "Baz"))));
+        assertEquals(ImmutableMap.of(OTHER_KEY, ""), store.lookup(ImmutableList.of(OTHER_KEY)));
+        assertFalse(store.store(KEY, "<p>Changed</p>"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotAStore() throws IOException {
+        File file = new File(folder.getRoot(), "comments.gz");
+        Files.write(new byte[]{1, 2, 3}, file);
+
+        PreRenderStore.read(file);
+    }
+}
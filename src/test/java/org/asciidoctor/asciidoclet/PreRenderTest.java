@@ -0,0 +1,129 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import com.sun.javadoc.*;
+import org.asciidoctor.Asciidoctor;
+import org.asciidoctor.Options;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.asciidoctor.asciidoclet.DocletOptions.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class PreRenderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ExecutorService executor;
+    private Asciidoctor mockAsciidoctor;
+    private DocletOptions docletOptions;
+
+    @Before
+    public void setup() {
+        executor = Executors.newFixedThreadPool(2);
+        mockAsciidoctor = mock(Asciidoctor.class);
+        docletOptions = new DocletOptions(new String[][]{{PRERENDERED, "comments.gz"}});
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testRun() throws Exception {
+        File sources = folder.newFolder("src");
+        new File(sources, "foo").mkdir();
+        Files.write("/** A class */\nclass Foo {\n    /**\n     * A method\n     * @return value\n     * @see include::foo.adoc[]\n     */\n    int foo() { return 0; }\n}\n",
+                new File(sources, "foo/Foo.java"), Charsets.UTF_8);
+        Files.write("/** A class */\nclass Bar {}\n", new File(sources, "foo/Bar.java"), Charsets.UTF_8);
+        Files.write("/** Not a source */", new File(sources, "foo/notes.txt"), Charsets.UTF_8);
+        when(mockAsciidoctor.render(anyString(), any(Options.class))).thenReturn("rendered");
+        when(mockAsciidoctor.render(eq("value"), any(Options.class))).thenThrow(new RuntimeException("failed"));
+        AsciidoctorRenderer renderer = new AsciidoctorRenderer(docletOptions, Optional.<OutputTemplates>absent(), mockAsciidoctor);
+        PreRender preRender = new PreRender(docletOptions, renderer, executor);
+
+        Map<String, String> outputs = preRender.run(ImmutableList.of(sources));
+
+        assertEquals(2, preRender.files());
+        assertEquals(3, preRender.comments());
+        assertEquals(1, preRender.failures());
+        assertEquals(2, outputs.size());
+        assertEquals("rendered", outputs.get(renderer.remoteKey("A class", false)));
+        assertEquals("rendered", outputs.get(renderer.remoteKey("A method", false)));
+        verify(mockAsciidoctor, never()).render(eq("include::foo.adoc[]"), any(Options.class));
+    }
+
+    @Test
+    public void testOutputsAreApplied() throws Exception {
+        File source = folder.newFile("Foo.java");
+        Files.write("/**\n * A class\n */\nclass Foo {}\n", source, Charsets.UTF_8);
+        when(mockAsciidoctor.render(anyString(), any(Options.class))).thenReturn("rendered");
+        AsciidoctorRenderer renderer = new AsciidoctorRenderer(docletOptions, Optional.<OutputTemplates>absent(), mockAsciidoctor);
+        PreRenderStore store = new PreRenderStore(source, new PreRender(docletOptions, renderer, executor).run(ImmutableList.of(source)));
+        mockAsciidoctor = mock(Asciidoctor.class);
+        ClassDoc mockClassDoc = mock(ClassDoc.class);
+        when(mockClassDoc.getRawCommentText()).thenReturn(" A class\n");
+        when(mockClassDoc.fields()).thenReturn(new FieldDoc[0]);
+        when(mockClassDoc.constructors()).thenReturn(new ConstructorDoc[0]);
+        when(mockClassDoc.methods()).thenReturn(new MethodDoc[0]);
+        when(mockClassDoc.enumConstants()).thenReturn(new FieldDoc[0]);
+
+        renderer = new AsciidoctorRenderer(docletOptions, Optional.<OutputTemplates>absent(), mockAsciidoctor);
+        renderer.cacheRemotely(store);
+        renderer.renderDoc(mockClassDoc);
+
+        verifyZeroInteractions(mockAsciidoctor);
+        verify(mockClassDoc).setRawCommentText("rendered\n");
+    }
+
+    @Test
+    public void testBlocksArePreRendered() throws Exception {
+        File source = folder.newFile("Foo.java");
+        Files.write("/**\n * A class\n *\n * ----\n * Foo foo;\n * ----\n */\nclass Foo {}\n", source, Charsets.UTF_8);
+        docletOptions = new DocletOptions(new String[][]{{PRERENDERED, "comments.gz"}, {BLOCK_CACHE}});
+        when(mockAsciidoctor.render(anyString(), any(Options.class))).thenReturn("rendered");
+        AsciidoctorRenderer renderer = new AsciidoctorRenderer(docletOptions, Optional.<OutputTemplates>absent(), mockAsciidoctor);
+
+        Map<String, String> outputs = new PreRender(docletOptions, renderer, executor).run(ImmutableList.of(source));
+
+        assertEquals(2, outputs.size());
+        assertEquals("rendered", outputs.get(renderer.remoteKey("A class\n\n----\nFoo foo;\n----", false)));
+        assertEquals("rendered", outputs.get(renderer.blockRemoteKey("----\nFoo foo;\n----")));
+    }
+
+    @Test
+    public void testOptions() {
+        List<String> arguments = new ArrayList<String>();
+
+        String[][] options = PreRender.options(new String[]{ATTRIBUTES, "a=1", "comments.gz", ENCODING, "UTF-8", "src"}, arguments);
+
+        assertEquals(ImmutableList.of("comments.gz", "src"), arguments);
+        assertArrayEquals(new String[][]{{ATTRIBUTES, "a=1"}, {ENCODING, "UTF-8"}}, options);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownOption() {
+        PreRender.options(new String[]{"-d", "docs"}, new ArrayList<String>());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingValue() {
+        PreRender.options(new String[]{ATTRIBUTES}, new ArrayList<String>());
+    }
+}
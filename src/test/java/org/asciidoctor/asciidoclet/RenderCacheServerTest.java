@@ -0,0 +1,78 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+
+import static org.junit.Assert.assertEquals;
+
+public class RenderCacheServerTest {
+
+    private static final String KEY = RenderCache.key("options", false, "Foo");
+
+    private RenderCache cache;
+    private RenderCacheServer server;
+
+    @Before
+    public void setup() throws IOException {
+        cache = new RenderCache();
+        server = new RenderCacheServer(new InetSocketAddress("localhost", 0), cache);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testPutAndGet() throws IOException {
+        assertEquals(404, request("GET", KEY, null).getResponseCode());
+
+        assertEquals(204, request("PUT", KEY, "<p>Foo \u2713</p>").getResponseCode());
+
+        HttpURLConnection connection = request("GET", KEY, null);
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("<p>Foo \u2713</p>", new String(ByteStreams.toByteArray(connection.getInputStream()), Charsets.UTF_8));
+        assertEquals("<p>Foo \u2713</p>", cache.get(KEY).get());
+    }
+
+    @Test
+    public void testBatchedLookup() throws IOException {
+        String other = RenderCache.key("options", true, "Bar");
+        cache.put(KEY, "<p>Foo</p>");
+
+        HttpURLConnection connection = request("GET", "?keys=" + KEY + "," + other, null);
+
+        assertEquals(200, connection.getResponseCode());
+        assertEquals(KEY + " 10\n<p>Foo</p>", new String(ByteStreams.toByteArray(connection.getInputStream()), Charsets.UTF_8));
+    }
+
+    @Test
+    public void testInvalidRequests() throws IOException {
+        assertEquals(404, request("PUT", "foo", "<p>Foo</p>").getResponseCode());
+        assertEquals(400, request("GET", "?keys=foo", null).getResponseCode());
+        assertEquals(400, request("GET", "", null).getResponseCode());
+        assertEquals(405, request("DELETE", KEY, null).getResponseCode());
+    }
+
+    private HttpURLConnection request(String method, String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.port() + "/" + path).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            OutputStream out = connection.getOutputStream();
+            out.write(body.getBytes(Charsets.UTF_8));
+            out.close();
+        }
+        return connection;
+    }
+}
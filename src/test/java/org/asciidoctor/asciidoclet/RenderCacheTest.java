@@ -0,0 +1,36 @@
+package org.asciidoctor.asciidoclet;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RenderCacheTest {
+
+    @Test
+    public void testKeyDependsOnAllInputs() {
+        String key = RenderCache.key("options", false, "input");
+
+        assertEquals(key, RenderCache.key("options", false, "input"));
+        assertFalse(key.equals(RenderCache.key("other", false, "input")));
+        assertFalse(key.equals(RenderCache.key("options", true, "input")));
+        assertFalse(key.equals(RenderCache.key("options", false, "other")));
+    }
+
+    @Test
+    public void testPutAndGet() {
+        RenderCache cache = new RenderCache();
+
+        assertFalse(cache.get("key").isPresent());
+        cache.put("key", "output");
+        assertEquals("output", cache.get("key").get());
+    }
+
+    @Test
+    public void testSizeIsBounded() {
+        RenderCache cache = new RenderCache(10);
+
+        cache.put("a", "12345678901234567890");
+
+        assertFalse(cache.get("a").isPresent());
+    }
+}
@@ -0,0 +1,87 @@
+package org.asciidoctor.asciidoclet;
+
+import com.sun.javadoc.*;
+import org.junit.Test;
+
+import static org.asciidoctor.asciidoclet.DocletOptions.*;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RenderFilterTest {
+
+    @Test
+    public void testDisabled() {
+        RenderFilter filter = new RenderFilter(DocletOptions.NONE);
+        assertFalse(filter.enabled());
+        assertFalse(filter.skip(mockClass("com.example", null)));
+    }
+
+    @Test
+    public void testPackages() {
+        RenderFilter filter = new RenderFilter(new DocletOptions(new String[][]{
+                {INCLUDE_PACKAGES, "com.example.*"}, {EXCLUDE_PACKAGES, "com.example.proto.*,*.internal"}}));
+        assertTrue(filter.enabled());
+        assertFalse(filter.skip(mockPackage("com.example")));
+        assertFalse(filter.skip(mockPackage("com.example.api")));
+        assertTrue(filter.skip(mockPackage("com.examples")));
+        assertTrue(filter.skip(mockPackage("org.other")));
+        assertTrue(filter.skip(mockPackage("com.example.proto")));
+        assertTrue(filter.skip(mockPackage("com.example.proto.v1")));
+        assertTrue(filter.skip(mockPackage("com.example.api.internal")));
+        assertTrue(filter.skip(mockClass("com.example.proto", null)));
+    }
+
+    @Test
+    public void testAnnotations() {
+        RenderFilter filter = new RenderFilter(new DocletOptions(new String[][]{{EXCLUDE_ANNOTATED, "Generated;com.example.Skip"}}));
+        ClassDoc generated = mockClass("com.example", "javax.annotation.Generated");
+        assertTrue(filter.skip(generated));
+        assertTrue(filter.skip(mockClass("com.example", "com.example.Skip")));
+        assertFalse(filter.skip(mockClass("com.example", "org.other.Skip")));
+        assertFalse(filter.skip(mockClass("com.example", null)));
+
+        ClassDoc nested = mockClass("com.example", null);
+        when(nested.containingClass()).thenReturn(generated);
+        assertTrue(filter.skip(nested));
+
+        MethodDoc method = mock(MethodDoc.class);
+        AnnotationDesc[] annotations = annotations("javax.annotation.Generated");
+        when(method.annotations()).thenReturn(annotations);
+        assertTrue(filter.skipMember(method));
+    }
+
+    @Test
+    public void testGlob() {
+        assertTrue(RenderFilter.glob("com.*.api").matcher("com.example.api").matches());
+        assertTrue(RenderFilter.glob("*").matcher("com.example").matches());
+        assertFalse(RenderFilter.glob("com.example").matcher("com.example.api").matches());
+        assertFalse(RenderFilter.glob("com.ex.*").matcher("com.example").matches());
+    }
+
+    private static PackageDoc mockPackage(String name) {
+        PackageDoc packageDoc = mock(PackageDoc.class);
+        when(packageDoc.name()).thenReturn(name);
+        return packageDoc;
+    }
+
+    private static ClassDoc mockClass(String packageName, String annotation) {
+        ClassDoc classDoc = mock(ClassDoc.class);
+        PackageDoc packageDoc = mockPackage(packageName);
+        when(classDoc.containingPackage()).thenReturn(packageDoc);
+        AnnotationDesc[] annotations = annotations(annotation);
+        when(classDoc.annotations()).thenReturn(annotations);
+        return classDoc;
+    }
+
+    private static AnnotationDesc[] annotations(String qualifiedName) {
+        if (qualifiedName == null) return new AnnotationDesc[0];
+        AnnotationTypeDoc type = mock(AnnotationTypeDoc.class);
+        when(type.qualifiedTypeName()).thenReturn(qualifiedName);
+        when(type.simpleTypeName()).thenReturn(qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1));
+        AnnotationDesc annotation = mock(AnnotationDesc.class);
+        when(annotation.annotationType()).thenReturn(type);
+        return new AnnotationDesc[]{annotation};
+    }
+}
@@ -0,0 +1,58 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.sun.javadoc.DocErrorReporter;
+import com.sun.javadoc.MethodDoc;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class RenderProfileTest {
+
+    private DocErrorReporter mockErrorReporter;
+
+    @Before
+    public void setup() {
+        mockErrorReporter = mock(DocErrorReporter.class);
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        RenderProfile profile = RenderProfile.create(DocletOptions.NONE, mockErrorReporter);
+
+        assertSame(RenderProfile.DISABLED, profile);
+        assertEquals(0, profile.start());
+        profile.close(mockErrorReporter);
+        verifyZeroInteractions(mockErrorReporter);
+    }
+
+    @Test
+    public void testRecordEvents() throws Exception {
+        File file = new File(Files.createTempDir(), "profile.tsv");
+        MethodDoc mockMethod = mock(MethodDoc.class);
+        when(mockMethod.qualifiedName()).thenReturn("example.Foo.bar");
+        when(mockMethod.flatSignature()).thenReturn("(String)");
+
+        RenderProfile profile = RenderProfile.create(new DocletOptions(new String[][]{{DocletOptions.PROFILE, file.getPath()}}), mockErrorReporter);
+        long start = profile.start();
+        profile.render(mockMethod, true, 10, 20, start, start + 1000, start + 3000);
+        profile.render(null, false, 30, 40, start, start + 1000, start + 2000);
+        profile.phase("stylesheets", profile.start());
+        profile.close(mockErrorReporter);
+
+        List<String> lines = Files.readLines(file, Charsets.UTF_8);
+        assertEquals(RenderProfile.HEADER, lines.get(0));
+        assertTrue(lines.get(1).startsWith("render\texample.Foo.bar(String)\tinline\t10\t20\t1\t2\t"));
+        assertTrue(lines.get(2).startsWith("render\t-\tblock\t30\t40\t1\t1\t"));
+        assertTrue(lines.get(3).startsWith("phase\tstylesheets\t-\t-\t-\t-\t-\t"));
+        verify(mockErrorReporter).printNotice(anyString());
+        file.delete();
+        file.getParentFile().delete();
+    }
+}
@@ -0,0 +1,78 @@
+package org.asciidoctor.asciidoclet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.asciidoctor.asciidoclet.DocletOptions.*;
+import static org.junit.Assert.*;
+
+public class RenderRecorderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        DocletOptions options = new DocletOptions(new String[][]{{INCLUDE_BASEDIR, "base"}, {ATTRIBUTES, "a=1;b=2"}});
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        RenderRecorder recorder = new RenderRecorder(bytes, options);
+        recorder.record("A *b*", false, "<p>A <strong>b</strong></p>", 1000);
+        recorder.record("caf\u00e9", true, null, 2000);
+        recorder.close();
+        assertEquals(2, recorder.records());
+
+        RenderReplay replay = RenderReplay.read(new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertEquals(2, replay.renders().size());
+        assertEquals("A *b*", replay.renders().get(0).input);
+        assertFalse(replay.renders().get(0).inline);
+        assertEquals("<p>A <strong>b</strong></p>", replay.renders().get(0).output);
+        assertEquals(1000, replay.renders().get(0).nanos);
+        assertEquals("caf\u00e9", replay.renders().get(1).input);
+        assertTrue(replay.renders().get(1).inline);
+        assertNull(replay.renders().get(1).output);
+    }
+
+    @Test
+    public void testFile() throws Exception {
+        File file = new File(folder.getRoot(), "renders.bin");
+        RenderRecorder recorder = RenderRecorder.open(file, DocletOptions.NONE);
+        recorder.record("a", false, "<p>a</p>", 1);
+        recorder.close();
+
+        assertEquals(1, RenderReplay.read(file).renders().size());
+    }
+
+    @Test
+    public void testAsciidoctorOptions() {
+        DocletOptions options = new DocletOptions(new String[][]{
+                {INCLUDE_BASEDIR, "base"}, {ATTRIBUTES, "a=1;b=2"}, {DESTDIR, "docs"}, {REPRODUCIBLE}});
+
+        String[][] recorded = RenderRecorder.asciidoctorOptions(options).toArray(new String[0][]);
+
+        assertArrayEquals(new String[][]{{INCLUDE_BASEDIR, "base"}, {ATTRIBUTES, "a=1"}, {ATTRIBUTES, "b=2"}, {REPRODUCIBLE}}, recorded);
+        assertEquals(RenderRecorder.fingerprint(options), RenderRecorder.fingerprint(new DocletOptions(recorded)));
+    }
+
+    @Test(expected = IOException.class)
+    public void testWriteErrorIsThrownOnClose() throws Exception {
+        final boolean[] failing = {false};
+        RenderRecorder recorder = new RenderRecorder(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                if (failing[0]) throw new IOException("disk full");
+            }
+        }, DocletOptions.NONE);
+        failing[0] = true;
+        recorder.record("a", false, "<p>a</p>", 1);
+        assertEquals(0, recorder.records());
+        recorder.close();
+    }
+}
@@ -0,0 +1,99 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import org.asciidoctor.Asciidoctor;
+import org.asciidoctor.Options;
+import org.junit.Test;
+import org.mockito.ArgumentMatcher;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+public class RenderReplayTest {
+
+    @Test
+    public void testRun() throws Exception {
+        Asciidoctor mockAsciidoctor = mock(Asciidoctor.class);
+        when(mockAsciidoctor.render(eq("a"), any(Options.class))).thenReturn("<p>a</p>");
+        when(mockAsciidoctor.render(eq("b\nmore"), any(Options.class))).thenReturn("<p>b</p>\n<p>more</p>");
+        RenderReplay replay = new RenderReplay(RenderRecorder.fingerprint(DocletOptions.NONE), new String[0][], ImmutableList.of(
+                new RenderReplay.Render("a", false, "<p>a</p>", 1000000),
+                new RenderReplay.Render("b\nmore", true, "<p>b</p>", 2000000)));
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+
+        int differences = replay.run(mockAsciidoctor, new AsciidoctorRenderer.RenderOptions(DocletOptions.NONE, Optional.<OutputTemplates>absent()),
+                2, new PrintStream(report, true, "UTF-8"));
+
+        assertEquals(1, differences);
+        verify(mockAsciidoctor, times(2)).render(eq("a"), any(Options.class));
+        String output = report.toString("UTF-8");
+        assertTrue(output, output.startsWith("Rendered 2 inputs in "));
+        assertTrue(output, output.contains("recorded run took 3 ms"));
+        assertTrue(output, output.contains("Output of input 1 differs: b\n"));
+        assertTrue(output, output.endsWith("1 outputs differ from the recording\n"));
+    }
+
+    @Test
+    public void testOptionsArePickedPerRecord() throws Exception {
+        Asciidoctor mockAsciidoctor = mock(Asciidoctor.class);
+        OutputTemplates mockTemplates = mock(OutputTemplates.class);
+        when(mockTemplates.templateDir()).thenReturn(new File("templates"));
+        String listing = "[source,java]\n----\nFoo foo;\n----";
+        RenderReplay replay = new RenderReplay(RenderRecorder.fingerprint(DocletOptions.NONE), new String[0][], ImmutableList.of(
+                new RenderReplay.Render("a `source` link", true, null, 1000000),
+                new RenderReplay.Render("plain", true, null, 1000000),
+                new RenderReplay.Render(listing, false, null, 1000000),
+                new RenderReplay.Render("paragraph", false, null, 1000000)));
+
+        replay.run(mockAsciidoctor, new AsciidoctorRenderer.RenderOptions(DocletOptions.NONE, Optional.of(mockTemplates)),
+                1, new PrintStream(new ByteArrayOutputStream(), true, "UTF-8"));
+
+        verify(mockAsciidoctor).render(eq("a `source` link"), argThat(new OptionsMatcher(true, false, true)));
+        verify(mockAsciidoctor).render(eq("plain"), argThat(new OptionsMatcher(true, false, false)));
+        verify(mockAsciidoctor).render(eq(listing), argThat(new OptionsMatcher(false, true, true)));
+        verify(mockAsciidoctor).render(eq("paragraph"), argThat(new OptionsMatcher(false, true, false)));
+    }
+
+    @Test
+    public void testChangedOptions() throws Exception {
+        RenderReplay replay = new RenderReplay("recorded", new String[0][], ImmutableList.<RenderReplay.Render>of());
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+
+        replay.run(mock(Asciidoctor.class), new AsciidoctorRenderer.RenderOptions(DocletOptions.NONE, Optional.<OutputTemplates>absent()),
+                1, new PrintStream(report, true, "UTF-8"));
+
+        assertTrue(report.toString("UTF-8").startsWith("The Asciidoctor options differ from those of the recording"));
+    }
+
+    private static final class OptionsMatcher extends ArgumentMatcher<Options> {
+
+        private final boolean inline;
+        private final boolean templates;
+        private final boolean highlight;
+
+        private OptionsMatcher(boolean inline, boolean templates, boolean highlight) {
+            this.inline = inline;
+            this.templates = templates;
+            this.highlight = highlight;
+        }
+
+        @Override
+        public boolean matches(Object input) {
+            Map<String, Object> options = ((Options) input).map();
+            Map<?, ?> attributes = (Map<?, ?>) options.get(Options.ATTRIBUTES);
+            return AsciidoctorRenderer.INLINE_DOCTYPE.equals(options.get(Options.DOCTYPE)) == inline
+                    && options.containsKey(Options.TEMPLATE_DIRS) == templates
+                    && attributes.containsKey("source-highlighter") == highlight;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.sun.javadoc.DocErrorReporter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class ReproducibleOutputTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String PAGE = "<html>\n<head>\n<!-- Generated by javadoc (1.8.0_392) on Sat Oct 18 12:00:00 UTC 2026 -->\n"
+            + "<title>Foo</title>\n<meta name=\"date\" content=\"2026-10-18\">\n</head>\n</html>\n";
+    private static final String PAGE_WITHOUT_TIMESTAMP = "<html>\n<head>\n<!-- Generated by javadoc -->\n"
+            + "<title>Foo</title>\n</head>\n</html>\n";
+
+    @Test
+    public void testDateAttributes() {
+        Map<String, Object> attributes = ReproducibleOutput.dateAttributes("86461");
+        assertEquals("1970-01-02", attributes.get("localdate"));
+        assertEquals("00:01:01 UTC", attributes.get("localtime"));
+        assertEquals("1970-01-02 00:01:01 UTC", attributes.get("localdatetime"));
+        assertEquals("1970-01-01", ReproducibleOutput.dateAttributes(null).get("localdate"));
+        assertEquals("1970-01-01", ReproducibleOutput.dateAttributes("yesterday").get("localdate"));
+    }
+
+    @Test
+    public void testRemoveTimestamps() {
+        assertEquals(PAGE_WITHOUT_TIMESTAMP, ReproducibleOutput.removeTimestamps(PAGE));
+        assertEquals(PAGE_WITHOUT_TIMESTAMP, ReproducibleOutput.removeTimestamps(PAGE_WITHOUT_TIMESTAMP));
+    }
+
+    @Test
+    public void testRemoveTimestampsFromPages() throws Exception {
+        File destDir = folder.newFolder("docs");
+        File page = new File(destDir, "com/example/Foo.html");
+        page.getParentFile().mkdirs();
+        Files.write(PAGE, page, Charsets.UTF_8);
+        Files.write(PAGE_WITHOUT_TIMESTAMP, new File(destDir, "index.html"), Charsets.UTF_8);
+        Files.write(PAGE, new File(destDir, "notes.txt"), Charsets.UTF_8);
+        DocErrorReporter mockErrorReporter = mock(DocErrorReporter.class);
+
+        assertTrue(new ReproducibleOutput(destDir, mockErrorReporter).removeTimestamps());
+
+        assertEquals(PAGE_WITHOUT_TIMESTAMP, Files.toString(page, Charsets.UTF_8));
+        assertEquals(PAGE, Files.toString(new File(destDir, "notes.txt"), Charsets.UTF_8));
+        verify(mockErrorReporter).printNotice("Removed the generation time from 1 pages, run with -notimestamp to skip this step");
+    }
+}
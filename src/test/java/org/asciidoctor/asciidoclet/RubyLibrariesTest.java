@@ -0,0 +1,38 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Optional;
+import org.jruby.Ruby;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RubyLibrariesTest {
+
+    @Test
+    public void testRequireOnce() {
+        Ruby ruby = Ruby.newInstance();
+        try {
+            RubyLibraries libraries = new RubyLibraries(Optional.of(ruby));
+
+            assertFalse(libraries.isLoaded("set"));
+            libraries.require("set", RenderProfile.DISABLED);
+            libraries.require("set", RenderProfile.DISABLED);
+
+            assertTrue(libraries.isLoaded("set"));
+            assertTrue(ruby.evalScriptlet("defined?(Set) != nil").isTrue());
+            assertTrue(libraries.report().matches("Loaded Ruby libraries on demand: set in \\d+ ms"));
+        } finally {
+            ruby.tearDown();
+        }
+    }
+
+    @Test
+    public void testWithoutRuntime() {
+        RubyLibraries libraries = new RubyLibraries(Optional.<Ruby>absent());
+
+        libraries.require(RubyLibraries.CODERAY, RenderProfile.DISABLED);
+
+        assertFalse(libraries.isLoaded(RubyLibraries.CODERAY));
+        assertEquals("Loaded no optional Ruby libraries", libraries.report());
+    }
+}
@@ -0,0 +1,68 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+
+public class SourceCommentsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testExtract() {
+        String source = "/** Class */\n" +
+                "class Foo {\n" +
+                "    /**\n" +
+                "     * Field\n" +
+                "     *   indented\n" +
+                "     */\n" +
+                "    int a;\n" +
+                "    /**\n" +
+                "       No star\n" +
+                "    **/\n" +
+                "    int b;\n" +
+                "}\n";
+
+        assertEquals(ImmutableList.of("Class ", " Field\n   indented\n", "       No star\n"), SourceComments.extract(source));
+    }
+
+    @Test
+    public void testExtractSkipsOtherComments() {
+        String source = "// /** line */\n" +
+                "/* /** block */\n" +
+                "/**/\n" +
+                "String s = \"/** string \\\" */\";\n" +
+                "char c = '\"';\n" +
+                "/***** Stars */\n" +
+                "/** */\n";
+
+        assertEquals(ImmutableList.of("Stars ", ""), SourceComments.extract(source));
+    }
+
+    @Test
+    public void testLineTerminators() {
+        assertEquals(ImmutableList.of(" a\n b\n"), SourceComments.extract("/**\r\n * a\r * b\r\n */"));
+    }
+
+    @Test
+    public void testUnclosedComment() {
+        assertEquals(ImmutableList.of(), SourceComments.extract("/** Foo"));
+    }
+
+    @Test
+    public void testRead() throws Exception {
+        File file = new File(folder.getRoot(), "Foo.java");
+        Files.write("/** Caf\u00e9 */ class Foo {}", file, Charsets.ISO_8859_1);
+
+        assertEquals("/** Caf\u00e9 */ class Foo {}", SourceComments.read(file, Charsets.ISO_8859_1).toString());
+        assertEquals(ImmutableList.of("Caf\u00e9 "), SourceComments.extract(SourceComments.read(file, Charsets.ISO_8859_1)));
+    }
+}
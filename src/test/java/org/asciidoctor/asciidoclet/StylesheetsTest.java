@@ -1,8 +1,14 @@
 package org.asciidoctor.asciidoclet;
 
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
 import com.sun.javadoc.DocErrorReporter;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
@@ -10,6 +16,9 @@ import static org.asciidoctor.asciidoclet.Stylesheets.*;
 
 public class StylesheetsTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private Stylesheets stylesheets;
     private DocErrorReporter mockErrorReporter;
 
@@ -48,4 +57,16 @@ public class StylesheetsTest {
         assertEquals(JAVA8_STYLESHEET, stylesheets.selectStylesheet("42.3.0_12"));
         verify(mockErrorReporter).printWarning(anyString());
     }
+
+    @Test
+    public void sharedStylesheetImportsParent() throws Exception {
+        File dir = folder.newFolder("1.0");
+        Files.write("copy", new File(dir, OUTPUT_STYLESHEET), Charsets.UTF_8);
+        Files.write("copy", new File(dir, CODERAY_STYLESHEET), Charsets.UTF_8);
+
+        assertTrue(stylesheets.share(dir));
+
+        assertEquals("@import url('../stylesheet.css');\n", Files.toString(new File(dir, OUTPUT_STYLESHEET), Charsets.UTF_8));
+        assertFalse(new File(dir, CODERAY_STYLESHEET).exists());
+    }
 }
@@ -0,0 +1,80 @@
+package org.asciidoctor.asciidoclet;
+
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.FieldDoc;
+import com.sun.javadoc.MethodDoc;
+import com.sun.javadoc.RootDoc;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SymbolIndexTest {
+
+    private SymbolIndex index;
+
+    @Before
+    public void setup() {
+        ClassDoc options = classDoc("org.example.Options", "Options");
+        ClassDoc nested = classDoc("org.example.Outer.Inner", "Outer.Inner");
+        ClassDoc first = classDoc("org.example.a.Duplicate", "Duplicate");
+        ClassDoc second = classDoc("org.example.b.Duplicate", "Duplicate");
+        MethodDoc method = mock(MethodDoc.class);
+        when(method.name()).thenReturn("destDir");
+        when(method.containingClass()).thenReturn(options);
+        FieldDoc field = mock(FieldDoc.class);
+        when(field.name()).thenReturn("NONE");
+        when(field.containingClass()).thenReturn(options);
+        when(options.methods()).thenReturn(new MethodDoc[]{method});
+        when(options.fields()).thenReturn(new FieldDoc[]{field});
+
+        RootDoc mockRootDoc = mock(RootDoc.class);
+        when(mockRootDoc.classes()).thenReturn(new ClassDoc[]{options, nested, first, second});
+        index = SymbolIndex.build(mockRootDoc);
+    }
+
+    private static ClassDoc classDoc(String qualifiedName, String name) {
+        ClassDoc classDoc = mock(ClassDoc.class);
+        when(classDoc.qualifiedName()).thenReturn(qualifiedName);
+        when(classDoc.name()).thenReturn(name);
+        when(classDoc.simpleTypeName()).thenReturn(name.substring(name.lastIndexOf('.') + 1));
+        when(classDoc.fields()).thenReturn(new FieldDoc[0]);
+        when(classDoc.enumConstants()).thenReturn(new FieldDoc[0]);
+        when(classDoc.methods()).thenReturn(new MethodDoc[0]);
+        return classDoc;
+    }
+
+    @Test
+    public void testTypesAreLinked() {
+        assertEquals("<p>See {@link org.example.Options Options} and {@link org.example.Outer.Inner Inner}.</p>",
+                index.link("<p>See <code>Options</code> and <code>Inner</code>.</p>"));
+        assertEquals("{@link org.example.Outer.Inner Outer.Inner} {@link org.example.a.Duplicate org.example.a.Duplicate}",
+                index.link("<code>Outer.Inner</code> <code>org.example.a.Duplicate</code>"));
+        assertEquals(4, index.links());
+    }
+
+    @Test
+    public void testMembersAreLinked() {
+        assertEquals("{@link org.example.Options#destDir Options#destDir()} {@link org.example.Options#destDir Options.destDir()}"
+                + " {@link org.example.Options#NONE org.example.Options#NONE}",
+                index.link("<code>Options#destDir()</code> <code>Options.destDir()</code> <code>org.example.Options#NONE</code>"));
+    }
+
+    @Test
+    public void testUnresolvedNamesAreKept() {
+        String html = "<p><code>Duplicate</code> <code>Unknown</code> <code class=\"x\">Options</code></p>";
+
+        assertEquals(html, index.link(html));
+        assertEquals(0, index.links());
+    }
+
+    @Test
+    public void testLinksAndListingsAreKept() {
+        String html = "<a href=\"x\"><code>Options</code></a><pre><code>Options</code></pre><abbr><code>Options</code></abbr>";
+
+        assertEquals("<a href=\"x\"><code>Options</code></a><pre><code>Options</code></pre><abbr>{@link org.example.Options Options}</abbr>",
+                index.link(html));
+    }
+}
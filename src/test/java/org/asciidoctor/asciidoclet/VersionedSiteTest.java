@@ -0,0 +1,129 @@
+package org.asciidoctor.asciidoclet;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import com.sun.javadoc.PackageDoc;
+import com.sun.javadoc.RootDoc;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+public class VersionedSiteTest {
+
+    private File destDir;
+    private RootDoc mockRootDoc;
+    private JavadocLauncher mockLauncher;
+    private Stylesheets mockStylesheets;
+    private VersionedSite.Documenter mockDocumenter;
+
+    @Before
+    public void setup() {
+        destDir = Files.createTempDir();
+        mockRootDoc = mock(RootDoc.class);
+        mockLauncher = mock(JavadocLauncher.class);
+        mockStylesheets = mock(Stylesheets.class);
+        mockDocumenter = mock(VersionedSite.Documenter.class);
+        when(mockStylesheets.copy()).thenReturn(true);
+        when(mockStylesheets.share(any(File.class))).thenReturn(true);
+        when(mockRootDoc.specifiedPackages()).thenReturn(new PackageDoc[0]);
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        StagedOutput.delete(destDir);
+    }
+
+    private VersionedSite site(String[][] options) {
+        when(mockRootDoc.options()).thenReturn(options);
+        return new VersionedSite(new DocletOptions(options), mockRootDoc, mockStylesheets);
+    }
+
+    @Test
+    public void testEachVersionIsDocumented() throws IOException {
+        PackageDoc mockPackageDoc = mock(PackageDoc.class);
+        when(mockPackageDoc.name()).thenReturn("org.example");
+        when(mockRootDoc.specifiedPackages()).thenReturn(new PackageDoc[]{mockPackageDoc});
+        VersionedSite site = site(new String[][]{{"-sourcepath", "src"}, {"-d", destDir.getPath()}, {"-notimestamp"},
+                {DocletOptions.VERSION, "1.0=v1"}, {DocletOptions.VERSION, "2.0=v2"}});
+
+        assertTrue(site.generate(mockLauncher, mockDocumenter));
+
+        verify(mockLauncher).execute(ImmutableList.of(DocletOptions.VERSIONED, "-notimestamp",
+                "-sourcepath", "v1", "-d", new File(destDir, "1.0").getPath(), "org.example"));
+        verify(mockLauncher).execute(ImmutableList.of(DocletOptions.VERSIONED, "-notimestamp",
+                "-sourcepath", "v2", "-d", new File(destDir, "2.0").getPath(), "org.example"));
+        verifyZeroInteractions(mockDocumenter);
+        verify(mockStylesheets).copy();
+        verify(mockStylesheets).share(new File(destDir, "1.0"));
+        verify(mockStylesheets).share(new File(destDir, "2.0"));
+        String index = Files.toString(new File(destDir, VersionedSite.INDEX), Charsets.UTF_8);
+        assertTrue(index.indexOf("<a href=\"1.0/index.html\">1.0</a>") < index.indexOf("<a href=\"2.0/index.html\">2.0</a>"));
+    }
+
+    @Test
+    public void testFailedVersion() {
+        VersionedSite site = site(new String[][]{{"-d", destDir.getPath()}, {DocletOptions.VERSION, "1.0=v1"}});
+        when(mockLauncher.execute(anyListOf(String.class))).thenReturn(1);
+
+        assertFalse(site.generate(mockLauncher, mockDocumenter));
+
+        verify(mockRootDoc).printError(contains("1.0"));
+        assertTrue(new File(destDir, VersionedSite.INDEX).isFile());
+    }
+
+    @Test
+    public void testVersionOfThisRunIsNotParsedAgain() {
+        VersionedSite site = site(new String[][]{{"-sourcepath", "src"}, {"-d", destDir.getPath()},
+                {DocletOptions.SHUTDOWN_RUNTIME}, {DocletOptions.VERSION, "1.0=v1"}, {DocletOptions.VERSION, "2.0=src"}});
+        when(mockDocumenter.document(eq(mockRootDoc), any(DocletOptions.class))).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                DocletOptions versionOptions = (DocletOptions) invocation.getArguments()[1];
+                assertEquals(new File(destDir, "2.0"), new DocletOptions(mockRootDoc).destDir().get());
+                assertEquals(new File(destDir, "2.0"), versionOptions.destDir().get());
+                assertTrue(versionOptions.versions().isEmpty());
+                assertFalse(versionOptions.shutdownRuntime());
+                assertTrue(versionOptions.versioned());
+                return true;
+            }
+        });
+
+        assertTrue(site.generate(mockLauncher, mockDocumenter));
+
+        verify(mockLauncher).execute(ImmutableList.of(DocletOptions.VERSIONED, "-sourcepath", "v1", "-d", new File(destDir, "1.0").getPath()));
+        verify(mockDocumenter).document(eq(mockRootDoc), any(DocletOptions.class));
+        verifyNoMoreInteractions(mockLauncher);
+        assertEquals(destDir, new DocletOptions(mockRootDoc).destDir().get());
+    }
+
+    @Test
+    public void testSubpackagesArePassedOn() {
+        PackageDoc mockPackageDoc = mock(PackageDoc.class);
+        when(mockPackageDoc.name()).thenReturn("org.example");
+        when(mockRootDoc.specifiedPackages()).thenReturn(new PackageDoc[]{mockPackageDoc});
+        when(mockRootDoc.options()).thenReturn(new String[][]{{"-subpackages", "org"}});
+
+        List<String> packages = VersionedSite.packages(mockRootDoc);
+
+        assertTrue(packages.isEmpty());
+    }
+
+    @Test
+    public void testIndexEscapesNames() {
+        assertTrue(VersionedSite.index(ImmutableList.of("a&b")).contains("<a href=\"a&amp;b/index.html\">a&amp;b</a>"));
+    }
+}